@@ -0,0 +1,55 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.drools.benchmarks.model.B;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Inserts the facts accumulated by the rules, then updates and deletes half of them,
+ * firing the rules after each step.
+ */
+public class AccumulateBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int factsNumber;
+
+    @Setup
+    public void setup() {
+        kbase = buildKnowledgeBase( Rules.ACCUMULATE_RULES );
+    }
+
+    @Benchmark
+    public int accumulate() {
+        StatefulKnowledgeSession ksession = newSession();
+        try {
+            for ( int i = 0; i < 10; i++ ) {
+                ksession.insert( new A( i, i ) );
+            }
+            B[] facts = new B[factsNumber];
+            FactHandle[] handles = new FactHandle[factsNumber];
+            for ( int i = 0; i < factsNumber; i++ ) {
+                facts[i] = new B( i, i % 10 );
+                handles[i] = ksession.insert( facts[i] );
+            }
+            int fired = ksession.fireAllRules();
+
+            for ( int i = 0; i < factsNumber; i += 2 ) {
+                facts[i].setValue( ( facts[i].getValue() + 1 ) % 10 );
+                ksession.update( handles[i], facts[i] );
+            }
+            fired += ksession.fireAllRules();
+
+            for ( int i = 1; i < factsNumber; i += 2 ) {
+                ksession.retract( handles[i] );
+            }
+            return fired + ksession.fireAllRules();
+        } finally {
+            ksession.dispose();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Deletes every fact of a session whose rules have already been fired.
+ */
+public class DeleteBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int factsNumber;
+
+    private StatefulKnowledgeSession ksession;
+    private FactHandle[] handles;
+
+    @Setup
+    public void setupKieBase() {
+        kbase = buildKnowledgeBase( Rules.ALPHA_RULES );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        ksession = newSession();
+        handles = new FactHandle[factsNumber];
+        for ( int i = 0; i < factsNumber; i++ ) {
+            handles[i] = ksession.insert( new A( i, i % 10 ) );
+        }
+        ksession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        ksession.dispose();
+    }
+
+    @Benchmark
+    public int delete() {
+        for ( int i = 0; i < factsNumber; i++ ) {
+            ksession.retract( handles[i] );
+        }
+        return ksession.fireAllRules();
+    }
+}
@@ -0,0 +1,35 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Inserts a batch of facts in a new session and fires the rules they activate.
+ */
+public class InsertBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int factsNumber;
+
+    @Setup
+    public void setup() {
+        kbase = buildKnowledgeBase( Rules.ALPHA_RULES );
+    }
+
+    @Benchmark
+    public int insert() {
+        StatefulKnowledgeSession ksession = newSession();
+        try {
+            for ( int i = 0; i < factsNumber; i++ ) {
+                ksession.insert( new A( i, i % 10 ) );
+            }
+            return ksession.fireAllRules();
+        } finally {
+            ksession.dispose();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.drools.benchmarks.model.B;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Inserts facts matched by two and three pattern joins, and fires the resulting activations.
+ */
+public class JoinBenchmark extends AbstractBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int factsNumber;
+
+    @Setup
+    public void setup() {
+        kbase = buildKnowledgeBase( Rules.JOIN_RULES );
+    }
+
+    @Benchmark
+    public int join() {
+        StatefulKnowledgeSession ksession = newSession();
+        try {
+            for ( int i = 0; i < factsNumber; i++ ) {
+                ksession.insert( new A( i, i % 10 ) );
+                ksession.insert( new B( i, i % 100 ) );
+            }
+            return ksession.fireAllRules();
+        } finally {
+            ksession.dispose();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.kie.internal.KnowledgeBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Compiles a DRL and builds the KieBase for it.
+ */
+public class KieBaseBuildBenchmark extends AbstractBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rulesNumber;
+
+    private String alphaDrl;
+    private String joinDrl;
+
+    @Setup
+    public void setup() {
+        alphaDrl = Rules.alphaRules( rulesNumber );
+        joinDrl = Rules.joinRules( rulesNumber );
+    }
+
+    @Benchmark
+    public KnowledgeBase buildAlphaRules() {
+        return buildKnowledgeBase( alphaDrl );
+    }
+
+    @Benchmark
+    public KnowledgeBase buildJoinRules() {
+        return buildKnowledgeBase( joinDrl );
+    }
+}
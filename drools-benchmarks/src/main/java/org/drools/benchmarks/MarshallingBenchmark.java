@@ -0,0 +1,66 @@
+package org.drools.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.drools.benchmarks.model.B;
+import org.kie.api.marshalling.Marshaller;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.marshalling.MarshallerFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Marshalls a session holding joined facts, and unmarshalls it back.
+ */
+public class MarshallingBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000"})
+    private int factsNumber;
+
+    private StatefulKnowledgeSession ksession;
+    private Marshaller marshaller;
+    private byte[] marshalled;
+
+    @Setup
+    public void setup() throws IOException {
+        kbase = buildKnowledgeBase( Rules.JOIN_RULES );
+        ksession = newSession();
+        for ( int i = 0; i < factsNumber; i++ ) {
+            ksession.insert( new A( i, i % 10 ) );
+            ksession.insert( new B( i, i % 100 ) );
+        }
+        ksession.fireAllRules();
+
+        marshaller = MarshallerFactory.newMarshaller( kbase );
+        marshalled = marshall();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ksession.dispose();
+    }
+
+    @Benchmark
+    public byte[] marshall() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        marshaller.marshall( baos, ksession );
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public long unmarshall() throws IOException, ClassNotFoundException {
+        KieSession unmarshalled = marshaller.unmarshall( new ByteArrayInputStream( marshalled ) );
+        try {
+            return unmarshalled.getFactCount();
+        } finally {
+            unmarshalled.dispose();
+        }
+    }
+}
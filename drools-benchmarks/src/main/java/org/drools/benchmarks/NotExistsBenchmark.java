@@ -0,0 +1,49 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.drools.benchmarks.model.B;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Inserts and then deletes the facts blocking the not and exists patterns,
+ * firing the rules after each step.
+ */
+public class NotExistsBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int factsNumber;
+
+    @Setup
+    public void setup() {
+        kbase = buildKnowledgeBase( Rules.NOT_EXISTS_RULES );
+    }
+
+    @Benchmark
+    public int notExists() {
+        StatefulKnowledgeSession ksession = newSession();
+        try {
+            for ( int i = 0; i < factsNumber; i++ ) {
+                ksession.insert( new A( i, i ) );
+            }
+            int fired = ksession.fireAllRules();
+
+            FactHandle[] handles = new FactHandle[factsNumber];
+            for ( int i = 0; i < factsNumber; i++ ) {
+                handles[i] = ksession.insert( new B( i, i ) );
+            }
+            fired += ksession.fireAllRules();
+
+            for ( int i = 0; i < factsNumber; i++ ) {
+                ksession.retract( handles[i] );
+            }
+            return fired + ksession.fireAllRules();
+        } finally {
+            ksession.dispose();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.drools.benchmarks.model.B;
+import org.kie.api.runtime.rule.QueryResults;
+import org.kie.api.runtime.rule.QueryResultsRow;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Runs parameterized queries against a session populated once per trial.
+ */
+public class QueryBenchmark extends AbstractBenchmark {
+
+    private static final int VALUES = 100;
+
+    @Param({"1000", "10000", "100000"})
+    private int factsNumber;
+
+    private StatefulKnowledgeSession ksession;
+
+    @Setup
+    public void setup() {
+        kbase = buildKnowledgeBase( Rules.QUERIES );
+        ksession = newSession();
+        for ( int i = 0; i < factsNumber; i++ ) {
+            ksession.insert( new A( i, i % VALUES ) );
+            ksession.insert( new B( i, i % (VALUES * 10) ) );
+        }
+        ksession.fireAllRules();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ksession.dispose();
+    }
+
+    @Benchmark
+    public int singlePatternQuery() {
+        return runQuery( "aByValue" );
+    }
+
+    @Benchmark
+    public int joinQuery() {
+        return runQuery( "abByValue" );
+    }
+
+    private int runQuery(String query) {
+        int rows = 0;
+        for ( int i = 0; i < VALUES; i++ ) {
+            QueryResults results = ksession.getQueryResults( query, i );
+            for ( QueryResultsRow row : results ) {
+                if ( row.get( "$a" ) != null ) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,104 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.model.A;
+import org.drools.benchmarks.model.B;
+import org.drools.benchmarks.model.Tick;
+
+/**
+ * The DRL used by the benchmarks.
+ */
+public final class Rules {
+
+    private static final String HEADER =
+            "package org.drools.benchmarks \n" +
+            "import " + A.class.getCanonicalName() + "\n" +
+            "import " + B.class.getCanonicalName() + "\n" +
+            "import " + Tick.class.getCanonicalName() + "\n";
+
+    public static final String ALPHA_RULES = alphaRules( 10 );
+
+    public static final String JOIN_RULES =
+            HEADER +
+            "rule join2 when \n" +
+            "    $a : A() \n" +
+            "    $b : B( value == $a.value ) \n" +
+            "then end \n" +
+            "rule join3 when \n" +
+            "    $a : A( value > 5 ) \n" +
+            "    $b1 : B( value == $a.value ) \n" +
+            "    $b2 : B( value == $a.value, id > $b1.id ) \n" +
+            "then end \n";
+
+    public static final String ACCUMULATE_RULES =
+            HEADER +
+            "rule sum when \n" +
+            "    $a : A() \n" +
+            "    accumulate( B( value == $a.value, $id : id ); $sum : sum( $id ) ) \n" +
+            "then end \n" +
+            "rule count when \n" +
+            "    accumulate( B( value > 5 ); $count : count() ) \n" +
+            "then end \n";
+
+    public static final String NOT_EXISTS_RULES =
+            HEADER +
+            "rule notB when \n" +
+            "    $a : A() \n" +
+            "    not B( value == $a.value ) \n" +
+            "then end \n" +
+            "rule existsB when \n" +
+            "    $a : A() \n" +
+            "    exists B( value == $a.value ) \n" +
+            "then end \n";
+
+    public static final String QUERIES =
+            HEADER +
+            "query aByValue( int v ) \n" +
+            "    $a : A( value == v ) \n" +
+            "end \n" +
+            "query abByValue( int v ) \n" +
+            "    $a : A( value == v ) \n" +
+            "    $b : B( value == $a.value ) \n" +
+            "end \n";
+
+    public static final String WINDOW_RULES =
+            HEADER +
+            "declare Tick \n" +
+            "    @role( event ) \n" +
+            "end \n" +
+            "rule timeWindow when \n" +
+            "    accumulate( Tick( symbol == \"S0\", $price : price ) over window:time( 10s ); $avg : average( $price ) ) \n" +
+            "then end \n" +
+            "rule lengthWindow when \n" +
+            "    accumulate( Tick( $price : price ) over window:length( 100 ); $max : max( $price ) ) \n" +
+            "then end \n";
+
+    private Rules() {
+    }
+
+    /**
+     * Rules that only have alpha constraints, each one matching a different value.
+     */
+    public static String alphaRules(int rulesNumber) {
+        StringBuilder sb = new StringBuilder( HEADER );
+        for ( int i = 0; i < rulesNumber; i++ ) {
+            sb.append( "rule alpha" ).append( i ).append( " when \n" );
+            sb.append( "    A( value == " ).append( i ).append( " ) \n" );
+            sb.append( "then end \n" );
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rules joining A and B with different alpha constraints, so they share part of their network.
+     */
+    public static String joinRules(int rulesNumber) {
+        StringBuilder sb = new StringBuilder( HEADER );
+        for ( int i = 0; i < rulesNumber; i++ ) {
+            sb.append( "rule join" ).append( i ).append( " when \n" );
+            sb.append( "    $a : A( value > " ).append( i % 20 ).append( " ) \n" );
+            sb.append( "    B( value == $a.value, id != " ).append( i ).append( " ) \n" );
+            sb.append( "then end \n" );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package org.drools.benchmarks;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.A;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Updates every fact of a session, moving it to another alpha node, and fires the rules this activates.
+ */
+public class UpdateBenchmark extends AbstractBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int factsNumber;
+
+    private StatefulKnowledgeSession ksession;
+    private A[] facts;
+    private FactHandle[] handles;
+
+    @Setup
+    public void setupKieBase() {
+        kbase = buildKnowledgeBase( Rules.ALPHA_RULES );
+    }
+
+    @Setup(Level.Invocation)
+    public void setupSession() {
+        ksession = newSession();
+        facts = new A[factsNumber];
+        handles = new FactHandle[factsNumber];
+        for ( int i = 0; i < factsNumber; i++ ) {
+            facts[i] = new A( i, i % 10 );
+            handles[i] = ksession.insert( facts[i] );
+        }
+        ksession.fireAllRules();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownSession() {
+        ksession.dispose();
+    }
+
+    @Benchmark
+    public int update() {
+        for ( int i = 0; i < factsNumber; i++ ) {
+            facts[i].setValue( facts[i].getValue() + 1 );
+            ksession.update( handles[i], facts[i] );
+        }
+        return ksession.fireAllRules();
+    }
+}
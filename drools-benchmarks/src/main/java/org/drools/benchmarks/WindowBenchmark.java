@@ -0,0 +1,61 @@
+package org.drools.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Tick;
+import org.drools.core.time.SessionPseudoClock;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Streams events through time and length sliding windows, advancing a pseudo clock between events.
+ */
+public class WindowBenchmark extends AbstractBenchmark {
+
+    private static final int SYMBOLS = 10;
+
+    @Param({"1000", "10000", "100000"})
+    private int eventsNumber;
+
+    @Param({"1", "100"})
+    private int fireEvery;
+
+    private KieSessionConfiguration ksconf;
+
+    @Setup
+    public void setup() {
+        KieBaseConfiguration kconf = newKieBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        kbase = buildKnowledgeBase( Rules.WINDOW_RULES, kconf );
+
+        ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+    }
+
+    @Benchmark
+    public int slidingWindows() {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession( ksconf, null );
+        try {
+            SessionPseudoClock clock = ksession.getSessionClock();
+            int fired = 0;
+            for ( int i = 0; i < eventsNumber; i++ ) {
+                ksession.insert( new Tick( "S" + (i % SYMBOLS), i % 1000 ) );
+                clock.advanceTime( 100, TimeUnit.MILLISECONDS );
+                if ( i % fireEvery == 0 ) {
+                    fired += ksession.fireAllRules();
+                }
+            }
+            return fired + ksession.fireAllRules();
+        } finally {
+            ksession.dispose();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.drools.benchmarks.common;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.RuntimeDroolsException;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.PhreakOption;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class of the benchmarks: every benchmark is run against both the Phreak and the ReteOO algorithms,
+ * and reports the average time of one operation, usually the processing of a whole batch of facts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(2)
+public abstract class AbstractBenchmark {
+
+    public static final String PHREAK = "phreak";
+    public static final String RETEOO = "reteoo";
+
+    @Param({PHREAK, RETEOO})
+    protected String engine;
+
+    protected KnowledgeBase kbase;
+
+    protected KieBaseConfiguration newKieBaseConfiguration() {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( PHREAK.equals( engine ) ? PhreakOption.ENABLED : PhreakOption.DISABLED );
+        return kconf;
+    }
+
+    protected KnowledgeBase buildKnowledgeBase(String drl) {
+        return buildKnowledgeBase( drl, newKieBaseConfiguration() );
+    }
+
+    protected KnowledgeBase buildKnowledgeBase(String drl, KieBaseConfiguration kconf) {
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.getBytes() ),
+                      ResourceType.DRL );
+        if ( kbuilder.hasErrors() ) {
+            throw new RuntimeDroolsException( "Unable to compile the benchmark rules: " + kbuilder.getErrors() );
+        }
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase( kconf );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        return kbase;
+    }
+
+    protected StatefulKnowledgeSession newSession() {
+        return kbase.newStatefulKnowledgeSession();
+    }
+}
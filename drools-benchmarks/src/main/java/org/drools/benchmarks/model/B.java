@@ -0,0 +1,29 @@
+package org.drools.benchmarks.model;
+
+public class B {
+
+    private int id;
+    private int value;
+
+    public B(int id, int value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public void setValue(int value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return "B[id=" + id + ", value=" + value + "]";
+    }
+}
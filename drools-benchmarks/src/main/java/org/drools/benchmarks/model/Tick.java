@@ -0,0 +1,25 @@
+package org.drools.benchmarks.model;
+
+public class Tick {
+
+    private final String symbol;
+    private final double price;
+
+    public Tick(String symbol, double price) {
+        this.symbol = symbol;
+        this.price = price;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        return "Tick[symbol=" + symbol + ", price=" + price + "]";
+    }
+}
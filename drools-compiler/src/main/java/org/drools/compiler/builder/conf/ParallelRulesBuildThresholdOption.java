@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.builder.conf;
+
+import org.kie.internal.builder.conf.SingleValueKnowledgeBuilderOption;
+
+/**
+ * A class for the parallel rules build threshold option: the rules of a package are
+ * built on several threads when the package has more rules than this threshold, and
+ * a negative value builds everything on the calling thread.
+ *
+ * drools.parallelRulesBuildThreshold = &lt;-1|0..n&gt;
+ *
+ * DEFAULT = -1
+ */
+public class ParallelRulesBuildThresholdOption implements SingleValueKnowledgeBuilderOption {
+
+    private static final long serialVersionUID = 510l;
+
+    /**
+     * The property name for the parallel rules build threshold option
+     */
+    public static final String PROPERTY_NAME = "drools.parallelRulesBuildThreshold";
+
+    /**
+     * The default value for this option
+     */
+    public static final int DEFAULT_VALUE = -1;
+
+    private final int threshold;
+
+    private ParallelRulesBuildThresholdOption( int threshold ) {
+        this.threshold = threshold;
+    }
+
+    public static ParallelRulesBuildThresholdOption get( int threshold ) {
+        return new ParallelRulesBuildThresholdOption( threshold );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 + threshold;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if ( this == obj ) return true;
+        if ( obj == null ) return false;
+        if ( getClass() != obj.getClass() ) return false;
+        return threshold == ((ParallelRulesBuildThresholdOption) obj).threshold;
+    }
+}
@@ -227,6 +227,19 @@ public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder
     }
 
     private void buildRules(Collection<CompositePackageDescr> packages) {
+        if (pkgBuilder.getPackageBuilderConfiguration().isParallelRulesBuild()) {
+            // the generated classes of all the packages are compiled together, one package per thread
+            for (PackageDescr packageDescr : packages) {
+                PackageRegistry pkgRegistry = pkgBuilder.getPackageRegistry(packageDescr.getNamespace());
+                pkgBuilder.processOtherDeclarations(pkgRegistry, packageDescr);
+                pkgBuilder.buildRules(packageDescr, pkgRegistry);
+            }
+            pkgBuilder.wireAllRules();
+            for (PackageDescr packageDescr : packages) {
+                pkgBuilder.addRulesToRuleBase(packageDescr);
+            }
+            return;
+        }
         for (PackageDescr packageDescr : packages) {
             PackageRegistry pkgRegistry = pkgBuilder.getPackageRegistry(packageDescr.getNamespace());
             pkgBuilder.processOtherDeclarations(pkgRegistry, packageDescr);
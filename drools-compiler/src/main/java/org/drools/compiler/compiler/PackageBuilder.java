@@ -71,6 +71,7 @@ import org.drools.compiler.lang.descr.ImportDescr;
 import org.drools.compiler.lang.descr.PackageDescr;
 import org.drools.compiler.lang.descr.PatternDescr;
 import org.drools.compiler.lang.descr.QualifiedName;
+import org.drools.compiler.lang.descr.QueryDescr;
 import org.drools.compiler.lang.descr.RuleDescr;
 import org.drools.compiler.lang.descr.TypeDeclarationDescr;
 import org.drools.compiler.lang.descr.TypeFieldDescr;
@@ -106,6 +107,7 @@ import org.kie.internal.builder.KnowledgeBuilderResult;
 import org.kie.internal.builder.KnowledgeBuilderResults;
 import org.kie.internal.builder.ResultSeverity;
 import org.kie.internal.builder.conf.PropertySpecificOption;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 import org.kie.internal.definition.KnowledgePackage;
 import org.kie.api.definition.process.Process;
 import org.kie.api.definition.type.ClassReactive;
@@ -146,6 +148,11 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static org.drools.core.util.BitMaskUtil.isSet;
 
@@ -225,7 +232,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
 
     private final Stack<List<Resource>>              buildResources    = new Stack<List<Resource>>();
 
-    private int                                      currentRulePackage = 0;
+    private String                                   currentRulePackage;
 
     /**
      * Use this when package is starting from scratch.
@@ -283,7 +290,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
 
         this.defaultDialect = this.configuration.getDefaultDialect();
 
-        this.pkgRegistryMap = new LinkedHashMap<String, PackageRegistry>();
+        this.pkgRegistryMap = new ConcurrentHashMap<String, PackageRegistry>();
         this.results = new ArrayList<KnowledgeBuilderResult>();
 
         PackageRegistry pkgRegistry = new PackageRegistry( this,
@@ -291,6 +298,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
         pkgRegistry.setDialect( this.defaultDialect );
         this.pkgRegistryMap.put( pkg.getName(),
                                  pkgRegistry );
+        this.currentRulePackage = pkg.getName();
 
         // add imports to pkg registry
         for (final ImportDeclaration implDecl : pkg.getImports().values()) {
@@ -331,7 +339,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
         //this.defaultNamespace = pkg.getName();
         this.defaultDialect = this.configuration.getDefaultDialect();
 
-        this.pkgRegistryMap = new LinkedHashMap<String, PackageRegistry>();
+        this.pkgRegistryMap = new ConcurrentHashMap<String, PackageRegistry>();
         this.results = new ArrayList<KnowledgeBuilderResult>();
 
         this.ruleBase = (ReteooRuleBase) ruleBase;
@@ -870,7 +878,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
             return;
         }
 
-        currentRulePackage = pkgRegistryMap.size() -1;
+        currentRulePackage = pkgRegistry.getPackage().getName();
 
         // merge into existing package
         mergePackage(pkgRegistry, packageDescr);
@@ -879,13 +887,26 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
     }
 
     void compileAllRules(PackageDescr packageDescr, PackageRegistry pkgRegistry) {
+        buildRules(packageDescr, pkgRegistry);
+
+        wireAllRules();
+
+        addRulesToRuleBase(packageDescr);
+    }
+
+    /**
+     * Builds the rules of the package, leaving the generated classes to be compiled by wireAllRules
+     */
+    void buildRules(PackageDescr packageDescr, PackageRegistry pkgRegistry) {
         pkgRegistry.setDialect( getPackageDialect(packageDescr) );
 
         // only try to compile if there are no parse errors
         if (!hasErrors()) {
             compileRules(packageDescr, pkgRegistry);
         }
+    }
 
+    void wireAllRules() {
         compileAll();
         try {
             reloadAll();
@@ -893,11 +914,13 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
             this.results.add( new DialectError( null, "Unable to wire compiled classes, probably related to compilation failures:" + e.getMessage() ) );
         }
         updateResults();
+    }
 
+    void addRulesToRuleBase(PackageDescr packageDescr) {
         // iterate and compile
         if (! hasErrors() && this.ruleBase != null) {
             for (RuleDescr ruleDescr : packageDescr.getRules()) {
-                pkgRegistry = this.pkgRegistryMap.get(ruleDescr.getNamespace());
+                PackageRegistry pkgRegistry = this.pkgRegistryMap.get(ruleDescr.getNamespace());
                 this.ruleBase.addRule(pkgRegistry.getPackage(), pkgRegistry.getPackage().getRule(ruleDescr.getName()));
             }
         }
@@ -962,22 +985,133 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
         // ensure that rules are ordered by dependency, so that dependent rules are built later
         sortRulesByDependency( packageDescr );
 
+        List<RuleDescr> rules = packageDescr.getRules();
+        if ( this.configuration.isParallelRulesBuild() && rules.size() > this.configuration.getParallelRulesBuildThreshold() ) {
+            compileRulesInParallel( packageDescr, pkgRegistry, rules );
+            return;
+        }
+
         // iterate and compile
-        for (RuleDescr ruleDescr : packageDescr.getRules()) {
-            if (isEmpty(ruleDescr.getNamespace())) {
-                // make sure namespace is set on components
-                ruleDescr.setNamespace(packageDescr.getNamespace());
+        for (RuleDescr ruleDescr : rules) {
+            initRuleDescr( packageDescr, pkgRegistry, ruleDescr );
+            addRule(ruleDescr);
+        }
+    }
+
+    private void initRuleDescr(PackageDescr packageDescr, PackageRegistry pkgRegistry, RuleDescr ruleDescr) {
+        if (isEmpty(ruleDescr.getNamespace())) {
+            // make sure namespace is set on components
+            ruleDescr.setNamespace(packageDescr.getNamespace());
+        }
+
+        Map<String, AttributeDescr> pkgAttributes = packageAttributes.get(packageDescr.getNamespace());
+        inheritPackageAttributes(pkgAttributes,
+                ruleDescr);
+
+        if (isEmpty(ruleDescr.getDialect())) {
+            ruleDescr.addAttribute(new AttributeDescr("dialect",
+                    pkgRegistry.getDialect()));
+        }
+    }
+
+    /**
+     * Builds batches of consecutive rules on several threads, then adds them to the package
+     * in their order, so that the package does not depend on the threads. A rule extending
+     * a rule of the current batch starts a new batch, as its parent must be in the package
+     * when it is built, and queries are built on their own for the same reason.
+     */
+    private void compileRulesInParallel(PackageDescr packageDescr, PackageRegistry pkgRegistry, List<RuleDescr> rules) {
+        List<RuleBuildContext> batch = new ArrayList<RuleBuildContext>();
+        Set<String> batchRules = new HashSet<String>();
+        for (RuleDescr ruleDescr : rules) {
+            initRuleDescr( packageDescr, pkgRegistry, ruleDescr );
+            if ( ruleDescr instanceof QueryDescr ) {
+                buildRulesInParallel( batch );
+                batch.clear();
+                batchRules.clear();
+                addRule( ruleDescr );
+                continue;
+            }
+            if ( ruleDescr.hasParent() && batchRules.contains( ruleDescr.getParentName() ) ) {
+                buildRulesInParallel( batch );
+                batch.clear();
+                batchRules.clear();
             }
+            batch.add( newRuleBuildContext( ruleDescr ) );
+            batchRules.add( ruleDescr.getName() );
+        }
+        buildRulesInParallel( batch );
+    }
 
-            Map<String, AttributeDescr> pkgAttributes = packageAttributes.get(packageDescr.getNamespace());
-            inheritPackageAttributes(pkgAttributes,
-                    ruleDescr);
+    private void buildRulesInParallel(List<RuleBuildContext> contexts) {
+        List<Runnable> tasks = new ArrayList<Runnable>( contexts.size() );
+        for ( final RuleBuildContext context : contexts ) {
+            tasks.add( new Runnable() {
+                public void run() {
+                    MVELDialectRuntimeData data = (MVELDialectRuntimeData) context.getPkg().getDialectRuntimeRegistry().getDialectData( "mvel" );
+                    data.useThreadParserConfiguration();
+                    try {
+                        ruleBuilder.build( context );
+                    } finally {
+                        data.releaseThreadParserConfiguration();
+                    }
+                }
+            } );
+        }
+        runInParallel( tasks );
 
-            if (isEmpty(ruleDescr.getDialect())) {
-                ruleDescr.addAttribute(new AttributeDescr("dialect",
-                        pkgRegistry.getDialect()));
+        for ( RuleBuildContext context : contexts ) {
+            addRule( context );
+        }
+    }
+
+    /**
+     * Runs the tasks on as many threads as there are processors, and waits for all of them.
+     * The first exception thrown by a task is rethrown.
+     */
+    private static void runInParallel(List<? extends Runnable> tasks) {
+        if ( tasks.isEmpty() ) {
+            return;
+        }
+        int threads = Math.min( tasks.size(), Runtime.getRuntime().availableProcessors() );
+        List<List<Runnable>> batches = new ArrayList<List<Runnable>>( threads );
+        for ( int i = 0; i < threads; i++ ) {
+            batches.add( new ArrayList<Runnable>() );
+        }
+        for ( int i = 0; i < tasks.size(); i++ ) {
+            batches.get( i % threads ).add( tasks.get( i ) );
+        }
+
+        CompletionService<Void> completionService = ExecutorProviderFactory.getExecutorProvider().getCompletionService();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>( threads );
+        for ( final List<Runnable> batch : batches ) {
+            futures.add( completionService.submit( new Callable<Void>() {
+                public Void call() {
+                    for ( Runnable task : batch ) {
+                        task.run();
+                    }
+                    return null;
+                }
+            } ) );
+        }
+
+        RuntimeException error = null;
+        for ( Future<Void> future : futures ) {
+            try {
+                future.get();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                if ( error == null ) {
+                    error = new RuntimeDroolsException( "Interrupted while building in parallel", e );
+                }
+            } catch ( ExecutionException e ) {
+                if ( error == null ) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeDroolsException( e.getCause() );
+                }
             }
-            addRule(ruleDescr);
+        }
+        if ( error != null ) {
+            throw error;
         }
     }
 
@@ -1134,6 +1268,19 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
     }
 
     public void compileAll() {
+        if ( this.configuration.isParallelRulesBuild() && this.pkgRegistryMap.size() > 1 ) {
+            // each package has its own dialects and compilers
+            List<Runnable> tasks = new ArrayList<Runnable>( this.pkgRegistryMap.size() );
+            for (final PackageRegistry pkgRegistry : this.pkgRegistryMap.values()) {
+                tasks.add( new Runnable() {
+                    public void run() {
+                        pkgRegistry.compileAll();
+                    }
+                } );
+            }
+            runInParallel( tasks );
+            return;
+        }
         for (PackageRegistry pkgRegistry : this.pkgRegistryMap.values()) {
             pkgRegistry.compileAll();
         }
@@ -1384,14 +1531,9 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
         processFunctions(pkgRegistry, packageDescr);
         processGlobals(pkgRegistry, packageDescr);
 
-        // need to reinsert this to ensure that the package is the first/last one in the ordered map
+        // the package becomes the current one returned by getPackage()
         // this feature is exploited by the knowledgeAgent
-        Package current = getPackage();
-        this.pkgRegistryMap.remove( packageDescr.getName() );
-        this.pkgRegistryMap.put( packageDescr.getName(), pkgRegistry );
-        if ( ! current.getName().equals( packageDescr.getName() ) ) {
-            currentRulePackage = pkgRegistryMap.size() - 1;
-        }
+        currentRulePackage = packageDescr.getName();
     }
 
     private void processGlobals(PackageRegistry pkgRegistry, PackageDescr packageDescr) {
@@ -1442,7 +1584,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
         }
     }
 
-    public TypeDeclaration getAndRegisterTypeDeclaration( Class<?> cls, String packageName ) {
+    public synchronized TypeDeclaration getAndRegisterTypeDeclaration( Class<?> cls, String packageName ) {
         if (cls.isPrimitive() || cls.isArray()) {
             return null;
         }
@@ -1475,7 +1617,7 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
         }
     }
 
-    public TypeDeclaration getTypeDeclaration( Class<?> cls ) {
+    public synchronized TypeDeclaration getTypeDeclaration( Class<?> cls ) {
         if (cls.isPrimitive() || cls.isArray())
             return null;
 
@@ -3050,6 +3192,13 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
     }
 
     private void addRule( final RuleDescr ruleDescr ) {
+        RuleBuildContext context = newRuleBuildContext( ruleDescr );
+        ruleBuilder.build( context );
+
+        addRule( context );
+    }
+
+    private RuleBuildContext newRuleBuildContext( final RuleDescr ruleDescr ) {
         if ( ruleDescr.getResource() == null ) {
             ruleDescr.setResource( resource );
         }
@@ -3058,12 +3207,19 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
 
         Package pkg = pkgRegistry.getPackage();
         DialectCompiletimeRegistry ctr = pkgRegistry.getDialectCompiletimeRegistry();
-        RuleBuildContext context = new RuleBuildContext( this,
-                                                         ruleDescr,
-                                                         ctr,
-                                                         pkg,
-                                                         ctr.getDialect( pkgRegistry.getDialect() ) );
-        ruleBuilder.build( context );
+        return new RuleBuildContext( this,
+                                     ruleDescr,
+                                     ctr,
+                                     pkg,
+                                     ctr.getDialect( pkgRegistry.getDialect() ) );
+    }
+
+    /**
+     * Adds a rule that has been built to its package
+     */
+    private void addRule( final RuleBuildContext context ) {
+        RuleDescr ruleDescr = context.getRuleDescr();
+        Package pkg = context.getPkg();
 
         this.results.addAll( context.getErrors() );
 
@@ -3097,8 +3253,10 @@ public class PackageBuilder implements DeepCloneable<PackageBuilder> {
      */
     public Package getPackage() {
         PackageRegistry pkgRegistry = null;
-        if (!this.pkgRegistryMap.isEmpty()) {
-            pkgRegistry = (PackageRegistry) this.pkgRegistryMap.values().toArray()[ currentRulePackage ];
+        if (currentRulePackage != null) {
+            pkgRegistry = this.pkgRegistryMap.get( currentRulePackage );
+        } else if (!this.pkgRegistryMap.isEmpty()) {
+            pkgRegistry = this.pkgRegistryMap.values().iterator().next();
         }
         Package pkg = null;
         if (pkgRegistry != null) {
@@ -27,6 +27,7 @@ import java.util.Set;
 import org.drools.core.RuntimeDroolsException;
 import org.drools.core.base.evaluators.EvaluatorDefinition;
 import org.drools.core.base.evaluators.EvaluatorRegistry;
+import org.drools.compiler.builder.conf.ParallelRulesBuildThresholdOption;
 import org.drools.compiler.compiler.xml.RulesSemanticModule;
 import org.drools.core.util.ClassUtils;
 import org.drools.core.util.ConfFileUtils;
@@ -84,6 +85,7 @@ import org.kie.api.runtime.rule.AccumulateFunction;
  * drools.accumulate.function.sum = org.kie.base.accumulators.SumAccumulateFunction
  * 
  * drools.parser.processStringEscapes = true|false
+ * drools.parallelRulesBuildThreshold = <int>
  * 
  * 
  * drools.problem.severity.<ident> = ERROR|WARNING|INFO
@@ -127,6 +129,8 @@ public class PackageBuilderConfiguration
 
     private LanguageLevelOption               languageLevel           = DrlParser.DEFAULT_LANGUAGE_LEVEL;
 
+    private int                               parallelRulesBuildThreshold = ParallelRulesBuildThresholdOption.DEFAULT_VALUE;
+
     public boolean isAllowMultipleNamespaces() {
         return allowMultipleNamespaces;
     }
@@ -226,6 +230,10 @@ public class PackageBuilderConfiguration
                      this.chainedProperties.getProperty( DefaultPackageNameOption.PROPERTY_NAME,
                                                          "defaultpkg" ) );
 
+        setProperty( ParallelRulesBuildThresholdOption.PROPERTY_NAME,
+                     this.chainedProperties.getProperty( ParallelRulesBuildThresholdOption.PROPERTY_NAME,
+                                                         Integer.toString( ParallelRulesBuildThresholdOption.DEFAULT_VALUE ) ) );
+
         this.componentFactory = new DroolsCompilerComponentFactory();
 
         this.classBuilderFactory = new ClassBuilderFactory();
@@ -273,6 +281,8 @@ public class PackageBuilderConfiguration
             this.severityMap.put(key, KBuilderSeverityOption.get(key, value).getSeverity());
         } else if ( name.equals( LanguageLevelOption.PROPERTY_NAME ) ) {
             setLanguageLevel( LanguageLevelOption.valueOf( value ) );
+        } else if ( name.equals( ParallelRulesBuildThresholdOption.PROPERTY_NAME ) ) {
+            setParallelRulesBuildThreshold( StringUtils.isEmpty( value ) ? ParallelRulesBuildThresholdOption.DEFAULT_VALUE : Integer.parseInt( value ) );
         }
     }
 
@@ -306,6 +316,8 @@ public class PackageBuilderConfiguration
             return severity.toString();
         } else if (name.equals( LanguageLevelOption.PROPERTY_NAME )) {
             return "" + getLanguageLevel();
+        } else if (name.equals( ParallelRulesBuildThresholdOption.PROPERTY_NAME )) {
+            return String.valueOf( getParallelRulesBuildThreshold() );
         }
         return null;
     }
@@ -678,6 +690,24 @@ public class PackageBuilderConfiguration
         this.languageLevel = languageLevel;
     }
 
+    public int getParallelRulesBuildThreshold() {
+        return parallelRulesBuildThreshold;
+    }
+
+    /**
+     * The rules of a package are built on several threads when the package has more
+     * rules than this threshold, and the packages built together are compiled
+     * concurrently. A negative threshold, the default, builds everything on the
+     * calling thread.
+     */
+    public void setParallelRulesBuildThreshold(int parallelRulesBuildThreshold) {
+        this.parallelRulesBuildThreshold = parallelRulesBuildThreshold;
+    }
+
+    public boolean isParallelRulesBuild() {
+        return parallelRulesBuildThreshold >= 0;
+    }
+
     @SuppressWarnings("unchecked")
     public <T extends SingleValueKnowledgeBuilderOption> T getOption(Class<T> option) {
         if ( DefaultDialectOption.class.equals( option ) ) {
@@ -694,6 +724,8 @@ public class PackageBuilderConfiguration
             return (T) propertySpecificOption;
         } else if ( LanguageLevelOption.class.equals( option ) ) {
             return (T) languageLevel;
+        } else if ( ParallelRulesBuildThresholdOption.class.equals( option ) ) {
+            return (T) ParallelRulesBuildThresholdOption.get( this.parallelRulesBuildThreshold );
         }
         return null;
     }
@@ -749,6 +781,8 @@ public class PackageBuilderConfiguration
             propertySpecificOption = (PropertySpecificOption)option;
         } else if ( option instanceof LanguageLevelOption ) {
             this.languageLevel = ((LanguageLevelOption) option);
+        } else if ( option instanceof ParallelRulesBuildThresholdOption ) {
+            setParallelRulesBuildThreshold( ((ParallelRulesBuildThresholdOption) option).getThreshold() );
         }
     }
 }
@@ -39,6 +39,8 @@ public abstract class AbstractKieModule
 
     private final Map<String, KnowledgeBuilder>             kBuilders         = new HashMap<String, KnowledgeBuilder>();
     
+    private final Map<String, Collection<KnowledgePackage>> kPackages         = new HashMap<String, Collection<KnowledgePackage>>();
+
     private final Map<String, Results>                      resultsCache      = new HashMap<String, Results>();
 
     protected final ReleaseId releaseId;
@@ -78,7 +80,11 @@ public abstract class AbstractKieModule
 
     public Collection<KnowledgePackage> getKnowledgePackagesForKieBase(String kieBaseName) {
         KnowledgeBuilder kbuilder = kBuilders.get(kieBaseName);
-        return kbuilder != null ? kbuilder.getKnowledgePackages() : null;
+        return kbuilder != null ? kbuilder.getKnowledgePackages() : kPackages.get(kieBaseName);
+    }
+
+    public void cacheKnowledgePackagesForKieBase(String kieBaseName, Collection<KnowledgePackage> pkgs) {
+        kPackages.put(kieBaseName, pkgs);
     }
 
     public void cacheKnowledgeBuilderForKieBase(String kieBaseName, KnowledgeBuilder kbuilder) {
@@ -153,6 +159,38 @@ public abstract class AbstractKieModule
         return kbuilder;        
     }
     
+    /**
+     * Loads the packages of the given KieBase from the compilation cache of the KieRepository, if any,
+     * and caches them in its KieModule. Returns null if they are not in the compilation cache.
+     */
+    static Collection<KnowledgePackage> loadCompiledKnowledgePackages(KieBaseModelImpl kBaseModel,
+                                                                      KieProject kieProject,
+                                                                      ResultsImpl messages) {
+        KieModuleCompilationCache compilationCache = KieRepositoryImpl.INSTANCE.getCompilationCache();
+        if ( compilationCache == null ) {
+            return null;
+        }
+        Collection<KnowledgePackage> pkgs = compilationCache.load( kBaseModel, kieProject );
+        if ( pkgs != null ) {
+            InternalKieModule kModule = kieProject.getKieModuleForKBase( kBaseModel.getName() );
+            kModule.cacheKnowledgePackagesForKieBase( kBaseModel.getName(), pkgs );
+            kModule.cacheResultsForKieBase( kBaseModel.getName(), messages );
+        }
+        return pkgs;
+    }
+
+    /**
+     * Stores the packages compiled for the given KieBase in the compilation cache of the KieRepository, if any
+     */
+    static void storeCompiledKnowledgePackages(KieBaseModelImpl kBaseModel,
+                                               KieProject kieProject,
+                                               Collection<KnowledgePackage> pkgs) {
+        KieModuleCompilationCache compilationCache = KieRepositoryImpl.INSTANCE.getCompilationCache();
+        if ( compilationCache != null ) {
+            compilationCache.store( kBaseModel, kieProject, pkgs );
+        }
+    }
+
     private static void addFiles( CompositeKnowledgeBuilder ckbuilder,
                                   KieBaseModel kieBaseModel,
                                   InternalKieModule kieModule ) {
@@ -19,6 +19,8 @@ public interface InternalKieModule extends KieModule {
 
     Collection<KnowledgePackage> getKnowledgePackagesForKieBase(String kieBaseName);
 
+    void cacheKnowledgePackagesForKieBase(String kieBaseName, Collection<KnowledgePackage> pkgs);
+
     void cacheResultsForKieBase(String kieBaseName, Results results);
 
     Map<String, Results> getKnowledgeResultsCache();    
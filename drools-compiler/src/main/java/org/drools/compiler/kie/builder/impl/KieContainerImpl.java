@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.drools.compiler.kie.builder.impl.AbstractKieModule.buildKnowledgePackages;
+import static org.drools.compiler.kie.builder.impl.AbstractKieModule.loadCompiledKnowledgePackages;
+import static org.drools.compiler.kie.builder.impl.AbstractKieModule.storeCompiledKnowledgePackages;
 import static org.drools.compiler.kie.util.CDIHelper.wireListnersAndWIHs;
 
 public class KieContainerImpl
@@ -117,16 +119,21 @@ public class KieContainerImpl
 
         Collection<KnowledgePackage> pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
 
+        if ( pkgs == null ) {
+            pkgs = loadCompiledKnowledgePackages(kBaseModel, kieProject, messages);
+        }
+
         if ( pkgs == null ) {
             KnowledgeBuilder kbuilder = buildKnowledgePackages(kBaseModel, kieProject, messages);
             if ( kbuilder.hasErrors() ) {
                 // Messages already populated by the buildKnowlegePackages
                 return null;
             }
-        }
 
-        // if we get to here, then we know the pkgs is now cached
-        pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
+            // if we get to here, then we know the pkgs is now cached
+            pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
+            storeCompiledKnowledgePackages(kBaseModel, kieProject, pkgs);
+        }
 
         InternalKnowledgeBase kBase = (InternalKnowledgeBase) KnowledgeBaseFactory.newKnowledgeBase( conf != null ? conf : getKnowledgeBaseConfiguration(kBaseModel, cl) );
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import org.drools.compiler.compiler.PackageBuilderConfiguration;
+import org.drools.compiler.kproject.models.KieBaseModelImpl;
+import org.drools.core.util.DroolsStreamUtils;
+import org.drools.core.util.StringUtils;
+import org.kie.api.builder.model.KieBaseModel;
+import org.kie.internal.definition.KnowledgePackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.drools.compiler.kie.builder.impl.KieBuilderImpl.filterFileInKBase;
+
+/**
+ * An on disk cache of the packages compiled for the KieBases of a KieModule.
+ *
+ * The packages, with the classes generated for them, are stored in a file named
+ * after a hash of everything the compilation depends on: the content of the
+ * resources of the KieBase and of its includes, the classes of the KieModule and
+ * of its dependencies, the drools properties of the compiler configuration and
+ * the drools version. A KieBase whose inputs did not change is then loaded from
+ * the cache instead of being compiled again.
+ */
+public class KieModuleCompilationCache {
+
+    private static final Logger log = LoggerFactory.getLogger( KieModuleCompilationCache.class );
+
+    public static final String  CACHE_DIR_PROPERTY = "drools.compilationCache.dir";
+
+    private static final String CACHE_FILE_SUFFIX  = ".pkgs";
+
+    private final File          dir;
+
+    public KieModuleCompilationCache(File dir) {
+        this.dir = dir;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Returns the packages stored for the given KieBase, or null if they are not
+     * in the cache or cannot be read
+     */
+    public Collection<KnowledgePackage> load(KieBaseModelImpl kBaseModel,
+                                             KieProject kieProject) {
+        File file = getCacheFile( kBaseModel, kieProject );
+        if ( file == null || !file.exists() ) {
+            return null;
+        }
+        try {
+            InputStream in = new FileInputStream( file );
+            try {
+                Collection<KnowledgePackage> pkgs = (Collection<KnowledgePackage>) DroolsStreamUtils.streamIn( in,
+                                                                                                              kieProject.getClassLoader() );
+                log.debug( "Loaded KieBase " + kBaseModel.getName() + " from compilation cache " + file );
+                return pkgs;
+            } finally {
+                in.close();
+            }
+        } catch ( Exception e ) {
+            // most likely written by an incompatible version, compile it again
+            log.warn( "Unable to load KieBase " + kBaseModel.getName() + " from compilation cache " + file, e );
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the packages compiled for the given KieBase
+     */
+    public void store(KieBaseModelImpl kBaseModel,
+                      KieProject kieProject,
+                      Collection<KnowledgePackage> pkgs) {
+        File file = getCacheFile( kBaseModel, kieProject );
+        if ( file == null ) {
+            return;
+        }
+        File tmp = null;
+        try {
+            dir.mkdirs();
+            // write to a temporary file first, so that a concurrent reader never sees a partial entry
+            tmp = File.createTempFile( file.getName(), ".tmp", dir );
+            OutputStream out = new FileOutputStream( tmp );
+            try {
+                DroolsStreamUtils.streamOut( out,
+                                             new ArrayList<KnowledgePackage>( pkgs ) );
+            } finally {
+                out.close();
+            }
+            if ( !tmp.renameTo( file ) ) {
+                tmp.delete();
+            }
+        } catch ( Exception e ) {
+            log.warn( "Unable to store KieBase " + kBaseModel.getName() + " in compilation cache " + dir, e );
+            if ( tmp != null ) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private File getCacheFile(KieBaseModelImpl kBaseModel,
+                              KieProject kieProject) {
+        String key = getKey( kBaseModel, kieProject );
+        return key != null ? new File( dir, key + CACHE_FILE_SUFFIX ) : null;
+    }
+
+    String getKey(KieBaseModelImpl kBaseModel,
+                  KieProject kieProject) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        } catch ( NoSuchAlgorithmException e ) {
+            log.warn( "Unable to use the compilation cache", e );
+            return null;
+        }
+
+        update( digest, String.valueOf( PackageBuilderConfiguration.class.getPackage().getImplementationVersion() ) );
+        update( digest, kBaseModel.getName() );
+
+        // the drools properties of the configuration the packages are compiled with
+        Map<String, String> properties = new TreeMap<String, String>();
+        new PackageBuilderConfiguration( null,
+                                         kieProject.getClassLoader() ).getChainedProperties().mapStartsWith( properties,
+                                                                                                            "drools",
+                                                                                                            true );
+        for ( Map.Entry<String, String> entry : properties.entrySet() ) {
+            update( digest, entry.getKey() );
+            update( digest, entry.getValue() );
+        }
+
+        Set<String> includes = kBaseModel.getIncludes();
+        if ( includes != null ) {
+            Set<String> sortedIncludes = new TreeSet<String>();
+            for ( String include : includes ) {
+                if ( !StringUtils.isEmpty( include ) ) {
+                    sortedIncludes.add( include );
+                }
+            }
+            for ( String include : sortedIncludes ) {
+                InternalKieModule includeModule = kieProject.getKieModuleForKBase( include );
+                if ( includeModule == null ) {
+                    return null;
+                }
+                updateWithFiles( digest, kieProject.getKieBaseModel( include ), includeModule );
+            }
+        }
+
+        InternalKieModule kModule = kieProject.getKieModuleForKBase( kBaseModel.getName() );
+        updateWithFiles( digest, kBaseModel, kModule );
+
+        // the classes the rules may refer to
+        updateWithClasses( digest, kModule );
+        for ( InternalKieModule dependency : kModule.getDependencies().values() ) {
+            updateWithClasses( digest, dependency );
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for ( byte b : digest.digest() ) {
+            sb.append( Character.forDigit( (b >> 4) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+        }
+        return sb.toString();
+    }
+
+    private static void updateWithFiles(MessageDigest digest,
+                                        KieBaseModel kBaseModel,
+                                        InternalKieModule kModule) {
+        List<String> fileNames = new ArrayList<String>( kModule.getFileNames() );
+        Collections.sort( fileNames );
+        for ( String fileName : fileNames ) {
+            // the resources are compiled with the configuration of their .properties file, if any
+            if ( filterFileInKBase( kBaseModel, fileName ) && !fileName.endsWith( ".class" ) ) {
+                update( digest, fileName );
+                update( digest, kModule.getBytes( fileName ) );
+            }
+        }
+    }
+
+    private static void updateWithClasses(MessageDigest digest,
+                                          InternalKieModule kModule) {
+        Map<String, byte[]> classes = new TreeMap<String, byte[]>( kModule.getClassesMap() );
+        for ( Map.Entry<String, byte[]> entry : classes.entrySet() ) {
+            update( digest, entry.getKey() );
+            update( digest, entry.getValue() );
+        }
+    }
+
+    private static void update(MessageDigest digest,
+                               String s) {
+        try {
+            update( digest, s.getBytes( "UTF-8" ) );
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static void update(MessageDigest digest,
+                               byte[] bytes) {
+        if ( bytes == null ) {
+            bytes = new byte[0];
+        }
+        // prefix each entry with its length, so that two different sequences never hash the same bytes
+        int length = bytes.length;
+        digest.update( new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length} );
+        digest.update( bytes );
+    }
+}
@@ -14,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.URL;
@@ -49,6 +50,30 @@ public class KieRepositoryImpl
 
     private InternalKieScanner         internalKieScanner;
 
+    private volatile KieModuleCompilationCache compilationCache = createCompilationCache( System.getProperty( KieModuleCompilationCache.CACHE_DIR_PROPERTY ) );
+
+    private static KieModuleCompilationCache createCompilationCache(String dir) {
+        return dir != null && dir.trim().length() > 0 ? new KieModuleCompilationCache( new File( dir.trim() ) ) : null;
+    }
+
+    /**
+     * Sets the directory where the packages compiled for the KieBases of the KieModules
+     * are cached across restarts, or null to always compile them.
+     * Defaults to the value of the drools.compilationCache.dir system property.
+     */
+    public void setCompilationCacheDir(File dir) {
+        this.compilationCache = dir != null ? new KieModuleCompilationCache( dir ) : null;
+    }
+
+    public File getCompilationCacheDir() {
+        KieModuleCompilationCache cache = this.compilationCache;
+        return cache != null ? cache.getDir() : null;
+    }
+
+    KieModuleCompilationCache getCompilationCache() {
+        return this.compilationCache;
+    }
+
     public void setDefaultGAV(ReleaseId releaseId) {
         this.defaultGAV.set(releaseId);
     }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.reteoo.compiled;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.drools.compiler.compiler.PackageBuilder;
+import org.drools.compiler.compiler.PackageBuilderConfiguration;
+import org.drools.core.base.ClassFieldReader;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.base.ValueType;
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.reteoo.AlphaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter;
+import org.drools.core.reteoo.EmptyObjectSinkAdapter;
+import org.drools.core.reteoo.NodeTypeEnums;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectSinkNode;
+import org.drools.core.reteoo.ObjectSinkNodeList;
+import org.drools.core.reteoo.ObjectSinkPropagator;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.SingleObjectSinkAdapter;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompilerService;
+import org.drools.core.reteoo.compiled.CompiledNetwork;
+import org.drools.core.rule.constraint.MvelConstraint;
+import org.drools.core.util.Iterator;
+import org.drools.core.util.LinkedList;
+import org.drools.core.util.ObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles the alpha networks with the {@link ObjectTypeNodeCompiler}. The generated code only knows about alpha
+ * nodes, beta nodes and left input adapters, and hashes the alphas on a single String, int or long property, so the
+ * nodes whose network contains anything else are left uncompiled.
+ */
+public class AlphaNetworkCompilerServiceImpl implements AlphaNetworkCompilerService {
+
+    private static final Logger logger = LoggerFactory.getLogger( AlphaNetworkCompilerServiceImpl.class );
+
+    public void compile(InternalRuleBase ruleBase,
+                        Collection<ObjectTypeNode> objectTypeNodes) {
+        List<ObjectTypeNode> compilable = new ArrayList<ObjectTypeNode>( objectTypeNodes.size() );
+        for ( ObjectTypeNode otn : objectTypeNodes ) {
+            if ( isCompilable( otn ) ) {
+                compilable.add( otn );
+            } else {
+                otn.setCompiledNetwork( null );
+            }
+        }
+        if ( compilable.isEmpty() ) {
+            return;
+        }
+
+        // a new builder each time, so the classes of the previous networks can be unloaded
+        PackageBuilder builder = new PackageBuilder( new PackageBuilderConfiguration( ruleBase.getRootClassLoader() ) );
+        List<CompiledNetwork> networks;
+        try {
+            networks = ObjectTypeNodeCompiler.compile( builder,
+                                                       compilable );
+        } catch ( RuntimeException e ) {
+            logger.warn( "Unable to compile the alpha networks, they will be interpreted", e );
+            for ( ObjectTypeNode otn : compilable ) {
+                otn.setCompiledNetwork( null );
+            }
+            return;
+        }
+
+        for ( int i = 0; i < networks.size(); i++ ) {
+            compilable.get( i ).setCompiledNetwork( networks.get( i ) );
+        }
+    }
+
+    private boolean isCompilable(ObjectTypeNode otn) {
+        if ( !(otn.getObjectType() instanceof ClassObjectType) ) {
+            return false;
+        }
+        Class< ? > factClass = ((ClassObjectType) otn.getObjectType()).getClassType();
+        return isAccessible( factClass ) &&
+               isCompilable( otn.getSinkPropagator(), factClass );
+    }
+
+    private boolean isCompilable(ObjectSinkPropagator propagator,
+                                 Class< ? > factClass) {
+        if ( propagator instanceof EmptyObjectSinkAdapter ) {
+            return true;
+        } else if ( propagator instanceof SingleObjectSinkAdapter ) {
+            return isCompilable( propagator.getSinks()[0], factClass );
+        } else if ( propagator instanceof CompositeObjectSinkAdapter ) {
+            CompositeObjectSinkAdapter composite = (CompositeObjectSinkAdapter) propagator;
+            return isCompilable( composite.getHashableSinks(), factClass ) &&
+                   isCompilable( composite.getOthers(), factClass ) &&
+                   isCompilable( composite.getRangeIndexes(), factClass ) &&
+                   isCompilable( composite.getHashedSinkMap(), factClass );
+        }
+        return false;
+    }
+
+    private boolean isCompilable(ObjectSinkNodeList sinks,
+                                 Class< ? > factClass) {
+        if ( sinks != null ) {
+            for ( ObjectSinkNode sink = sinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
+                if ( !isCompilable( sink, factClass ) ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isCompilable(LinkedList<CompositeObjectSinkAdapter.RangeIndex> rangeIndexes,
+                                 Class< ? > factClass) {
+        if ( rangeIndexes != null ) {
+            for ( CompositeObjectSinkAdapter.RangeIndex rangeIndex = rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( !rangeIndex.isActive() ) {
+                    continue;
+                }
+                for ( AlphaNode alphaNode : rangeIndex.getAlphaNodes() ) {
+                    if ( !isCompilable( alphaNode, factClass ) ) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isCompilable(ObjectSink sink,
+                                 Class< ? > factClass) {
+        if ( sink.getType() == NodeTypeEnums.AlphaNode ) {
+            AlphaNode alphaNode = (AlphaNode) sink;
+            return isDeclarable( alphaNode.getConstraint().getClass() ) &&
+                   isCompilable( alphaNode.getSinkPropagator(), factClass );
+        }
+        return (NodeTypeEnums.isBetaNode( sink ) || sink.getType() == NodeTypeEnums.LeftInputAdapterNode) &&
+               isDeclarable( sink.getClass() );
+    }
+
+    private boolean isCompilable(ObjectHashMap hashedSinks,
+                                 Class< ? > factClass) {
+        if ( hashedSinks == null || hashedSinks.size() == 0 ) {
+            return true;
+        }
+
+        // the generated code switches on a single field, read through its getter
+        ClassFieldReader reader = null;
+        Iterator it = hashedSinks.iterator();
+        for ( ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) it.next(); entry != null; entry = (ObjectHashMap.ObjectEntry) it.next() ) {
+            CompositeObjectSinkAdapter.HashKey hashKey = (CompositeObjectSinkAdapter.HashKey) entry.getKey();
+            AlphaNode alphaNode = (AlphaNode) entry.getValue();
+            if ( !(alphaNode.getConstraint() instanceof MvelConstraint) ||
+                 !(((MvelConstraint) alphaNode.getConstraint()).getFieldExtractor() instanceof ClassFieldReader) ||
+                 hashKey.getObjectValue() == null ) {
+                return false;
+            }
+            ClassFieldReader fieldReader = (ClassFieldReader) ((MvelConstraint) alphaNode.getConstraint()).getFieldExtractor();
+            if ( reader == null ) {
+                reader = fieldReader;
+            } else if ( reader.getIndex() != fieldReader.getIndex() ) {
+                return false;
+            }
+            if ( !isCompilable( alphaNode.getSinkPropagator(), factClass ) ) {
+                return false;
+            }
+        }
+
+        ValueType valueType = reader.getValueType();
+        if ( valueType != ValueType.STRING_TYPE &&
+             valueType != ValueType.INTEGER_TYPE && valueType != ValueType.PINTEGER_TYPE &&
+             valueType != ValueType.LONG_TYPE && valueType != ValueType.PLONG_TYPE ) {
+            return false;
+        }
+        String fieldName = reader.getFieldName();
+        try {
+            Method getter = factClass.getMethod( "get" + Character.toTitleCase( fieldName.charAt( 0 ) ) + fieldName.substring( 1 ) );
+            return getter.getReturnType() == reader.getExtractToClass();
+        } catch ( NoSuchMethodException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * The generated source refers to the class by its canonical name, and from another package
+     */
+    private boolean isAccessible(Class< ? > clazz) {
+        for ( Class< ? > c = clazz; c != null; c = c.getDeclaringClass() ) {
+            if ( !Modifier.isPublic( c.getModifiers() ) ) {
+                return false;
+            }
+        }
+        return clazz.getCanonicalName() != null;
+    }
+
+    /**
+     * The fields of the generated class are declared with the name of the class of the node or constraint
+     */
+    private boolean isDeclarable(Class< ? > clazz) {
+        return Modifier.isPublic( clazz.getModifiers() ) && clazz.getDeclaringClass() == null && !clazz.isAnonymousClass();
+    }
+}
@@ -14,7 +14,10 @@ import org.drools.core.reteoo.compiled.ObjectTypeNodeParser;
 import org.drools.core.reteoo.compiled.SetNodeReferenceHandler;
 import org.drools.compiler.rule.builder.dialect.java.JavaDialect;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * todo: document
@@ -44,8 +47,11 @@ public class ObjectTypeNodeCompiler {
         this.objectTypeNode = objectTypeNode;
 
         ClassObjectType classObjectType = (ClassObjectType) objectTypeNode.getObjectType();
-        this.className = classObjectType.getClassName();
-        generatedClassSimpleName = "Compiled" + classObjectType.getClassName().replace('.', '_') + "Network";
+        // the source needs the canonical name, so nested classes can be referenced
+        this.className = classObjectType.getClassType().getCanonicalName();
+        // the same type can have an OTN in each entry point, the id keeps the names apart
+        generatedClassSimpleName = "Compiled" + classObjectType.getClassName().replace('.', '_').replace('$', '_') +
+                                   "Network" + objectTypeNode.getId();
     }
 
     private String generateSource() {
@@ -101,11 +107,7 @@ public class ObjectTypeNodeCompiler {
             String mapVariableName = declaration.getVariableName();
 
             for (Object hashedValue : declaration.getHashedValues()) {
-                Object value = hashedValue;
-                // need to quote value if it is a string
-                if (declaration.getValueType() == ValueType.STRING_TYPE) {
-                    value = "\"" + value + "\"";
-                }
+                String value = getKeyLiteral(declaration.getValueType(), hashedValue);
 
                 String nodeId = declaration.getNodeId(hashedValue);
 
@@ -118,6 +120,38 @@ public class ObjectTypeNodeCompiler {
         builder.append("}").append(NEWLINE);
     }
 
+    /**
+     * Returns the source of a key of a hashed alpha map. The key must be boxed like the value returned by the
+     * getter of the hashed field, whatever the type of the hashed value, as integer numbers are all hashed as Longs.
+     *
+     * @param valueType   type of the hashed field
+     * @param hashedValue value of the hashed alpha
+     * @return source of the key
+     */
+    private static String getKeyLiteral(ValueType valueType, Object hashedValue) {
+        if (valueType == ValueType.STRING_TYPE) {
+            // need to quote and escape value if it is a string
+            StringBuilder literal = new StringBuilder("\"");
+            String value = (String) hashedValue;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    literal.append('\\').append(c);
+                } else if (c < ' ' || c > '~') {
+                    literal.append(String.format("\\u%04x", (int) c));
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.append('"').toString();
+        } else if (valueType == ValueType.INTEGER_TYPE || valueType == ValueType.PINTEGER_TYPE) {
+            return "Integer.valueOf(" + ((Number) hashedValue).intValue() + ")";
+        } else if (valueType == ValueType.LONG_TYPE || valueType == ValueType.PLONG_TYPE) {
+            return "Long.valueOf(" + ((Number) hashedValue).longValue() + "L)";
+        }
+        throw new IllegalArgumentException("Hashed alphas of type " + valueType + " cannot be compiled");
+    }
+
     /**
      * Returns the fully qualified name of the generated subclass of {@link org.kie.reteoo.compiled.CompiledNetwork}
      *
@@ -128,12 +162,12 @@ public class ObjectTypeNodeCompiler {
     }
 
     /**
-     * Returns the fully qualified binary name of the generated subclass of {@link org.kie.reteoo.compiled.CompiledNetwork}
+     * Returns the name of the source resource of the generated subclass of {@link org.kie.reteoo.compiled.CompiledNetwork}
      *
-     * @return binary name of generated class
+     * @return resource name of the generated source
      */
-    private String getBinaryName() {
-        return BINARY_PACKAGE_NAME + "." + generatedClassSimpleName + ".class";
+    private String getSourceResourceName() {
+        return BINARY_PACKAGE_NAME + "/" + generatedClassSimpleName + ".java";
     }
 
     private String getPackageName() {
@@ -152,38 +186,58 @@ public class ObjectTypeNodeCompiler {
         if (objectTypeNode == null) {
             throw new IllegalArgumentException("ObjectTypeNode cannot be null!");
         }
+        return compile(pkgBuilder, Collections.singletonList(objectTypeNode)).get(0);
+    }
+
+    /**
+     * Creates a {@link CompiledNetwork} for each of the specified {@link ObjectTypeNode}s. Their sources are all
+     * compiled at once by the {@link PackageBuilder}, which is also used to load the classes.
+     *
+     * @param pkgBuilder      builder used to compile and load classes
+     * @param objectTypeNodes OTNs we are generating compiled networks for
+     * @return the CompiledNetworks, in the order of the nodes
+     */
+    public static List<CompiledNetwork> compile(PackageBuilder pkgBuilder, Collection<ObjectTypeNode> objectTypeNodes) {
         if (pkgBuilder == null) {
             throw new IllegalArgumentException("PackageBuilder cannot be null!");
         }
-        ObjectTypeNodeCompiler compiler = new ObjectTypeNodeCompiler(objectTypeNode);
-
-        String packageName = compiler.getPackageName();
+        if (objectTypeNodes.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        PackageRegistry pkgReg = pkgBuilder.getPackageRegistry(packageName);
+        PackageRegistry pkgReg = pkgBuilder.getPackageRegistry(PACKAGE_NAME);
         if (pkgReg == null) {
-            pkgBuilder.addPackage(new PackageDescr(packageName));
-            pkgReg = pkgBuilder.getPackageRegistry(packageName);
+            pkgBuilder.addPackage(new PackageDescr(PACKAGE_NAME));
+            pkgReg = pkgBuilder.getPackageRegistry(PACKAGE_NAME);
         }
-
-        String source = compiler.generateSource();
-        String generatedSourceName = compiler.getName();
-
         JavaDialect dialect = (JavaDialect) pkgReg.getDialectCompiletimeRegistry().getDialect("java");
-        dialect.addSrc(compiler.getBinaryName(), source.getBytes());
+
+        List<String> generatedSourceNames = new ArrayList<String>(objectTypeNodes.size());
+        for (ObjectTypeNode objectTypeNode : objectTypeNodes) {
+            ObjectTypeNodeCompiler compiler = new ObjectTypeNodeCompiler(objectTypeNode);
+            String source = compiler.generateSource();
+            dialect.addSrc(compiler.getSourceResourceName(), source.getBytes());
+            generatedSourceNames.add(compiler.getName());
+        }
         pkgBuilder.compileAll();
         pkgBuilder.updateResults();
+        if (pkgBuilder.hasErrors()) {
+            throw new RuntimeException("Unable to compile the alpha networks: " + pkgBuilder.getErrors());
+        }
 
-        CompiledNetwork network;
-        try {
-            network = (CompiledNetwork) Class.forName(generatedSourceName, true, pkgBuilder.getRootClassLoader()).newInstance();
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
+        List<CompiledNetwork> networks = new ArrayList<CompiledNetwork>(generatedSourceNames.size());
+        for (String generatedSourceName : generatedSourceNames) {
+            try {
+                networks.add((CompiledNetwork) Class.forName(generatedSourceName, true, pkgBuilder.getRootClassLoader()).newInstance());
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            } catch (InstantiationException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            }
         }
 
-        return network;
+        return networks;
     }
 }
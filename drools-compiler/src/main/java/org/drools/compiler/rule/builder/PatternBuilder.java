@@ -64,6 +64,7 @@ import org.drools.core.reteoo.RuleTerminalNode.SortDeclarations;
 import org.drools.core.rule.Behavior;
 import org.drools.core.rule.Declaration;
 import org.drools.core.rule.From;
+import org.drools.core.rule.HoppingTimeWindow;
 import org.drools.core.rule.MVELDialectRuntimeData;
 import org.drools.core.rule.Pattern;
 import org.drools.core.rule.PatternSource;
@@ -317,6 +318,27 @@ public class PatternBuilder
                 } else if ( Behavior.BehaviorType.LENGTH_WINDOW.matches( behaviorDescr.getSubType() ) ) {
                     SlidingLengthWindow window = new SlidingLengthWindow( Integer.valueOf( behaviorDescr.getParameters().get( 0 ) ) );
                     pattern.addBehavior( window );
+                } else if ( Behavior.BehaviorType.TUMBLING_WINDOW.matches( behaviorDescr.getSubType() ) ) {
+                    long size = TimeUtils.parseTimeString( behaviorDescr.getParameters().get( 0 ) );
+                    if ( size <= 0 ) {
+                        context.addError(new DescrBuildError(context.getParentDescr(),
+                                patternDescr,
+                                null,
+                                "The size of a tumbling window must be greater than zero in '" + context.getRule().getName() + "'"));
+                    } else {
+                        pattern.addBehavior( HoppingTimeWindow.tumbling( size ) );
+                    }
+                } else if ( Behavior.BehaviorType.HOPPING_WINDOW.matches( behaviorDescr.getSubType() ) ) {
+                    long size = TimeUtils.parseTimeString( behaviorDescr.getParameters().get( 0 ) );
+                    long hop = behaviorDescr.getParameters().size() > 1 ? TimeUtils.parseTimeString( behaviorDescr.getParameters().get( 1 ) ) : 0;
+                    if ( size <= 0 || hop <= 0 || hop > size ) {
+                        context.addError(new DescrBuildError(context.getParentDescr(),
+                                patternDescr,
+                                null,
+                                "A hopping window requires a size and a hop, with 0 < hop <= size, in '" + context.getRule().getName() + "'"));
+                    } else {
+                        pattern.addBehavior( new HoppingTimeWindow( size, hop ) );
+                    }
                 }
             } else {
                 // Some behaviors can only be assigned to patterns declared as events
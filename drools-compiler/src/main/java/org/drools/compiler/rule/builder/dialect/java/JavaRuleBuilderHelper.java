@@ -257,7 +257,10 @@ public final class JavaRuleBuilderHelper {
         String resourceName = className.replace('.', '/') + ".class";
 
         JavaDialectRuntimeData data = (JavaDialectRuntimeData)context.getPkg().getDialectRuntimeRegistry().getDialectData("java");
-        data.write(resourceName, bytecode);
-        data.putInvoker(className, invokerLookup);
+        // the rules of a package may be built concurrently
+        synchronized (data) {
+            data.write(resourceName, bytecode);
+            data.putInvoker(className, invokerLookup);
+        }
     }
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.drools.compiler.Cheese;
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.RuntimeDroolsException;
+import org.drools.core.command.runtime.BatchExecutionCommandImpl;
+import org.drools.core.command.runtime.SetGlobalCommand;
+import org.drools.core.command.runtime.rule.InsertObjectCommand;
+import org.drools.core.runtime.help.impl.BatchExecutionCodec;
+import org.drools.core.runtime.rule.impl.FlatQueryResults;
+import org.junit.Test;
+import org.kie.api.command.Command;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.runtime.rule.QueryResultsRow;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.command.CommandFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class BatchExecutionCodecTest extends CommonTestMethodBase {
+
+    private static final String DRL = "package org.drools.compiler.command\n" +
+                                      "import " + Cheese.class.getCanonicalName() + "\n" +
+                                      "global java.util.List list\n" +
+                                      "rule Expensive when\n" +
+                                      "    $c : Cheese( price > 10 )\n" +
+                                      "then\n" +
+                                      "    list.add( $c.getType() );\n" +
+                                      "end\n" +
+                                      "query cheeses( String $type )\n" +
+                                      "    $cheese : Cheese( type == $type )\n" +
+                                      "end\n";
+
+    private interface Encoding {
+        Object roundTrip(BatchExecutionCodec codec,
+                         Object value);
+    }
+
+    private static final Encoding BINARY = new Encoding() {
+                                             public Object roundTrip(BatchExecutionCodec codec,
+                                                                     Object value) {
+                                                 return codec.fromBinary( codec.toBinary( value ) );
+                                             }
+                                         };
+
+    private static final Encoding JSON   = new Encoding() {
+                                             public Object roundTrip(BatchExecutionCodec codec,
+                                                                     Object value) {
+                                                 return codec.fromJSon( codec.toJSon( value ) );
+                                             }
+                                         };
+
+    @Test
+    public void testBinaryRoundTrip() {
+        executeRoundTrip( BINARY );
+    }
+
+    @Test
+    public void testJSonRoundTrip() {
+        executeRoundTrip( JSON );
+    }
+
+    @Test
+    public void testJSonEncoding() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase );
+
+        List<Command< ? >> commands = new ArrayList<Command< ? >>();
+        commands.add( CommandFactory.newInsert( new Cheese( "stil\"ton\n", 25 ), "stilton" ) );
+        commands.add( CommandFactory.newFireAllRules() );
+        String json = codec.toJSon( CommandFactory.newBatchExecution( commands ) );
+
+        assertEquals( "{\"batch-execution\":{\"commands\":[" +
+                      "{\"insert\":{\"object\":{\"org.drools.compiler.Cheese\":{\"doublePrice\":0.0,\"oldPrice\":0,\"price\":25,\"type\":\"stil\\\"ton\\n\"}}," +
+                      "\"out-identifier\":\"stilton\",\"return-object\":true}}," +
+                      "{\"fire-all-rules\":{\"max\":-1}}]}}",
+                      json );
+
+        // unknown fields and blanks are skipped
+        BatchExecutionCommandImpl batch = (BatchExecutionCommandImpl) codec.fromJSon( "{ \"batch-execution\" : { \"commands\" : [\n" +
+                                                                                      "  { \"insert\" : { \"object\" : { \"org.drools.compiler.Cheese\" : { \"type\" : \"brie\", \"price\" : 5, \"weight\" : 2.5 } } } }\n" +
+                                                                                      "] } }" );
+        assertEquals( 1, batch.getCommands().size() );
+        assertEquals( new Cheese( "brie", 5 ), ((InsertObjectCommand) batch.getCommands().get( 0 )).getObject() );
+    }
+
+    @Test
+    public void testLongValues() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase );
+
+        // a Long small enough to be an int is not read back as an Integer
+        assertTrue( codec.toJSon( CommandFactory.newSetGlobal( "count", 5L ) ).contains( "{\"long\":5}" ) );
+        for ( Encoding encoding : new Encoding[]{BINARY, JSON} ) {
+            SetGlobalCommand command = (SetGlobalCommand) encoding.roundTrip( codec,
+                                                                              CommandFactory.newSetGlobal( "count", 5L ) );
+            assertEquals( Long.valueOf( 5 ), command.getObject() );
+        }
+    }
+
+    @Test
+    public void testNumberAndEnumValues() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase );
+
+        assertTrue( codec.toJSon( CommandFactory.newSetGlobal( "unit", Unit.GRAM ) ).contains( "{\"enum\":\"" + Unit.class.getName() + ".GRAM\"}" ) );
+        Object[] values = new Object[]{1.5f, Float.NaN, (short) 5, (byte) 5, Unit.GRAM};
+        for ( Encoding encoding : new Encoding[]{BINARY, JSON} ) {
+            for ( Object value : values ) {
+                SetGlobalCommand command = (SetGlobalCommand) encoding.roundTrip( codec,
+                                                                                  CommandFactory.newSetGlobal( "value", value ) );
+                assertEquals( value, command.getObject() );
+            }
+        }
+    }
+
+    @Test
+    public void testUnrestorableFactTypes() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase );
+
+        for ( Object fact : new Object[]{new Weight(), new Volume()} ) {
+            try {
+                codec.toJSon( CommandFactory.newInsert( fact ) );
+                fail( "A fact whose state cannot be restored must not be encoded" );
+            } catch ( IllegalArgumentException e ) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownFactTypes() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        String json = "{\"insert\":{\"object\":{\"" + Price.class.getName() + "\":{\"amount\":5}}}}";
+
+        try {
+            new BatchExecutionCodec( kbase ).fromJSon( json );
+            fail( "A type unknown to the KieBase must not be decoded" );
+        } catch ( RuntimeDroolsException e ) {
+            // expected
+        }
+
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase,
+                                                             Arrays.<Class< ? >> asList( Price.class ) );
+        InsertObjectCommand command = (InsertObjectCommand) codec.fromJSon( json );
+        assertEquals( 5L, ((Price) command.getObject()).getAmount() );
+    }
+
+    @Test
+    public void testCorruptedBinarySizes() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase );
+        // an empty list, its size is the last byte
+        byte[] empty = codec.toBinary( new ArrayList<Object>() );
+
+        // a size overflowing to a negative int, then the largest size without its elements
+        byte[][] sizes = new byte[][]{{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+                                      {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}};
+        for ( byte[] size : sizes ) {
+            byte[] bytes = Arrays.copyOf( empty, empty.length - 1 + size.length );
+            System.arraycopy( size, 0, bytes, empty.length - 1, size.length );
+            try {
+                codec.fromBinary( bytes );
+                fail( "A corrupted size must not be decoded" );
+            } catch ( RuntimeDroolsException e ) {
+                assertTrue( e.getCause() instanceof IOException );
+            }
+        }
+    }
+
+    public static class Price {
+        private long amount;
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(long amount) {
+            this.amount = amount;
+        }
+    }
+
+    public static enum Unit {
+        GRAM, KILOGRAM
+    }
+
+    public static class Weight {
+        private long grams;
+
+        public long getGrams() {
+            return grams;
+        }
+
+        public void setGrams(long grams) {
+            this.grams = grams;
+        }
+
+        // derived from the grams, but with no setter
+        public long getKilograms() {
+            return grams / 1000;
+        }
+    }
+
+    public static class Volume {
+        private long liters;
+
+        // not a property
+        private String unit = "l";
+
+        public long getLiters() {
+            return liters;
+        }
+
+        public void setLiters(long liters) {
+            this.liters = liters;
+        }
+    }
+
+    private void executeRoundTrip(Encoding encoding) {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        BatchExecutionCodec codec = new BatchExecutionCodec( kbase );
+
+        Cheese stilton = new Cheese( "stilton", 25 );
+        List<Command< ? >> commands = new ArrayList<Command< ? >>();
+        commands.add( CommandFactory.newSetGlobal( "list", new ArrayList<Object>() ) );
+        commands.add( CommandFactory.newInsert( stilton, "stilton" ) );
+        commands.add( CommandFactory.newInsertElements( Arrays.<Object> asList( new Cheese( "brie", 5 ), new Cheese( "cheddar", 15 ) ) ) );
+        commands.add( CommandFactory.newFireAllRules( "fired" ) );
+        commands.add( CommandFactory.newQuery( "stiltons", "cheeses", new Object[]{"stilton"} ) );
+        commands.add( CommandFactory.newGetGlobal( "list" ) );
+
+        BatchExecutionCommandImpl batch = (BatchExecutionCommandImpl) encoding.roundTrip( codec,
+                                                                                          CommandFactory.newBatchExecution( commands ) );
+        assertEquals( 6, batch.getCommands().size() );
+
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase );
+        ExecutionResults results = (ExecutionResults) encoding.roundTrip( codec,
+                                                                          ksession.execute( batch ) );
+        ksession.dispose();
+
+        assertEquals( stilton, results.getValue( "stilton" ) );
+        assertEquals( 2, ((Number) results.getValue( "fired" )).intValue() );
+
+        List< ? > list = (List< ? >) results.getValue( "list" );
+        assertEquals( 2, list.size() );
+        assertTrue( list.containsAll( Arrays.asList( "stilton", "cheddar" ) ) );
+
+        FlatQueryResults stiltons = (FlatQueryResults) results.getValue( "stiltons" );
+        assertEquals( 1, stiltons.size() );
+        QueryResultsRow row = stiltons.iterator().next();
+        assertEquals( stilton, row.get( "$cheese" ) );
+        assertEquals( ((FactHandle) results.getFactHandle( "stilton" )).toExternalForm(),
+                      row.getFactHandle( "$cheese" ).toExternalForm() );
+    }
+}
@@ -18,6 +18,8 @@ package org.drools.compiler.conf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import org.drools.core.conf.JittingThresholdOption;
+import org.drools.core.conf.PreJittingOption;
 import org.drools.core.runtime.rule.impl.DefaultConsequenceExceptionHandler;
 import org.junit.Before;
 import org.junit.Test;
@@ -444,6 +446,48 @@ public class KnowledgeBaseConfigurationTest {
         }
     }
     
+    @Test
+    public void testJittingConfiguration() {
+        // checking the string based getProperty() method
+        assertEquals( "20",
+                      config.getProperty( JittingThresholdOption.PROPERTY_NAME ) );
+        assertEquals( "false",
+                      config.getProperty( PreJittingOption.PROPERTY_NAME ) );
+
+        // setting the options using the type safe method
+        config.setOption( JittingThresholdOption.get( 0 ) );
+        config.setOption( PreJittingOption.YES );
+
+        // checking the type safe getOption() method
+        assertEquals( JittingThresholdOption.get( 0 ),
+                      config.getOption( JittingThresholdOption.class ) );
+        assertEquals( PreJittingOption.YES,
+                      config.getOption( PreJittingOption.class ) );
+        // checking the string based getProperty() method
+        assertEquals( "0",
+                      config.getProperty( JittingThresholdOption.PROPERTY_NAME ) );
+        assertEquals( "true",
+                      config.getProperty( PreJittingOption.PROPERTY_NAME ) );
+
+        // setting the options using the string based setProperty() method
+        config.setProperty( JittingThresholdOption.PROPERTY_NAME,
+                            "-1" );
+        config.setProperty( PreJittingOption.PROPERTY_NAME,
+                            "false" );
+
+        // checking the type safe getOption() method
+        assertEquals( JittingThresholdOption.get( -1 ),
+                      config.getOption( JittingThresholdOption.class ) );
+        assertEquals( PreJittingOption.NO,
+                      config.getOption( PreJittingOption.class ) );
+
+        // an empty value sets the default threshold back
+        config.setProperty( JittingThresholdOption.PROPERTY_NAME,
+                            null );
+        assertEquals( String.valueOf( JittingThresholdOption.DEFAULT_VALUE ),
+                      config.getProperty( JittingThresholdOption.PROPERTY_NAME ) );
+    }
+
     @Test
     public void testRulebaseSetUpdateHandler() {
         // this test is to avoid a regression, since update handler was supposed to be disabled in Drools 5.
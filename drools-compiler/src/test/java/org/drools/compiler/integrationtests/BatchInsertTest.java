@@ -0,0 +1,75 @@
+package org.drools.compiler.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.compiler.Cheese;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+
+public class BatchInsertTest {
+
+    @Test
+    public void testInsertUpdateDeleteAll() {
+        String str = "";
+        str += "package org.drools.compiler.test \n";
+        str += "import " + Cheese.class.getCanonicalName() + "\n";
+        str += "global java.util.List list \n";
+        str += "rule expensive when \n";
+        str += "   $c : Cheese( price > 10 ) \n";
+        str += "then \n";
+        str += "   list.add( $c ); \n";
+        str += "end \n";
+
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( str.getBytes() ),
+                      ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) kbase.newStatefulKnowledgeSession();
+        List<Cheese> list = new ArrayList<Cheese>();
+        ksession.setGlobal( "list", list );
+
+        List<Cheese> cheeses = new ArrayList<Cheese>();
+        for ( int i = 0; i < 20; i++ ) {
+            cheeses.add( new Cheese( "cheese" + i, i ) );
+        }
+
+        List<FactHandle> handles = ksession.insertAll( cheeses );
+        assertEquals( 20, handles.size() );
+        assertEquals( 20, ksession.getFactCount() );
+        for ( int i = 0; i < 20; i++ ) {
+            assertSame( cheeses.get( i ), ksession.getObject( handles.get( i ) ) );
+        }
+
+        assertEquals( 9, ksession.fireAllRules() );
+
+        for ( Cheese cheese : cheeses ) {
+            cheese.setPrice( cheese.getPrice() + 5 );
+        }
+        ksession.updateAll( handles );
+        // prices between 6 and 10 now match, while the ones already above 10 are activated again
+        assertEquals( 14, ksession.fireAllRules() );
+
+        ksession.deleteAll( handles.subList( 0, 10 ) );
+        assertEquals( 10, ksession.getFactCount() );
+        assertEquals( 0, ksession.fireAllRules() );
+        assertEquals( 23, list.size() );
+
+        ksession.dispose();
+    }
+}
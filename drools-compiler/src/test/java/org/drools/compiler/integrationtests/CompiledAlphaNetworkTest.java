@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.compiler.Cheese;
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.Person;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.impl.KnowledgeBaseImpl;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class CompiledAlphaNetworkTest extends CommonTestMethodBase {
+
+    private static final String HEADER = "package org.drools.compiler.test\n" +
+                                         "import " + Person.class.getCanonicalName() + "\n" +
+                                         "import " + Cheese.class.getCanonicalName() + "\n" +
+                                         "global java.util.List list\n";
+
+    private ObjectTypeNode getObjectTypeNode(KnowledgeBase kbase, Class<?> nodeClass) {
+        List<ObjectTypeNode> nodes = ((InternalRuleBase) ((KnowledgeBaseImpl) kbase).ruleBase).getRete().getObjectTypeNodes();
+        for ( ObjectTypeNode n : nodes ) {
+            if ( ((ClassObjectType) n.getObjectType()).getClassType() == nodeClass ) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    private KnowledgeBase createKnowledgeBase(String drl) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( "drools.compiledAlphaNetwork", "true" );
+        return loadKnowledgeBaseFromString( kconf, drl );
+    }
+
+    private String rule(String name, String pattern) {
+        return "rule " + name + " when\n" +
+               "    " + pattern + "\n" +
+               "then\n" +
+               "    list.add( \"" + name + "\" );\n" +
+               "end\n";
+    }
+
+    private List<String> fire(KnowledgeBase kbase, Object... facts) {
+        List<String> list = new ArrayList<String>();
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase );
+        try {
+            ksession.setGlobal( "list", list );
+            for ( Object fact : facts ) {
+                ksession.insert( fact );
+            }
+            ksession.fireAllRules();
+        } finally {
+            ksession.dispose();
+        }
+        Collections.sort( list );
+        return list;
+    }
+
+    @Test
+    public void testHashedAndUnhashedAlphas() {
+        // above the hashing threshold, so the alphas on the name are switched on
+        String drl = HEADER +
+                     rule( "r1", "Person( name == \"bob\" )" ) +
+                     rule( "r2", "Person( name == \"mark\" )" ) +
+                     rule( "r3", "Person( name == \"edson\" )" ) +
+                     rule( "r4", "Person( name == \"\\\"quoted\\\"\" )" ) +
+                     rule( "r5", "Person( age > 30 )" ) +
+                     rule( "r6", "Person( name == \"bob\", age > 30 )" ) +
+                     rule( "r7", "Person( name == \"mark\" ) Cheese( type == \"stilton\" )" );
+        KnowledgeBase kbase = createKnowledgeBase( drl );
+
+        assertNotNull( getObjectTypeNode( kbase, Person.class ).getCompiledNetwork() );
+        assertNotNull( getObjectTypeNode( kbase, Cheese.class ).getCompiledNetwork() );
+
+        assertEquals( list( "r1", "r5", "r6" ),
+                      fire( kbase, new Person( "bob", 40 ) ) );
+        assertEquals( list( "r2", "r7" ),
+                      fire( kbase, new Person( "mark", 20 ), new Cheese( "stilton", 10 ) ) );
+        assertEquals( list( "r4" ),
+                      fire( kbase, new Person( "\"quoted\"", 20 ) ) );
+        assertEquals( list(),
+                      fire( kbase, new Person( "mario", 20 ), new Cheese( "brie", 10 ) ) );
+    }
+
+    @Test
+    public void testRecompileOnIncrementalChanges() {
+        String drl = HEADER +
+                     rule( "r1", "Person( name == \"bob\" )" ) +
+                     rule( "r2", "Person( name == \"mark\" )" ) +
+                     rule( "r3", "Person( name == \"edson\" )" );
+        KnowledgeBase kbase = createKnowledgeBase( drl );
+        ObjectTypeNode otn = getObjectTypeNode( kbase, Person.class );
+        Object network = otn.getCompiledNetwork();
+        assertNotNull( network );
+
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( (HEADER + rule( "r4", "Person( name == \"mario\" )" )).getBytes() ),
+                      ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        assertNotNull( otn.getCompiledNetwork() );
+        assertNotSame( network, otn.getCompiledNetwork() );
+        assertEquals( list( "r4" ),
+                      fire( kbase, new Person( "mario", 20 ) ) );
+
+        network = otn.getCompiledNetwork();
+        kbase.removeRule( "org.drools.compiler.test", "r1" );
+
+        assertNotSame( network, otn.getCompiledNetwork() );
+        assertEquals( list(),
+                      fire( kbase, new Person( "bob", 20 ) ) );
+        assertEquals( list( "r2" ),
+                      fire( kbase, new Person( "mark", 20 ) ) );
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<String>();
+        Collections.addAll( list, values );
+        return list;
+    }
+}
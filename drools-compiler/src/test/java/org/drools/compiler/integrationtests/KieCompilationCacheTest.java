@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.Message;
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.compiler.kie.builder.impl.KieRepositoryImpl;
+import org.drools.core.util.FileManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.model.KieModuleModel;
+import org.kie.api.runtime.KieSession;
+
+public class KieCompilationCacheTest extends CommonTestMethodBase {
+
+    private FileManager fileManager;
+
+    private File        cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        this.fileManager = new FileManager();
+        this.fileManager.setUp();
+        this.cacheDir = fileManager.newFile( "cache" );
+        ((KieRepositoryImpl) KieServices.Factory.get().getRepository()).setCompilationCacheDir( cacheDir );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ((KieRepositoryImpl) KieServices.Factory.get().getRepository()).setCompilationCacheDir( null );
+        this.fileManager.tearDown();
+    }
+
+    private static String drl(String message) {
+        return "package org.drools.compiler.integrationtests\n" +
+               "import " + Message.class.getCanonicalName() + "\n" +
+               "rule R1 when\n" +
+               "   $m : Message( message == \"" + message + "\" )\n" +
+               "then\n" +
+               "end\n";
+    }
+
+    private File buildKJar(ReleaseId releaseId,
+                           String drl) throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        KieModuleModel kproj = ks.newKieModuleModel();
+        kproj.newKieBaseModel( "KBase1" ).setDefault( true ).newKieSessionModel( "KSession1" ).setDefault( true );
+
+        KieFileSystem kfs = ks.newKieFileSystem()
+                .generateAndWritePomXML( releaseId )
+                .write( "src/main/resources/r1.drl", drl )
+                .writeKModuleXML( kproj.toXML() );
+        KieBuilder kieBuilder = ks.newKieBuilder( kfs ).buildAll();
+        assertTrue( kieBuilder.getResults().getMessages().isEmpty() );
+
+        File jar = fileManager.newFile( "kjar-" + System.nanoTime() + ".jar" );
+        FileOutputStream out = new FileOutputStream( jar );
+        try {
+            out.write( ((InternalKieModule) kieBuilder.getKieModule()).getBytes() );
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+
+    private InternalKieModule deploy(ReleaseId releaseId,
+                                     File jar) {
+        KieServices ks = KieServices.Factory.get();
+        return (InternalKieModule) ks.getRepository().addKieModule( ks.getResources().newFileSystemResource( jar ) );
+    }
+
+    private int fire(ReleaseId releaseId,
+                     String message) {
+        KieSession ksession = KieServices.Factory.get().newKieContainer( releaseId ).newKieSession( "KSession1" );
+        ksession.insert( new Message( message ) );
+        int count = ksession.fireAllRules();
+        ksession.dispose();
+        return count;
+    }
+
+    @Test
+    public void testUnchangedKieBaseLoadedFromCache() throws Exception {
+        ReleaseId releaseId = KieServices.Factory.get().newReleaseId( "org.kie", "compilation-cache", "1.0" );
+        File jar = buildKJar( releaseId, drl( "Hello World" ) );
+
+        // compiled and stored in the cache
+        InternalKieModule kModule = deploy( releaseId, jar );
+        assertEquals( 1, fire( releaseId, "Hello World" ) );
+        assertNotNull( kModule.getKnowledgeBuilderForKieBase( "KBase1" ) );
+        assertEquals( 1, cacheDir.list().length );
+
+        // loaded from the cache, as if the application was restarted
+        kModule = deploy( releaseId, jar );
+        assertEquals( 1, fire( releaseId, "Hello World" ) );
+        assertNull( kModule.getKnowledgeBuilderForKieBase( "KBase1" ) );
+        assertNotNull( kModule.getKnowledgePackagesForKieBase( "KBase1" ) );
+        assertEquals( 1, cacheDir.list().length );
+    }
+
+    @Test
+    public void testChangedKieBaseCompiledAgain() throws Exception {
+        ReleaseId releaseId = KieServices.Factory.get().newReleaseId( "org.kie", "compilation-cache-changed", "1.0" );
+
+        deploy( releaseId, buildKJar( releaseId, drl( "Hello World" ) ) );
+        assertEquals( 1, fire( releaseId, "Hello World" ) );
+
+        InternalKieModule kModule = deploy( releaseId, buildKJar( releaseId, drl( "Goodbye" ) ) );
+        assertEquals( 0, fire( releaseId, "Hello World" ) );
+        assertEquals( 1, fire( releaseId, "Goodbye" ) );
+        assertNotNull( kModule.getKnowledgeBuilderForKieBase( "KBase1" ) );
+        assertEquals( 2, cacheDir.list().length );
+    }
+}
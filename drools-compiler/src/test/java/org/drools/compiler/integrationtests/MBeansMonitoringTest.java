@@ -11,6 +11,15 @@ import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
 
+import org.drools.compiler.Cheese;
+import org.drools.compiler.Person;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.management.SessionMemoryStats;
+import org.drools.core.phreak.NetworkProfiler;
+import org.drools.core.phreak.NetworkProfiler.EvaluationStats;
+import org.drools.core.runtime.conf.NetworkProfilingOption;
+import org.drools.core.management.SessionMemoryStats.NodeMemoryStats;
+import org.drools.core.management.SessionMemoryStats.RuleMemoryStats;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -20,10 +29,13 @@ import org.kie.internal.KnowledgeBase;
 import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.builder.KnowledgeBuilder;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.PhreakOption;
 import org.kie.api.conf.EventProcessingOption;
 import org.kie.api.conf.MBeansOption;
 import org.kie.internal.io.ResourceFactory;
 import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
 
 public class MBeansMonitoringTest {
 
@@ -70,6 +82,99 @@ public class MBeansMonitoringTest {
         Assert.assertEquals( 10001, ((Number)expOffset).longValue() );
     }
 
+    @Test
+    public void testSessionMemoryStats() throws Exception {
+        String drl = "package org.drools.compiler.test\n" +
+                     "import org.drools.compiler.Cheese\n" +
+                     "import org.drools.compiler.Person\n" +
+                     "rule X\n" +
+                     "when\n" +
+                     "    Cheese( $type : type )\n" +
+                     "    Person( likes == $type )\n" +
+                     "then\n" +
+                     "end";
+        KieBaseConfiguration conf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        conf.setOption( MBeansOption.ENABLED );
+
+        KnowledgeBase kbase = loadKnowledgeBase( "memoryKbase",
+                                                 drl,
+                                                 conf );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        for ( String type : new String[] { "stilton", "brie", "cheddar" } ) {
+            ksession.insert( new Cheese( type ) );
+        }
+        for ( int i = 0; i < 5; i++ ) {
+            Person person = new Person( "p" + i );
+            person.setLikes( i % 2 == 0 ? "stilton" : "brie" );
+            ksession.insert( person );
+        }
+        ksession.fireAllRules();
+
+        SessionMemoryStats stats = SessionMemoryStats.snapshot( ((StatefulKnowledgeSessionImpl) ksession).session );
+        RuleMemoryStats ruleStats = stats.getRuleStats( "X" );
+        Assert.assertEquals( 3, ruleStats.getLeftTuples() );
+        Assert.assertEquals( 5, ruleStats.getRightTuples() );
+
+        NodeMemoryStats nodeStats = ruleStats.getNodes().values().iterator().next();
+        Assert.assertTrue( nodeStats.getRightMemory().isIndexed() );
+        Assert.assertEquals( 2, nodeStats.getRightMemory().getBuckets() );
+        Assert.assertEquals( 3, nodeStats.getRightMemory().getMaxBucketSize() );
+
+        MBeanServer mbserver = ManagementFactory.getPlatformMBeanServer();
+        ObjectName memoryOn = new ObjectName( "org.drools.kbases:type=memoryKbase,group=Sessions,sessionId=Session-" + ksession.getId() + ",component=Memory" );
+        Assert.assertEquals( 5L, mbserver.getAttribute( memoryOn, "TotalRightTuples" ) );
+
+        ksession.dispose();
+        Assert.assertFalse( mbserver.isRegistered( memoryOn ) );
+    }
+
+    @Test
+    public void testNetworkProfiling() throws Exception {
+        String drl = "package org.drools.compiler.test\n" +
+                     "import org.drools.compiler.Cheese\n" +
+                     "import org.drools.compiler.Person\n" +
+                     "rule X\n" +
+                     "when\n" +
+                     "    Cheese( $type : type )\n" +
+                     "    Person( likes == $type )\n" +
+                     "then\n" +
+                     "end";
+        KieBaseConfiguration conf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        conf.setOption( PhreakOption.ENABLED );
+        conf.setOption( MBeansOption.ENABLED );
+
+        KnowledgeBase kbase = loadKnowledgeBase( "profiledKbase",
+                                                 drl,
+                                                 conf );
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( NetworkProfilingOption.YES );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession( ksconf, null );
+        for ( String type : new String[] { "stilton", "brie", "cheddar" } ) {
+            ksession.insert( new Cheese( type ) );
+        }
+        for ( int i = 0; i < 5; i++ ) {
+            Person person = new Person( "p" + i );
+            person.setLikes( i % 2 == 0 ? "stilton" : "brie" );
+            ksession.insert( person );
+        }
+        Assert.assertEquals( 5, ksession.fireAllRules() );
+
+        NetworkProfiler profiler = ((StatefulKnowledgeSessionImpl) ksession).session.getNetworkProfiler();
+        EvaluationStats stats = profiler.getRuleStats( "X" );
+        // 3 cheeses inserted into the join node, and 5 matches into the terminal node
+        Assert.assertEquals( 8, stats.getLeftInserts() );
+        Assert.assertEquals( 5, stats.getRightInserts() );
+        Assert.assertTrue( stats.getEvaluations() > 0 );
+
+        MBeanServer mbserver = ManagementFactory.getPlatformMBeanServer();
+        ObjectName evaluationOn = new ObjectName( "org.drools.kbases:type=profiledKbase,group=Sessions,sessionId=Session-" + ksession.getId() + ",component=Evaluation" );
+        Assert.assertTrue( mbserver.isRegistered( evaluationOn ) );
+        mbserver.invoke( evaluationOn, "reset", new Object[0], new String[0] );
+        Assert.assertNull( profiler.getRuleStats( "X" ) );
+
+        ksession.dispose();
+    }
+
     private KnowledgeBase loadKnowledgeBase( String id,
                                              String drl,
                                              KieBaseConfiguration conf ) {
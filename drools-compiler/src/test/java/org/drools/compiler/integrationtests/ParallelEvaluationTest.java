@@ -0,0 +1,141 @@
+package org.drools.compiler.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.compiler.integrationtests.LinkingTest.A;
+import org.drools.compiler.integrationtests.LinkingTest.B;
+import org.drools.core.RuleBaseConfiguration;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.PhreakOption;
+import org.kie.internal.conf.MaxThreadsOption;
+import org.kie.internal.conf.MultithreadEvaluationOption;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class ParallelEvaluationTest {
+
+    @Test
+    public void testParallelEvaluationFiresInSequentialOrder() {
+        String drl = buildDrl( 40 );
+
+        List<String> sequential = fire( buildKnowledgeBase( drl, false ) );
+        List<String> parallel = fire( buildKnowledgeBase( drl, true ) );
+
+        assertFalse( sequential.isEmpty() );
+        assertEquals( sequential, parallel );
+    }
+
+    @Test
+    public void testParallelEvaluationWithRetractions() {
+        String drl = buildDrl( 40 );
+
+        List<String> sequential = fireWithRetractions( buildKnowledgeBase( drl, false ) );
+        List<String> parallel = fireWithRetractions( buildKnowledgeBase( drl, true ) );
+
+        assertFalse( sequential.isEmpty() );
+        assertEquals( sequential, parallel );
+    }
+
+    @Test
+    public void testMultithreadEvaluationRequiresPhreak() {
+        RuleBaseConfiguration conf = new RuleBaseConfiguration();
+        try {
+            conf.setMultithreadEvaluation( true );
+            fail( "Multithread evaluation should only be allowed with Phreak" );
+        } catch ( IllegalArgumentException e ) {
+            // expected
+        }
+
+        conf.setPhreakEnabled( true );
+        conf.setMultithreadEvaluation( true );
+        try {
+            conf.setPhreakEnabled( false );
+            fail( "Phreak should not be disabled while multithread evaluation is enabled" );
+        } catch ( IllegalArgumentException e ) {
+            // expected
+        }
+    }
+
+    private List<String> fire(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        for ( int i = 0; i < 20; i++ ) {
+            ksession.insert( new A( i ) );
+            ksession.insert( new B( i ) );
+        }
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
+    private List<String> fireWithRetractions(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        List<FactHandle> handles = new ArrayList<FactHandle>();
+        for ( int i = 0; i < 20; i++ ) {
+            handles.add( ksession.insert( new A( i ) ) );
+            ksession.insert( new B( i ) );
+        }
+        ksession.fireAllRules( 100 );
+
+        for ( int i = 0; i < handles.size(); i += 3 ) {
+            ksession.retract( handles.get( i ) );
+        }
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
+    private String buildDrl(int ruleCount) {
+        String str = "";
+        str += "package org.kie \n";
+        str += "import " + A.class.getCanonicalName() + "\n";
+        str += "import " + B.class.getCanonicalName() + "\n";
+        str += "global java.util.List list \n";
+
+        for ( int i = 0; i < ruleCount; i++ ) {
+            // each rule has its own alpha constraint, so its own left input and segment tree
+            str += "rule rule" + i + " salience " + (i % 5) + " when \n";
+            str += "   $a : A( value >= " + (i % 10) + ", value != " + (100 + i) + " ) \n";
+            str += "   $b : B( value == $a.value ) \n";
+            str += "then \n";
+            str += "   list.add( drools.getRule().getName() + \":\" + $a.getValue() ); \n";
+            str += "end \n";
+        }
+        return str;
+    }
+
+    private KnowledgeBase buildKnowledgeBase(String drl, boolean parallel) {
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.getBytes() ),
+                      ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( PhreakOption.ENABLED );
+        if ( parallel ) {
+            kconf.setOption( MultithreadEvaluationOption.YES );
+            kconf.setOption( MaxThreadsOption.get( 4 ) );
+        }
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase( kconf );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        return kbase;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.Person;
+import org.junit.Test;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderConfiguration;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.definition.KnowledgePackage;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class ParallelRulesBuildTest extends CommonTestMethodBase {
+
+    private static String drl(String pkg) {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "package " ).append( pkg ).append( "\n" );
+        sb.append( "import " ).append( Person.class.getCanonicalName() ).append( "\n" );
+        sb.append( "global java.util.List list\n" );
+        sb.append( "function String tag(String s) { return \"" ).append( pkg ).append( ".\" + s; }\n" );
+        for ( int i = 0; i < 40; i++ ) {
+            sb.append( "rule R" ).append( i ).append( i % 3 == 0 ? " dialect \"mvel\"" : "" ).append( " when\n" );
+            sb.append( "    $p : Person( age > " ).append( i ).append( " )\n" );
+            sb.append( "then\n" );
+            sb.append( "    list.add( tag( \"R" ).append( i ).append( ":\" + $p.getName() ) );\n" );
+            sb.append( "end\n" );
+            if ( i % 10 == 5 ) {
+                // extends a rule of the same batch
+                sb.append( "rule C" ).append( i ).append( " extends R" ).append( i ).append( " when\n" );
+                sb.append( "    String( this == $p.name )\n" );
+                sb.append( "then\n" );
+                sb.append( "    list.add( tag( \"C" ).append( i ).append( "\" ) );\n" );
+                sb.append( "end\n" );
+                // used by the following rules
+                sb.append( "query older" ).append( i ).append( "( String $n )\n" );
+                sb.append( "    Person( name == $n, age > " ).append( i ).append( " )\n" );
+                sb.append( "end\n" );
+                sb.append( "rule Q" ).append( i ).append( " when\n" );
+                sb.append( "    $s : String()\n" );
+                sb.append( "    older" ).append( i ).append( "( $s ; )\n" );
+                sb.append( "then\n" );
+                sb.append( "    list.add( tag( \"Q" ).append( i ).append( ":\" + $s ) );\n" );
+                sb.append( "end\n" );
+            }
+        }
+        return sb.toString();
+    }
+
+    private KnowledgeBase build(int parallelRulesBuildThreshold) {
+        KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        conf.setProperty( "drools.parallelRulesBuildThreshold", Integer.toString( parallelRulesBuildThreshold ) );
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( conf );
+        kbuilder.batch()
+                .add( ResourceFactory.newByteArrayResource( drl( "org.drools.compiler.p1" ).getBytes() ), ResourceType.DRL )
+                .add( ResourceFactory.newByteArrayResource( drl( "org.drools.compiler.p2" ).getBytes() ), ResourceType.DRL )
+                .build();
+        if ( kbuilder.hasErrors() ) {
+            fail( kbuilder.getErrors().toString() );
+        }
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        return kbase;
+    }
+
+    private List<String> getRuleNames(KnowledgeBase kbase) {
+        List<String> names = new ArrayList<String>();
+        for ( KnowledgePackage pkg : kbase.getKnowledgePackages() ) {
+            for ( Rule rule : pkg.getRules() ) {
+                names.add( pkg.getName() + "." + rule.getName() );
+            }
+        }
+        return names;
+    }
+
+    private List<String> fire(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase );
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        ksession.insert( new Person( "mark", 37 ) );
+        ksession.insert( new Person( "edson", 12 ) );
+        ksession.insert( "mark" );
+        ksession.insert( "edson" );
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
+    @Test
+    public void testSameKnowledgeBaseAsSequentialBuild() {
+        KnowledgeBase sequential = build( -1 );
+        KnowledgeBase parallel = build( 0 );
+
+        assertEquals( getRuleNames( sequential ), getRuleNames( parallel ) );
+
+        List<String> expected = fire( sequential );
+        assertTrue( expected.contains( "org.drools.compiler.p1.C25" ) );
+        assertTrue( expected.contains( "org.drools.compiler.p2.Q35:mark" ) );
+        assertEquals( expected, fire( parallel ) );
+    }
+}
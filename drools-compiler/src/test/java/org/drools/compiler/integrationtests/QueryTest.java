@@ -2,6 +2,7 @@ package org.drools.compiler.integrationtests;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -18,6 +19,7 @@ import org.drools.compiler.Person;
 import org.drools.compiler.Worker;
 import org.drools.core.base.ClassObjectType;
 import org.drools.core.base.DroolsQuery;
+import org.drools.core.command.runtime.rule.QueryCommand;
 import org.drools.core.common.AbstractWorkingMemory;
 import org.drools.core.common.DefaultFactHandle;
 import org.drools.core.common.InternalFactHandle;
@@ -34,7 +36,10 @@ import org.drools.core.runtime.rule.impl.FlatQueryResults;
 import org.drools.core.spi.ObjectType;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.kie.api.command.Command;
+import org.kie.api.runtime.ExecutionResults;
 import org.kie.internal.KnowledgeBase;
+import org.kie.internal.command.CommandFactory;
 import org.kie.api.definition.rule.Rule;
 import org.kie.internal.builder.conf.PhreakOption;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
@@ -881,4 +886,56 @@ public class QueryTest extends CommonTestMethodBase {
         ksession.dispose();
     }
 
+    @Test
+    public void testQueryResultsWithMaxRowsAndProjection() throws Exception {
+        String str = "package org.drools.compiler.test\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "import " + Person.class.getCanonicalName() + "\n" +
+                     "query cheeseLovers( String $type )\n" +
+                     "    $c : Cheese( type == $type )\n" +
+                     "    $p : Person( likes == $type )\n" +
+                     "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( str );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase );
+        ksession.insert( new Cheese( "stilton", 10 ) );
+        for ( int i = 0; i < 10; i++ ) {
+            ksession.insert( new Person( "p" + i, "stilton" ) );
+        }
+
+        StatefulKnowledgeSessionImpl ksessionImpl = (StatefulKnowledgeSessionImpl) ksession;
+        org.kie.api.runtime.rule.QueryResults results = ksessionImpl.getQueryResults( "cheeseLovers", 3, new String[]{"$p"}, "stilton" );
+        assertEquals( 3, results.size() );
+        assertEquals( Arrays.asList( "$p" ), Arrays.asList( results.getIdentifiers() ) );
+        for ( QueryResultsRow row : results ) {
+            assertTrue( row.get( "$p" ) instanceof Person );
+            try {
+                row.get( "$c" );
+                fail( "$c is not projected" );
+            } catch ( IllegalArgumentException e ) {
+                // expected
+            }
+        }
+
+        results = ksessionImpl.getQueryResults( "cheeseLovers", -1, new String[]{"$type", "$c"}, "stilton" );
+        assertEquals( 10, results.size() );
+        assertEquals( new HashSet<String>( Arrays.asList( "$type", "$c" ) ), new HashSet<String>( Arrays.asList( results.getIdentifiers() ) ) );
+        assertEquals( new Cheese( "stilton", 10 ), results.iterator().next().get( "$c" ) );
+
+        try {
+            ksessionImpl.getQueryResults( "cheeseLovers", -1, new String[]{"$x"}, "stilton" );
+            fail( "$x is not an identifier of the query" );
+        } catch ( IllegalArgumentException e ) {
+            // expected
+        }
+
+        QueryCommand query = new QueryCommand( "lovers", "cheeseLovers", "stilton" );
+        query.setMaxRows( 2 );
+        query.setIdentifiers( Arrays.asList( "$p" ) );
+        ExecutionResults executionResults = ksession.execute( CommandFactory.newBatchExecution( Arrays.<Command< ? >> asList( query ) ) );
+        assertEquals( 2, ((org.kie.api.runtime.rule.QueryResults) executionResults.getValue( "lovers" )).size() );
+
+        ksession.dispose();
+    }
+
 }
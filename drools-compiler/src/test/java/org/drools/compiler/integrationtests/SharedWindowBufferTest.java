@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.OrderEvent;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.ObjectTypeNode.ObjectTypeNodeMemory;
+import org.drools.core.reteoo.WindowEventBuffer;
+import org.drools.core.time.SessionPseudoClock;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.time.SessionClock;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class SharedWindowBufferTest extends CommonTestMethodBase {
+
+    private static final String DRL = "package org.drools.compiler.test\n" +
+                                      "import " + OrderEvent.class.getCanonicalName() + "\n" +
+                                      "global java.util.List results\n" +
+                                      "declare OrderEvent\n" +
+                                      "    @role( event )\n" +
+                                      "end\n" +
+                                      window( "w10", "", "10s" ) +
+                                      window( "w30", "", "30s" ) +
+                                      window( "w60", "", "60s" ) +
+                                      window( "big20", "total > 50", "20s" );
+
+    private static String window(String name,
+                                 String constraint,
+                                 String size) {
+        return "rule " + name + " when\n" +
+               "    Number( $c : intValue ) from accumulate( OrderEvent( " + constraint + " ) over window:time( " + size + " ), count( 1 ) )\n" +
+               "then\n" +
+               "    results.add( \"" + name + ":\" + $c );\n" +
+               "end\n";
+    }
+
+    private List<String> run(boolean sharedWindowBuffers) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        kconf.setProperty( "drools.sharedWindowBuffers", Boolean.toString( sharedWindowBuffers ) );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, DRL );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase, ksconf );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        List<String> results = new ArrayList<String>();
+        ksession.setGlobal( "results", results );
+
+        List<FactHandle> handles = new ArrayList<FactHandle>();
+        for ( int i = 0; i < 60; i++ ) {
+            handles.add( ksession.insert( new OrderEvent( Integer.toString( i ), "customer", i % 100 ) ) );
+            if ( i > 0 && i % 7 == 0 ) {
+                // retracted events are skipped by the windows still referencing them
+                ksession.retract( handles.get( i - 3 ) );
+            }
+            ksession.fireAllRules();
+            clock.advanceTime( 3, TimeUnit.SECONDS );
+        }
+        clock.advanceTime( 2, TimeUnit.MINUTES );
+        ksession.fireAllRules();
+        ksession.dispose();
+        return results;
+    }
+
+    @Test
+    public void testSameResultsAsPerWindowQueues() {
+        List<String> expected = run( false );
+        assertFalse( expected.isEmpty() );
+        assertEquals( expected, run( true ) );
+    }
+
+    @Test
+    public void testBufferStaysBoundedWithARarelyMatchingWindow() {
+        String drl = "package org.drools.compiler.test\n" +
+                     "import " + OrderEvent.class.getCanonicalName() + "\n" +
+                     "global java.util.List results\n" +
+                     "declare OrderEvent\n" +
+                     "    @role( event )\n" +
+                     "end\n" +
+                     window( "w10", "", "10s" ) +
+                     window( "rare", "total > 1000", "10s" );
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        kconf.setProperty( "drools.sharedWindowBuffers", "true" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase, ksconf );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        ksession.setGlobal( "results", new ArrayList<String>() );
+
+        ObjectTypeNode otn = LinkingTest.getObjectTypeNode( kbase, OrderEvent.class );
+        WindowEventBuffer buffer = ((ObjectTypeNodeMemory) ((StatefulKnowledgeSessionImpl) ksession).getInternalWorkingMemory().getNodeMemory( otn )).getWindowEventBuffer();
+
+        for ( int i = 0; i < 500; i++ ) {
+            // only the first event and one every 200 seconds match the rare window
+            int total = i % 200 == 0 ? 2000 : i % 100;
+            ksession.insert( new OrderEvent( Integer.toString( i ), "customer", total ) );
+            ksession.fireAllRules();
+            clock.advanceTime( 1, TimeUnit.SECONDS );
+            // the events of the last 10 seconds, whatever the rare window has left to expire
+            assertTrue( "buffer size " + buffer.size() + " at " + i, buffer.size() <= 12 );
+        }
+        ksession.dispose();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.drools.compiler.Cheese;
+import org.drools.compiler.CommonTestMethodBase;
+import org.junit.Test;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class StagedInsertionTest extends CommonTestMethodBase {
+
+    private static final String DRL = "package org.drools.compiler.test\n" +
+                                      "import " + Cheese.class.getCanonicalName() + "\n" +
+                                      "global java.util.List list\n" +
+                                      "rule fromA when\n" +
+                                      "    $c : Cheese( price > 10 ) from entry-point \"a\"\n" +
+                                      "then\n" +
+                                      "    list.add( $c );\n" +
+                                      "end\n" +
+                                      "rule fromB when\n" +
+                                      "    $c : Cheese( price > 10 ) from entry-point \"b\"\n" +
+                                      "then\n" +
+                                      "    list.add( $c );\n" +
+                                      "end\n";
+
+    private StatefulKnowledgeSession createStagedSession() {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( DRL );
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setProperty( "drools.stagedEntryPointInsertion", "true" );
+        return createKnowledgeSession( kbase, ksconf );
+    }
+
+    @Test
+    public void testConcurrentInsertsOnSeveralEntryPoints() throws Exception {
+        final StatefulKnowledgeSession ksession = createStagedSession();
+        List<Cheese> list = new ArrayList<Cheese>();
+        ksession.setGlobal( "list", list );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try {
+            List<Future<?>> producers = new ArrayList<Future<?>>();
+            for ( int i = 0; i < 4; i++ ) {
+                final String entryPoint = i % 2 == 0 ? "a" : "b";
+                producers.add( executor.submit( new Callable<Object>() {
+                    public Object call() {
+                        for ( int j = 0; j < 500; j++ ) {
+                            ksession.getEntryPoint( entryPoint ).insert( new Cheese( "cheese", j % 20 ) );
+                        }
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<?> producer : producers ) {
+                producer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // 9 prices out of 20 are above 10
+        assertEquals( 4 * 225, ksession.fireAllRules() );
+        assertEquals( 4 * 225, list.size() );
+        assertEquals( 1000, ksession.getEntryPoint( "a" ).getFactCount() );
+        assertEquals( 1000, ksession.getEntryPoint( "b" ).getFactCount() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testUpdateAndDeleteStagedHandles() {
+        StatefulKnowledgeSession ksession = createStagedSession();
+        List<Cheese> list = new ArrayList<Cheese>();
+        ksession.setGlobal( "list", list );
+
+        Cheese stilton = new Cheese( "stilton", 5 );
+        FactHandle stiltonHandle = ksession.getEntryPoint( "a" ).insert( stilton );
+        FactHandle brieHandle = ksession.getEntryPoint( "a" ).insert( new Cheese( "brie", 20 ) );
+
+        // the staged inserts are propagated before the update and the delete
+        stilton.setPrice( 15 );
+        ksession.getEntryPoint( "a" ).update( stiltonHandle, stilton );
+        ksession.getEntryPoint( "a" ).delete( brieHandle );
+        assertEquals( 1, ksession.getEntryPoint( "a" ).getFactCount() );
+
+        assertEquals( 1, ksession.fireAllRules() );
+        assertSame( stilton, list.get( 0 ) );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testReadsSeeStagedInserts() {
+        StatefulKnowledgeSession ksession = createStagedSession();
+        ksession.setGlobal( "list", new ArrayList<Cheese>() );
+
+        Cheese stilton = new Cheese( "stilton", 15 );
+        FactHandle stiltonHandle = ksession.getEntryPoint( "a" ).insert( stilton );
+        assertEquals( 1, ksession.getEntryPoint( "a" ).getFactCount() );
+        assertSame( stiltonHandle, ksession.getEntryPoint( "a" ).getFactHandle( stilton ) );
+        assertTrue( ksession.getEntryPoint( "a" ).getObjects().contains( stilton ) );
+
+        Cheese brie = new Cheese( "brie", 5 );
+        FactHandle brieHandle = ksession.insert( brie );
+        assertEquals( 1, ksession.getFactCount() );
+        assertSame( brieHandle, ksession.getFactHandle( brie ) );
+        assertTrue( ksession.getObjects().contains( brie ) );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testStagedInsertOfAnObjectAlreadyInserted() {
+        StatefulKnowledgeSession ksession = createStagedSession();
+        List<Cheese> list = new ArrayList<Cheese>();
+        ksession.setGlobal( "list", list );
+
+        Cheese stilton = new Cheese( "stilton", 15 );
+        Cheese brie = new Cheese( "brie", 20 );
+        FactHandle firstHandle = ksession.getEntryPoint( "a" ).insert( stilton );
+        FactHandle secondHandle = ksession.getEntryPoint( "a" ).insert( stilton );
+        ksession.getEntryPoint( "a" ).insert( brie );
+        assertEquals( 2, ksession.getEntryPoint( "a" ).getFactCount() );
+
+        // the second handle acts on the fact held by the first one
+        ksession.getEntryPoint( "a" ).delete( secondHandle );
+        assertEquals( 1, ksession.getEntryPoint( "a" ).getFactCount() );
+        assertNull( ksession.getEntryPoint( "a" ).getFactHandle( stilton ) );
+        assertNotNull( ksession.getEntryPoint( "a" ).getFactHandle( brie ) );
+
+        // and the first one is now retracted
+        ksession.getEntryPoint( "a" ).delete( firstHandle );
+        assertEquals( 1, ksession.getEntryPoint( "a" ).getFactCount() );
+
+        assertEquals( 1, ksession.fireAllRules() );
+        assertSame( brie, list.get( 0 ) );
+        ksession.dispose();
+    }
+}
@@ -4,6 +4,7 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -19,8 +20,12 @@ import org.drools.core.base.MapGlobalResolver;
 import org.drools.core.base.ReferenceOriginalGlobalExporter;
 import org.drools.core.command.impl.GenericCommand;
 import org.drools.core.command.runtime.BatchExecutionCommandImpl;
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.impl.KnowledgeBaseImpl;
 import org.drools.compiler.compiler.PackageBuilder;
 import org.drools.core.rule.Package;
+import org.drools.core.runtime.conf.ParallelBatchExecutionOption;
+import org.drools.core.runtime.conf.StatelessSessionPoolSizeOption;
 import org.drools.core.spi.GlobalResolver;
 import org.junit.Test;
 import org.kie.internal.KnowledgeBase;
@@ -35,6 +40,7 @@ import org.kie.internal.runtime.StatelessKnowledgeSession;
 import org.kie.api.io.Resource;
 import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.KieSessionConfiguration;
 
 public class StatelessSessionTest extends CommonTestMethodBase {
     final List list = new ArrayList();
@@ -422,6 +428,146 @@ public class StatelessSessionTest extends CommonTestMethodBase {
         assertSame( this.globalResolver, result.getGlobalResolver() );
     }
 
+    private static final String COUNT_DRL = "package org.drools.compiler.test\n" +
+                                            "import " + Cheese.class.getCanonicalName() + "\n" +
+                                            "global java.util.List list\n" +
+                                            "rule count when\n" +
+                                            "    Number( $c : intValue ) from accumulate( Cheese(), count( 1 ) )\n" +
+                                            "then\n" +
+                                            "    list.add( $c );\n" +
+                                            "end\n";
+
+    private StatelessKnowledgeSession getPooledSession(KnowledgeBase kbase) {
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setProperty( "drools.statelessSessionPoolSize", "2" );
+        return kbase.newStatelessKnowledgeSession( ksconf );
+    }
+
+    @Test
+    public void testPooledWorkingMemories() throws Exception {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( COUNT_DRL );
+        StatelessKnowledgeSession session = getPooledSession( kbase );
+        session.setGlobal( "list", this.list );
+
+        InternalRuleBase ruleBase = (InternalRuleBase) ((KnowledgeBaseImpl) kbase).ruleBase;
+        int counter = ruleBase.nextWorkingMemoryCounter();
+        for ( int i = 0; i < 5; i++ ) {
+            session.execute( Arrays.asList( new Cheese( "stilton", i ), new Cheese( "brie", i ) ) );
+        }
+        // the facts of an execution are not seen by the following ones
+        assertEquals( Arrays.asList( 2, 2, 2, 2, 2 ), this.list );
+        // all the executions ran on the same working memory
+        assertEquals( counter + 2, ruleBase.nextWorkingMemoryCounter() );
+
+        // the globals set by an execution are not seen by the following ones
+        List<Integer> batchList = new ArrayList<Integer>();
+        List<Command> cmds = new ArrayList<Command>();
+        cmds.add( CommandFactory.newSetGlobal( "list", batchList ) );
+        cmds.add( CommandFactory.newInsert( new Cheese( "stilton", 1 ) ) );
+        session.execute( CommandFactory.newBatchExecution( cmds ) );
+        assertEquals( Arrays.asList( 1 ), batchList );
+
+        session.execute( new Cheese( "brie", 1 ) );
+        assertEquals( Arrays.asList( 1 ), batchList );
+        assertEquals( 6, this.list.size() );
+        assertEquals( 1, this.list.get( 5 ) );
+    }
+
+    @Test
+    public void testPooledWorkingMemoriesAfterRuleBaseChange() throws Exception {
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( COUNT_DRL );
+        StatelessKnowledgeSession session = getPooledSession( kbase );
+        session.setGlobal( "list", this.list );
+
+        session.execute( new Cheese( "stilton", 1 ) );
+        assertEquals( Arrays.asList( 1 ), this.list );
+
+        String drl = "package org.drools.compiler.test\n" +
+                     "import " + Cheese.class.getCanonicalName() + "\n" +
+                     "global java.util.List list\n" +
+                     "rule added when\n" +
+                     "    Cheese( type == \"brie\" )\n" +
+                     "then\n" +
+                     "    list.add( \"added\" );\n" +
+                     "end\n";
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.getBytes() ), ResourceType.DRL );
+        assertFalse( kbuilder.hasErrors() );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        // the pooled working memory is not reused, as it does not know about the new rule
+        session.execute( new Cheese( "brie", 1 ) );
+        assertEquals( 3, this.list.size() );
+        assertTrue( this.list.contains( "added" ) );
+    }
+
+    @Test
+    public void testParallelBatchExecution() throws Exception {
+        String drl = COUNT_DRL +
+                     "query stiltons\n" +
+                     "    $c : Cheese( type == \"stilton\" )\n" +
+                     "end\n";
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( drl );
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( StatelessSessionPoolSizeOption.get( 4 ) );
+        ksconf.setOption( ParallelBatchExecutionOption.YES );
+        StatelessKnowledgeSession session = kbase.newStatelessKnowledgeSession( ksconf );
+
+        List<Integer> counts = Collections.synchronizedList( new ArrayList<Integer>() );
+        List<Command> cmds = new ArrayList<Command>();
+        cmds.add( CommandFactory.newSetGlobal( "list", counts ) );
+        for ( int i = 0; i < 50; i++ ) {
+            cmds.add( CommandFactory.newInsertElements( Arrays.asList( new Cheese( "stilton", i ), new Cheese( "brie", i ) ) ) );
+            cmds.add( CommandFactory.newFireAllRules() );
+            cmds.add( CommandFactory.newQuery( "stiltons" + i, "stiltons" ) );
+        }
+        cmds.add( CommandFactory.newGetGlobal( "list", "counts" ) );
+
+        ExecutionResults results = (ExecutionResults) session.execute( CommandFactory.newBatchExecution( cmds ) );
+
+        // each group of commands ran on its own working memory
+        for ( int i = 0; i < 50; i++ ) {
+            org.kie.api.runtime.rule.QueryResults stiltons = (org.kie.api.runtime.rule.QueryResults) results.getValue( "stiltons" + i );
+            assertEquals( 1, stiltons.size() );
+            assertEquals( i, ((Cheese) stiltons.iterator().next().get( "$c" )).getPrice() );
+        }
+        assertEquals( 50, counts.size() );
+        assertEquals( Collections.nCopies( 50, 2 ), counts );
+        assertSame( counts, results.getValue( "counts" ) );
+    }
+
+    @Test
+    public void testSplitBatchInIndependentGroups() throws Exception {
+        List<Command> cmds = new ArrayList<Command>();
+        cmds.add( CommandFactory.newSetGlobal( "list", this.list ) );
+        cmds.add( CommandFactory.newInsert( new Cheese( "stilton", 1 ) ) );
+        cmds.add( CommandFactory.newFireAllRules() );
+        cmds.add( CommandFactory.newQuery( "q1", "stiltons" ) );
+        cmds.add( CommandFactory.newInsert( new Cheese( "stilton", 2 ) ) );
+        cmds.add( CommandFactory.newFireAllRules() );
+        // without a fireAllRules these run with the previous group
+        cmds.add( CommandFactory.newSetGlobal( "list", this.list ) );
+        cmds.add( CommandFactory.newInsert( new Cheese( "stilton", 3 ) ) );
+
+        List<BatchExecutionCommandImpl> groups = ((BatchExecutionCommandImpl) CommandFactory.newBatchExecution( cmds )).splitIndependentGroups();
+        assertEquals( 2, groups.size() );
+        assertEquals( Arrays.asList( cmds.get( 0 ), cmds.get( 1 ), cmds.get( 2 ), cmds.get( 3 ) ), groups.get( 0 ).getCommands() );
+        assertEquals( Arrays.asList( cmds.get( 0 ), cmds.get( 4 ), cmds.get( 5 ), cmds.get( 6 ), cmds.get( 7 ) ), groups.get( 1 ).getCommands() );
+
+        // a global set inside a group is also set in the following ones
+        cmds.clear();
+        cmds.add( CommandFactory.newInsert( new Cheese( "stilton", 1 ) ) );
+        cmds.add( CommandFactory.newSetGlobal( "list", this.list ) );
+        cmds.add( CommandFactory.newFireAllRules() );
+        cmds.add( CommandFactory.newInsert( new Cheese( "stilton", 2 ) ) );
+        cmds.add( CommandFactory.newFireAllRules() );
+
+        groups = ((BatchExecutionCommandImpl) CommandFactory.newBatchExecution( cmds )).splitIndependentGroups();
+        assertEquals( 2, groups.size() );
+        assertEquals( Arrays.asList( cmds.get( 0 ), cmds.get( 1 ), cmds.get( 2 ) ), groups.get( 0 ).getCommands() );
+        assertEquals( Arrays.asList( cmds.get( 1 ), cmds.get( 3 ), cmds.get( 4 ) ), groups.get( 1 ).getCommands() );
+    }
+
     private StatelessSession getSession() throws Exception {
         final PackageBuilder builder = new PackageBuilder();
         builder.addPackageFromDrl( new InputStreamReader( getClass().getResourceAsStream( "literal_rule_test.drl" ) ) );
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.StockTick;
+import org.drools.core.time.SessionPseudoClock;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.time.SessionClock;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class TimerBatchFiringTest extends CommonTestMethodBase {
+
+    private static final String DRL = "package org.drools.compiler.test\n" +
+                                      "import " + StockTick.class.getCanonicalName() + "\n" +
+                                      "global java.util.List list\n" +
+                                      "declare StockTick\n" +
+                                      "    @role( event )\n" +
+                                      "    @expires( 10s )\n" +
+                                      "end\n" +
+                                      "rule tick\n" +
+                                      "    timer( int: 1s 1s )\n" +
+                                      "when\n" +
+                                      "    $s : String()\n" +
+                                      "then\n" +
+                                      "    list.add( $s );\n" +
+                                      "end\n";
+
+    private StatefulKnowledgeSession createSession(boolean batchFiring) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, DRL );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+        ksconf.setProperty( "drools.timerBatchFiring", Boolean.toString( batchFiring ) );
+        return createKnowledgeSession( kbase, ksconf );
+    }
+
+    @Test
+    public void testExpirationsExecutedAtTheEndOfTheAdvance() {
+        StatefulKnowledgeSession ksession = createSession( true );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+
+        for ( int i = 0; i < 100; i++ ) {
+            ksession.insert( new StockTick( i, "RHT", i, clock.getCurrentTime() ) );
+            clock.advanceTime( 100, TimeUnit.MILLISECONDS );
+        }
+        assertEquals( 100, ksession.getFactCount() );
+
+        // the events inserted up to the first second expire, without firing the rules
+        clock.advanceTime( 1050, TimeUnit.MILLISECONDS );
+        assertEquals( 89, ksession.getFactCount() );
+
+        clock.advanceTime( 1, TimeUnit.HOURS );
+        assertEquals( 0, ksession.getFactCount() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testSameFiringsAsUnbatchedAdvance() {
+        assertEquals( fireTimedRule( false ), fireTimedRule( true ) );
+    }
+
+    private List<String> fireTimedRule(boolean batchFiring) {
+        StatefulKnowledgeSession ksession = createSession( batchFiring );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( "hello" );
+        ksession.fireAllRules();
+        clock.advanceTime( 10500, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        ksession.dispose();
+
+        assertFalse( list.isEmpty() );
+        return list;
+    }
+}
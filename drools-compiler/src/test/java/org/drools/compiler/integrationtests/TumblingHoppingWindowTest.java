@@ -0,0 +1,261 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.integrationtests;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.compiler.OrderEvent;
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.conf.WindowPanesOption;
+import org.drools.core.impl.KnowledgeBaseImpl;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.reteoo.AccumulateNode;
+import org.drools.core.reteoo.ObjectSink;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.ReteooWorkingMemoryInterface;
+import org.drools.core.reteoo.WindowNode;
+import org.drools.core.reteoo.WindowNode.WindowMemory;
+import org.drools.core.time.SessionPseudoClock;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.time.SessionClock;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class TumblingHoppingWindowTest extends CommonTestMethodBase {
+
+    private static final String HEADER = "package org.drools.compiler.test\n" +
+                                         "import " + OrderEvent.class.getCanonicalName() + "\n" +
+                                         "global java.util.Map counts\n" +
+                                         "declare OrderEvent\n" +
+                                         "    @role( event )\n" +
+                                         "end\n";
+
+    private static final String DRL = HEADER +
+                                      "declare window Hopping\n" +
+                                      "    OrderEvent() over window:hopping( 30s, 10s )\n" +
+                                      "end\n" +
+                                      "rule tumbling when\n" +
+                                      "    Number( $c : intValue ) from accumulate( OrderEvent() over window:tumbling( 10s ), count( 1 ) )\n" +
+                                      "then\n" +
+                                      "    counts.put( \"tumbling\", $c );\n" +
+                                      "end\n" +
+                                      "rule hopping when\n" +
+                                      "    Number( $c : intValue ) from accumulate( OrderEvent() from window Hopping, count( 1 ) )\n" +
+                                      "then\n" +
+                                      "    counts.put( \"hopping\", $c );\n" +
+                                      "end\n";
+
+    @Test
+    public void testWindowsAlignedOnTheClock() {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, DRL );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase, ksconf );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        ksession.setGlobal( "counts", counts );
+
+        // one event per second, from 0s to 24s
+        for ( int i = 0; i < 25; i++ ) {
+            if ( i > 0 ) {
+                clock.advanceTime( 1, TimeUnit.SECONDS );
+            }
+            ksession.insert( new OrderEvent( Integer.toString( i ), "customer", i ) );
+            ksession.fireAllRules();
+        }
+
+        // [20s, 30s) and [0s, 30s)
+        assertEquals( 5, counts.get( "tumbling" ).intValue() );
+        assertEquals( 25, counts.get( "hopping" ).intValue() );
+
+        clock.advanceTime( 6, TimeUnit.SECONDS );
+        ksession.fireAllRules();
+
+        // [30s, 40s) and [10s, 40s)
+        assertEquals( 0, counts.get( "tumbling" ).intValue() );
+        assertEquals( 15, counts.get( "hopping" ).intValue() );
+
+        clock.advanceTime( 20, TimeUnit.SECONDS );
+        ksession.fireAllRules();
+
+        // [50s, 60s) and [30s, 60s)
+        assertEquals( 0, counts.get( "tumbling" ).intValue() );
+        assertEquals( 0, counts.get( "hopping" ).intValue() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testPanePartialResults() {
+        String drl = HEADER +
+                     "global java.util.Map results\n" +
+                     "rule panes when\n" +
+                     "    accumulate( $o : OrderEvent( customer == \"customer\" ) over window:hopping( 30s, 10s );\n" +
+                     "                $n : count( 1 ), $s : sum( $o.getTotal() ), $min : min( $o.getTotal() ),\n" +
+                     "                $max : max( $o.getTotal() ), $avg : average( $o.getTotal() ) )\n" +
+                     "then\n" +
+                     "    results.put( \"panes\", java.util.Arrays.asList( $n, $s, $min, $max, $avg ) );\n" +
+                     "end\n" +
+                     "rule events when\n" +
+                     "    accumulate( $o : OrderEvent( customer == \"customer\" ) over window:hopping( 30s, 10s );\n" +
+                     "                $n : count( 1 ), $l : collectList( $o ) )\n" +
+                     "then\n" +
+                     "    results.put( \"events\", $n );\n" +
+                     "end\n";
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        kconf.setOption( WindowPanesOption.YES );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase, ksconf );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        Map<String, Object> results = new HashMap<String, Object>();
+        ksession.setGlobal( "counts", new HashMap<String, Integer>() );
+        ksession.setGlobal( "results", results );
+
+        for ( int i = 0; i < 25; i++ ) {
+            if ( i > 0 ) {
+                clock.advanceTime( 1, TimeUnit.SECONDS );
+            }
+            ksession.insert( new OrderEvent( Integer.toString( i ), "customer", i ) );
+            ksession.fireAllRules();
+        }
+
+        // [0s, 30s)
+        assertEquals( Arrays.<Object> asList( 25L, 300.0, 0.0, 24.0, 12.0 ), results.get( "panes" ) );
+        assertEquals( 25L, ((Number) results.get( "events" )).longValue() );
+
+        // count, sum, min, max and average merge partial results, so that window
+        // only keeps its panes, while collectList needs the events
+        WindowNode panes = null;
+        WindowNode events = null;
+        for ( ObjectTypeNode otn : ((InternalRuleBase) ((KnowledgeBaseImpl) kbase).ruleBase).getRete().getObjectTypeNodes() ) {
+            for ( ObjectSink sink : otn.getSinkPropagator().getSinks() ) {
+                if ( sink instanceof WindowNode ) {
+                    AccumulateNode accumulate = (AccumulateNode) ((WindowNode) sink).getSinkPropagator().getSinks()[0];
+                    if ( accumulate.getAccumulate().isWindowPanes() ) {
+                        panes = (WindowNode) sink;
+                    } else {
+                        events = (WindowNode) sink;
+                    }
+                }
+            }
+        }
+        ReteooWorkingMemoryInterface wm = ((StatefulKnowledgeSessionImpl) ksession).session;
+        assertEquals( 3, ((WindowMemory) wm.getNodeMemory( panes )).events.size() );
+        assertEquals( 25, ((WindowMemory) wm.getNodeMemory( events )).events.size() );
+
+        clock.advanceTime( 6, TimeUnit.SECONDS );
+        ksession.fireAllRules();
+
+        // [10s, 40s)
+        assertEquals( Arrays.<Object> asList( 15L, 255.0, 10.0, 24.0, 17.0 ), results.get( "panes" ) );
+        assertEquals( 15L, ((Number) results.get( "events" )).longValue() );
+
+        clock.advanceTime( 30, TimeUnit.SECONDS );
+        ksession.fireAllRules();
+
+        assertEquals( 0L, ((List< ? >) results.get( "panes" )).get( 0 ) );
+        assertEquals( 0L, ((Number) results.get( "events" )).longValue() );
+        ksession.dispose();
+    }
+
+    @Test
+    public void testRetractInPaneWindow() {
+        String drl = HEADER +
+                     "global java.util.Map results\n" +
+                     "rule panes when\n" +
+                     "    accumulate( $o : OrderEvent() over window:hopping( 30s, 10s );\n" +
+                     "                $n : count( 1 ), $s : sum( $o.getTotal() ) )\n" +
+                     "then\n" +
+                     "    results.put( \"panes\", java.util.Arrays.asList( $n, $s ) );\n" +
+                     "end\n";
+
+        // the events are kept unless the panes are asked for, so the retracted one is no
+        // longer accumulated, while a pane has already folded it into its partial results
+        assertEquals( Arrays.<Object> asList( 2L, 3.0 ),
+                      retractFromWindow( drl,
+                                         WindowPanesOption.NO ) );
+        assertEquals( Arrays.<Object> asList( 3L, 6.0 ),
+                      retractFromWindow( drl,
+                                         WindowPanesOption.YES ) );
+    }
+
+    private Object retractFromWindow(String drl,
+                                     WindowPanesOption windowPanes) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( EventProcessingOption.STREAM );
+        kconf.setOption( windowPanes );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( "pseudo" ) );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase, ksconf );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        Map<String, Object> results = new HashMap<String, Object>();
+        ksession.setGlobal( "counts", new HashMap<String, Integer>() );
+        ksession.setGlobal( "results", results );
+
+        FactHandle third = null;
+        for ( int i = 1; i <= 3; i++ ) {
+            clock.advanceTime( 1, TimeUnit.SECONDS );
+            third = ksession.insert( new OrderEvent( Integer.toString( i ), "customer", i ) );
+            ksession.fireAllRules();
+        }
+        assertEquals( Arrays.<Object> asList( 3L, 6.0 ), results.get( "panes" ) );
+
+        ksession.retract( third );
+        ksession.fireAllRules();
+        Object panes = results.get( "panes" );
+        ksession.dispose();
+        return panes;
+    }
+
+    @Test
+    public void testInvalidHop() {
+        String drl = HEADER +
+                     "rule R when\n" +
+                     "    Number() from accumulate( OrderEvent() over window:hopping( 10s, 30s ), count( 1 ) )\n" +
+                     "then\n" +
+                     "end\n";
+
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.getBytes() ),
+                      ResourceType.DRL );
+        assertTrue( kbuilder.hasErrors() );
+    }
+}
@@ -57,6 +57,7 @@ import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.compiler.integrationtests.SerializationHelper;
 import org.drools.core.marshalling.impl.ClassObjectMarshallingStrategyAcceptor;
 import org.drools.core.marshalling.impl.IdentityPlaceholderResolverStrategy;
+import org.drools.core.marshalling.impl.MarshallingConfigurationImpl;
 import org.drools.core.marshalling.impl.RuleBaseNodes;
 import org.drools.core.reteoo.MockTupleSource;
 import org.drools.core.reteoo.ObjectTypeNode;
@@ -3085,6 +3086,54 @@ public class MarshallingTest extends CommonTestMethodBase {
                       facts.size() );
     }
 
+    @Test
+    public void testStreamingMarshaller() throws Exception {
+        String str =
+                "import " + Person.class.getCanonicalName() + "\n" +
+                "import " + Cheese.class.getCanonicalName() + "\n" +
+                "global java.util.List list\n" +
+                "rule R1 when\n" +
+                "    $p : Person( $cheese : likes )\n" +
+                "    Cheese( type == $cheese ) from entry-point \"cheeses\"\n" +
+                "then\n" +
+                "    list.add( $p.getName() );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( str );
+        KieSession ksession = kbase.newStatefulKnowledgeSession();
+        ksession.setGlobal( "list", new ArrayList() );
+
+        for ( int i = 0; i < 25; i++ ) {
+            Person person = new Person( "p" + i );
+            person.setLikes( i % 2 == 0 ? "stilton" : "brie" );
+            ksession.insert( person );
+        }
+        ksession.getEntryPoint( "cheeses" ).insert( new Cheese( "stilton" ) );
+
+        Marshaller marshaller = MarshallerFactory.newMarshaller( kbase );
+        MarshallingConfigurationImpl config = (MarshallingConfigurationImpl) marshaller.getMarshallingConfiguration();
+        config.setStreaming( true );
+        // several batches for the default entry point
+        config.setStreamingBatchSize( 10 );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        marshaller.marshall( out, ksession );
+        ksession.dispose();
+
+        Environment env = EnvironmentFactory.newEnvironment();
+        ksession = marshaller.unmarshall( new ByteArrayInputStream( out.toByteArray() ), null, env );
+        List list = new ArrayList();
+        ksession.setGlobal( "list", list );
+
+        assertEquals( 25, ksession.getFactCount() );
+        assertEquals( 1, ksession.getEntryPoint( "cheeses" ).getFactCount() );
+        assertEquals( 13, ksession.fireAllRules() );
+
+        ksession.getEntryPoint( "cheeses" ).insert( new Cheese( "brie" ) );
+        assertEquals( 12, ksession.fireAllRules() );
+        assertEquals( 25, list.size() );
+    }
+
     private KieSession marsallStatefulKnowledgeSession(KieSession ksession) throws IOException,
                                                                                                        ClassNotFoundException {
         Globals globals = ksession.getGlobals();
@@ -17,6 +17,7 @@ import org.kie.internal.KnowledgeBase;
 import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.builder.KnowledgeBuilder;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.PhreakOption;
 import org.kie.internal.conf.SequentialOption;
 import org.kie.api.event.rule.AfterMatchFiredEvent;
 import org.kie.api.event.rule.AgendaEventListener;
@@ -304,6 +305,105 @@ public class SequentialTest extends CommonTestMethodBase {
         assertEquals( person, list.get( 6 ));
     }
 
+    @Test
+    public void testPhreakSalience() throws Exception {
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newClassPathResource( "simpleSalience.drl", getClass() ), ResourceType.DRL );
+
+        if ( kbuilder.hasErrors() ) {
+            fail( kbuilder.getErrors().toString() );
+        }
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( SequentialOption.YES );
+        kconf.setOption( PhreakOption.ENABLED );
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase( kconf );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        final StatelessKnowledgeSession ksession = kbase.newStatelessKnowledgeSession();
+
+        final List list = new ArrayList();
+        ksession.setGlobal( "list",
+                           list );
+
+        ksession.execute( new Person( "pob")  );
+
+        assertEquals( 3,
+                      list.size() );
+
+        assertEquals( "rule 3", list.get( 0 ));
+        assertEquals( "rule 2", list.get( 1 ));
+        assertEquals( "rule 1", list.get( 2 ));
+    }
+
+    @Test
+    public void testPhreakSameResultsAsNonSequential() throws Exception {
+        String str = "";
+        str += "package org.drools.compiler.test\n";
+        str += "import org.drools.compiler.Person\n";
+        str += "import org.drools.compiler.Cheese\n";
+        str += "global java.util.List list\n";
+        str += "rule join salience 50 when\n";
+        str += "    $p : Person( $likes : likes )\n";
+        str += "    Cheese( type == $likes, price > 10 )\n";
+        str += "then\n";
+        str += "    list.add( \"join:\" + $p.getName() );\n";
+        str += "end\n";
+        str += "rule notBrie salience 40 when\n";
+        str += "    Person( name == \"p1\" )\n";
+        str += "    not Cheese( type == \"brie\" )\n";
+        str += "then\n";
+        str += "    list.add( \"not\" );\n";
+        str += "end\n";
+        str += "rule notStilton salience 35 when\n";
+        str += "    not Cheese( type == \"stilton\" )\n";
+        str += "then\n";
+        str += "    list.add( \"blocked\" );\n";
+        str += "end\n";
+        str += "rule existsCheap salience 30 when\n";
+        str += "    exists Cheese( price < 10 )\n";
+        str += "then\n";
+        str += "    list.add( \"exists\" );\n";
+        str += "end\n";
+        str += "rule sum salience 20 when\n";
+        str += "    Number( $n : intValue ) from accumulate( Cheese( $price : price ), sum( $price ) )\n";
+        str += "then\n";
+        str += "    list.add( \"sum:\" + $n );\n";
+        str += "end\n";
+
+        List expected = Arrays.asList( new Object[]{"join:p1", "not", "exists", "sum:20"} );
+        assertEquals( expected, executePhreak( str, false ) );
+        assertEquals( expected, executePhreak( str, true ) );
+    }
+
+    private List executePhreak(String drl, boolean sequential) {
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.getBytes() ), ResourceType.DRL );
+
+        if ( kbuilder.hasErrors() ) {
+            fail( kbuilder.getErrors().toString() );
+        }
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( sequential ? SequentialOption.YES : SequentialOption.NO );
+        kconf.setOption( PhreakOption.ENABLED );
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase( kconf );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        StatelessKnowledgeSession ksession = kbase.newStatelessKnowledgeSession();
+        List list = new ArrayList();
+        ksession.setGlobal( "list",
+                           list );
+
+        ksession.execute( Arrays.asList( new Object[]{new Person( "p1", "stilton" ),
+                                                      new Person( "p2", "cheddar" ),
+                                                      new Cheese( "stilton", 15 ),
+                                                      new Cheese( "cheddar", 5 )} ) );
+        return list;
+    }
+
     @Test
     public void testProfileSequential() throws Exception {
 
@@ -34,6 +34,7 @@ import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.RuleBaseEventListener;
 import org.drools.core.event.WorkingMemoryEventListener;
 import org.drools.core.event.WorkingMemoryEventSupport;
+import org.drools.core.phreak.NetworkProfiler;
 import org.drools.core.process.instance.WorkItemManager;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.LIANodePropagation;
@@ -604,4 +605,8 @@ public class MockWorkingMemory implements InternalWorkingMemory {
         return null;
     }
 
+    public NetworkProfiler getNetworkProfiler() {
+        return null;
+    }
+
 }
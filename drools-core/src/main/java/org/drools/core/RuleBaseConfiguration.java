@@ -30,6 +30,11 @@ import org.drools.core.common.AgendaGroupFactory;
 import org.drools.core.common.ArrayAgendaGroupFactory;
 import org.drools.core.common.PriorityQueueAgendaGroupFactory;
 import org.drools.core.conflict.DepthConflictResolver;
+import org.drools.core.conf.CompiledAlphaNetworkOption;
+import org.drools.core.conf.JittingThresholdOption;
+import org.drools.core.conf.PreJittingOption;
+import org.drools.core.conf.SharedWindowBuffersOption;
+import org.drools.core.conf.WindowPanesOption;
 import org.drools.core.util.ConfFileUtils;
 import org.drools.core.util.StringUtils;
 import org.drools.core.reteoo.ReteooComponentFactory;
@@ -104,7 +109,14 @@ import org.slf4j.LoggerFactory;
  * drools.mbeans = &lt;enabled|disabled&gt;
  * drools.classLoaderCacheEnabled = &lt;true|false&gt;
  * drools.phreakEnabled = &lt;true|false&gt;
+ * drools.multithreadEvaluation = &lt;true|false&gt;
+ * drools.maxThreads = &lt;-1|1..n&gt;
  * drools.declarativeAgendaEnabled =  &lt;true|false&gt; 
+ * drools.jittingThreshold = &lt;-1|0..n&gt;
+ * drools.preJitting = &lt;true|false&gt;
+ * drools.compiledAlphaNetwork = &lt;true|false&gt;
+ * drools.sharedWindowBuffers = &lt;true|false&gt;
+ * drools.windowPanes = &lt;true|false&gt;
  * </pre>
  */
 public class RuleBaseConfiguration
@@ -115,6 +127,8 @@ public class RuleBaseConfiguration
 
     public static final String DEFAULT_SIGN_ON_SERIALIZATION = "false";
 
+    public static final int DEFAULT_JITTING_THRESHOLD = JittingThresholdOption.DEFAULT_VALUE;
+
     protected static transient Logger logger = LoggerFactory.getLogger(RuleBaseConfiguration.class);
 
     private ChainedProperties chainedProperties;
@@ -129,6 +143,11 @@ public class RuleBaseConfiguration
     private boolean         shareAlphaNodes;
     private boolean         shareBetaNodes;
     private int             permGenThreshold;
+    private int             jittingThreshold;
+    private boolean         preJitting;
+    private boolean         compiledAlphaNetwork;
+    private boolean         sharedWindowBuffers;
+    private boolean         windowPanes;
     private int             alphaNodeHashingThreshold;
     private int             compositeKeyDepth;
     private boolean         indexLeftBetaMemory;
@@ -182,6 +201,11 @@ public class RuleBaseConfiguration
         out.writeBoolean(shareAlphaNodes);
         out.writeBoolean(shareBetaNodes);
         out.writeInt(permGenThreshold);
+        out.writeInt(jittingThreshold);
+        out.writeBoolean(preJitting);
+        out.writeBoolean(compiledAlphaNetwork);
+        out.writeBoolean(sharedWindowBuffers);
+        out.writeBoolean(windowPanes);
         out.writeInt(alphaNodeHashingThreshold);
         out.writeInt(compositeKeyDepth);
         out.writeBoolean(indexLeftBetaMemory);
@@ -213,6 +237,11 @@ public class RuleBaseConfiguration
         shareAlphaNodes = in.readBoolean();
         shareBetaNodes = in.readBoolean();
         permGenThreshold = in.readInt();
+        jittingThreshold = in.readInt();
+        preJitting = in.readBoolean();
+        compiledAlphaNetwork = in.readBoolean();
+        sharedWindowBuffers = in.readBoolean();
+        windowPanes = in.readBoolean();
         alphaNodeHashingThreshold = in.readInt();
         compositeKeyDepth = in.readInt();
         indexLeftBetaMemory = in.readBoolean();
@@ -290,6 +319,16 @@ public class RuleBaseConfiguration
             setShareBetaNodes(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
         } else if ( name.equals( PermGenThresholdOption.PROPERTY_NAME ) ) {
             setPermGenThreshold(StringUtils.isEmpty(value) ? PermGenThresholdOption.DEFAULT_VALUE : Integer.parseInt(value));
+        } else if ( name.equals( JittingThresholdOption.PROPERTY_NAME ) ) {
+            setJittingThreshold(StringUtils.isEmpty(value) ? DEFAULT_JITTING_THRESHOLD : Integer.parseInt(value));
+        } else if ( name.equals( PreJittingOption.PROPERTY_NAME ) ) {
+            setPreJitting(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( CompiledAlphaNetworkOption.PROPERTY_NAME ) ) {
+            setCompiledAlphaNetwork(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( SharedWindowBuffersOption.PROPERTY_NAME ) ) {
+            setSharedWindowBuffers(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( WindowPanesOption.PROPERTY_NAME ) ) {
+            setWindowPanes(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
         } else if ( name.equals( AlphaThresholdOption.PROPERTY_NAME ) ) {
             setAlphaNodeHashingThreshold(StringUtils.isEmpty(value) ? 3 : Integer.parseInt(value));
         } else if ( name.equals( CompositeKeyDepthOption.PROPERTY_NAME ) ) {
@@ -343,6 +382,16 @@ public class RuleBaseConfiguration
             return Boolean.toString( isShareBetaNodes() );
         } else if ( name.equals( PermGenThresholdOption.PROPERTY_NAME ) ) {
             return Integer.toString( getPermGenThreshold() );
+        } else if ( name.equals( JittingThresholdOption.PROPERTY_NAME ) ) {
+            return Integer.toString( getJittingThreshold() );
+        } else if ( name.equals( PreJittingOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( isPreJitting() );
+        } else if ( name.equals( CompiledAlphaNetworkOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( isCompiledAlphaNetwork() );
+        } else if ( name.equals( SharedWindowBuffersOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( isSharedWindowBuffers() );
+        } else if ( name.equals( WindowPanesOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( isWindowPanes() );
         } else if ( name.equals( AlphaThresholdOption.PROPERTY_NAME ) ) {
             return Integer.toString( getAlphaNodeHashingThreshold() );
         } else if ( name.equals( CompositeKeyDepthOption.PROPERTY_NAME ) ) {
@@ -437,6 +486,21 @@ public class RuleBaseConfiguration
         setPermGenThreshold(Integer.parseInt(this.chainedProperties.getProperty(PermGenThresholdOption.PROPERTY_NAME,
                                                                                 "" + PermGenThresholdOption.DEFAULT_VALUE)));
 
+        setJittingThreshold(Integer.parseInt(this.chainedProperties.getProperty(JittingThresholdOption.PROPERTY_NAME,
+                                                                                "" + DEFAULT_JITTING_THRESHOLD)));
+
+        setPreJitting(Boolean.valueOf(this.chainedProperties.getProperty(PreJittingOption.PROPERTY_NAME,
+                                                                         "false")).booleanValue());
+
+        setCompiledAlphaNetwork(Boolean.valueOf(this.chainedProperties.getProperty(CompiledAlphaNetworkOption.PROPERTY_NAME,
+                                                                                   "false")).booleanValue());
+
+        setSharedWindowBuffers(Boolean.valueOf(this.chainedProperties.getProperty(SharedWindowBuffersOption.PROPERTY_NAME,
+                                                                                  "false")).booleanValue());
+
+        setWindowPanes(Boolean.valueOf(this.chainedProperties.getProperty(WindowPanesOption.PROPERTY_NAME,
+                                                                          "false")).booleanValue());
+
         setAlphaNodeHashingThreshold(Integer.parseInt(this.chainedProperties.getProperty(AlphaThresholdOption.PROPERTY_NAME,
                                                                                          "3")));
 
@@ -469,8 +533,6 @@ public class RuleBaseConfiguration
         setAdvancedProcessRuleIntegration( Boolean.valueOf( this.chainedProperties.getProperty( "drools.advancedProcessRuleIntegration",
                                                                                                 "false" ) ).booleanValue() );
 
-        setMultithreadEvaluation( Boolean.valueOf( this.chainedProperties.getProperty( MultithreadEvaluationOption.PROPERTY_NAME,
-                                                                                       "false" ) ).booleanValue() );
 
         setMaxThreads( Integer.parseInt( this.chainedProperties.getProperty( MaxThreadsOption.PROPERTY_NAME,
                                                                              "3" ) ) );
@@ -486,6 +548,10 @@ public class RuleBaseConfiguration
         
         setPhreakEnabled(Boolean.valueOf(this.chainedProperties.getProperty(PhreakOption.PROPERTY_NAME,
                                                                             "false")));
+
+        // must follow Phreak, as multithread evaluation depends on it
+        setMultithreadEvaluation( Boolean.valueOf( this.chainedProperties.getProperty( MultithreadEvaluationOption.PROPERTY_NAME,
+                                                                                       "false" ) ).booleanValue() );
         setDeclarativeAgendaEnabled( Boolean.valueOf( this.chainedProperties.getProperty( DeclarativeAgendaOption.PROPERTY_NAME,
                                                                                           "false" ) ) );        
 
@@ -518,9 +584,6 @@ public class RuleBaseConfiguration
 
     public void setSequential(boolean sequential) {
         this.sequential = sequential;
-        if (sequential && isPhreakEnabled()) {
-            throw new IllegalArgumentException( "Sequential mode cannot be used when Left & Right unlinking is enabled." );
-        }
     }
 
     public boolean isSequential() {
@@ -575,6 +638,76 @@ public class RuleBaseConfiguration
         this.permGenThreshold = permGenThreshold;
     }
 
+    /**
+     * The number of times an MVEL constraint is interpreted before it gets compiled to bytecode
+     * on a background thread. 0 compiles it on its first evaluation, while a negative value disables
+     * the compilation, so constraints are always interpreted.
+     */
+    public int getJittingThreshold() {
+        return this.jittingThreshold;
+    }
+
+    public void setJittingThreshold(final int jittingThreshold) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.jittingThreshold = jittingThreshold;
+    }
+
+    /**
+     * If true, the MVEL constraints of the alpha nodes are compiled to bytecode while the
+     * rule base is built, instead of after being evaluated jittingThreshold times.
+     */
+    public boolean isPreJitting() {
+        return this.preJitting;
+    }
+
+    public void setPreJitting(final boolean preJitting) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.preJitting = preJitting;
+    }
+
+    /**
+     * If true, the alpha network below each ObjectTypeNode is compiled to a single class
+     * while the rule base is built, and compiled again whenever rules are added or removed.
+     * This requires drools-compiler on the classpath.
+     */
+    public boolean isCompiledAlphaNetwork() {
+        return this.compiledAlphaNetwork;
+    }
+
+    public void setCompiledAlphaNetwork(final boolean compiledAlphaNetwork) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.compiledAlphaNetwork = compiledAlphaNetwork;
+    }
+
+    /**
+     * If true, the sliding time windows over the same entry point and type share a single
+     * time ordered buffer of the events, each window keeping its own cursor on it, instead of
+     * each window keeping its own queue of the events.
+     */
+    public boolean isSharedWindowBuffers() {
+        return this.sharedWindowBuffers;
+    }
+
+    public void setSharedWindowBuffers(final boolean sharedWindowBuffers) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.sharedWindowBuffers = sharedWindowBuffers;
+    }
+
+    /**
+     * If true, an inline hopping window feeding an accumulate whose functions all merge
+     * partial results keeps the partial results of its panes instead of its events. The
+     * events are only accumulated as they enter the window, so retracting or modifying one
+     * afterwards is not reflected in the accumulate results.
+     */
+    public boolean isWindowPanes() {
+        return this.windowPanes;
+    }
+
+    public void setWindowPanes(final boolean windowPanes) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.windowPanes = windowPanes;
+    }
+
     public int getAlphaNodeHashingThreshold() {
         return this.alphaNodeHashingThreshold;
     }
@@ -672,7 +805,8 @@ public class RuleBaseConfiguration
     }
 
     public AgendaGroupFactory getAgendaGroupFactory() {
-        if ( isSequential() ) {
+        if ( isSequential() && !isPhreakEnabled() ) {
+            // Phreak fires the rules in salience order through the RuleAgendaItems of the priority queue
             if ( this.sequentialAgenda == SequentialAgenda.SEQUENTIAL ) {
                 return ArrayAgendaGroupFactory.getInstance();
             } else {
@@ -696,19 +830,20 @@ public class RuleBaseConfiguration
      * Defines if the RuleBase should be executed using a pool of
      * threads for evaluating the rules ("true"), or if the rulebase 
      * should work in classic single thread mode ("false").
+     *
+     * Multithread evaluation is only supported by Phreak: on fireAllRules
+     * the rules that share no segment are evaluated concurrently, while
+     * rule firing itself remains serial and in agenda order.
      * 
      * @param enableMultithread true for multi-thread or 
      *                     false for single-thread. Default is false.
      */
     public void setMultithreadEvaluation(boolean enableMultithread) {
         checkCanChange();
-        if( enableMultithread ) {
-            throw new IllegalArgumentException( "Multithread mode is currently not supported. Please disable it." );
+        if( enableMultithread && !isPhreakEnabled() ) {
+            throw new IllegalArgumentException( "Multithread evaluation is only supported when Phreak is enabled. Please disable it." );
         }
         this.multithread = enableMultithread;
-        if (multithread && isPhreakEnabled()) {
-            throw new IllegalArgumentException( "Multithread evaluation cannot be used when Left & Right Unlinking is enabled." );
-        }
     }
 
     /**
@@ -728,8 +863,8 @@ public class RuleBaseConfiguration
      * 
      * @param maxThreads the maximum number of threads to use. If 0 or a 
      *                   negative number is set, the engine will use number
-     *                   of threads equal to the number of partitions in the
-     *                   rule base. Default number of threads is 0. 
+     *                   of threads equal to the number of available
+     *                   processors. Default number of threads is 3. 
      */
     public void setMaxThreads(final int maxThreads) {
         this.maxThreads = maxThreads;
@@ -737,7 +872,7 @@ public class RuleBaseConfiguration
 
     /**
      * Returns the configured number of maximum threads to use for concurrent
-     * propagation when multi-thread evaluation is enabled. Default is zero.
+     * propagation when multi-thread evaluation is enabled. Default is 3.
      * 
      * @return
      */
@@ -763,20 +898,16 @@ public class RuleBaseConfiguration
     }
     
     /**
-     * Enable Unlinking. It will also disable sequential mode 
-     * and multithread evaluation as these are incompatible with L&R unlinking.
+     * Enable Unlinking. When used together with sequential mode the rules are
+     * evaluated once, in salience order, without left tuple memories.
      * @param enabled
      */
     public void setPhreakEnabled(boolean enabled) {
         checkCanChange(); // throws an exception if a change isn't possible;
         this.phreakEnabled = enabled;
 
-        if ( enabled && isSequential() ) {
-            throw new IllegalArgumentException( "Sequential mode cannot be used when Left & Right Unlinking is enabled." );
-        }
-        
-        if ( enabled && isMultithreadEvaluation() ) {
-            throw new IllegalArgumentException( "Multithread evaluation cannot be used when Left & Right Unlinking is enabled." );
+        if ( !enabled && isMultithreadEvaluation() ) {
+            throw new IllegalArgumentException( "Multithread evaluation is only supported when Phreak is enabled." );
         }
     }
 
@@ -1164,6 +1295,16 @@ public class RuleBaseConfiguration
             return (T) ((this.sequentialAgenda == SequentialAgenda.SEQUENTIAL) ? SequentialAgendaOption.SEQUENTIAL : SequentialAgendaOption.DYNAMIC);
         } else if ( PermGenThresholdOption.class.equals( option ) ) {
             return (T) PermGenThresholdOption.get( permGenThreshold );
+        } else if ( JittingThresholdOption.class.equals( option ) ) {
+            return (T) JittingThresholdOption.get( jittingThreshold );
+        } else if ( PreJittingOption.class.equals( option ) ) {
+            return (T) (this.preJitting ? PreJittingOption.YES : PreJittingOption.NO);
+        } else if ( CompiledAlphaNetworkOption.class.equals( option ) ) {
+            return (T) (this.compiledAlphaNetwork ? CompiledAlphaNetworkOption.YES : CompiledAlphaNetworkOption.NO);
+        } else if ( SharedWindowBuffersOption.class.equals( option ) ) {
+            return (T) (this.sharedWindowBuffers ? SharedWindowBuffersOption.YES : SharedWindowBuffersOption.NO);
+        } else if ( WindowPanesOption.class.equals( option ) ) {
+            return (T) (this.windowPanes ? WindowPanesOption.YES : WindowPanesOption.NO);
         } else if ( AlphaThresholdOption.class.equals( option ) ) {
             return (T) AlphaThresholdOption.get( alphaNodeHashingThreshold );
         } else if ( CompositeKeyDepthOption.class.equals( option ) ) {
@@ -1217,6 +1358,16 @@ public class RuleBaseConfiguration
             setSequentialAgenda((option == SequentialAgendaOption.SEQUENTIAL) ? SequentialAgenda.SEQUENTIAL : SequentialAgenda.DYNAMIC);
         } else if ( option instanceof PermGenThresholdOption ) {
             setPermGenThreshold(((PermGenThresholdOption) option).getThreshold());
+        } else if ( option instanceof JittingThresholdOption ) {
+            setJittingThreshold(((JittingThresholdOption) option).getThreshold());
+        } else if ( option instanceof PreJittingOption ) {
+            setPreJitting(((PreJittingOption) option).isPreJitting());
+        } else if ( option instanceof CompiledAlphaNetworkOption ) {
+            setCompiledAlphaNetwork(((CompiledAlphaNetworkOption) option).isCompiledAlphaNetwork());
+        } else if ( option instanceof SharedWindowBuffersOption ) {
+            setSharedWindowBuffers(((SharedWindowBuffersOption) option).isSharedWindowBuffers());
+        } else if ( option instanceof WindowPanesOption ) {
+            setWindowPanes(((WindowPanesOption) option).isWindowPanes());
         } else if ( option instanceof AlphaThresholdOption ) {
             setAlphaNodeHashingThreshold(((AlphaThresholdOption) option).getThreshold());
         } else if ( option instanceof CompositeKeyDepthOption ) {
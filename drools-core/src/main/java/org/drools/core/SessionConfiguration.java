@@ -20,6 +20,12 @@ import org.drools.core.command.CommandService;
 import org.drools.core.util.ConfFileUtils;
 import org.drools.core.util.StringUtils;
 import org.drools.core.process.instance.WorkItemManagerFactory;
+import org.drools.core.runtime.conf.CompactObjectStoreOption;
+import org.drools.core.runtime.conf.NetworkProfilingOption;
+import org.drools.core.runtime.conf.ParallelBatchExecutionOption;
+import org.drools.core.runtime.conf.StagedEntryPointInsertionOption;
+import org.drools.core.runtime.conf.StatelessSessionPoolSizeOption;
+import org.drools.core.runtime.conf.TimerBatchFiringOption;
 import org.drools.core.time.TimerService;
 import org.drools.core.time.impl.TimerJobFactoryManager;
 import org.kie.internal.KnowledgeBase;
@@ -65,6 +71,12 @@ import java.util.Properties;
  * 
  * drools.keepReference = <true|false>
  * drools.clockType = <pseudo|realtime|heartbeat|implicit>
+ * drools.compactObjectStore = <true|false>
+ * drools.networkProfiling = <true|false>
+ * drools.stagedEntryPointInsertion = <true|false>
+ * drools.timerBatchFiring = <true|false>
+ * drools.statelessSessionPoolSize = <int>
+ * drools.parallelBatchExecution = <true|false>
  */
 public class SessionConfiguration
     implements
@@ -78,6 +90,18 @@ public class SessionConfiguration
 
     private boolean                        keepReference;
 
+    private boolean                        compactObjectStore;
+
+    private boolean                        networkProfiling;
+
+    private boolean                        stagedEntryPointInsertion;
+
+    private boolean                        timerBatchFiring;
+
+    private int                            statelessSessionPoolSize;
+
+    private boolean                        parallelBatchExecution;
+
     private ClockType                      clockType;
     
     private BeliefSystemType               beliefSystemType;
@@ -100,6 +124,12 @@ public class SessionConfiguration
         out.writeObject(clockType);
         out.writeObject( queryListener );
         out.writeObject( timerJobFactoryType );
+        out.writeBoolean( compactObjectStore );
+        out.writeBoolean( networkProfiling );
+        out.writeBoolean( stagedEntryPointInsertion );
+        out.writeBoolean( timerBatchFiring );
+        out.writeInt( statelessSessionPoolSize );
+        out.writeBoolean( parallelBatchExecution );
     }
     
     private static final SessionConfiguration defaultInstance = new SessionConfiguration();
@@ -117,6 +147,12 @@ public class SessionConfiguration
         clockType = (ClockType) in.readObject();
         queryListener = (QueryListenerOption) in.readObject();
         timerJobFactoryType = (TimerJobFactoryType) in.readObject();
+        compactObjectStore = in.readBoolean();
+        networkProfiling = in.readBoolean();
+        stagedEntryPointInsertion = in.readBoolean();
+        timerBatchFiring = in.readBoolean();
+        statelessSessionPoolSize = in.readInt();
+        parallelBatchExecution = in.readBoolean();
     }
 
     /**
@@ -159,6 +195,24 @@ public class SessionConfiguration
 
         setKeepReference( Boolean.valueOf( this.chainedProperties.getProperty( KeepReferenceOption.PROPERTY_NAME,
                                                                                "true" ) ).booleanValue() );
+
+        setCompactObjectStore( Boolean.valueOf( this.chainedProperties.getProperty( CompactObjectStoreOption.PROPERTY_NAME,
+                                                                                    "false" ) ).booleanValue() );
+
+        setNetworkProfiling( Boolean.valueOf( this.chainedProperties.getProperty( NetworkProfilingOption.PROPERTY_NAME,
+                                                                                  "false" ) ).booleanValue() );
+
+        setStagedEntryPointInsertion( Boolean.valueOf( this.chainedProperties.getProperty( StagedEntryPointInsertionOption.PROPERTY_NAME,
+                                                                                           "false" ) ).booleanValue() );
+
+        setTimerBatchFiring( Boolean.valueOf( this.chainedProperties.getProperty( TimerBatchFiringOption.PROPERTY_NAME,
+                                                                                  "false" ) ).booleanValue() );
+
+        setStatelessSessionPoolSize( Integer.parseInt( this.chainedProperties.getProperty( StatelessSessionPoolSizeOption.PROPERTY_NAME,
+                                                                                           Integer.toString( StatelessSessionPoolSizeOption.DEFAULT_VALUE ) ) ) );
+
+        setParallelBatchExecution( Boolean.valueOf( this.chainedProperties.getProperty( ParallelBatchExecutionOption.PROPERTY_NAME,
+                                                                                        "false" ) ).booleanValue() );
         
         setBeliefSystemType( BeliefSystemType.resolveBeliefSystemType( this.chainedProperties.getProperty( BeliefSystemTypeOption.PROPERTY_NAME,
                                                                                                            BeliefSystemType.SIMPLE.getId())) );
@@ -193,6 +247,18 @@ public class SessionConfiguration
 
         if ( name.equals( KeepReferenceOption.PROPERTY_NAME ) ) {
             setKeepReference( StringUtils.isEmpty(value) || Boolean.parseBoolean(value) );
+        } else if ( name.equals( CompactObjectStoreOption.PROPERTY_NAME ) ) {
+            setCompactObjectStore( !StringUtils.isEmpty(value) && Boolean.parseBoolean(value) );
+        } else if ( name.equals( NetworkProfilingOption.PROPERTY_NAME ) ) {
+            setNetworkProfiling( !StringUtils.isEmpty(value) && Boolean.parseBoolean(value) );
+        } else if ( name.equals( StagedEntryPointInsertionOption.PROPERTY_NAME ) ) {
+            setStagedEntryPointInsertion( !StringUtils.isEmpty(value) && Boolean.parseBoolean(value) );
+        } else if ( name.equals( TimerBatchFiringOption.PROPERTY_NAME ) ) {
+            setTimerBatchFiring( !StringUtils.isEmpty(value) && Boolean.parseBoolean(value) );
+        } else if ( name.equals( StatelessSessionPoolSizeOption.PROPERTY_NAME ) ) {
+            setStatelessSessionPoolSize( StringUtils.isEmpty( value ) ? StatelessSessionPoolSizeOption.DEFAULT_VALUE : Integer.parseInt( value ) );
+        } else if ( name.equals( ParallelBatchExecutionOption.PROPERTY_NAME ) ) {
+            setParallelBatchExecution( !StringUtils.isEmpty(value) && Boolean.parseBoolean(value) );
         } else if ( name.equals( ClockTypeOption.PROPERTY_NAME ) ) {
             setClockType( ClockType.resolveClockType( StringUtils.isEmpty( value ) ? "realtime" : value ) );
         } else if ( name.equals( TimerJobFactoryOption.PROPERTY_NAME ) ) {
@@ -210,6 +276,18 @@ public class SessionConfiguration
 
         if ( name.equals( KeepReferenceOption.PROPERTY_NAME ) ) {
             return Boolean.toString( this.keepReference );
+        } else if ( name.equals( CompactObjectStoreOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( this.compactObjectStore );
+        } else if ( name.equals( NetworkProfilingOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( this.networkProfiling );
+        } else if ( name.equals( StagedEntryPointInsertionOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( this.stagedEntryPointInsertion );
+        } else if ( name.equals( TimerBatchFiringOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( this.timerBatchFiring );
+        } else if ( name.equals( StatelessSessionPoolSizeOption.PROPERTY_NAME ) ) {
+            return Integer.toString( this.statelessSessionPoolSize );
+        } else if ( name.equals( ParallelBatchExecutionOption.PROPERTY_NAME ) ) {
+            return Boolean.toString( this.parallelBatchExecution );
         } else if ( name.equals( ClockTypeOption.PROPERTY_NAME ) ) {
             return this.clockType.toExternalForm();
         } else if ( name.equals( TimerJobFactoryOption.PROPERTY_NAME ) ) {
@@ -251,6 +329,87 @@ public class SessionConfiguration
     public boolean isKeepReference() {
         return this.keepReference;
     }
+
+    /**
+     * Makes the session entry points keep their fact handles in a CompactObjectStore,
+     * trading some speed for a smaller footprint with very large working memories.
+     */
+    public void setCompactObjectStore(boolean compactObjectStore) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.compactObjectStore = compactObjectStore;
+    }
+
+    public boolean isCompactObjectStore() {
+        return this.compactObjectStore;
+    }
+
+    /**
+     * Records the tuples processed by, and the time spent in, each node evaluated by Phreak,
+     * see NetworkProfiler. Off by default, as timing every node evaluation has a cost.
+     */
+    public void setNetworkProfiling(boolean networkProfiling) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.networkProfiling = networkProfiling;
+    }
+
+    public boolean isNetworkProfiling() {
+        return this.networkProfiling;
+    }
+
+    /**
+     * Makes the inserts done from outside the rules only create the fact handle and stage it in a queue of the
+     * entry point, without taking the session lock. The staged facts are propagated, in order, the next time the
+     * engine evaluates the queued actions: when the rules are fired or queried, or when the entry point is updated.
+     * Inserts that need the truth maintenance system, or property change support, are still done immediately.
+     */
+    public void setStagedEntryPointInsertion(boolean stagedEntryPointInsertion) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.stagedEntryPointInsertion = stagedEntryPointInsertion;
+    }
+
+    public boolean isStagedEntryPointInsertion() {
+        return this.stagedEntryPointInsertion;
+    }
+
+    /**
+     * Makes the pseudo clock run all the jobs due within an advance of the clock as one batch: the expirations
+     * they queue are executed together at the end of the advance, and the rules are fired once, instead of after
+     * each timed activation. Only used with the pseudo clock.
+     */
+    public void setTimerBatchFiring(boolean timerBatchFiring) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.timerBatchFiring = timerBatchFiring;
+    }
+
+    public boolean isTimerBatchFiring() {
+        return this.timerBatchFiring;
+    }
+
+    /**
+     * Sets the maximum number of working memories a stateless session keeps, once reset, to run its
+     * following executions instead of creating a new one each time. 0, the default, disables the pool.
+     */
+    public void setStatelessSessionPoolSize(int statelessSessionPoolSize) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.statelessSessionPoolSize = statelessSessionPoolSize;
+    }
+
+    public int getStatelessSessionPoolSize() {
+        return this.statelessSessionPoolSize;
+    }
+
+    /**
+     * When enabled, a stateless session runs the independent groups of commands of a batch execution
+     * concurrently, each one on its own working memory. The groups must not depend on each other's facts.
+     */
+    public void setParallelBatchExecution(boolean parallelBatchExecution) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.parallelBatchExecution = parallelBatchExecution;
+    }
+
+    public boolean isParallelBatchExecution() {
+        return this.parallelBatchExecution;
+    }
     
     public BeliefSystemType getBeliefSystemType() {
         return this.beliefSystemType;
@@ -473,6 +632,18 @@ public class SessionConfiguration
             return (T) TimerJobFactoryOption.get( getTimerJobFactoryType().toExternalForm() );
         } else if ( QueryListenerOption.class.equals( option ) ) {
             return (T) this.queryListener;
+        } else if ( NetworkProfilingOption.class.equals( option ) ) {
+            return (T) (this.networkProfiling ? NetworkProfilingOption.YES : NetworkProfilingOption.NO);
+        } else if ( StatelessSessionPoolSizeOption.class.equals( option ) ) {
+            return (T) StatelessSessionPoolSizeOption.get( this.statelessSessionPoolSize );
+        } else if ( ParallelBatchExecutionOption.class.equals( option ) ) {
+            return (T) (this.parallelBatchExecution ? ParallelBatchExecutionOption.YES : ParallelBatchExecutionOption.NO);
+        } else if ( CompactObjectStoreOption.class.equals( option ) ) {
+            return (T) (this.compactObjectStore ? CompactObjectStoreOption.YES : CompactObjectStoreOption.NO);
+        } else if ( StagedEntryPointInsertionOption.class.equals( option ) ) {
+            return (T) (this.stagedEntryPointInsertion ? StagedEntryPointInsertionOption.YES : StagedEntryPointInsertionOption.NO);
+        } else if ( TimerBatchFiringOption.class.equals( option ) ) {
+            return (T) (this.timerBatchFiring ? TimerBatchFiringOption.YES : TimerBatchFiringOption.NO);
         }
         return null;
     }
@@ -499,6 +670,18 @@ public class SessionConfiguration
                                        ((WorkItemHandlerOption) option).getHandler() );
         } else if ( option instanceof QueryListenerOption ) {
             this.queryListener = (QueryListenerOption) option;
+        } else if ( option instanceof NetworkProfilingOption ) {
+            setNetworkProfiling( ((NetworkProfilingOption) option).isNetworkProfiling() );
+        } else if ( option instanceof StatelessSessionPoolSizeOption ) {
+            setStatelessSessionPoolSize( ((StatelessSessionPoolSizeOption) option).getPoolSize() );
+        } else if ( option instanceof ParallelBatchExecutionOption ) {
+            setParallelBatchExecution( ((ParallelBatchExecutionOption) option).isParallelBatchExecution() );
+        } else if ( option instanceof CompactObjectStoreOption ) {
+            setCompactObjectStore( ((CompactObjectStoreOption) option).isCompactObjectStore() );
+        } else if ( option instanceof StagedEntryPointInsertionOption ) {
+            setStagedEntryPointInsertion( ((StagedEntryPointInsertionOption) option).isStagedEntryPointInsertion() );
+        } else if ( option instanceof TimerBatchFiringOption ) {
+            setTimerBatchFiring( ((TimerBatchFiringOption) option).isTimerBatchFiring() );
         }
     }
 
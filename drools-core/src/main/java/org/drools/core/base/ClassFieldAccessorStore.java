@@ -140,11 +140,11 @@ public class ClassFieldAccessorStore
     }
 
 
-    public InternalReadAccessor getMVELReader(final String pkgName,
-                                                    final String className,
-                                                    final String expr,
-                                                    final boolean typesafe, 
-                                                    Class returnType) {
+    public synchronized InternalReadAccessor getMVELReader(final String pkgName,
+                                                           final String className,
+                                                           final String expr,
+                                                           final boolean typesafe,
+                                                           Class returnType) {
         AccessorKey key = new AccessorKey( pkgName + className,
                                            expr,
                                            AccessorKey.AccessorType.FieldAccessor );
@@ -214,8 +214,8 @@ public class ClassFieldAccessorStore
                             fieldName );
     }
 
-    public ClassFieldAccessor getAccessor(final String className,
-                                          final String fieldName) {
+    public synchronized ClassFieldAccessor getAccessor(final String className,
+                                                       final String fieldName) {
         AccessorKey key = new AccessorKey( className,
                                            fieldName,
                                            AccessorKey.AccessorType.FieldAccessor );
@@ -296,9 +296,9 @@ public class ClassFieldAccessorStore
                                    target );
     }
 
-    public ClassObjectType getClassObjectType(final ClassObjectType objectType,
-                                              final boolean isEvent,
-                                              final AcceptsClassObjectType target) {
+    public synchronized ClassObjectType getClassObjectType(final ClassObjectType objectType,
+                                                           final boolean isEvent,
+                                                           final AcceptsClassObjectType target) {
         AccessorKey key = new AccessorKey( objectType.getClassName(),
                                            isEvent ? "$$DROOLS__isEvent__" : null,
                                            AccessorKey.AccessorType.ClassObjectType );
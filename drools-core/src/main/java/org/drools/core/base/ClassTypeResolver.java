@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.drools.core.RuntimeDroolsException;
 import org.kie.internal.utils.CompositeClassLoader;
@@ -34,7 +35,7 @@ public class ClassTypeResolver
 
     private ClassLoader                      classLoader;
 
-    private Map<String, Class< ? >>          cachedImports    = new HashMap<String, Class< ? >>();
+    private Map<String, Class< ? >>          cachedImports    = new ConcurrentHashMap<String, Class< ? >>();
 
     private static final Map<String, String> internalNamesMap = new HashMap<String, String>();
     static {
@@ -283,7 +284,7 @@ public class ClassTypeResolver
 
         if ( clazz != null ) {
             if ( this.cachedImports == Collections.EMPTY_MAP ) {
-                this.cachedImports = new HashMap<String, Class<?>>();
+                this.cachedImports = new ConcurrentHashMap<String, Class<?>>();
             }
 
             this.cachedImports.put( clazz.getSimpleName(),
@@ -303,7 +304,7 @@ public class ClassTypeResolver
         }
         if ( clazz != null ) {
             if ( this.cachedImports == Collections.EMPTY_MAP ) {
-                this.cachedImports = new HashMap<String, Class<?>>();
+                this.cachedImports = new ConcurrentHashMap<String, Class<?>>();
             }
             this.cachedImports.put( className,
                                     clazz );
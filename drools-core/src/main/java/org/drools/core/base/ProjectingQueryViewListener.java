@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.common.DefaultFactHandle;
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.reteoo.LeftTuple;
+import org.drools.core.reteoo.QueryTerminalNode;
+import org.drools.core.rule.Declaration;
+import org.drools.core.rule.Query;
+import org.drools.core.rule.Rule;
+import org.drools.core.spi.PropagationContext;
+
+/**
+ * Collects at most maxRows rows of a query, keeping in each of them only the fact handles
+ * the given identifiers are bound to. The rows beyond the limit and the other handles of
+ * a row are neither stored nor copied, which matters for the queries with many rows.
+ */
+public class ProjectingQueryViewListener
+    implements
+    InternalViewChangedEventListener {
+
+    private final List<Object> results;
+
+    private final int          maxRows;
+
+    private final String[]     identifiers;
+
+    private final boolean      cloning;
+
+    // the tuple indexes of the handles to keep, by subrule index
+    private boolean[][]        projections = new boolean[1][];
+
+    /**
+     * @param maxRows the maximum number of rows, or -1 for no limit
+     * @param identifiers the identifiers to keep, or null for all of them
+     * @param cloning whether the handles are copied, as with the standard query listener
+     */
+    public ProjectingQueryViewListener(int maxRows,
+                                       String[] identifiers,
+                                       boolean cloning) {
+        this.results = new ArrayList<Object>( maxRows >= 0 && maxRows < 250 ? maxRows : 250 );
+        this.maxRows = maxRows;
+        this.identifiers = identifiers;
+        this.cloning = cloning;
+    }
+
+    public List< ? extends Object> getResults() {
+        return this.results;
+    }
+
+    public void rowAdded(final Rule rule,
+                         final LeftTuple tuple,
+                         final PropagationContext context,
+                         final InternalWorkingMemory workingMemory) {
+        if ( maxRows >= 0 && results.size() >= maxRows ) {
+            return;
+        }
+
+        QueryTerminalNode node = (QueryTerminalNode) tuple.getLeftTupleSink();
+        boolean[] projection = identifiers != null ? getProjection( (Query) rule,
+                                                                    node ) : null;
+
+        InternalFactHandle[] handles = new InternalFactHandle[tuple.getIndex() + 1];
+        LeftTuple entry = tuple;
+        while ( entry != null ) {
+            int index = entry.getIndex();
+            if ( projection == null || (index < projection.length && projection[index]) ) {
+                InternalFactHandle handle = entry.getLastHandle();
+                handles[index] = cloning ? new DefaultFactHandle( handle.getId(),
+                                                                  (handle.getEntryPoint() != null) ? handle.getEntryPoint().getEntryPointId() : null,
+                                                                  handle.getIdentityHashCode(),
+                                                                  handle.getObjectHashCode(),
+                                                                  handle.getRecency(),
+                                                                  handle.getObject() ) : handle;
+            }
+            entry = entry.getParent();
+        }
+
+        this.results.add( new QueryRowWithSubruleIndex( handles,
+                                                        node.getSubruleIndex() ) );
+    }
+
+    private boolean[] getProjection(Query query,
+                                    QueryTerminalNode node) {
+        int subruleIndex = node.getSubruleIndex();
+        if ( subruleIndex >= projections.length ) {
+            boolean[][] newProjections = new boolean[subruleIndex + 1][];
+            System.arraycopy( projections, 0, newProjections, 0, projections.length );
+            projections = newProjections;
+        }
+        boolean[] projection = projections[subruleIndex];
+        if ( projection == null ) {
+            Map<String, Declaration> declarations = node.getSubRule().getOuterDeclarations();
+            List<Integer> offsets = new ArrayList<Integer>();
+            int length = 0;
+            for ( String identifier : identifiers ) {
+                Declaration declaration = declarations.get( identifier );
+                if ( declaration == null ) {
+                    declaration = getParameter( query,
+                                                identifier );
+                }
+                // the unknown identifiers are reported once the query is evaluated
+                if ( declaration != null ) {
+                    int offset = declaration.getPattern().getOffset();
+                    offsets.add( offset );
+                    length = Math.max( length, offset + 1 );
+                }
+            }
+            projection = new boolean[length];
+            for ( int offset : offsets ) {
+                projection[offset] = true;
+            }
+            projections[subruleIndex] = projection;
+        }
+        return projection;
+    }
+
+    private static Declaration getParameter(Query query,
+                                            String identifier) {
+        for ( Declaration parameter : query.getParameters() ) {
+            if ( parameter.getIdentifier().equals( identifier ) ) {
+                return parameter;
+            }
+        }
+        return null;
+    }
+
+    public void rowRemoved(final Rule rule,
+                           final LeftTuple tuple,
+                           final PropagationContext context,
+                           final InternalWorkingMemory workingMemory) {
+    }
+
+    public void rowUpdated(final Rule rule,
+                           final LeftTuple tuple,
+                           final PropagationContext context,
+                           final InternalWorkingMemory workingMemory) {
+    }
+
+}
@@ -22,12 +22,10 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
 
-import org.kie.api.runtime.rule.AccumulateFunction;
-
 /**
  * An implementation of an accumulator capable of counting occurences
  */
-public class CountAccumulateFunction implements AccumulateFunction {
+public class CountAccumulateFunction implements MergeableAccumulateFunction {
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 
@@ -100,6 +98,30 @@ public class CountAccumulateFunction implements AccumulateFunction {
         return true;
     }
 
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#createPartialContext()
+     */
+    public Serializable createPartialContext() {
+        return createContext();
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#accumulatePartial(java.io.Serializable, java.lang.Object)
+     */
+    public void accumulatePartial(Serializable partial,
+                                  Object value) {
+        accumulate( partial,
+                    value );
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#merge(java.io.Serializable, java.io.Serializable)
+     */
+    public void merge(Serializable context,
+                      Serializable partial) {
+        ((CountData) context).count += ((CountData) partial).count;
+    }
+
     /**
      * {@inheritDoc}
      */
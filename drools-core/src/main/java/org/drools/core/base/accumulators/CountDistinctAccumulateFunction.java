@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * An implementation of an accumulator capable of counting distinct values. Each value is counted, so it is only
+ * forgotten once all its occurrences have been reversed.
+ */
+public class CountDistinctAccumulateFunction implements AccumulateFunction {
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+    }
+
+    protected static class CountDistinctData implements Externalizable {
+        public Map<Object, int[]> occurrences = new HashMap<Object, int[]>();
+
+        public CountDistinctData() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            occurrences.clear();
+            int size = in.readInt();
+            for ( int i = 0; i < size; i++ ) {
+                Object value = in.readObject();
+                occurrences.put( value, new int[] { in.readInt() } );
+            }
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeInt( occurrences.size() );
+            for ( Map.Entry<Object, int[]> entry : occurrences.entrySet() ) {
+                out.writeObject( entry.getKey() );
+                out.writeInt( entry.getValue()[0] );
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#createContext()
+     */
+    public Serializable createContext() {
+        return new CountDistinctData();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#init(java.lang.Object)
+     */
+    public void init(Serializable context) throws Exception {
+        CountDistinctData data = (CountDistinctData) context;
+        data.occurrences.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#accumulate(java.lang.Object, java.lang.Object)
+     */
+    public void accumulate(Serializable context,
+                           Object value) {
+        CountDistinctData data = (CountDistinctData) context;
+        int[] count = data.occurrences.get( value );
+        if ( count == null ) {
+            data.occurrences.put( value, new int[] { 1 } );
+        } else {
+            count[0]++;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#reverse(java.lang.Object, java.lang.Object)
+     */
+    public void reverse(Serializable context,
+                        Object value) throws Exception {
+        CountDistinctData data = (CountDistinctData) context;
+        int[] count = data.occurrences.get( value );
+        if ( count != null && --count[0] == 0 ) {
+            data.occurrences.remove( value );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#getResult(java.lang.Object)
+     */
+    public Object getResult(Serializable context) throws Exception {
+        CountDistinctData data = (CountDistinctData) context;
+        return new Long( data.occurrences.size() );
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#supportsReverse()
+     */
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class< ? > getResultType() {
+        return Number.class;
+    }
+
+}
@@ -146,6 +146,47 @@ public class JavaAccumulatorFunctionExecutor
         return this.function.supportsReverse();
     }
 
+    /**
+     * Returns true if the function can merge partial results
+     */
+    public boolean isMergeable() {
+        return this.function instanceof MergeableAccumulateFunction;
+    }
+
+    public Serializable createPartialContext() {
+        return ((MergeableAccumulateFunction) this.function).createPartialContext();
+    }
+
+    /**
+     * Accumulates the value of the given fact handle into a partial result. There
+     * is no tuple, so the expression must not use any declaration from outside of
+     * the accumulate.
+     */
+    public void accumulatePartial(Object workingMemoryContext,
+                                  Serializable partial,
+                                  InternalFactHandle handle,
+                                  Declaration[] declarations,
+                                  Declaration[] innerDeclarations,
+                                  WorkingMemory workingMemory) throws Exception {
+        final Object value = this.expression.evaluate( handle.getObject(),
+                                                       null,
+                                                       declarations,
+                                                       innerDeclarations,
+                                                       workingMemory,
+                                                       workingMemoryContext ).getValue();
+        ((MergeableAccumulateFunction) this.function).accumulatePartial( partial,
+                                                                         value );
+    }
+
+    /**
+     * Merges a partial result into the context
+     */
+    public void merge(Object context,
+                      Serializable partial) {
+        ((MergeableAccumulateFunction) this.function).merge( ((JavaAccumulatorFunctionContext) context).context,
+                                                             partial );
+    }
+
     public ReturnValueExpression getExpression() {
         return expression;
     }
@@ -22,24 +22,23 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
 
-import org.kie.api.runtime.rule.AccumulateFunction;
-
 /**
  * An implementation of an accumulator capable of calculating maximum values
  */
-public class MaxAccumulateFunction implements AccumulateFunction {
+public class MaxAccumulateFunction implements MergeableAccumulateFunction {
 
     protected static class MaxData implements Externalizable {
-        public double max = -Double.MAX_VALUE;
+        // all the accumulated values, so the maximum is still known when it is reversed
+        public OrderedMultiset values = new OrderedMultiset();
         
         public MaxData() {}
 
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-            max   = in.readDouble();
+            values.readExternal( in );
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
-            out.writeDouble(max);
+            values.writeExternal( out );
         }
     }
 
@@ -50,6 +49,20 @@ public class MaxAccumulateFunction implements AccumulateFunction {
     public void writeExternal(ObjectOutput out) throws IOException {
 
     }
+    protected static class MaxPartial implements Externalizable {
+        public double max = -Double.MAX_VALUE;
+
+        public MaxPartial() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            max = in.readDouble();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeDouble( max );
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.kie.base.accumulators.AccumulateFunction#createContext()
      */
@@ -62,7 +75,7 @@ public class MaxAccumulateFunction implements AccumulateFunction {
      */
     public void init(Serializable context) throws Exception {
         MaxData data = (MaxData) context;
-        data.max = -Double.MAX_VALUE;
+        data.values.clear();
     }
 
     /* (non-Javadoc)
@@ -71,7 +84,7 @@ public class MaxAccumulateFunction implements AccumulateFunction {
     public void accumulate(Serializable context,
                            Object value) {
         MaxData data = (MaxData) context;
-        data.max = Math.max( data.max, ((Number)value).doubleValue() );
+        data.values.add( ((Number) value).doubleValue() );
     }
 
     /* (non-Javadoc)
@@ -79,6 +92,8 @@ public class MaxAccumulateFunction implements AccumulateFunction {
      */
     public void reverse(Serializable context,
                         Object value) throws Exception {
+        MaxData data = (MaxData) context;
+        data.values.remove( ((Number) value).doubleValue() );
     }
 
     /* (non-Javadoc)
@@ -86,14 +101,40 @@ public class MaxAccumulateFunction implements AccumulateFunction {
      */
     public Object getResult(Serializable context) throws Exception {
         MaxData data = (MaxData) context;
-        return new Double( data.max );
+        return new Double( data.values.isEmpty() ? -Double.MAX_VALUE : data.values.max() );
     }
 
     /* (non-Javadoc)
      * @see org.kie.base.accumulators.AccumulateFunction#supportsReverse()
      */
     public boolean supportsReverse() {
-        return false;
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#createPartialContext()
+     */
+    public Serializable createPartialContext() {
+        return new MaxPartial();
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#accumulatePartial(java.io.Serializable, java.lang.Object)
+     */
+    public void accumulatePartial(Serializable partial,
+                                  Object value) {
+        MaxPartial data = (MaxPartial) partial;
+        data.max = Math.max( data.max,
+                             ((Number) value).doubleValue() );
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#merge(java.io.Serializable, java.io.Serializable)
+     */
+    public void merge(Serializable context,
+                      Serializable partial) {
+        // only the maximum of the partial result matters
+        ((MaxData) context).values.add( ((MaxPartial) partial).max );
     }
 
     /**
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Serializable;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * An accumulate function whose partial results, each one accumulated over a
+ * part of the values, can be merged into its context. The panes of a hopping
+ * window keep such a partial result instead of their events.
+ */
+public interface MergeableAccumulateFunction
+    extends
+    AccumulateFunction {
+
+    /**
+     * Creates the context of a partial result. It is only ever accumulated to,
+     * so it does not need to support reverse.
+     */
+    public Serializable createPartialContext();
+
+    /**
+     * Accumulates the given value into a partial result
+     */
+    public void accumulatePartial(Serializable partial,
+                                  Object value);
+
+    /**
+     * Merges a partial result into the context of this function, as if all
+     * of its values had been accumulated
+     */
+    public void merge(Serializable context,
+                      Serializable partial);
+
+}
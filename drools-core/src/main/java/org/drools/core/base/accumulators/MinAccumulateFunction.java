@@ -22,12 +22,10 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
 
-import org.kie.api.runtime.rule.AccumulateFunction;
-
 /**
  * An implementation of an accumulator capable of calculating minimun values
  */
-public class MinAccumulateFunction implements AccumulateFunction {
+public class MinAccumulateFunction implements MergeableAccumulateFunction {
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 
@@ -38,16 +36,31 @@ public class MinAccumulateFunction implements AccumulateFunction {
     }
 
     protected static class MinData implements Externalizable {
-        public double min = Double.MAX_VALUE;
+        // all the accumulated values, so the minimum is still known when it is reversed
+        public OrderedMultiset values = new OrderedMultiset();
         
         public MinData() {}
 
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-            min   = in.readDouble();
+            values.readExternal( in );
         }
 
         public void writeExternal(ObjectOutput out) throws IOException {
-            out.writeDouble(min);
+            values.writeExternal( out );
+        }
+    }
+
+    protected static class MinPartial implements Externalizable {
+        public double min = Double.MAX_VALUE;
+
+        public MinPartial() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            min = in.readDouble();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeDouble( min );
         }
     }
 
@@ -63,7 +76,7 @@ public class MinAccumulateFunction implements AccumulateFunction {
      */
     public void init(Serializable context) throws Exception {
         MinData data = (MinData) context;
-        data.min = Double.MAX_VALUE;
+        data.values.clear();
     }
 
     /* (non-Javadoc)
@@ -72,7 +85,7 @@ public class MinAccumulateFunction implements AccumulateFunction {
     public void accumulate(Serializable context,
                            Object value) {
         MinData data = (MinData) context;
-        data.min = Math.min( data.min, ((Number)value).doubleValue() );
+        data.values.add( ((Number) value).doubleValue() );
     }
 
     /* (non-Javadoc)
@@ -80,6 +93,8 @@ public class MinAccumulateFunction implements AccumulateFunction {
      */
     public void reverse(Serializable context,
                         Object value) throws Exception {
+        MinData data = (MinData) context;
+        data.values.remove( ((Number) value).doubleValue() );
     }
 
     /* (non-Javadoc)
@@ -87,14 +102,40 @@ public class MinAccumulateFunction implements AccumulateFunction {
      */
     public Object getResult(Serializable context) throws Exception {
         MinData data = (MinData) context;
-        return new Double( data.min );
+        return new Double( data.values.isEmpty() ? Double.MAX_VALUE : data.values.min() );
     }
 
     /* (non-Javadoc)
      * @see org.kie.base.accumulators.AccumulateFunction#supportsReverse()
      */
     public boolean supportsReverse() {
-        return false;
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#createPartialContext()
+     */
+    public Serializable createPartialContext() {
+        return new MinPartial();
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#accumulatePartial(java.io.Serializable, java.lang.Object)
+     */
+    public void accumulatePartial(Serializable partial,
+                                  Object value) {
+        MinPartial data = (MinPartial) partial;
+        data.min = Math.min( data.min,
+                             ((Number) value).doubleValue() );
+    }
+
+    /* (non-Javadoc)
+     * @see org.drools.core.base.accumulators.MergeableAccumulateFunction#merge(java.io.Serializable, java.io.Serializable)
+     */
+    public void merge(Serializable context,
+                      Serializable partial) {
+        // only the minimum of the partial result matters
+        ((MinData) context).values.add( ((MinPartial) partial).min );
     }
 
     /**
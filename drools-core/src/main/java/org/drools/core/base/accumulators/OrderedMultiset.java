@@ -0,0 +1,247 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A sorted multiset of doubles, used by the accumulate functions that must be able to remove values.
+ *
+ * It is a treap whose nodes hold a distinct value, the number of times it was added, and the total count of their
+ * subtree, so adding, removing, and getting the value at a given rank are all done in logarithmic time.
+ */
+public class OrderedMultiset implements Externalizable {
+
+    private static class Node {
+        private final double value;
+        private final int    priority;
+        private int          count;
+        private long         size;
+        private Node         left;
+        private Node         right;
+
+        private Node(double value,
+                     int priority) {
+            this.value = value;
+            this.priority = priority;
+            this.count = 1;
+            this.size = 1;
+        }
+
+        private void update() {
+            this.size = this.count + size( this.left ) + size( this.right );
+        }
+    }
+
+    private Node root;
+    private int  seed = 0x2545F491;
+
+    public OrderedMultiset() {
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        clear();
+        int distinct = in.readInt();
+        for ( int i = 0; i < distinct; i++ ) {
+            double value = in.readDouble();
+            int count = in.readInt();
+            for ( int j = 0; j < count; j++ ) {
+                add( value );
+            }
+        }
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt( countDistinct( root ) );
+        writeNode( out, root );
+    }
+
+    private static int countDistinct(Node node) {
+        return node == null ? 0 : 1 + countDistinct( node.left ) + countDistinct( node.right );
+    }
+
+    private static void writeNode(ObjectOutput out,
+                                  Node node) throws IOException {
+        if ( node != null ) {
+            writeNode( out, node.left );
+            out.writeDouble( node.value );
+            out.writeInt( node.count );
+            writeNode( out, node.right );
+        }
+    }
+
+    private static long size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    public long size() {
+        return size( root );
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    public void add(double value) {
+        root = add( root, value );
+    }
+
+    private Node add(Node node,
+                     double value) {
+        if ( node == null ) {
+            return new Node( value, nextPriority() );
+        }
+        int cmp = Double.compare( value, node.value );
+        if ( cmp == 0 ) {
+            node.count++;
+        } else if ( cmp < 0 ) {
+            node.left = add( node.left, value );
+            if ( node.left.priority > node.priority ) {
+                node = rotateRight( node );
+            }
+        } else {
+            node.right = add( node.right, value );
+            if ( node.right.priority > node.priority ) {
+                node = rotateLeft( node );
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Removes one occurrence of the value
+     * @return false if the value was not in the set
+     */
+    public boolean remove(double value) {
+        long size = size();
+        root = remove( root, value );
+        return size() != size;
+    }
+
+    private Node remove(Node node,
+                        double value) {
+        if ( node == null ) {
+            return null;
+        }
+        int cmp = Double.compare( value, node.value );
+        if ( cmp < 0 ) {
+            node.left = remove( node.left, value );
+        } else if ( cmp > 0 ) {
+            node.right = remove( node.right, value );
+        } else if ( node.count > 1 ) {
+            node.count--;
+        } else {
+            return merge( node.left, node.right );
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left,
+                              Node right) {
+        if ( left == null ) {
+            return right;
+        }
+        if ( right == null ) {
+            return left;
+        }
+        if ( left.priority > right.priority ) {
+            left.right = merge( left.right, right );
+            left.update();
+            return left;
+        } else {
+            right.left = merge( left, right.left );
+            right.update();
+            return right;
+        }
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        return right;
+    }
+
+    private int nextPriority() {
+        // xorshift, the priorities only need to be evenly spread
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    public double min() {
+        if ( root == null ) {
+            throw new IllegalStateException( "The set is empty" );
+        }
+        Node node = root;
+        while ( node.left != null ) {
+            node = node.left;
+        }
+        return node.value;
+    }
+
+    public double max() {
+        if ( root == null ) {
+            throw new IllegalStateException( "The set is empty" );
+        }
+        Node node = root;
+        while ( node.right != null ) {
+            node = node.right;
+        }
+        return node.value;
+    }
+
+    /**
+     * @return the value at the given position, starting from 0, in the sorted sequence of all the values
+     */
+    public double get(long rank) {
+        if ( rank < 0 || rank >= size() ) {
+            throw new IndexOutOfBoundsException( "Rank " + rank + " out of a set of " + size() + " values" );
+        }
+        Node node = root;
+        while ( true ) {
+            long leftSize = size( node.left );
+            if ( rank < leftSize ) {
+                node = node.left;
+            } else if ( rank < leftSize + node.count ) {
+                return node.value;
+            } else {
+                rank -= leftSize + node.count;
+                node = node.right;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * An implementation of an accumulator capable of calculating percentiles, interpolating linearly between the two
+ * closest values when the percentile does not fall on one of them.
+ *
+ * The percentile is a property of the function, so a function is registered for each percentile needed, e.g.
+ * AccumulateFunctionOption.get( "percentile95", new PercentileAccumulateFunction( 0.95 ) ).
+ */
+public class PercentileAccumulateFunction implements AccumulateFunction {
+
+    private double percentile;
+
+    public PercentileAccumulateFunction() {
+        this( 0.5 );
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     */
+    public PercentileAccumulateFunction(double percentile) {
+        if ( percentile < 0 || percentile > 1 ) {
+            throw new IllegalArgumentException( "The percentile must be between 0 and 1: " + percentile );
+        }
+        this.percentile = percentile;
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        percentile = in.readDouble();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeDouble( percentile );
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    protected static class PercentileData implements Externalizable {
+        public OrderedMultiset values = new OrderedMultiset();
+
+        public PercentileData() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            values.readExternal( in );
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            values.writeExternal( out );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#createContext()
+     */
+    public Serializable createContext() {
+        return new PercentileData();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#init(java.lang.Object)
+     */
+    public void init(Serializable context) throws Exception {
+        PercentileData data = (PercentileData) context;
+        data.values.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#accumulate(java.lang.Object, java.lang.Object)
+     */
+    public void accumulate(Serializable context,
+                           Object value) {
+        PercentileData data = (PercentileData) context;
+        data.values.add( ((Number) value).doubleValue() );
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#reverse(java.lang.Object, java.lang.Object)
+     */
+    public void reverse(Serializable context,
+                        Object value) throws Exception {
+        PercentileData data = (PercentileData) context;
+        data.values.remove( ((Number) value).doubleValue() );
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#getResult(java.lang.Object)
+     */
+    public Object getResult(Serializable context) throws Exception {
+        PercentileData data = (PercentileData) context;
+        long size = data.values.size();
+        if ( size == 0 ) {
+            return new Double( 0 );
+        }
+        double position = (size - 1) * percentile;
+        long lower = (long) Math.floor( position );
+        double result = data.values.get( lower );
+        if ( lower + 1 < size && position > lower ) {
+            result += (position - lower) * (data.values.get( lower + 1 ) - result);
+        }
+        return new Double( result );
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#supportsReverse()
+     */
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class< ? > getResultType() {
+        return Number.class;
+    }
+
+}
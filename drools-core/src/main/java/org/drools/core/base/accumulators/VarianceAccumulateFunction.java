@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * An implementation of an accumulator capable of calculating the sample variance, using Welford's algorithm
+ * both to add and to remove values, so it does not suffer from the cancellation of a sum of squares.
+ */
+public class VarianceAccumulateFunction implements AccumulateFunction {
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+    }
+
+    protected static class VarianceData implements Externalizable {
+        public long   count = 0;
+        public double mean  = 0;
+        // sum of the squared differences from the mean
+        public double m2    = 0;
+
+        public VarianceData() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            count   = in.readLong();
+            mean    = in.readDouble();
+            m2      = in.readDouble();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeLong(count);
+            out.writeDouble(mean);
+            out.writeDouble(m2);
+        }
+
+        public double getVariance() {
+            return count < 2 ? 0 : Math.max( m2, 0 ) / (count - 1);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#createContext()
+     */
+    public Serializable createContext() {
+        return new VarianceData();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#init(java.lang.Object)
+     */
+    public void init(Serializable context) throws Exception {
+        VarianceData data = (VarianceData) context;
+        data.count = 0;
+        data.mean = 0;
+        data.m2 = 0;
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#accumulate(java.lang.Object, java.lang.Object)
+     */
+    public void accumulate(Serializable context,
+                           Object value) {
+        VarianceData data = (VarianceData) context;
+        double x = ((Number) value).doubleValue();
+        data.count++;
+        double delta = x - data.mean;
+        data.mean += delta / data.count;
+        data.m2 += delta * (x - data.mean);
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#reverse(java.lang.Object, java.lang.Object)
+     */
+    public void reverse(Serializable context,
+                        Object value) throws Exception {
+        VarianceData data = (VarianceData) context;
+        double x = ((Number) value).doubleValue();
+        if ( data.count <= 1 ) {
+            data.count = 0;
+            data.mean = 0;
+            data.m2 = 0;
+            return;
+        }
+        double mean = (data.mean * data.count - x) / (data.count - 1);
+        data.m2 -= (x - data.mean) * (x - mean);
+        data.mean = mean;
+        data.count--;
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#getResult(java.lang.Object)
+     */
+    public Object getResult(Serializable context) throws Exception {
+        VarianceData data = (VarianceData) context;
+        return new Double( data.getVariance() );
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#supportsReverse()
+     */
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class< ? > getResultType() {
+        return Number.class;
+    }
+
+}
@@ -34,6 +34,7 @@ import org.drools.core.command.runtime.process.SignalEventCommand;
 import org.drools.core.command.runtime.process.StartProcessCommand;
 import org.drools.core.command.runtime.rule.DeleteCommand;
 import org.drools.core.command.runtime.rule.FireAllRulesCommand;
+import org.drools.core.command.runtime.rule.GetFactHandlesCommand;
 import org.drools.core.command.runtime.rule.GetObjectCommand;
 import org.drools.core.command.runtime.rule.GetObjectsCommand;
 import org.drools.core.command.runtime.rule.InsertElementsCommand;
@@ -157,6 +158,61 @@ public class BatchExecutionCommandImpl implements BatchExecutionCommand, Generic
         return null;
     }
 
+    /**
+     * Splits the commands in groups that do not depend on each other's facts, so that each one can be
+     * executed on its own session. A group ends with a FireAllRulesCommand and the commands reading
+     * its results, such as queries. A SetGlobalCommand is also part of all the groups following the
+     * one it is found in, while the commands after the last FireAllRulesCommand belong to the last group.
+     */
+    public List<BatchExecutionCommandImpl> splitIndependentGroups() {
+        List<BatchExecutionCommandImpl> groups = new ArrayList<BatchExecutionCommandImpl>();
+        List<GenericCommand<?>> globals = new ArrayList<GenericCommand<?>>();
+        List<GenericCommand<?>> group = null;
+        List<GenericCommand<?>> trailing = new ArrayList<GenericCommand<?>>();
+        boolean fired = false;
+
+        for ( GenericCommand<?> command : getCommands() ) {
+            if ( fired && !isResultCommand( command ) ) {
+                groups.add( new BatchExecutionCommandImpl( group, lookup ) );
+                group = null;
+                fired = false;
+                trailing.clear();
+            }
+            if ( command instanceof SetGlobalCommand ) {
+                globals.add( command );
+                if ( group == null ) {
+                    trailing.add( command );
+                    continue;
+                }
+            }
+            if ( group == null ) {
+                group = new ArrayList<GenericCommand<?>>( globals );
+            }
+            group.add( command );
+            trailing.add( command );
+            fired |= command instanceof FireAllRulesCommand;
+        }
+
+        if ( fired || groups.isEmpty() ) {
+            if ( group == null ) {
+                group = globals;
+            }
+            groups.add( new BatchExecutionCommandImpl( group, lookup ) );
+        } else {
+            // without a FireAllRulesCommand of their own these commands run on the session of the last group
+            groups.get( groups.size() - 1 ).getCommands().addAll( trailing );
+        }
+        return groups;
+    }
+
+    private static boolean isResultCommand(GenericCommand<?> command) {
+        return command instanceof QueryCommand ||
+               command instanceof GetGlobalCommand ||
+               command instanceof GetObjectCommand ||
+               command instanceof GetObjectsCommand ||
+               command instanceof GetFactHandlesCommand;
+    }
+
     public void setLookup(String lookup) {
         this.lookup = lookup;
     }
@@ -64,6 +64,10 @@ public class GetObjectsCommand
         this.outIdentifier = outIdentifier;
     }
 
+    public ObjectFilter getFilter() {
+        return filter;
+    }
+
     public Collection execute(Context context) {
         KieSession ksession = ((KnowledgeCommandContext) context).getKieSession();
         
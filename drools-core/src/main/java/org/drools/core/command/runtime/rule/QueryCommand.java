@@ -47,6 +47,12 @@ public class QueryCommand  implements GenericCommand<QueryResults>, Identifiable
     @XmlElement
     private List<Object> arguments;
 
+    @XmlAttribute(name = "max-rows")
+    private Integer maxRows;
+
+    @XmlElement(name = "identifier")
+    private List<String> identifiers;
+
     public QueryCommand() {
     }
     
@@ -87,6 +93,29 @@ public class QueryCommand  implements GenericCommand<QueryResults>, Identifiable
         this.arguments = arguments;
     }
 
+    /**
+     * Returns the maximum number of rows of the results, or -1 if they are not limited
+     */
+    public int getMaxRows() {
+        return maxRows != null ? maxRows : -1;
+    }
+
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows >= 0 ? maxRows : null;
+    }
+
+    /**
+     * Returns the identifiers the rows of the results give access to, or null for all
+     * the identifiers of the query
+     */
+    public List<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    public void setIdentifiers(List<String> identifiers) {
+        this.identifiers = identifiers;
+    }
+
     public QueryResults execute(Context context) {
         KieSession ksession = ((KnowledgeCommandContext) context).getKieSession();
         
@@ -100,7 +129,16 @@ public class QueryCommand  implements GenericCommand<QueryResults>, Identifiable
             }
         }
 
-        QueryResults results = ksession.getQueryResults( name, this.arguments.toArray() );
+        QueryResults results;
+        if ( this.maxRows == null && this.identifiers == null ) {
+            results = ksession.getQueryResults( name, this.arguments.toArray() );
+        } else {
+            // only the requested rows and identifiers are collected
+            results = ((StatefulKnowledgeSessionImpl)ksession).getQueryResults( name,
+                                                                                getMaxRows(),
+                                                                                this.identifiers != null ? this.identifiers.toArray( new String[this.identifiers.size()] ) : null,
+                                                                                this.arguments.toArray() );
+        }
         
         if ( this.outIdentifier != null ) {
             if(((StatefulKnowledgeSessionImpl)ksession).session.getExecutionResult() != null){
@@ -116,6 +154,8 @@ public class QueryCommand  implements GenericCommand<QueryResults>, Identifiable
                 "outIdentifier='" + outIdentifier + '\'' +
                 ", name='" + name + '\'' +
                 ", arguments=" + arguments +
+                ( maxRows != null ? ", maxRows=" + maxRows : "" ) +
+                ( identifiers != null ? ", identifiers=" + identifiers : "" ) +
                 '}';
     }
 }
@@ -84,6 +84,8 @@ abstract public class AbstractRuleBase
 
     private final AtomicInteger                           workingMemoryCounter         = new AtomicInteger( 0 );
 
+    private volatile int                                  networkVersion;
+
     private RuleBaseConfiguration                         config;
 
     protected Map<String, Package>                        pkgs;
@@ -486,6 +488,8 @@ abstract public class AbstractRuleBase
     public void unlock() {
         boolean lastUnlock = this.lock.getWriteHoldCount() == 1;
         if (lastUnlock) {
+            this.networkVersion++;
+            networkUpdated();
             this.eventSupport.fireBeforeRuleBaseUnlocked();
         }
         this.lock.writeUnlock();
@@ -494,6 +498,16 @@ abstract public class AbstractRuleBase
         }
     }
 
+    /**
+     * Called with the rulebase lock held, once all the changes made since it was taken are in the network.
+     */
+    protected void networkUpdated() {
+    }
+
+    public int getNetworkVersion() {
+        return this.networkVersion;
+    }
+
     public void readLock() {
         this.lock.readLock();
     }
@@ -48,6 +48,7 @@ import org.drools.core.base.MapGlobalResolver;
 import org.drools.core.event.*;
 import org.drools.core.management.DroolsManagementAgent;
 import org.drools.core.marshalling.impl.ObjectMarshallingStrategyStoreImpl;
+import org.drools.core.phreak.NetworkProfiler;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.InitialFactImpl;
 import org.drools.core.reteoo.LIANodePropagation;
@@ -68,6 +69,7 @@ import org.drools.core.spi.GlobalResolver;
 import org.drools.core.time.AcceptsTimerJobFactoryManager;
 import org.drools.core.time.TimerService;
 import org.drools.core.time.TimerServiceFactory;
+import org.drools.core.time.impl.PseudoClockScheduler;
 import org.drools.core.type.DateFormats;
 import org.drools.core.type.DateFormatsImpl;
 import org.kie.api.event.process.ProcessEventListener;
@@ -103,6 +105,8 @@ public abstract class AbstractWorkingMemory
     /** The actual memory for the <code>JoinNode</code>s. */
     private NodeMemories nodeMemories;
 
+    private NetworkProfiler networkProfiler;
+
     protected NamedEntryPoint defaultEntryPoint;
 
     /** Global values which are associated with this memory. */
@@ -153,6 +157,9 @@ public abstract class AbstractWorkingMemory
 
     private TimerService timerService;
 
+    // the version of the network this session was created for
+    private int networkVersion;
+
     protected Map<String, WorkingMemoryEntryPoint> entryPoints;
 
     protected InternalFactHandle initialFactHandle;
@@ -261,6 +268,10 @@ public abstract class AbstractWorkingMemory
         this.environment = environment;
 
         nodeMemories = new ConcurrentNodeMemories(this.ruleBase);
+
+        if ( this.config.isNetworkProfiling() ) {
+            this.networkProfiler = new NetworkProfiler();
+        }
         actionQueue = new ConcurrentLinkedQueue<WorkingMemoryAction>();
 
         Globals globals = (Globals) this.environment.get(EnvironmentName.GLOBALS);
@@ -287,6 +298,8 @@ public abstract class AbstractWorkingMemory
 
         this.sequential = conf.isSequential();
 
+        this.networkVersion = this.ruleBase.getNetworkVersion();
+
         if ( initialFactHandle == null ) {
             this.initialFactHandle = handleFactory.newFactHandle( InitialFactImpl.getInstance(),
                                                                   null,
@@ -304,8 +317,7 @@ public abstract class AbstractWorkingMemory
         this.__ruleBaseEventListeners = new LinkedList();
         this.lock = new ReentrantLock();
 
-        timerService = TimerServiceFactory.getTimerService( this.config );        
-        ((AcceptsTimerJobFactoryManager) timerService).setTimerJobFactoryManager( config.getTimerJobFactoryManager() );
+        initTimerService();
 
         this.propagationIdCounter = new AtomicLong( propagationContext );
 
@@ -379,6 +391,14 @@ public abstract class AbstractWorkingMemory
         }
     }
 
+    private void initTimerService() {
+        timerService = TimerServiceFactory.getTimerService( this.config );
+        ((AcceptsTimerJobFactoryManager) timerService).setTimerJobFactoryManager( config.getTimerJobFactoryManager() );
+        if ( timerService instanceof PseudoClockScheduler ) {
+            ((PseudoClockScheduler) timerService).setSession( this );
+        }
+    }
+
     private void initTransient() {
         EntryPointNode epn = this.ruleBase.getRete().getEntryPointNode( EntryPoint.DEFAULT );
 
@@ -430,6 +450,38 @@ public abstract class AbstractWorkingMemory
         // this.workItemManager.clear();
     }
 
+    /**
+     * Brings this session back to the state it had when it was created, so that a stateless session
+     * can run its next execution on it instead of creating a new one. The facts, the node memories,
+     * the agenda and the timers are discarded, while the entry points, their object type
+     * configurations and the event listeners are kept. The fact handle and propagation counters
+     * keep increasing.
+     */
+    public void resetForReuse() {
+        if ( !isNetworkUpToDate() ) {
+            throw new IllegalStateException( "The network changed since this session was created" );
+        }
+        reset( this.handleFactory.getId(),
+               this.handleFactory.getRecency(),
+               this.propagationIdCounter.get() );
+
+        // a new agenda, as the agenda groups and the rule evaluators refer to the discarded memories
+        this.agenda = this.ruleBase.getConfiguration().getComponentFactory().getAgendaFactory().createAgenda( this.ruleBase );
+        this.agenda.setWorkingMemory( this );
+
+        this.timerService.shutdown();
+        initTimerService();
+    }
+
+    /**
+     * Returns true if the rulebase did not change since this session was created. Only the sessions
+     * the rulebase knows about are updated when it changes, so a session it does not know about, as
+     * the ones kept by a stateless session, cannot be reused once it changed.
+     */
+    public boolean isNetworkUpToDate() {
+        return this.networkVersion == this.ruleBase.getNetworkVersion();
+    }
+
     public void setWorkingMemoryEventSupport(WorkingMemoryEventSupport workingMemoryEventSupport) {
         this.workingMemoryEventSupport = workingMemoryEventSupport;
     }
@@ -738,6 +790,7 @@ public abstract class AbstractWorkingMemory
      * @see org.drools.core.WorkingMemory
      */
     public FactHandle getFactHandleByIdentity(final Object object) {
+        flushStagedInserts();
         return getObjectStore().getHandleForObjectIdentity( object );
     }
 
@@ -746,6 +799,7 @@ public abstract class AbstractWorkingMemory
      * iteration may give unexpected results
      */
     public Iterator iterateObjects() {
+        flushStagedInserts();
         return getObjectStore().iterateObjects();
     }
 
@@ -754,6 +808,7 @@ public abstract class AbstractWorkingMemory
      * iteration may give unexpected results
      */
     public Iterator iterateObjects(org.kie.api.runtime.ObjectFilter filter) {
+        flushStagedInserts();
         return getObjectStore().iterateObjects( filter );
     }
 
@@ -762,6 +817,7 @@ public abstract class AbstractWorkingMemory
      * iteration may give unexpected results
      */
     public Iterator iterateFactHandles() {
+        flushStagedInserts();
         return getObjectStore().iterateFactHandles();
     }
 
@@ -770,6 +826,7 @@ public abstract class AbstractWorkingMemory
      * iteration may give unexpected results
      */
     public Iterator iterateFactHandles(org.kie.api.runtime.ObjectFilter filter) {
+        flushStagedInserts();
         return getObjectStore().iterateFactHandles( filter );
     }
 
@@ -930,6 +987,8 @@ public abstract class AbstractWorkingMemory
             if ( evaluatingActionQueue.compareAndSet( false,
                                                       true ) ) {
                 try {
+                    flushStagedInserts();
+
                     if ( actionQueue!= null && !actionQueue.isEmpty() ) {
                         WorkingMemoryAction action = null;
 
@@ -952,6 +1011,31 @@ public abstract class AbstractWorkingMemory
         }
     }
 
+    /**
+     * Propagates the facts staged by the entry points, when staged insertion is enabled
+     * @see SessionConfiguration#setStagedEntryPointInsertion(boolean)
+     */
+    public void flushStagedInserts() {
+        if ( this.config != null && this.config.isStagedEntryPointInsertion() ) {
+            for ( WorkingMemoryEntryPoint ep : this.entryPoints.values() ) {
+                if ( ep instanceof NamedEntryPoint ) {
+                    ((NamedEntryPoint) ep).flushStagedInserts();
+                }
+            }
+        }
+    }
+
+    public boolean hasStagedInserts() {
+        if ( this.config != null && this.config.isStagedEntryPointInsertion() ) {
+            for ( WorkingMemoryEntryPoint ep : this.entryPoints.values() ) {
+                if ( ep instanceof NamedEntryPoint && ((NamedEntryPoint) ep).hasStagedInserts() ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public Queue<WorkingMemoryAction> getActionQueue() {
         return actionQueue;
     }
@@ -985,6 +1069,10 @@ public abstract class AbstractWorkingMemory
         return nodeMemories;
     }
 
+    public NetworkProfiler getNetworkProfiler() {
+        return networkProfiler;
+    }
+
     public WorkingMemoryEventSupport getWorkingMemoryEventSupport() {
         return this.workingMemoryEventSupport;
     }
@@ -1252,6 +1340,7 @@ public abstract class AbstractWorkingMemory
     }
 
     public long getFactCount() {
+        flushStagedInserts();
         return getObjectStore().size();
     }
 
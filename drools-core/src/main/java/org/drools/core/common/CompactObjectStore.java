@@ -0,0 +1,343 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.common;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.RuleBaseConfiguration.AssertBehaviour;
+import org.drools.core.util.AbstractHashTable.ObjectComparator;
+import org.kie.api.runtime.ObjectFilter;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * An ObjectStore meant for sessions holding a very large number of facts.
+ *
+ * SingleThreadedObjectStore keeps its handles in ObjectHashMaps, which allocate an entry object per fact, and
+ * two of them per fact with equality based assert behaviour. This store keeps the handles directly in open
+ * addressing tables, made of an array of handles and a parallel array of their hashes, so the only per fact
+ * cost left is the fact handle itself.
+ *
+ * As with SingleThreadedObjectStore, iterators walk the table in place, so the store must not be modified
+ * while iterating over it.
+ */
+public class CompactObjectStore implements Externalizable, ObjectStore {
+    private HandleTable     assertMap;
+    private HandleTable     identityMap;
+    private AssertBehaviour behaviour;
+    private Lock            lock;
+
+    public CompactObjectStore() {
+
+    }
+
+    public CompactObjectStore(RuleBaseConfiguration conf, Lock lock) {
+        this.behaviour = conf.getAssertBehaviour();
+        this.lock = lock;
+
+        if ( AssertBehaviour.IDENTITY.equals(this.behaviour) ) {
+            this.assertMap = new HandleTable( new IdentityAssertMapComparator() );
+            this.identityMap = assertMap;
+        } else {
+            this.assertMap = new HandleTable( new EqualityAssertMapComparator() );
+            this.identityMap = new HandleTable( new IdentityAssertMapComparator() );
+        }
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        assertMap   = (HandleTable)in.readObject();
+        identityMap   = (HandleTable)in.readObject();
+        behaviour   = (AssertBehaviour)in.readObject();
+        lock   = (Lock)in.readObject();
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(assertMap);
+        out.writeObject(identityMap);
+        out.writeObject(behaviour);
+        out.writeObject(lock);
+    }
+
+    public int size() {
+        return this.assertMap.size();
+    }
+
+    public boolean isEmpty() {
+        return this.assertMap.size() == 0;
+    }
+
+    public void clear() {
+        this.assertMap.clear();
+        this.identityMap.clear();
+    }
+
+    public Object getObjectForHandle(FactHandle handle) {
+        try {
+            this.lock.lock();
+
+            // Make sure the FactHandle is from this WorkingMemory
+            final InternalFactHandle internalHandle = this.assertMap.get( handle );
+            if ( internalHandle == null ) {
+                return null;
+            }
+
+            return internalHandle.getObject();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public InternalFactHandle getHandleForObject(Object object){
+        if ( object == null ) {
+            return null;
+        } else {
+            return this.assertMap.get( object );
+        }
+    }
+
+    public InternalFactHandle reconnect(FactHandle factHandle) {
+        return this.assertMap.get( factHandle );
+    }
+
+    public InternalFactHandle getHandleForObjectIdentity(Object object) {
+        return this.identityMap.get( object );
+    }
+
+    public void updateHandle(InternalFactHandle handle, Object object){
+        this.assertMap.remove( handle );
+        if ( AssertBehaviour.EQUALITY.equals(this.behaviour) ) {
+            this.identityMap.remove( handle );
+        }
+        handle.setObject( object );
+        this.assertMap.put( handle );
+        if ( AssertBehaviour.EQUALITY.equals(this.behaviour) ) {
+            this.identityMap.put( handle );
+        }
+    }
+
+    public void addHandle(InternalFactHandle handle, Object object) {
+        this.assertMap.put( handle );
+        if ( AssertBehaviour.EQUALITY.equals(this.behaviour) ) {
+            this.identityMap.put( handle );
+        }
+    }
+
+    public void removeHandle(final FactHandle handle) {
+        this.assertMap.remove( handle );
+        if ( AssertBehaviour.EQUALITY.equals(this.behaviour) ) {
+            this.identityMap.remove( handle );
+        }
+    }
+
+    public Iterator iterateObjects() {
+        return new HandleIterator( this.assertMap.handles, true, null );
+    }
+
+    public Iterator iterateObjects(ObjectFilter filter) {
+        return new HandleIterator( this.assertMap.handles, true, filter );
+    }
+
+    public Iterator iterateFactHandles() {
+        return new HandleIterator( this.assertMap.handles, false, null );
+    }
+
+    public Iterator iterateFactHandles(ObjectFilter filter) {
+        return new HandleIterator( this.assertMap.handles, false, filter );
+    }
+
+    /**
+     * Linear probing hash table of fact handles. As with ObjectHashMap.put( handle, handle, false ), adding a
+     * handle does not check whether it is already there, the callers take care of that.
+     * Removal shifts the following entries of the probe sequence back, so no tombstones are needed.
+     */
+    public static class HandleTable implements Externalizable {
+        private static final int   DEFAULT_CAPACITY = 16;
+        private static final float LOAD_FACTOR      = 0.75f;
+
+        private InternalFactHandle[] handles;
+        private int[]                hashes;
+        private int                  size;
+        private int                  threshold;
+        private ObjectComparator     comparator;
+
+        public HandleTable() {
+
+        }
+
+        public HandleTable(ObjectComparator comparator) {
+            this.comparator = comparator;
+            init( DEFAULT_CAPACITY );
+        }
+
+        private void init(int capacity) {
+            this.handles = new InternalFactHandle[capacity];
+            this.hashes = new int[capacity];
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            comparator = (ObjectComparator) in.readObject();
+            int count = in.readInt();
+            int capacity = DEFAULT_CAPACITY;
+            while ( capacity * LOAD_FACTOR <= count ) {
+                capacity <<= 1;
+            }
+            init( capacity );
+            for ( int i = 0; i < count; i++ ) {
+                put( (InternalFactHandle) in.readObject() );
+            }
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject( comparator );
+            out.writeInt( size );
+            for ( InternalFactHandle handle : handles ) {
+                if ( handle != null ) {
+                    out.writeObject( handle );
+                }
+            }
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        public InternalFactHandle get(Object key) {
+            int hash = this.comparator.hashCodeOf( key );
+            int mask = this.handles.length - 1;
+            for ( int i = hash & mask; this.handles[i] != null; i = (i + 1) & mask ) {
+                if ( this.hashes[i] == hash && this.comparator.equal( key, this.handles[i] ) ) {
+                    return this.handles[i];
+                }
+            }
+            return null;
+        }
+
+        public void put(InternalFactHandle handle) {
+            if ( this.size >= this.threshold ) {
+                resize( this.handles.length << 1 );
+            }
+            insert( handle, this.comparator.hashCodeOf( handle ) );
+            this.size++;
+        }
+
+        private void insert(InternalFactHandle handle, int hash) {
+            int mask = this.handles.length - 1;
+            int i = hash & mask;
+            while ( this.handles[i] != null ) {
+                i = (i + 1) & mask;
+            }
+            this.handles[i] = handle;
+            this.hashes[i] = hash;
+        }
+
+        public InternalFactHandle remove(Object key) {
+            int hash = this.comparator.hashCodeOf( key );
+            int mask = this.handles.length - 1;
+            for ( int i = hash & mask; this.handles[i] != null; i = (i + 1) & mask ) {
+                if ( this.hashes[i] == hash && this.comparator.equal( key, this.handles[i] ) ) {
+                    InternalFactHandle removed = this.handles[i];
+                    shiftBack( i, mask );
+                    this.size--;
+                    return removed;
+                }
+            }
+            return null;
+        }
+
+        private void shiftBack(int free, int mask) {
+            for ( int j = (free + 1) & mask; this.handles[j] != null; j = (j + 1) & mask ) {
+                int home = this.hashes[j] & mask;
+                // the entry at j can only move to the free slot if its home slot is not cyclically in (free, j]
+                boolean reachable = free <= j ? (free < home && home <= j) : (free < home || home <= j);
+                if ( !reachable ) {
+                    this.handles[free] = this.handles[j];
+                    this.hashes[free] = this.hashes[j];
+                    free = j;
+                }
+            }
+            this.handles[free] = null;
+            this.hashes[free] = 0;
+        }
+
+        private void resize(int capacity) {
+            InternalFactHandle[] oldHandles = this.handles;
+            int[] oldHashes = this.hashes;
+            init( capacity );
+            for ( int i = 0; i < oldHandles.length; i++ ) {
+                if ( oldHandles[i] != null ) {
+                    insert( oldHandles[i], oldHashes[i] );
+                }
+            }
+        }
+
+        public void clear() {
+            this.size = 0;
+            init( DEFAULT_CAPACITY );
+        }
+    }
+
+    private static class HandleIterator implements Iterator {
+        private final InternalFactHandle[] handles;
+        private final boolean              objects;
+        private final ObjectFilter         filter;
+        private int                        index;
+        private InternalFactHandle         next;
+
+        private HandleIterator(InternalFactHandle[] handles,
+                               boolean objects,
+                               ObjectFilter filter) {
+            this.handles = handles;
+            this.objects = objects;
+            this.filter = filter;
+            this.next = fetch();
+        }
+
+        private InternalFactHandle fetch() {
+            while ( this.index < this.handles.length ) {
+                InternalFactHandle handle = this.handles[this.index++];
+                if ( handle != null && (this.filter == null || this.filter.accept( handle.getObject() )) ) {
+                    return handle;
+                }
+            }
+            return null;
+        }
+
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        public Object next() {
+            if ( this.next == null ) {
+                throw new NoSuchElementException();
+            }
+            InternalFactHandle handle = this.next;
+            this.next = fetch();
+            return this.objects ? handle.getObject() : handle;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException( "This iterator does not support the remove operation" );
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.WorkingMemory;
 import org.drools.core.base.DefaultKnowledgeHelper;
 import org.drools.core.common.RuleFlowGroupImpl.DeactivateCallback;
+import org.drools.core.phreak.ParallelRuleEvaluator;
 import org.drools.core.phreak.RuleAgendaItem;
 import org.drools.core.reteoo.RuleTerminalNodeLeftTuple;
 import org.drools.core.util.ClassUtils;
@@ -129,6 +130,8 @@ public class DefaultAgenda
 
     private boolean                                              unlinkingEnabled;
 
+    private ParallelRuleEvaluator                                parallelEvaluator;
+
     // ------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------
@@ -186,6 +189,10 @@ public class DefaultAgenda
         this.declarativeAgenda = rb.getConfiguration().isDeclarativeAgenda();
 
         this.unlinkingEnabled = rb.getConfiguration().isPhreakEnabled();
+
+        if ( this.unlinkingEnabled && rb.getConfiguration().isMultithreadEvaluation() && !this.declarativeAgenda ) {
+            this.parallelEvaluator = new ParallelRuleEvaluator( rb.getConfiguration().getMaxThreads() );
+        }
     }
 
     public RuleAgendaItem createRuleAgendaItem(final int salience,
@@ -1559,7 +1566,8 @@ public class DefaultAgenda
         this.halt.set( false );
         while ( continueFiring( -1 ) ) {
             boolean fired = fireNextItem( agendaFilter, 0, -1 ) >= 0 ||
-                            !((AbstractWorkingMemory) this.workingMemory).getActionQueue().isEmpty();
+                            !((AbstractWorkingMemory) this.workingMemory).getActionQueue().isEmpty() ||
+                            ((AbstractWorkingMemory) this.workingMemory).hasStagedInserts();
             this.workingMemory.executeQueuedActions();
             if ( !fired ) {
                 try {
@@ -1579,6 +1587,13 @@ public class DefaultAgenda
                             int fireLimit) {
         unstageActivations();
         this.halt.set( false );
+        if ( this.parallelEvaluator != null ) {
+            // evaluate the independent rules of the focus group up front, firing then proceeds serially
+            InternalAgendaGroup group = (InternalAgendaGroup) getNextFocus();
+            if ( group != null ) {
+                this.parallelEvaluator.evaluate( group, this.workingMemory );
+            }
+        }
         int fireCount = 0;
         int returnedFireCount = 0;
         do {
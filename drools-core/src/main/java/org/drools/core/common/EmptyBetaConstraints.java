@@ -22,6 +22,7 @@ import java.io.ObjectOutput;
 import java.util.List;
 
 import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.util.index.IndexUtil;
 import org.drools.core.util.index.LeftTupleList;
 import org.drools.core.util.index.RightTupleList;
 import org.drools.core.reteoo.BetaMemory;
@@ -103,7 +104,7 @@ public class EmptyBetaConstraints
 
     public BetaMemory createBetaMemory(final RuleBaseConfiguration config,
                                        final short nodeType) {
-        final BetaMemory memory = new BetaMemory( config.isSequential() ? null : new LeftTupleList(),
+        final BetaMemory memory = new BetaMemory( config.isSequential() ? IndexUtil.Factory.createSequentialLeftMemory( config ) : new LeftTupleList(),
                                                   new RightTupleList(),
                                                   this.createContext(),
                                                   nodeType );
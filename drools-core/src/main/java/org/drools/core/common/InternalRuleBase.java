@@ -122,6 +122,12 @@ public interface InternalRuleBase
 
     int getNodeCount();
 
+    /**
+     * Returns a number that changes every time the rulebase is unlocked after a modification, so that
+     * state cached for a given version of the network can be detected as stale
+     */
+    int getNetworkVersion();
+
     /**
      * Returns the type declaration associated to the given class
      *
@@ -25,6 +25,7 @@ import org.drools.core.SessionConfiguration;
 import org.drools.core.WorkingMemory;
 import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.WorkingMemoryEventSupport;
+import org.drools.core.phreak.NetworkProfiler;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.LIANodePropagation;
 import org.drools.core.reteoo.ObjectTypeConf;
@@ -59,6 +60,11 @@ public interface InternalWorkingMemory
     
     public NodeMemories getNodeMemories();
 
+    /**
+     * @return the profiler of the Phreak network evaluation, or null when profiling is not enabled
+     */
+    public NetworkProfiler getNetworkProfiler();
+
     public long getNextPropagationIdCounter();
 
     //public ObjectHashMap getFactHandleMap()
@@ -20,10 +20,16 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.drools.core.FactException;
@@ -31,12 +37,14 @@ import org.drools.core.FactHandle;
 import org.drools.core.RuleBase;
 import org.drools.core.RuleBaseConfiguration.AssertBehaviour;
 import org.drools.core.RuntimeDroolsException;
+import org.drools.core.SessionConfiguration;
 import org.drools.core.WorkingMemoryEntryPoint;
 import org.drools.core.base.ClassObjectType;
 import org.drools.core.util.Iterator;
 import org.drools.core.util.ObjectHashSet;
 import org.drools.core.util.ObjectHashSet.ObjectEntry;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl.ObjectStoreWrapper;
+import org.drools.core.facttemplates.Fact;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.ObjectTypeConf;
 import org.drools.core.reteoo.ObjectTypeNode;
@@ -83,6 +91,14 @@ public class NamedEntryPoint
     
     protected Set<InternalFactHandle>       dynamicFacts = null;
 
+    // true while a batch of facts is inserted, updated or deleted, so activations are unstaged once at its end
+    private boolean                         batching;
+
+    // the handles inserted without taking the lock, waiting to be propagated, when staged insertion is enabled
+    private final Queue<InternalFactHandle> stagedInserts;
+    private final AtomicInteger             stagedCount;
+    private boolean                         flushing;
+
     public NamedEntryPoint(EntryPoint entryPoint,
                            EntryPointNode entryPointNode,
                            AbstractWorkingMemory wm) {
@@ -103,11 +119,28 @@ public class NamedEntryPoint
         this.lock = lock;
         this.typeConfReg = new ObjectTypeConfigurationRegistry( this.ruleBase );
         this.handleFactory = this.wm.getFactHandleFactory();
-        this.objectStore = new SingleThreadedObjectStore( this.ruleBase.getConfiguration(),
-                                                          this.lock );
+        SessionConfiguration sessionConf = this.wm.getSessionConfiguration();
+        if ( sessionConf != null && sessionConf.isCompactObjectStore() ) {
+            this.objectStore = new CompactObjectStore( this.ruleBase.getConfiguration(),
+                                                       this.lock );
+        } else {
+            this.objectStore = new SingleThreadedObjectStore( this.ruleBase.getConfiguration(),
+                                                              this.lock );
+        }
+        if ( sessionConf != null && sessionConf.isStagedEntryPointInsertion() ) {
+            this.stagedInserts = new ConcurrentLinkedQueue<InternalFactHandle>();
+            this.stagedCount = new AtomicInteger();
+        } else {
+            this.stagedInserts = null;
+            this.stagedCount = null;
+        }
     }
 
     public void reset() {
+        if ( this.stagedInserts != null ) {
+            this.stagedInserts.clear();
+            this.stagedCount.set( 0 );
+        }
         this.objectStore.clear();
     }
     
@@ -153,6 +186,15 @@ public class NamedEntryPoint
             return null;
         }
 
+        if ( this.stagedInserts != null && !logical && rule == null && !dynamic && !this.wm.isSequential() ) {
+            ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                                          object );
+            if ( !typeConf.isTMSEnabled() && !typeConf.isDynamic() ) {
+                return stageInsert( object,
+                                    typeConf );
+            }
+        }
+
         try {
             this.wm.startOperation();
 
@@ -162,136 +204,437 @@ public class NamedEntryPoint
                 enableTMS(object, typeConf);
             }
 
-            InternalFactHandle handle = null;
-
-            final PropagationContext propagationContext = new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
-                                                                                      PropagationContext.INSERTION,
-                                                                                      rule,
-                                                                                      (activation == null) ? null : activation.getTuple(),
-                                                                                      handle,
-                                                                                      entryPoint );
-
             if ( this.wm.isSequential() ) {
-                handle = createHandle( object,
-                                       typeConf );
-                propagationContext.setFactHandle(handle);
+                InternalFactHandle handle = createHandle( object,
+                                                          typeConf );
                 insert( handle,
                         object,
                         rule,
                         activation,
                         typeConf,
-                        propagationContext );
+                        new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
+                                                    PropagationContext.INSERTION,
+                                                    rule,
+                                                    (activation == null) ? null : activation.getTuple(),
+                                                    handle,
+                                                    entryPoint ) );
                 return handle;
             }
 
-            
             try {
                 this.lock.lock();
                 this.ruleBase.readLock();
-                // check if the object already exists in the WM
-                handle = this.objectStore.getHandleForObject( object );
+                return doInsert( object,
+                                 tmsValue,
+                                 dynamic,
+                                 logical,
+                                 rule,
+                                 activation,
+                                 typeConf );
+            } finally {
+                this.ruleBase.readUnlock();
+                this.lock.unlock();
+            }
+        } finally {
+            this.wm.endOperation();
+        }
 
-                if ( typeConf.isTMSEnabled() ) {
-                    TruthMaintenanceSystem tms = getTruthMaintenanceSystem();
-                    
-                    if ( handle != null ) {
-                        propagationContext.setFactHandle(handle);
-                        insertWhenHandleExists( object, tmsValue, logical, rule, activation, typeConf, handle, tms, propagationContext );
-                        return handle;
-                    }
+    }
 
-                    // get the key for other "equal" objects, returns null if none exist
-                    EqualityKey key = tms.get( object );
-                    
-                    if ( logical ) {  
-                        if ( key != null && key.getStatus() == EqualityKey.STATED ) {
-                            // You cannot logically insert a previously stated equality equal object, so return null                            
-                            return null;
-                        }
-                        
+    /**
+     * Inserts the object, the caller holds the entry point lock and the rule base read lock and has started the
+     * operation. While batching the queued actions are left to the end of the batch.
+     */
+    private FactHandle doInsert(final Object object,
+                                final Object tmsValue,
+                                final boolean dynamic,
+                                boolean logical,
+                                final Rule rule,
+                                final Activation activation,
+                                final ObjectTypeConf typeConf) {
+        InternalFactHandle handle = null;
+
+        final PropagationContext propagationContext = new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
+                                                                                  PropagationContext.INSERTION,
+                                                                                  rule,
+                                                                                  (activation == null) ? null : activation.getTuple(),
+                                                                                  handle,
+                                                                                  entryPoint );
+
+        // check if the object already exists in the WM
+        handle = this.objectStore.getHandleForObject( object );
+
+        if ( typeConf.isTMSEnabled() ) {
+            TruthMaintenanceSystem tms = getTruthMaintenanceSystem();
+            
+            if ( handle != null ) {
+                propagationContext.setFactHandle(handle);
+                insertWhenHandleExists( object, tmsValue, logical, rule, activation, typeConf, handle, tms, propagationContext );
+                return handle;
+            }
 
+            // get the key for other "equal" objects, returns null if none exist
+            EqualityKey key = tms.get( object );
+            
+            if ( logical ) {  
+                if ( key != null && key.getStatus() == EqualityKey.STATED ) {
+                    // You cannot logically insert a previously stated equality equal object, so return null                            
+                    return null;
+                }
+                
+
+                
+                if ( key == null ) {
+                    handle = createHandle( object,
+                                           typeConf ); // we know the handle is null
+                    
+                    key = new EqualityKey( handle ); 
+                    handle.setEqualityKey( key );
+                    tms.put( key );                           
+                    key.setStatus( EqualityKey.JUSTIFIED ); // new Key, so we know it's JUSTIFIED                 
+                } else {
+                    handle = key.getFactHandle();
+                }
+                
+               // Any logical propagations are handled via the TMS.addLogicalDependency
+               tms.addLogicalDependency( handle,
+                                         object,
+                                         tmsValue,
+                                         activation,
+                                         activation.getPropagationContext(),
+                                         rule,
+                                         typeConf );
+                
+                return key.getFactHandle(); 
+                                            
+            } else { // !logical                     
+                if ( key == null ) {
+                    handle = createHandle( object,
+                                           typeConf ); // we know the handle is null                            
+                    key = new EqualityKey( handle );                        
+                    handle.setEqualityKey( key );                            
+                    tms.put( key );                  
+                } else if ( key.getStatus() == EqualityKey.JUSTIFIED ) {
+                        // Its previous justified, so switch to stated
+                        key.setStatus( EqualityKey.STATED ); // must be done before the justifiedHandle retract  
                         
-                        if ( key == null ) {
-                            handle = createHandle( object,
-                                                   typeConf ); // we know the handle is null
-                            
-                            key = new EqualityKey( handle ); 
-                            handle.setEqualityKey( key );
-                            tms.put( key );                           
-                            key.setStatus( EqualityKey.JUSTIFIED ); // new Key, so we know it's JUSTIFIED                 
-                        } else {
-                            handle = key.getFactHandle();
-                        }
-                        
-                       // Any logical propagations are handled via the TMS.addLogicalDependency
-                       tms.addLogicalDependency( handle,
-                                                 object,
-                                                 tmsValue,
-                                                 activation,
-                                                 activation.getPropagationContext(),
-                                                 rule,
-                                                 typeConf );
+                        // remove logical dependencies
+                        final InternalFactHandle justifiedHandle = key.getFactHandle();
+                        ((PropagationContextImpl)propagationContext).setFactHandle( justifiedHandle ); // necessary to stop recursive retractions
+                        TruthMaintenanceSystemHelper.clearLogicalDependencies( justifiedHandle, propagationContext );
                         
-                        return key.getFactHandle(); 
-                                                    
-                    } else { // !logical                     
-                        if ( key == null ) {
-                            handle = createHandle( object,
-                                                   typeConf ); // we know the handle is null                            
-                            key = new EqualityKey( handle );                        
-                            handle.setEqualityKey( key );                            
-                            tms.put( key );                  
-                        } else if ( key.getStatus() == EqualityKey.JUSTIFIED ) {
-                                // Its previous justified, so switch to stated
-                                key.setStatus( EqualityKey.STATED ); // must be done before the justifiedHandle retract  
-                                
-                                // remove logical dependencies
-                                final InternalFactHandle justifiedHandle = key.getFactHandle();
-                                ((PropagationContextImpl)propagationContext).setFactHandle( justifiedHandle ); // necessary to stop recursive retractions
-                                TruthMaintenanceSystemHelper.clearLogicalDependencies( justifiedHandle, propagationContext );
-                                
-                                // now update existing handle to new value
-                                return update( justifiedHandle, true, object, Long.MAX_VALUE, Object.class, activation );
-                        } else   {  // STATED 
-                            handle = createHandle( object,
-                                                   typeConf ); // we know the handle is null                                                    
-                            handle.setEqualityKey( key );                                                    
-                            key.addFactHandle( handle );
-                        }
-                        key.setStatus( EqualityKey.STATED ); // KEY is always stated
-                    }                    
-                } else {
-                    // TMS not enabled for this object type 
-                    if ( handle != null ) {
-                        return handle;
-                    }
+                        // now update existing handle to new value
+                        return update( justifiedHandle, true, object, Long.MAX_VALUE, Object.class, activation );
+                } else   {  // STATED 
                     handle = createHandle( object,
-                                           typeConf );
+                                           typeConf ); // we know the handle is null                                                    
+                    handle.setEqualityKey( key );                                                    
+                    key.addFactHandle( handle );
                 }
-                propagationContext.setFactHandle(handle);
+                key.setStatus( EqualityKey.STATED ); // KEY is always stated
+            }                    
+        } else {
+            // TMS not enabled for this object type 
+            if ( handle != null ) {
+                return handle;
+            }
+            handle = createHandle( object,
+                                   typeConf );
+        }
+        propagationContext.setFactHandle(handle);
 
-                // if the dynamic parameter is true or if the user declared the fact type with the meta tag:
-                // @propertyChangeSupport
-                if ( dynamic || typeConf.isDynamic() ) {
-                    addPropertyChangeListener( handle, dynamic );
+        // if the dynamic parameter is true or if the user declared the fact type with the meta tag:
+        // @propertyChangeSupport
+        if ( dynamic || typeConf.isDynamic() ) {
+            addPropertyChangeListener( handle, dynamic );
+        }
+
+        if ( batching ) {
+            propagateInsert( handle,
+                             object,
+                             typeConf,
+                             propagationContext );
+        } else {
+            insert( handle,
+                    object,
+                    rule,
+                    activation,
+                    typeConf,
+                    propagationContext );
+        }
+        return handle;
+    }
+
+    /**
+     * Inserts all the given objects as a single batch: the entry point lock and the rule base read lock are taken
+     * and the operation is started once for the whole batch, so no other thread interleaves with it. The object
+     * type configuration is resolved once per class and the handles are created in one pass, in the iteration order
+     * of the collection, before the objects are propagated. The queued actions are executed and the activations
+     * are unstaged once, at the end of the batch.
+     *
+     * Objects whose type is truth maintained or dynamic go through the same path as a single insert, inside the
+     * batch.
+     *
+     * @return the handles of the inserted objects, in the iteration order of the given collection
+     */
+    public List<org.kie.api.runtime.rule.FactHandle> insertAll(final Collection<?> objects) throws FactException {
+        final Object[] array = objects.toArray();
+        final ObjectTypeConf[] typeConfs = new ObjectTypeConf[array.length];
+        final InternalFactHandle[] created = new InternalFactHandle[array.length];
+        List<org.kie.api.runtime.rule.FactHandle> handles = new ArrayList<org.kie.api.runtime.rule.FactHandle>( array.length );
+        startBatch();
+        try {
+            final Map<Class<?>, ObjectTypeConf> typeConfCache = new HashMap<Class<?>, ObjectTypeConf>();
+            for ( int i = 0; i < array.length; i++ ) {
+                if ( array[i] == null ) {
+                    continue;
                 }
+                typeConfs[i] = getObjectTypeConf( typeConfCache,
+                                                  array[i] );
+                if ( isBatchInsert( typeConfs[i] ) && (this.wm.isSequential() || this.objectStore.getHandleForObject( array[i] ) == null) ) {
+                    created[i] = createHandle( array[i],
+                                               typeConfs[i] );
+                }
+            }
 
-                insert( handle,
-                        object,
-                        rule,
-                        activation,
-                        typeConf,
-                        propagationContext );
+            for ( int i = 0; i < array.length; i++ ) {
+                final Object object = array[i];
+                if ( object == null ) {
+                    // you cannot assert a null object
+                    handles.add( null );
+                } else if ( created[i] != null ) {
+                    propagateInsert( created[i],
+                                     object,
+                                     typeConfs[i],
+                                     new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
+                                                                 PropagationContext.INSERTION,
+                                                                 null,
+                                                                 null,
+                                                                 created[i],
+                                                                 this.entryPoint ) );
+                    handles.add( created[i] );
+                } else if ( isBatchInsert( typeConfs[i] ) ) {
+                    // already in the entry point, or earlier in the same batch
+                    handles.add( this.objectStore.getHandleForObject( object ) );
+                } else {
+                    handles.add( doInsert( object,
+                                           null,
+                                           false,
+                                           false,
+                                           null,
+                                           null,
+                                           typeConfs[i] ) );
+                }
+            }
+        } finally {
+            endBatch();
+        }
+        return handles;
+    }
+
+    private static boolean isBatchInsert(final ObjectTypeConf typeConf) {
+        return !typeConf.isTMSEnabled() && !typeConf.isDynamic();
+    }
+
+    /**
+     * Updates all the given handles with the objects they currently hold, as a single batch.
+     * @see #insertAll(Collection)
+     */
+    public void updateAll(final Collection<? extends org.kie.api.runtime.rule.FactHandle> factHandles) throws FactException {
+        startBatch();
+        try {
+            final Map<Class<?>, ObjectTypeConf> typeConfCache = new HashMap<Class<?>, ObjectTypeConf>();
+            for ( org.kie.api.runtime.rule.FactHandle factHandle : factHandles ) {
+                InternalFactHandle handle = (InternalFactHandle) factHandle;
+                doUpdate( handle,
+                          false,
+                          handle.getObject(),
+                          Long.MAX_VALUE,
+                          Object.class,
+                          null,
+                          typeConfCache );
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Deletes all the given handles as a single batch.
+     * @see #insertAll(Collection)
+     */
+    public void deleteAll(final Collection<? extends org.kie.api.runtime.rule.FactHandle> factHandles) throws FactException {
+        startBatch();
+        try {
+            final Map<Class<?>, ObjectTypeConf> typeConfCache = new HashMap<Class<?>, ObjectTypeConf>();
+            for ( org.kie.api.runtime.rule.FactHandle factHandle : factHandles ) {
+                doDelete( (FactHandle) factHandle,
+                          null,
+                          null,
+                          typeConfCache );
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Returns the object type configuration of the object, looked up once per class in the given cache.
+     * Fact templates and activations are not keyed by their class, so they are always looked up in the registry.
+     */
+    private ObjectTypeConf getObjectTypeConf(final Map<Class<?>, ObjectTypeConf> typeConfCache,
+                                             final Object object) {
+        if ( typeConfCache == null || object instanceof Fact || object instanceof Activation ) {
+            return this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                       object );
+        }
+        ObjectTypeConf typeConf = typeConfCache.get( object.getClass() );
+        if ( typeConf == null ) {
+            typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                           object );
+            typeConfCache.put( object.getClass(),
+                               typeConf );
+        }
+        return typeConf;
+    }
 
+    private void startBatch() {
+        boolean started = false;
+        this.lock.lock();
+        try {
+            this.ruleBase.readLock();
+            try {
+                this.wm.startOperation();
+                started = true;
             } finally {
-                this.ruleBase.readUnlock();
+                if ( !started ) {
+                    this.ruleBase.readUnlock();
+                }
+            }
+        } finally {
+            if ( !started ) {
                 this.lock.unlock();
             }
-            return handle;
+        }
+        this.batching = true;
+        try {
+            this.ruleBase.executeQueuedActions();
+            // the staged inserts come before the batch
+            flushStagedInserts();
+        } catch ( RuntimeException e ) {
+            endBatch();
+            throw e;
+        }
+    }
+
+    private void endBatch() {
+        try {
+            this.batching = false;
+            this.wm.executeQueuedActions();
+            this.wm.getAgenda().unstageActivations();
         } finally {
             this.wm.endOperation();
+            this.ruleBase.readUnlock();
+            this.lock.unlock();
         }
+    }
+
+    /**
+     * Creates the handle, which only needs the atomic counters of the handle factory, and leaves the object store
+     * and the propagation to {@link #flushStagedInserts()}.
+     */
+    private InternalFactHandle stageInsert(final Object object,
+                                           final ObjectTypeConf typeConf) {
+        final InternalFactHandle handle = this.handleFactory.newFactHandle( object,
+                                                                            typeConf,
+                                                                            this.wm,
+                                                                            this );
+        this.stagedInserts.add( handle );
+        if ( this.stagedCount.getAndIncrement() == 0 ) {
+            // wakes up fireUntilHalt, only on the first staged insert so the producers don't contend on the agenda
+            ((InternalAgenda) this.wm.getAgenda()).notifyHalt();
+        }
+        return handle;
+    }
 
+    public boolean hasStagedInserts() {
+        return this.stagedInserts != null && !this.stagedInserts.isEmpty();
+    }
+
+    /**
+     * Propagates the staged inserts, in the order they were staged, as a single batch.
+     *
+     * An object already in the entry point when its staged insert is propagated is not inserted again, the same as
+     * with a direct insert. The handle returned by the staged insert is then disconnected, so updating or deleting
+     * it reconnects to, and acts on, the handle the object is held by, see {@link #reconnect(InternalFactHandle)}.
+     */
+    public void flushStagedInserts() {
+        if ( this.stagedInserts == null || this.stagedInserts.isEmpty() ) {
+            return;
+        }
+        this.lock.lock();
+        this.ruleBase.readLock();
+        this.wm.startOperation();
+        // the inserts below evaluate the queued actions, which must not flush the rest of the queue before them
+        final boolean wasFlushing = this.flushing;
+        final boolean wasBatching = this.batching;
+        try {
+            if ( wasFlushing ) {
+                return;
+            }
+            this.flushing = true;
+            this.batching = true;
+            InternalFactHandle handle;
+            while ( (handle = this.stagedInserts.poll()) != null ) {
+                this.stagedCount.decrementAndGet();
+                final Object object = handle.getObject();
+                if ( this.objectStore.getHandleForObject( object ) != null ) {
+                    handle.disconnect();
+                    continue;
+                }
+                this.objectStore.addHandle( handle,
+                                            object );
+                insert( handle,
+                        object,
+                        null,
+                        null,
+                        this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                            object ),
+                        new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
+                                                    PropagationContext.INSERTION,
+                                                    null,
+                                                    null,
+                                                    handle,
+                                                    this.entryPoint ) );
+            }
+        } finally {
+            try {
+                if ( !wasFlushing ) {
+                    this.flushing = false;
+                    this.batching = wasBatching;
+                    if ( !wasBatching ) {
+                        this.wm.getAgenda().unstageActivations();
+                    }
+                }
+            } finally {
+                this.wm.endOperation();
+                this.ruleBase.readUnlock();
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the handle held by the object store for the given disconnected handle, or null if its fact was
+     * retracted. A handle disconnected by {@link #flushStagedInserts()} has an id of its own, so it is looked up
+     * by its object when it is not found by its id.
+     */
+    private InternalFactHandle reconnect(final InternalFactHandle handle) {
+        InternalFactHandle reconnected = this.objectStore.reconnect( handle );
+        if ( reconnected == null && handle.getObject() != null ) {
+            reconnected = this.objectStore.getHandleForObject( handle.getObject() );
+        }
+        return reconnected;
     }
 
     private void insertWhenHandleExists(final Object object,
@@ -361,24 +704,34 @@ public class NamedEntryPoint
                                                              entryPoint );
         }
 
+        propagateInsert( handle,
+                         object,
+                         typeConf,
+                         propagationContext );
+        
+        this.wm.executeQueuedActions();        
+        
+        if ( rule == null && !batching ) {
+            // This is not needed for internal WM actions as the firing rule will unstage
+            this.wm.getAgenda().unstageActivations();
+        }        
+    }
+
+    private void propagateInsert(final InternalFactHandle handle,
+                                 final Object object,
+                                 final ObjectTypeConf typeConf,
+                                 final PropagationContext propagationContext) {
         this.entryPointNode.assertObject( handle,
                                           propagationContext,
                                           typeConf,
                                           this.wm );
-        
+
         propagationContext.evaluateActionQueue( this.wm );
 
         this.wm.workingMemoryEventSupport.fireObjectInserted( propagationContext,
                                                               handle,
                                                               object,
                                                               this.wm );
-        
-        this.wm.executeQueuedActions();        
-        
-        if ( rule == null ) {
-            // This is not needed for internal WM actions as the firing rule will unstage
-            this.wm.getAgenda().unstageActivations();
-        }        
     }
 
     public void update(final org.kie.api.runtime.rule.FactHandle factHandle,
@@ -417,122 +770,149 @@ public class NamedEntryPoint
             this.ruleBase.readLock();
             this.wm.startOperation();
             this.ruleBase.executeQueuedActions();
+            // a staged handle must be in the entry point before it is updated or deleted
+            flushStagedInserts();
+
+            return doUpdate( handle,
+                             updateLogical,
+                             object,
+                             mask,
+                             modifiedClass,
+                             activation,
+                             null );
+        } finally {
+            this.wm.endOperation();
+            this.ruleBase.readUnlock();
+            this.lock.unlock();
+        }
+    }
 
-
-            // the handle might have been disconnected, so reconnect if it has
-            if ( handle.isDisconnected() ) {
-                handle = this.objectStore.reconnect( handle );
+    /**
+     * Updates the handle, the caller holds the entry point lock and the rule base read lock and has started the
+     * operation. While batching the queued actions are left to the end of the batch.
+     */
+    private InternalFactHandle doUpdate(InternalFactHandle handle,
+                                        final boolean updateLogical,
+                                        final Object object,
+                                        final long mask,
+                                        final Class<?> modifiedClass,
+                                        final Activation activation,
+                                        final Map<Class<?>, ObjectTypeConf> typeConfCache) {
+        // the handle might have been disconnected, so reconnect if it has
+        if ( handle.isDisconnected() ) {
+            handle = reconnect( handle );
+            if ( handle == null ) {
+                // the object was already retracted through the handle it is held by
+                return null;
             }
+        }
 
-            final Object originalObject = handle.getObject();
-            
-            if ( handle.getEntryPoint() != this ) {
-                throw new IllegalArgumentException( "Invalid Entry Point. You updated the FactHandle on entry point '" + handle.getEntryPoint().getEntryPointId() + "' instead of '" + getEntryPointId() + "'" );
-            }
-            
-            final ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
-                                                                                object );
+        final Object originalObject = handle.getObject();
+        
+        if ( handle.getEntryPoint() != this ) {
+            throw new IllegalArgumentException( "Invalid Entry Point. You updated the FactHandle on entry point '" + handle.getEntryPoint().getEntryPointId() + "' instead of '" + getEntryPointId() + "'" );
+        }
+        
+        final ObjectTypeConf typeConf = getObjectTypeConf( typeConfCache,
+                                                           object );
 
-            // only needed if we maintain tms, but either way we must get it before we do the update
-            int status = -1;
-            if ( typeConf.isTMSEnabled() ) {
-                status = handle.getEqualityKey().getStatus();
-            }
+        // only needed if we maintain tms, but either way we must get it before we do the update
+        int status = -1;
+        if ( typeConf.isTMSEnabled() ) {
+            status = handle.getEqualityKey().getStatus();
+        }
 
 
-            if ( handle.getId() == -1 || object == null || (handle.isEvent() && ((EventFactHandle) handle).isExpired()) ) {
-                // the handle is invalid, most likely already retracted, so return and we cannot assert a null object
-                return handle;
-            }
+        if ( handle.getId() == -1 || object == null || (handle.isEvent() && ((EventFactHandle) handle).isExpired()) ) {
+            // the handle is invalid, most likely already retracted, so return and we cannot assert a null object
+            return handle;
+        }
 
-            if ( activation != null ) {
-                // release resources so that they can be GC'ed
-                activation.getPropagationContext().releaseResources();
-            }
+        if ( activation != null ) {
+            // release resources so that they can be GC'ed
+            activation.getPropagationContext().releaseResources();
+        }
 
-            if ( originalObject != object || !AssertBehaviour.IDENTITY.equals( this.ruleBase.getConfiguration().getAssertBehaviour() ) ) {
-                this.objectStore.removeHandle( handle );
+        if ( originalObject != object || !AssertBehaviour.IDENTITY.equals( this.ruleBase.getConfiguration().getAssertBehaviour() ) ) {
+            this.objectStore.removeHandle( handle );
 
-                // set anyway, so that it updates the hashCodes
-                handle.setObject( object );
-                this.objectStore.addHandle( handle,
-                                            object );
-            }
+            // set anyway, so that it updates the hashCodes
+            handle.setObject( object );
+            this.objectStore.addHandle( handle,
+                                        object );
+        }
 
-            this.handleFactory.increaseFactHandleRecency( handle );
-            Rule rule = activation == null ? null : activation.getRule();
-            final PropagationContext propagationContext = new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
-                                                                                      PropagationContext.MODIFICATION,
-                                                                                      rule,
-                                                                                      (activation == null) ? null : activation.getTuple(),
-                                                                                      handle,
-                                                                                      entryPoint,
-                                                                                      mask,
-                                                                                      modifiedClass,
-                                                                                      null );
-            
-            if ( typeConf.isTMSEnabled() ) {
-                EqualityKey newKey = tms.get( object );
-                EqualityKey oldKey = handle.getEqualityKey();
-                if ( newKey == null ) {                    
-                    if ( oldKey.getStatus() == EqualityKey.JUSTIFIED ) {
-                        // new target key is JUSTFIED, updates are always STATED
-                        TruthMaintenanceSystemHelper.removeLogicalDependencies( oldKey.getFactHandle(), propagationContext );
-                    }
-                    
-                    oldKey.removeFactHandle( handle );
-                    // If the equality key is now empty, then remove it
-                    if ( oldKey.isEmpty() ) {
-                        getTruthMaintenanceSystem().remove( oldKey );
-                    }                    
-                    
-                    newKey = new EqualityKey( handle,
-                                              EqualityKey.STATED ); // updates are always stated
-                    handle.setEqualityKey( newKey );
-                    getTruthMaintenanceSystem().put( newKey );
-                } else if ( newKey != oldKey ) {
-                    oldKey.removeFactHandle( handle );
-                    // If the equality key is now empty, then remove it
-                    if ( oldKey.isEmpty() ) {
-                        getTruthMaintenanceSystem().remove( oldKey );
-                    }  
-                    
-                    if ( newKey.getStatus() == EqualityKey.JUSTIFIED ) {
-                        // new target key is JUSTITIED, updates are always STATED
-                        TruthMaintenanceSystemHelper.removeLogicalDependencies( newKey.getFactHandle(), propagationContext );
-                        newKey.setStatus( EqualityKey.STATED );
-                    }
-                    // the caller needs the new handle
-                    handle = newKey.getFactHandle();
-                } else if ( !updateLogical &&  oldKey.getStatus() == EqualityKey.JUSTIFIED  ) {
-                    // new target key is JUSTIFIED, updates are always STATED
-                    TruthMaintenanceSystemHelper.removeLogicalDependencies( oldKey.getFactHandle(), propagationContext );                     
+        this.handleFactory.increaseFactHandleRecency( handle );
+        Rule rule = activation == null ? null : activation.getRule();
+        final PropagationContext propagationContext = new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
+                                                                                  PropagationContext.MODIFICATION,
+                                                                                  rule,
+                                                                                  (activation == null) ? null : activation.getTuple(),
+                                                                                  handle,
+                                                                                  entryPoint,
+                                                                                  mask,
+                                                                                  modifiedClass,
+                                                                                  null );
+        
+        if ( typeConf.isTMSEnabled() ) {
+            EqualityKey newKey = tms.get( object );
+            EqualityKey oldKey = handle.getEqualityKey();
+            if ( newKey == null ) {                    
+                if ( oldKey.getStatus() == EqualityKey.JUSTIFIED ) {
+                    // new target key is JUSTFIED, updates are always STATED
+                    TruthMaintenanceSystemHelper.removeLogicalDependencies( oldKey.getFactHandle(), propagationContext );
+                }
+                
+                oldKey.removeFactHandle( handle );
+                // If the equality key is now empty, then remove it
+                if ( oldKey.isEmpty() ) {
+                    getTruthMaintenanceSystem().remove( oldKey );
+                }                    
+                
+                newKey = new EqualityKey( handle,
+                                          EqualityKey.STATED ); // updates are always stated
+                handle.setEqualityKey( newKey );
+                getTruthMaintenanceSystem().put( newKey );
+            } else if ( newKey != oldKey ) {
+                oldKey.removeFactHandle( handle );
+                // If the equality key is now empty, then remove it
+                if ( oldKey.isEmpty() ) {
+                    getTruthMaintenanceSystem().remove( oldKey );
+                }  
+                
+                if ( newKey.getStatus() == EqualityKey.JUSTIFIED ) {
+                    // new target key is JUSTITIED, updates are always STATED
+                    TruthMaintenanceSystemHelper.removeLogicalDependencies( newKey.getFactHandle(), propagationContext );
+                    newKey.setStatus( EqualityKey.STATED );
                 }
+                // the caller needs the new handle
+                handle = newKey.getFactHandle();
+            } else if ( !updateLogical &&  oldKey.getStatus() == EqualityKey.JUSTIFIED  ) {
+                // new target key is JUSTIFIED, updates are always STATED
+                TruthMaintenanceSystemHelper.removeLogicalDependencies( oldKey.getFactHandle(), propagationContext );                     
             }
+        }
 
-            this.entryPointNode.modifyObject( handle,
-                                              propagationContext,
-                                              typeConf,
-                                              this.wm );
-            
-            propagationContext.evaluateActionQueue( this.wm );
-
-            this.wm.workingMemoryEventSupport.fireObjectUpdated( propagationContext,
-                                                                 handle,
-                                                                 originalObject,
-                                                                 object,
-                                                                 this.wm );
-
-           this.wm.executeQueuedActions();
-           
-           if ( rule == null ) {
-               // This is not needed for internal WM actions as the firing rule will unstage
-               this.wm.getAgenda().unstageActivations();
-           }           
-        } finally {
-            this.wm.endOperation();
-            this.ruleBase.readUnlock();
-            this.lock.unlock();
+        this.entryPointNode.modifyObject( handle,
+                                          propagationContext,
+                                          typeConf,
+                                          this.wm );
+        
+        propagationContext.evaluateActionQueue( this.wm );
+
+        this.wm.workingMemoryEventSupport.fireObjectUpdated( propagationContext,
+                                                             handle,
+                                                             originalObject,
+                                                             object,
+                                                             this.wm );
+
+        if ( !batching ) {
+            this.wm.executeQueuedActions();
+        }
+        
+        if ( rule == null && !batching ) {
+            // This is not needed for internal WM actions as the firing rule will unstage
+            this.wm.getAgenda().unstageActivations();
         }
         return handle;
     }
@@ -552,100 +932,122 @@ public class NamedEntryPoint
     public void delete(final FactHandle factHandle,
                        final Rule rule,
                        final Activation activation) throws FactException {
-        if ( factHandle == null ) {
-            throw new IllegalArgumentException( "FactHandle cannot be null " );
-        }
         try {
             this.lock.lock();
             this.ruleBase.readLock();
             this.wm.startOperation();
             this.ruleBase.executeQueuedActions();
+            flushStagedInserts();
 
-            InternalFactHandle handle = (InternalFactHandle) factHandle;
-            if ( handle.getId() == -1 ) {
-                // can't retract an already retracted handle
-                return;
-            }
+            doDelete( factHandle,
+                      rule,
+                      activation,
+                      null );
+        } finally {
+            this.wm.endOperation();
+            this.ruleBase.readUnlock();
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the handle, the caller holds the entry point lock and the rule base read lock and has started the
+     * operation. While batching the queued actions are left to the end of the batch.
+     */
+    private void doDelete(final FactHandle factHandle,
+                          final Rule rule,
+                          final Activation activation,
+                          final Map<Class<?>, ObjectTypeConf> typeConfCache) {
+        if ( factHandle == null ) {
+            throw new IllegalArgumentException( "FactHandle cannot be null " );
+        }
+
+        InternalFactHandle handle = (InternalFactHandle) factHandle;
+        if ( handle.getId() == -1 ) {
+            // can't retract an already retracted handle
+            return;
+        }
 
-            // the handle might have been disconnected, so reconnect if it has
-            if ( handle.isDisconnected() ) {
-                handle = this.objectStore.reconnect( handle );
+        // the handle might have been disconnected, so reconnect if it has
+        if ( handle.isDisconnected() ) {
+            handle = reconnect( handle );
+            if ( handle == null ) {
+                // the object was already retracted through the handle it is held by
+                return;
             }
-            
-            if ( handle.getEntryPoint() != this ) {
-                throw new IllegalArgumentException( "Invalid Entry Point. You updated the FactHandle on entry point '" + handle.getEntryPoint().getEntryPointId() + "' instead of '" + getEntryPointId() + "'" );
-            }            
+        }
+        
+        if ( handle.getEntryPoint() != this ) {
+            throw new IllegalArgumentException( "Invalid Entry Point. You updated the FactHandle on entry point '" + handle.getEntryPoint().getEntryPointId() + "' instead of '" + getEntryPointId() + "'" );
+        }            
 
-            final Object object = handle.getObject();
-            
-            final ObjectTypeConf typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
-                                                                                object );
+        final Object object = handle.getObject();
+        
+        final ObjectTypeConf typeConf = getObjectTypeConf( typeConfCache,
+                                                           object );
 
-            if( typeConf.isSupportsPropertyChangeListeners() ) {
-                removePropertyChangeListener( handle, true );
-            }          
+        if( typeConf.isSupportsPropertyChangeListeners() ) {
+            removePropertyChangeListener( handle, true );
+        }          
+        
+        if ( activation != null ) {
+            // release resources so that they can be GC'ed
+            activation.getPropagationContext().releaseResources();
+        }
+        final PropagationContext propagationContext = new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
+                                                                                  PropagationContext.DELETION,
+                                                                                  rule,
+                                                                                  (activation == null) ? null : activation.getTuple(),
+                                                                                  handle,
+                                                                                  this.entryPoint );
+
+        this.entryPointNode.retractObject( handle,
+                                           propagationContext,
+                                           typeConf,
+                                           this.wm );
+
+        if ( typeConf.isTMSEnabled() ) {
+            TruthMaintenanceSystem tms = getTruthMaintenanceSystem();
+
+            // TMS.removeLogicalDependency also cleans up Handles from the EqualityKey
+            // This can happen on the logical retraction of the last FH, where it's cleaned up in the TMS and also in the main network.
+            // However when the user retracts the FH to a logical set of insertions, then we need to clean up the TMS here.
+                                               
+            // Update the equality key, which maintains a list of stated FactHandles
+            final EqualityKey key = handle.getEqualityKey();
+
+            // Its justified so attempt to remove any logical dependencies for the handle
+            if ( key.getStatus() == EqualityKey.JUSTIFIED ) {
+                TruthMaintenanceSystemHelper.removeLogicalDependencies( handle, propagationContext );
+            } 
+            key.removeFactHandle( handle );
+            handle.setEqualityKey( null );
             
-            if ( activation != null ) {
-                // release resources so that they can be GC'ed
-                activation.getPropagationContext().releaseResources();
-            }
-            final PropagationContext propagationContext = new PropagationContextImpl( this.wm.getNextPropagationIdCounter(),
-                                                                                      PropagationContext.DELETION,
-                                                                                      rule,
-                                                                                      (activation == null) ? null : activation.getTuple(),
-                                                                                      handle,
-                                                                                      this.entryPoint );
-
-            this.entryPointNode.retractObject( handle,
-                                               propagationContext,
-                                               typeConf,
-                                               this.wm );
-
-            if ( typeConf.isTMSEnabled() ) {
-                TruthMaintenanceSystem tms = getTruthMaintenanceSystem();
-
-                // TMS.removeLogicalDependency also cleans up Handles from the EqualityKey
-                // This can happen on the logical retraction of the last FH, where it's cleaned up in the TMS and also in the main network.
-                // However when the user retracts the FH to a logical set of insertions, then we need to clean up the TMS here.
-                                                   
-                // Update the equality key, which maintains a list of stated FactHandles
-                final EqualityKey key = handle.getEqualityKey();
-
-                // Its justified so attempt to remove any logical dependencies for the handle
-                if ( key.getStatus() == EqualityKey.JUSTIFIED ) {
-                    TruthMaintenanceSystemHelper.removeLogicalDependencies( handle, propagationContext );
-                } 
-                key.removeFactHandle( handle );
-                handle.setEqualityKey( null );
-                
-                // If the equality key is now empty, then remove it
-                if ( key.isEmpty() ) {
-                    tms.remove( key );
-                }
+            // If the equality key is now empty, then remove it
+            if ( key.isEmpty() ) {
+                tms.remove( key );
             }
+        }
 
-            propagationContext.evaluateActionQueue( this.wm );
-            
+        propagationContext.evaluateActionQueue( this.wm );
+        
 
-            this.wm.workingMemoryEventSupport.fireObjectRetracted( propagationContext,
-                                                                   handle,
-                                                                   object,
-                                                                   this.wm );
+        this.wm.workingMemoryEventSupport.fireObjectRetracted( propagationContext,
+                                                               handle,
+                                                               object,
+                                                               this.wm );
 
+        if ( !batching ) {
             this.wm.executeQueuedActions();
-            
-            this.objectStore.removeHandle( handle );
-            this.handleFactory.destroyFactHandle( handle );            
-            
-            if ( rule == null ) {
-                // This is not needed for internal WM actions as the firing rule will unstage
-                this.wm.getAgenda().unstageActivations();
-            }            
-        } finally {
-            this.wm.endOperation();
-            this.ruleBase.readUnlock();
-            this.lock.unlock();
         }
+        
+        this.objectStore.removeHandle( handle );
+        this.handleFactory.destroyFactHandle( handle );            
+        
+        if ( rule == null && !batching ) {
+            // This is not needed for internal WM actions as the firing rule will unstage
+            this.wm.getAgenda().unstageActivations();
+        }            
     }
     
     protected void addPropertyChangeListener(final InternalFactHandle handle, final boolean dynamicFlag ) {
@@ -727,6 +1129,7 @@ public class NamedEntryPoint
     }
 
     public FactHandle getFactHandle(Object object) {
+        flushStagedInserts();
         return this.objectStore.getHandleForObject( object );
     }
 
@@ -739,6 +1142,7 @@ public class NamedEntryPoint
     }
 
     public FactHandle getFactHandleByIdentity(final Object object) {
+        flushStagedInserts();
         return this.objectStore.getHandleForObjectIdentity( object );
     }
 
@@ -748,6 +1152,7 @@ public class NamedEntryPoint
 
     @SuppressWarnings("unchecked")
     public <T extends org.kie.api.runtime.rule.FactHandle> Collection<T> getFactHandles() {
+        flushStagedInserts();
         return new ObjectStoreWrapper( this.objectStore,
                                        null,
                                        ObjectStoreWrapper.FACT_HANDLE );
@@ -755,6 +1160,7 @@ public class NamedEntryPoint
 
     @SuppressWarnings("unchecked")
     public <T extends org.kie.api.runtime.rule.FactHandle> Collection<T> getFactHandles(org.kie.api.runtime.ObjectFilter filter) {
+        flushStagedInserts();
         return new ObjectStoreWrapper( this.objectStore,
                                        filter,
                                        ObjectStoreWrapper.FACT_HANDLE );
@@ -762,6 +1168,7 @@ public class NamedEntryPoint
 
     @SuppressWarnings("unchecked")
     public Collection<? extends Object> getObjects() {
+        flushStagedInserts();
         return new ObjectStoreWrapper( this.objectStore,
                                        null,
                                        ObjectStoreWrapper.OBJECT );
@@ -769,6 +1176,7 @@ public class NamedEntryPoint
 
     @SuppressWarnings("unchecked")
     public Collection<? extends Object> getObjects(org.kie.api.runtime.ObjectFilter filter) {
+        flushStagedInserts();
         return new ObjectStoreWrapper( this.objectStore,
                                        filter,
                                        ObjectStoreWrapper.OBJECT );
@@ -779,6 +1187,7 @@ public class NamedEntryPoint
     }
 
     public long getFactCount() {
+        flushStagedInserts();
         return this.objectStore.size();
     }
     
@@ -41,7 +41,9 @@ import org.drools.core.reteoo.TimerNode.TimerNodeMemory;
 import org.drools.core.time.Job;
 import org.drools.core.time.JobContext;
 import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
 import org.drools.core.time.Trigger;
+import org.drools.core.time.impl.PseudoClockScheduler;
 
 /**
  * Scheduler for rules requiring truth duration.
@@ -90,7 +92,7 @@ public final class Scheduler {
             if ( ((ActivationTimerJobContext)ctx).getTrigger().hasNextFireTime() == null ) {
 
                 if ( wasFired ) {
-                    agenda.getWorkingMemory().fireAllRules();
+                    fireAllRules( agenda );
                 } else {
                     postpone(item, agenda);
                 }
@@ -104,13 +106,20 @@ public final class Scheduler {
                 // so reset the activated to true here
                 item.setQueued(true);
                 if ( wasFired ) {
-                    agenda.getWorkingMemory().fireAllRules();
+                    fireAllRules( agenda );
                 } else {
                     postpone(item, agenda);
                 }
             }
         }
 
+        private void fireAllRules( InternalAgenda agenda ) {
+            TimerService timerService = ((InternalWorkingMemory) agenda.getWorkingMemory()).getTimerService();
+            if ( !(timerService instanceof PseudoClockScheduler) || !((PseudoClockScheduler) timerService).deferFireAllRules() ) {
+                agenda.getWorkingMemory().fireAllRules();
+            }
+        }
+
         private void postpone( ScheduledAgendaItem item, InternalAgenda agenda ) {
 
             LeftTuple postponedTuple;
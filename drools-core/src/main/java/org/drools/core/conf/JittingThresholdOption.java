@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.conf;
+
+import org.kie.api.conf.SingleValueKieBaseOption;
+
+/**
+ * A class for the jitting threshold option: the number of times an MVEL constraint
+ * is interpreted before it is jitted, 0 to jit it on its first evaluation and a
+ * negative value to never jit it.
+ *
+ * drools.jittingThreshold = &lt;-1|0..n&gt;
+ *
+ * DEFAULT = 20
+ */
+public class JittingThresholdOption implements SingleValueKieBaseOption {
+
+    private static final long serialVersionUID = 510l;
+
+    /**
+     * The property name for the jitting threshold option
+     */
+    public static final String PROPERTY_NAME = "drools.jittingThreshold";
+
+    /**
+     * The default value for this option
+     */
+    public static final int DEFAULT_VALUE = 20;
+
+    private final int threshold;
+
+    private JittingThresholdOption( int threshold ) {
+        this.threshold = threshold;
+    }
+
+    public static JittingThresholdOption get( int threshold ) {
+        return new JittingThresholdOption( threshold );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 + threshold;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if ( this == obj ) return true;
+        if ( obj == null ) return false;
+        if ( getClass() != obj.getClass() ) return false;
+        return threshold == ((JittingThresholdOption) obj).threshold;
+    }
+}
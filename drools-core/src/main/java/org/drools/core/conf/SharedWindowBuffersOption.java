@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.conf;
+
+import org.kie.api.conf.SingleValueKieBaseOption;
+
+/**
+ * An Enum for SharedWindowBuffers option, making the sliding time windows over the same
+ * entry point and type share a single time ordered buffer of the events.
+ *
+ * drools.sharedWindowBuffers = &lt;true|false&gt;
+ *
+ * DEFAULT = false
+ */
+public enum SharedWindowBuffersOption implements SingleValueKieBaseOption {
+
+    YES(true),
+    NO(false);
+
+    /**
+     * The property name for the shared window buffers option
+     */
+    public static final String PROPERTY_NAME = "drools.sharedWindowBuffers";
+
+    private boolean value;
+
+    SharedWindowBuffersOption( final boolean value ) {
+        this.value = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isSharedWindowBuffers() {
+        return this.value;
+    }
+
+}
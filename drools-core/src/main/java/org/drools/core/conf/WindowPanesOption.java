@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.conf;
+
+import org.kie.api.conf.SingleValueKieBaseOption;
+
+/**
+ * An Enum for WindowPanes option, letting an inline hopping or tumbling window feeding an
+ * accumulate whose functions all merge partial results keep one partial result per pane
+ * instead of its events. The events are then only accumulated as they enter the window:
+ * retracting or modifying an event afterwards does not change the accumulate results.
+ *
+ * drools.windowPanes = &lt;true|false&gt;
+ *
+ * DEFAULT = false
+ */
+public enum WindowPanesOption implements SingleValueKieBaseOption {
+
+    YES(true),
+    NO(false);
+
+    /**
+     * The property name for the window panes option
+     */
+    public static final String PROPERTY_NAME = "drools.windowPanes";
+
+    private boolean value;
+
+    WindowPanesOption( final boolean value ) {
+        this.value = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isWindowPanes() {
+        return this.value;
+    }
+
+}
@@ -37,6 +37,7 @@ import org.drools.core.common.InternalFactHandle;
 import org.drools.core.common.InternalKnowledgeRuntime;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.InternalWorkingMemoryEntryPoint;
+import org.drools.core.common.NamedEntryPoint;
 import org.drools.core.common.ObjectStore;
 import org.drools.core.common.ObjectTypeConfigurationRegistry;
 import org.drools.core.common.WorkingMemoryAction;
@@ -289,6 +290,34 @@ public class StatefulKnowledgeSessionImpl
                              ((InternalFactHandle) factHandle).getObject() );
     }
 
+    /**
+     * Inserts all the given objects in the default entry point as a single batch.
+     * @see NamedEntryPoint#insertAll(Collection)
+     */
+    public List<FactHandle> insertAll(Collection<?> objects) {
+        return getDefaultEntryPoint().insertAll( objects );
+    }
+
+    /**
+     * Updates all the given handles, in the default entry point, as a single batch.
+     * @see NamedEntryPoint#updateAll(Collection)
+     */
+    public void updateAll(Collection<? extends FactHandle> factHandles) {
+        getDefaultEntryPoint().updateAll( factHandles );
+    }
+
+    /**
+     * Deletes all the given handles, from the default entry point, as a single batch.
+     * @see NamedEntryPoint#deleteAll(Collection)
+     */
+    public void deleteAll(Collection<? extends FactHandle> factHandles) {
+        getDefaultEntryPoint().deleteAll( factHandles );
+    }
+
+    private NamedEntryPoint getDefaultEntryPoint() {
+        return (NamedEntryPoint) this.session.getWorkingMemoryEntryPoint( EntryPoint.DEFAULT.getEntryPointId() );
+    }
+
     public void update(FactHandle factHandle,
                        Object object) {
         this.session.update( factHandle,
@@ -394,24 +423,28 @@ public class StatefulKnowledgeSessionImpl
     //    }
 
     public <T extends org.kie.api.runtime.rule.FactHandle> Collection<T> getFactHandles() {
+        getDefaultEntryPoint().flushStagedInserts();
         return new ObjectStoreWrapper( session.getObjectStore(),
                                        null,
                                        ObjectStoreWrapper.FACT_HANDLE );
     }
 
     public <T extends org.kie.api.runtime.rule.FactHandle> Collection<T> getFactHandles(org.kie.api.runtime.ObjectFilter filter) {
+        getDefaultEntryPoint().flushStagedInserts();
         return new ObjectStoreWrapper( session.getObjectStore(),
                                        filter,
                                        ObjectStoreWrapper.FACT_HANDLE );
     }
 
     public Collection<? extends Object> getObjects() {
+        getDefaultEntryPoint().flushStagedInserts();
         return new ObjectStoreWrapper( session.getObjectStore(),
                                        null,
                                        ObjectStoreWrapper.OBJECT );
     }
 
     public Collection<? extends Object> getObjects(org.kie.api.runtime.ObjectFilter filter) {
+        getDefaultEntryPoint().flushStagedInserts();
         return new ObjectStoreWrapper( session.getObjectStore(),
                                        filter,
                                        ObjectStoreWrapper.OBJECT );
@@ -785,6 +818,20 @@ public class StatefulKnowledgeSessionImpl
                                                                      arguments ) );
     }
 
+    /**
+     * Returns at most maxRows results of the given query, giving access to the given
+     * identifiers only, or to all of them if identifiers is null
+     */
+    public QueryResults getQueryResults(String query,
+                                        int maxRows,
+                                        String[] identifiers,
+                                        Object... arguments) {
+        return new NativeQueryResults( this.session.getQueryResults( query,
+                                                                     maxRows,
+                                                                     identifiers,
+                                                                     arguments ) );
+    }
+
     public <T> T execute(Command<T> command) {
         return execute( null,
                         command );
@@ -16,11 +16,21 @@
 
 package org.drools.core.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drools.core.RuntimeDroolsException;
 import org.drools.core.SessionConfiguration;
 import org.drools.core.base.MapGlobalResolver;
 import org.drools.core.command.impl.ContextImpl;
@@ -42,6 +52,7 @@ import org.drools.core.rule.EntryPoint;
 import org.drools.core.runtime.impl.ExecutionResultImpl;
 import org.drools.core.runtime.process.InternalProcessRuntime;
 import org.kie.internal.agent.KnowledgeAgent;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 import org.kie.api.command.Command;
 import org.kie.api.event.process.ProcessEventListener;
 import org.kie.api.event.rule.AgendaEventListener;
@@ -76,6 +87,9 @@ public class StatelessKnowledgeSessionImpl
 
     private KieSessionConfiguration                                     conf;
     private Environment                                                       environment;
+
+    /** The reset working memories waiting for an execution, if pooled */
+    private Queue<StatefulKnowledgeSessionImpl>                               pool;
     
     public StatelessKnowledgeSessionImpl() {
     }
@@ -88,6 +102,11 @@ public class StatelessKnowledgeSessionImpl
         this.conf = (conf != null) ? conf : SessionConfiguration.getDefaultInstance();
         this.environment = EnvironmentFactory.newEnvironment();
 
+        int poolSize = ((SessionConfiguration) this.conf).getStatelessSessionPoolSize();
+        if ( poolSize > 0 ) {
+            this.pool = new ArrayBlockingQueue<StatefulKnowledgeSessionImpl>( poolSize );
+        }
+
         if ( this.ruleBase != null ) {
             // FIXME: this same code exists in ReteooRuleBase#newStatelessSession()
             this.ruleBase.lock();
@@ -120,39 +139,11 @@ public class StatelessKnowledgeSessionImpl
         }
         this.ruleBase.readLock();
         try {
-            ReteooWorkingMemory wm = new ReteooWorkingMemory( this.ruleBase.nextWorkingMemoryCounter(),
-                                                              this.ruleBase,
-                                                              (SessionConfiguration) this.conf,
-                                                              this.environment );
-
-            // we don't pass the mapped listener wrappers to the session constructor anymore,
-            // because they would be ignored anyway, since the wm already contains those listeners
-            StatefulKnowledgeSessionImpl ksession = new StatefulKnowledgeSessionImpl( wm,
-                                                                                      new KnowledgeBaseImpl( this.ruleBase ) );
-
-            ((Globals) wm.getGlobalResolver()).setDelegate( this.sessionGlobals );
-            if (!initialized) {
-            	// copy over the default generated listeners that are used for internal stuff once
-            	for (org.drools.core.event.AgendaEventListener listener: wm.getAgendaEventSupport().getEventListeners()) {
-            		this.agendaEventSupport.addEventListener(listener);
-            	}
-                for (org.drools.core.event.WorkingMemoryEventListener listener: wm.getWorkingMemoryEventSupport().getEventListeners()) {
-                	this.workingMemoryEventSupport.addEventListener(listener);
-                }
-                InternalProcessRuntime processRuntime = wm.getProcessRuntime();
-                if (processRuntime != null) {
-                	for (ProcessEventListener listener: processRuntime.getProcessEventListeners()) {
-                		this.processEventSupport.addEventListener(listener);
-                	}
-                }
-                initialized = true;
-            }
-            wm.setAgendaEventSupport( this.agendaEventSupport );
-            wm.setWorkingMemoryEventSupport( this.workingMemoryEventSupport );
-            InternalProcessRuntime processRuntime = wm.getProcessRuntime();
-            if (processRuntime != null) {
-                processRuntime.setProcessEventSupport( this.processEventSupport );
+            StatefulKnowledgeSessionImpl ksession = pollWorkingMemory();
+            if ( ksession == null ) {
+                ksession = createWorkingMemory();
             }
+            ReteooWorkingMemory wm = (ReteooWorkingMemory) ksession.session;
 
             final InternalFactHandle handle =  wm.getFactHandleFactory().newFactHandle( InitialFactImpl.getInstance(),
                                                                                         wm.getObjectTypeConfigurationRegistry().getObjectTypeConf( EntryPoint.DEFAULT,
@@ -171,6 +162,85 @@ public class StatelessKnowledgeSessionImpl
         }
     }
 
+    private StatefulKnowledgeSessionImpl createWorkingMemory() {
+        ReteooWorkingMemory wm = new ReteooWorkingMemory( this.ruleBase.nextWorkingMemoryCounter(),
+                                                          this.ruleBase,
+                                                          (SessionConfiguration) this.conf,
+                                                          this.environment );
+
+        // we don't pass the mapped listener wrappers to the session constructor anymore,
+        // because they would be ignored anyway, since the wm already contains those listeners
+        StatefulKnowledgeSessionImpl ksession = new StatefulKnowledgeSessionImpl( wm,
+                                                                                  new KnowledgeBaseImpl( this.ruleBase ) );
+
+        ((Globals) wm.getGlobalResolver()).setDelegate( this.sessionGlobals );
+        // working memories are created concurrently by parallel batch executions
+        synchronized ( this ) {
+            if (!initialized) {
+                // copy over the default generated listeners that are used for internal stuff once
+                for (org.drools.core.event.AgendaEventListener listener: wm.getAgendaEventSupport().getEventListeners()) {
+                    this.agendaEventSupport.addEventListener(listener);
+                }
+                for (org.drools.core.event.WorkingMemoryEventListener listener: wm.getWorkingMemoryEventSupport().getEventListeners()) {
+                    this.workingMemoryEventSupport.addEventListener(listener);
+                }
+                InternalProcessRuntime processRuntime = wm.getProcessRuntime();
+                if (processRuntime != null) {
+                    for (ProcessEventListener listener: processRuntime.getProcessEventListeners()) {
+                        this.processEventSupport.addEventListener(listener);
+                    }
+                }
+                initialized = true;
+            }
+        }
+        wm.setAgendaEventSupport( this.agendaEventSupport );
+        wm.setWorkingMemoryEventSupport( this.workingMemoryEventSupport );
+        InternalProcessRuntime processRuntime = wm.getProcessRuntime();
+        if (processRuntime != null) {
+            processRuntime.setProcessEventSupport( this.processEventSupport );
+        }
+        return ksession;
+    }
+
+    /**
+     * Returns a working memory from the pool, if any can be reused
+     */
+    private StatefulKnowledgeSessionImpl pollWorkingMemory() {
+        if ( this.pool == null ) {
+            return null;
+        }
+        for ( StatefulKnowledgeSessionImpl ksession = this.pool.poll(); ksession != null; ksession = this.pool.poll() ) {
+            ReteooWorkingMemory wm = (ReteooWorkingMemory) ksession.session;
+            if ( wm.getRuleBase() == this.ruleBase && wm.isNetworkUpToDate() ) {
+                return ksession;
+            }
+            // the rulebase changed since it was created
+            ksession.dispose();
+        }
+        return null;
+    }
+
+    /**
+     * Resets the working memory and returns it to the pool, if pooled and there is room left, or disposes it
+     */
+    private void disposeWorkingMemory(StatefulKnowledgeSession ksession) {
+        if ( this.pool != null ) {
+            ReteooWorkingMemory wm = (ReteooWorkingMemory) ((StatefulKnowledgeSessionImpl) ksession).session;
+            // the process runtime is not reset, so such sessions are not reused
+            if ( wm.getProcessRuntime() == null && wm.isNetworkUpToDate() && this.pool.remainingCapacity() > 0 ) {
+                wm.resetForReuse();
+                // the globals set during the execution are discarded
+                MapGlobalResolver globals = new MapGlobalResolver();
+                globals.setDelegate( this.sessionGlobals );
+                wm.setGlobalResolver( globals );
+                if ( this.pool.offer( (StatefulKnowledgeSessionImpl) ksession ) ) {
+                    return;
+                }
+            }
+        }
+        ksession.dispose();
+    }
+
     public void addEventListener(AgendaEventListener listener) {
         if ( this.mappedAgendaListeners == null ) {
             this.mappedAgendaListeners = new IdentityHashMap<AgendaEventListener, AgendaEventListenerWrapper>();
@@ -250,6 +320,13 @@ public class StatelessKnowledgeSessionImpl
     }
 
     public <T> T execute(Command<T> command) {
+        if ( command instanceof BatchExecutionCommandImpl && ((SessionConfiguration) this.conf).isParallelBatchExecution() ) {
+            List<BatchExecutionCommandImpl> groups = ((BatchExecutionCommandImpl) command).splitIndependentGroups();
+            if ( groups.size() > 1 ) {
+                return (T) executeInParallel( groups );
+            }
+        }
+
         StatefulKnowledgeSession ksession = newWorkingMemory();
 
         FixedKnowledgeCommandContext context = new FixedKnowledgeCommandContext( new ContextImpl( "ksession",
@@ -286,8 +363,59 @@ public class StatelessKnowledgeSessionImpl
             }
         } finally {
             ((StatefulKnowledgeSessionImpl) ksession).session.endBatchExecution();
-            ksession.dispose();
+            disposeWorkingMemory( ksession );
+        }
+    }
+
+    /**
+     * Executes each group of commands on its own working memory, on as many threads as there are
+     * processors, and merges their results in the order of the groups. The first exception thrown
+     * by a group is rethrown.
+     */
+    private ExecutionResults executeInParallel(final List<BatchExecutionCommandImpl> groups) {
+        int threads = Math.min( groups.size(), Runtime.getRuntime().availableProcessors() );
+        final ExecutionResults[] results = new ExecutionResults[groups.size()];
+        final AtomicInteger next = new AtomicInteger();
+
+        CompletionService<Void> completionService = ExecutorProviderFactory.getExecutorProvider().getCompletionService();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>( threads );
+        for ( int i = 0; i < threads; i++ ) {
+            futures.add( completionService.submit( new Callable<Void>() {
+                public Void call() {
+                    for ( int j = next.getAndIncrement(); j < results.length; j = next.getAndIncrement() ) {
+                        results[j] = execute( groups.get( j ) );
+                    }
+                    return null;
+                }
+            } ) );
         }
+
+        RuntimeException error = null;
+        for ( Future<Void> future : futures ) {
+            try {
+                future.get();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                if ( error == null ) {
+                    error = new RuntimeDroolsException( "Interrupted while executing the batch in parallel", e );
+                }
+            } catch ( ExecutionException e ) {
+                if ( error == null ) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeDroolsException( e.getCause() );
+                }
+            }
+        }
+        if ( error != null ) {
+            throw error;
+        }
+
+        // a later group overrides the results of an earlier one with the same identifier, as in a serial execution
+        ExecutionResultImpl merged = new ExecutionResultImpl();
+        for ( ExecutionResults result : results ) {
+            merged.getResults().putAll( ((ExecutionResultImpl) result).getResults() );
+            merged.getFactHandles().putAll( ((ExecutionResultImpl) result).getFactHandles() );
+        }
+        return merged;
     }
 
     public void execute(Object object) {
@@ -296,7 +424,7 @@ public class StatelessKnowledgeSessionImpl
             ksession.insert( object );
             ksession.fireAllRules( );
         } finally {
-            ksession.dispose();
+            disposeWorkingMemory( ksession );
         }
     }
 
@@ -308,7 +436,7 @@ public class StatelessKnowledgeSessionImpl
             }
             ksession.fireAllRules( );
         } finally {
-            ksession.dispose();
+            disposeWorkingMemory( ksession );
         }
     }
     
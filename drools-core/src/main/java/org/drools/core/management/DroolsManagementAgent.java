@@ -116,6 +116,26 @@ public class DroolsManagementAgent
         } catch ( Exception e ) {
             logger.error("Unable to instantiate and register KieSessionMonitoringMBean");
         }
+        SessionMemoryMonitor memoryMonitor = new SessionMemoryMonitor( ksession );
+        try {
+            final StandardMBean adapter = new StandardMBean( memoryMonitor, SessionMemoryMonitorMBean.class );
+            registerMBean( ksession,
+                           adapter,
+                           memoryMonitor.getName() );
+        } catch ( Exception e ) {
+            logger.error("Unable to instantiate and register SessionMemoryMonitorMBean");
+        }
+        if ( ksession.getNetworkProfiler() != null ) {
+            RuleEvaluationMonitor evaluationMonitor = new RuleEvaluationMonitor( ksession );
+            try {
+                final StandardMBean adapter = new StandardMBean( evaluationMonitor, RuleEvaluationMonitorMBean.class );
+                registerMBean( ksession,
+                               adapter,
+                               evaluationMonitor.getName() );
+            } catch ( Exception e ) {
+                logger.error("Unable to instantiate and register RuleEvaluationMonitorMBean");
+            }
+        }
     }
 
     public void unregisterKnowledgeSession(InternalWorkingMemory ksession) {
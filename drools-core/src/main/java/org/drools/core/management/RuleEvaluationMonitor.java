@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.phreak.NetworkProfiler;
+import org.drools.core.phreak.NetworkProfiler.EvaluationStats;
+
+/**
+ * The monitor MBean for the network evaluation of a knowledge session
+ */
+public class RuleEvaluationMonitor implements RuleEvaluationMonitorMBean {
+
+    private static final String KSESSION_PREFIX = "org.drools.kbases";
+
+    private static final long NANO_TO_MILLISEC = 1000000;
+
+    private InternalWorkingMemory ksession;
+    private InternalRuleBase kbase;
+    private NetworkProfiler profiler;
+    private ObjectName name;
+
+    public RuleEvaluationMonitor(InternalWorkingMemory ksession) {
+        this.ksession = ksession;
+        this.kbase = (InternalRuleBase) ksession.getRuleBase();
+        this.profiler = ksession.getNetworkProfiler();
+        this.name = DroolsManagementAgent.createObjectName(KSESSION_PREFIX + ":type="+kbase.getId()+",group=Sessions,sessionId=Session-"+ksession.getId()+",component=Evaluation");
+    }
+
+    public ObjectName getName() {
+        return name;
+    }
+
+    public String getKieBaseId() {
+        return kbase.getId();
+    }
+
+    public int getKieSessionId() {
+        return ksession.getId();
+    }
+
+    /**
+     * @return the time spent evaluating the network, in milliseconds
+     */
+    public long getTotalEvaluationTime() {
+        long time = 0;
+        for ( EvaluationStats stats : profiler.getRuleStats().values() ) {
+            time += stats.getTimeNanos();
+        }
+        return time / NANO_TO_MILLISEC;
+    }
+
+    public String getStatsForRule(String ruleName) {
+        EvaluationStats stats = profiler.getRuleStats( ruleName );
+        return stats == null ? "evaluations=0" : stats.toString();
+    }
+
+    public Map<String, String> getStatsByRule() {
+        Map<String, String> result = new HashMap<String, String>();
+        for( Map.Entry<String, EvaluationStats> entry : profiler.getRuleStats().entrySet() ) {
+            result.put( entry.getKey(), entry.getValue().toString() );
+        }
+        return result;
+    }
+
+    public String getStatsForNode(int nodeId) {
+        EvaluationStats stats = profiler.getNodeStats().get( nodeId );
+        return stats == null ? "evaluations=0" : stats.toString();
+    }
+
+    public Map<Integer, String> getStatsByNode() {
+        Map<Integer, String> result = new HashMap<Integer, String>();
+        for( Map.Entry<Integer, EvaluationStats> entry : profiler.getNodeStats().entrySet() ) {
+            result.put( entry.getKey(), entry.getValue().toString() );
+        }
+        return result;
+    }
+
+    public void reset() {
+        profiler.reset();
+    }
+}
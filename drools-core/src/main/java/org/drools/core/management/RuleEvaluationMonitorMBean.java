@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import java.util.Map;
+
+/**
+ * An MBean reporting the network evaluation work done for each rule and node of a knowledge session,
+ * as recorded by its NetworkProfiler.
+ */
+public interface RuleEvaluationMonitorMBean {
+
+    public String getKieBaseId();
+
+    public int getKieSessionId();
+
+    public long getTotalEvaluationTime();
+
+    public String getStatsForRule(String ruleName);
+
+    public Map<String, String> getStatsByRule();
+
+    public String getStatsForNode(int nodeId);
+
+    public Map<Integer, String> getStatsByNode();
+
+    public void reset();
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.management.SessionMemoryStats.NodeMemoryStats;
+import org.drools.core.management.SessionMemoryStats.RuleMemoryStats;
+
+/**
+ * The monitor MBean for the node memories of a knowledge session
+ */
+public class SessionMemoryMonitor implements SessionMemoryMonitorMBean {
+
+    private static final String KSESSION_PREFIX = "org.drools.kbases";
+
+    private InternalWorkingMemory ksession;
+    private InternalRuleBase kbase;
+    private ObjectName name;
+
+    public SessionMemoryMonitor(InternalWorkingMemory ksession) {
+        this.ksession = ksession;
+        this.kbase = (InternalRuleBase) ksession.getRuleBase();
+        this.name = DroolsManagementAgent.createObjectName(KSESSION_PREFIX + ":type="+kbase.getId()+",group=Sessions,sessionId=Session-"+ksession.getId()+",component=Memory");
+    }
+
+    public ObjectName getName() {
+        return name;
+    }
+
+    public SessionMemoryStats getSnapshot() {
+        return SessionMemoryStats.snapshot( ksession );
+    }
+
+    public String getKieBaseId() {
+        return kbase.getId();
+    }
+
+    public int getKieSessionId() {
+        return ksession.getId();
+    }
+
+    public long getTotalLeftTuples() {
+        return getSnapshot().getTotalLeftTuples();
+    }
+
+    public long getTotalRightTuples() {
+        return getSnapshot().getTotalRightTuples();
+    }
+
+    public String getStatsForNode(int nodeId) {
+        NodeMemoryStats stats = getSnapshot().getNodeStats( nodeId );
+        return stats == null ? "Node memory not found" : stats.toString();
+    }
+
+    public Map<Integer, String> getStatsByNode() {
+        Map<Integer, String> result = new HashMap<Integer, String>();
+        for( Map.Entry<Integer, NodeMemoryStats> entry : getSnapshot().getNodeStats().entrySet() ) {
+            result.put( entry.getKey(), entry.getValue().toString() );
+        }
+        return result;
+    }
+
+    public String getStatsForRule(String ruleName) {
+        RuleMemoryStats stats = getSnapshot().getRuleStats( ruleName );
+        return stats == null ? "Rule not found" : stats.toString();
+    }
+
+    public Map<String, String> getStatsByRule() {
+        Map<String, String> result = new HashMap<String, String>();
+        for( Map.Entry<String, RuleMemoryStats> entry : getSnapshot().getRuleStats().entrySet() ) {
+            result.put( entry.getKey(), entry.getValue().toString() );
+        }
+        return result;
+    }
+
+    public String[] getLargestRules(int count) {
+        List<RuleMemoryStats> rules = getSnapshot().getRulesBySize();
+        String[] result = new String[Math.max( 0, Math.min( count, rules.size() ) )];
+        for ( int i = 0; i < result.length; i++ ) {
+            result[i] = rules.get( i ).getRuleName();
+        }
+        return result;
+    }
+}
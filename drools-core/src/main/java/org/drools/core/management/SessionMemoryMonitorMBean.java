@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import java.util.Map;
+
+/**
+ * An MBean reporting the tuples held by the node memories of a knowledge session.
+ * Each call takes a new SessionMemoryStats snapshot.
+ */
+public interface SessionMemoryMonitorMBean {
+
+    public String getKieBaseId();
+
+    public int getKieSessionId();
+
+    public long getTotalLeftTuples();
+
+    public long getTotalRightTuples();
+
+    public String getStatsForNode(int nodeId);
+
+    public Map<Integer, String> getStatsByNode();
+
+    public String getStatsForRule(String ruleName);
+
+    public Map<String, String> getStatsByRule();
+
+    /**
+     * @return the names of the given number of rules holding the most tuples, largest first
+     */
+    public String[] getLargestRules(int count);
+}
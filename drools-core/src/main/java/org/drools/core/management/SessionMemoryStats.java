@@ -0,0 +1,465 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.drools.core.common.BaseNode;
+import org.drools.core.common.InternalRuleBase;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.LeftTupleSets;
+import org.drools.core.common.Memory;
+import org.drools.core.common.NodeMemories;
+import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
+import org.drools.core.reteoo.BetaMemory;
+import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.FromNode.FromMemory;
+import org.drools.core.reteoo.LeftTupleMemory;
+import org.drools.core.reteoo.LeftTupleSource;
+import org.drools.core.reteoo.NodeTypeEnums;
+import org.drools.core.reteoo.PathMemory;
+import org.drools.core.reteoo.RightInputAdapterNode;
+import org.drools.core.reteoo.RightTupleMemory;
+import org.drools.core.reteoo.SegmentMemory;
+import org.drools.core.reteoo.TerminalNode;
+import org.drools.core.util.AbstractHashTable;
+import org.drools.core.util.Entry;
+import org.drools.core.util.index.LeftTupleList;
+import org.drools.core.util.index.RightTupleList;
+
+/**
+ * A point in time view of how many tuples the node memories of a session hold, and how they are indexed.
+ *
+ * Node stats are taken for every node memory of the session. Rule stats aggregate the stats of the nodes on the path
+ * of each rule, so a node shared by several rules is accounted for in each of them. Memories are read without locking
+ * the session, so a snapshot taken while rules are being evaluated is only approximate.
+ */
+public class SessionMemoryStats {
+
+    private final Map<Integer, NodeMemoryStats> nodeStats;
+    private final Map<String, RuleMemoryStats>  ruleStats;
+
+    private SessionMemoryStats(Map<Integer, NodeMemoryStats> nodeStats,
+                               Map<String, RuleMemoryStats> ruleStats) {
+        this.nodeStats = nodeStats;
+        this.ruleStats = ruleStats;
+    }
+
+    public static SessionMemoryStats snapshot(InternalWorkingMemory wm) {
+        NodeMemories memories = wm.getNodeMemories();
+        Map<Integer, NodeMemoryStats> nodeStats = new TreeMap<Integer, NodeMemoryStats>();
+        for ( int i = 0; i < memories.length(); i++ ) {
+            Memory memory = memories.peekNodeMemory( i );
+            if ( memory != null ) {
+                NodeMemoryStats stats = nodeStats( i, memory );
+                if ( stats != null ) {
+                    nodeStats.put( i, stats );
+                }
+            }
+        }
+
+        Map<String, RuleMemoryStats> ruleStats = new TreeMap<String, RuleMemoryStats>();
+        InternalRuleBase ruleBase = (InternalRuleBase) wm.getRuleBase();
+        for ( Map.Entry<String, BaseNode[]> entry : ruleBase.getReteooBuilder().getTerminalNodes().entrySet() ) {
+            RuleMemoryStats stats = new RuleMemoryStats( entry.getKey() );
+            Set<Integer> visited = new HashSet<Integer>();
+            for ( BaseNode node : entry.getValue() ) {
+                TerminalNode tn = (TerminalNode) node;
+                collectNodeStats( tn.getLeftTupleSource(), nodeStats, visited, stats );
+                Memory memory = memories.peekNodeMemory( node.getId() );
+                if ( memory instanceof PathMemory ) {
+                    stats.addPathMemory( (PathMemory) memory );
+                }
+            }
+            ruleStats.put( entry.getKey(), stats );
+        }
+
+        return new SessionMemoryStats( Collections.unmodifiableMap( nodeStats ),
+                                       Collections.unmodifiableMap( ruleStats ) );
+    }
+
+    private static void collectNodeStats(LeftTupleSource node,
+                                         Map<Integer, NodeMemoryStats> nodeStats,
+                                         Set<Integer> visited,
+                                         RuleMemoryStats ruleStats) {
+        for ( ; node != null && visited.add( node.getId() ); node = node.getLeftTupleSource() ) {
+            NodeMemoryStats stats = nodeStats.get( node.getId() );
+            if ( stats != null ) {
+                ruleStats.addNodeStats( stats );
+            }
+            if ( NodeTypeEnums.isBetaNode( node ) && ((BetaNode) node).getRightInput() instanceof RightInputAdapterNode ) {
+                // subnetworks are part of the rule path too
+                RightInputAdapterNode ria = (RightInputAdapterNode) ((BetaNode) node).getRightInput();
+                collectNodeStats( ria.getLeftTupleSource(), nodeStats, visited, ruleStats );
+            }
+        }
+    }
+
+    private static NodeMemoryStats nodeStats(int nodeId,
+                                             Memory memory) {
+        BetaMemory betaMemory;
+        boolean hasRightMemory = true;
+        if ( memory instanceof BetaMemory ) {
+            betaMemory = (BetaMemory) memory;
+        } else if ( memory instanceof AccumulateMemory ) {
+            betaMemory = ((AccumulateMemory) memory).getBetaMemory();
+        } else if ( memory instanceof FromMemory ) {
+            betaMemory = ((FromMemory) memory).betaMemory;
+            hasRightMemory = false;
+        } else {
+            return null;
+        }
+
+        TupleMemoryStats left = betaMemory.getLeftTupleMemory() != null ? tupleMemoryStats( betaMemory.getLeftTupleMemory() ) : null;
+        TupleMemoryStats right = hasRightMemory && betaMemory.getRightTupleMemory() != null ? tupleMemoryStats( betaMemory.getRightTupleMemory() ) : null;
+        return new NodeMemoryStats( nodeId,
+                                    nodeTypeName( memory.getNodeType() ),
+                                    left,
+                                    right );
+    }
+
+    private static TupleMemoryStats tupleMemoryStats(LeftTupleMemory memory) {
+        TupleMemoryStats stats = new TupleMemoryStats( memory.size(), memory.isIndexed() );
+        if ( memory instanceof AbstractHashTable ) {
+            stats.addBuckets( (AbstractHashTable) memory );
+        }
+        return stats;
+    }
+
+    private static TupleMemoryStats tupleMemoryStats(RightTupleMemory memory) {
+        TupleMemoryStats stats = new TupleMemoryStats( memory.size(), memory.isIndexed() );
+        if ( memory instanceof AbstractHashTable ) {
+            stats.addBuckets( (AbstractHashTable) memory );
+        }
+        return stats;
+    }
+
+    private static String nodeTypeName(short nodeType) {
+        switch ( nodeType ) {
+            case NodeTypeEnums.JoinNode :
+                return "JoinNode";
+            case NodeTypeEnums.NotNode :
+                return "NotNode";
+            case NodeTypeEnums.ExistsNode :
+                return "ExistsNode";
+            case NodeTypeEnums.AccumulateNode :
+                return "AccumulateNode";
+            case NodeTypeEnums.ForallNotNode :
+                return "ForallNotNode";
+            case NodeTypeEnums.FromNode :
+                return "FromNode";
+            default :
+                return "BetaNode";
+        }
+    }
+
+    /**
+     * @return the stats of the node memories holding tuples, by node id
+     */
+    public Map<Integer, NodeMemoryStats> getNodeStats() {
+        return nodeStats;
+    }
+
+    public NodeMemoryStats getNodeStats(int nodeId) {
+        return nodeStats.get( nodeId );
+    }
+
+    /**
+     * @return the stats of each rule, by rule name
+     */
+    public Map<String, RuleMemoryStats> getRuleStats() {
+        return ruleStats;
+    }
+
+    public RuleMemoryStats getRuleStats(String ruleName) {
+        return ruleStats.get( ruleName );
+    }
+
+    /**
+     * @return the rules holding the most tuples first
+     */
+    public List<RuleMemoryStats> getRulesBySize() {
+        List<RuleMemoryStats> rules = new ArrayList<RuleMemoryStats>( ruleStats.values() );
+        Collections.sort( rules, new Comparator<RuleMemoryStats>() {
+            public int compare(RuleMemoryStats r1, RuleMemoryStats r2) {
+                long t1 = r1.getTotalTuples();
+                long t2 = r2.getTotalTuples();
+                return t1 > t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+        } );
+        return rules;
+    }
+
+    public long getTotalLeftTuples() {
+        long total = 0;
+        for ( NodeMemoryStats stats : nodeStats.values() ) {
+            total += stats.getLeftTuples();
+        }
+        return total;
+    }
+
+    public long getTotalRightTuples() {
+        long total = 0;
+        for ( NodeMemoryStats stats : nodeStats.values() ) {
+            total += stats.getRightTuples();
+        }
+        return total;
+    }
+
+    public static class TupleMemoryStats {
+        private final int     size;
+        private final boolean indexed;
+        private int           tableLength;
+        private int           usedSlots;
+        private int           buckets;
+        private int           maxBucketSize;
+        // bucketSizeHistogram[i] is the number of index buckets holding between 2^i and 2^(i+1) - 1 tuples
+        private final int[]   bucketSizeHistogram = new int[32];
+
+        private TupleMemoryStats(int size,
+                                 boolean indexed) {
+            this.size = size;
+            this.indexed = indexed;
+        }
+
+        private void addBuckets(AbstractHashTable table) {
+            Entry[] slots = table.getTable();
+            this.tableLength = slots.length;
+            for ( Entry entry : slots ) {
+                if ( entry != null ) {
+                    this.usedSlots++;
+                }
+                for ( ; entry != null; entry = entry.getNext() ) {
+                    int bucketSize;
+                    if ( entry instanceof RightTupleList ) {
+                        bucketSize = ((RightTupleList) entry).size();
+                    } else if ( entry instanceof LeftTupleList ) {
+                        bucketSize = ((LeftTupleList) entry).size();
+                    } else {
+                        bucketSize = 1;
+                    }
+                    this.buckets++;
+                    this.maxBucketSize = Math.max( this.maxBucketSize, bucketSize );
+                    if ( bucketSize > 0 ) {
+                        this.bucketSizeHistogram[31 - Integer.numberOfLeadingZeros( bucketSize )]++;
+                    }
+                }
+            }
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public boolean isIndexed() {
+            return indexed;
+        }
+
+        /**
+         * @return the length of the hash table backing the index, or 0 when the memory is not hash indexed
+         */
+        public int getTableLength() {
+            return tableLength;
+        }
+
+        public int getUsedSlots() {
+            return usedSlots;
+        }
+
+        /**
+         * @return the number of distinct index keys
+         */
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public int getMaxBucketSize() {
+            return maxBucketSize;
+        }
+
+        public int[] getBucketSizeHistogram() {
+            return bucketSizeHistogram.clone();
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append( "tuples=" ).append( size ).append( " indexed=" ).append( indexed );
+            if ( tableLength > 0 ) {
+                sb.append( " buckets=" ).append( buckets ).append( " maxBucketSize=" ).append( maxBucketSize );
+                sb.append( " slots=" ).append( usedSlots ).append( "/" ).append( tableLength );
+                sb.append( " bucketSizes={" );
+                boolean first = true;
+                for ( int i = 0; i < bucketSizeHistogram.length; i++ ) {
+                    if ( bucketSizeHistogram[i] > 0 ) {
+                        if ( !first ) {
+                            sb.append( ", " );
+                        }
+                        sb.append( 1 << i ).append( "+:" ).append( bucketSizeHistogram[i] );
+                        first = false;
+                    }
+                }
+                sb.append( "}" );
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class NodeMemoryStats {
+        private final int              nodeId;
+        private final String           nodeType;
+        private final TupleMemoryStats leftMemory;
+        private final TupleMemoryStats rightMemory;
+
+        private NodeMemoryStats(int nodeId,
+                                String nodeType,
+                                TupleMemoryStats leftMemory,
+                                TupleMemoryStats rightMemory) {
+            this.nodeId = nodeId;
+            this.nodeType = nodeType;
+            this.leftMemory = leftMemory;
+            this.rightMemory = rightMemory;
+        }
+
+        public int getNodeId() {
+            return nodeId;
+        }
+
+        public String getNodeType() {
+            return nodeType;
+        }
+
+        /**
+         * @return the stats of the left memory, or null when the node does not keep one
+         */
+        public TupleMemoryStats getLeftMemory() {
+            return leftMemory;
+        }
+
+        /**
+         * @return the stats of the right memory, or null when the node does not keep one
+         */
+        public TupleMemoryStats getRightMemory() {
+            return rightMemory;
+        }
+
+        public int getLeftTuples() {
+            return leftMemory != null ? leftMemory.getSize() : 0;
+        }
+
+        public int getRightTuples() {
+            return rightMemory != null ? rightMemory.getSize() : 0;
+        }
+
+        public String toString() {
+            return nodeType + "[" + nodeId + "] left=(" + leftMemory + ") right=(" + rightMemory + ")";
+        }
+    }
+
+    public static class RuleMemoryStats {
+        private final String                        ruleName;
+        private final Map<Integer, NodeMemoryStats> nodes = new LinkedHashMap<Integer, NodeMemoryStats>();
+        private long                                leftTuples;
+        private long                                rightTuples;
+        private int                                 segments;
+        private int                                 linkedSegments;
+        private long                                stagedTuples;
+
+        private RuleMemoryStats(String ruleName) {
+            this.ruleName = ruleName;
+        }
+
+        private void addNodeStats(NodeMemoryStats stats) {
+            this.nodes.put( stats.getNodeId(), stats );
+            this.leftTuples += stats.getLeftTuples();
+            this.rightTuples += stats.getRightTuples();
+        }
+
+        private void addPathMemory(PathMemory pmem) {
+            SegmentMemory[] smems = pmem.getSegmentMemories();
+            if ( smems == null ) {
+                return;
+            }
+            for ( SegmentMemory smem : smems ) {
+                if ( smem == null ) {
+                    continue;
+                }
+                this.segments++;
+                if ( smem.isSegmentLinked() ) {
+                    this.linkedSegments++;
+                }
+                LeftTupleSets staged = smem.getStagedLeftTuples();
+                if ( staged != null ) {
+                    this.stagedTuples += staged.insertSize() + staged.deleteSize() + staged.updateSize();
+                }
+            }
+        }
+
+        public String getRuleName() {
+            return ruleName;
+        }
+
+        /**
+         * @return the stats of the nodes on the path of this rule, by node id
+         */
+        public Map<Integer, NodeMemoryStats> getNodes() {
+            return Collections.unmodifiableMap( nodes );
+        }
+
+        public long getLeftTuples() {
+            return leftTuples;
+        }
+
+        public long getRightTuples() {
+            return rightTuples;
+        }
+
+        public long getTotalTuples() {
+            return leftTuples + rightTuples;
+        }
+
+        /**
+         * @return the number of initialised segments of the rule path, always 0 unless Phreak is enabled
+         */
+        public int getSegments() {
+            return segments;
+        }
+
+        public int getLinkedSegments() {
+            return linkedSegments;
+        }
+
+        /**
+         * @return the number of tuples staged in the segments of the rule, and not yet evaluated
+         */
+        public long getStagedTuples() {
+            return stagedTuples;
+        }
+
+        public String toString() {
+            return "nodes=" + nodes.size() + " leftTuples=" + leftTuples + " rightTuples=" + rightTuples +
+                   " segments=" + segments + " linkedSegments=" + linkedSegments + " stagedTuples=" + stagedTuples;
+        }
+    }
+}
@@ -132,4 +132,14 @@ public class MarshallerWriteContext extends ObjectOutputStream {
         return index;
     }
 
+    /**
+     * Gives each used strategy a new context, so the data of the objects marshalled from now on is written apart
+     * from the data of the previous ones
+     */
+    public void resetStrategyContexts() {
+        for ( ObjectMarshallingStrategy strategy : usedStrategies.keySet() ) {
+            strategyContext.put( strategy, strategy.createContext() );
+        }
+    }
+
 }
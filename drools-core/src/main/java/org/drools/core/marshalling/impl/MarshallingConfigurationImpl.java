@@ -26,6 +26,8 @@ public class MarshallingConfigurationImpl
     private ObjectMarshallingStrategyStore objectMarshallingStrategyStore;
     private boolean                            marshallProcessInstances;
     private boolean                            marshallWorkItems;
+    private boolean                            streaming;
+    private int                                streamingBatchSize = 1000;
 
     public MarshallingConfigurationImpl() {
         this( null,
@@ -59,6 +61,30 @@ public class MarshallingConfigurationImpl
         this.marshallWorkItems = marshallWorkItems;
     }
 
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    /**
+     * When enabled, the session is written as a sequence of length delimited chunks, the fact handles of each entry
+     * point going in batches of streamingBatchSize, so neither marshalling nor unmarshalling needs the whole session
+     * message in memory. A session must be unmarshalled with the same setting it was marshalled with.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getStreamingBatchSize() {
+        return this.streamingBatchSize;
+    }
+
+    public void setStreamingBatchSize(int streamingBatchSize) {
+        if ( streamingBatchSize <= 0 ) {
+            throw new IllegalArgumentException( "The streaming batch size must be positive" );
+        }
+        this.streamingBatchSize = streamingBatchSize;
+    }
+
     public ObjectMarshallingStrategyStore getObjectMarshallingStrategyStore() {
         return this.objectMarshallingStrategyStore;
     }
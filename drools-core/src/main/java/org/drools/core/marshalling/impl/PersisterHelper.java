@@ -17,6 +17,7 @@
 package org.drools.core.marshalling.impl;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidKeyException;
@@ -44,6 +45,7 @@ import org.kie.api.marshalling.ObjectMarshallingStrategy.Context;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ByteString.Output;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.Message;
 
@@ -184,6 +186,33 @@ public class PersisterHelper {
     
     public static void writeToStreamWithHeader( MarshallerWriteContext context,
                                                 Message payload ) throws IOException {
+        ProtobufMessages.Header _header = createHeader( context,
+                                                        payload );
+
+//        LoggerFactory.getLogger(PersisterHelper.class).trace("=============================================================================================================");
+//        LoggerFactory.getLogger(PersisterHelper.class).trace(payload);
+        context.stream.write( _header.toByteArray() );
+    }
+
+    /**
+     * Writes one chunk of a streamed session: a length delimited header holding the strategies used so far,
+     * with their current context, and the payload.
+     */
+    public static void writeDelimitedToStreamWithHeader( MarshallerWriteContext context,
+                                                         Message payload ) throws IOException {
+        createHeader( context,
+                      payload ).writeDelimitedTo( context.stream );
+    }
+
+    /**
+     * Ends a streamed session with an empty header
+     */
+    public static void writeStreamEnd( MarshallerWriteContext context ) throws IOException {
+        ProtobufMessages.Header.getDefaultInstance().writeDelimitedTo( context.stream );
+    }
+
+    private static ProtobufMessages.Header createHeader( MarshallerWriteContext context,
+                                                         Message payload ) throws IOException {
         ProtobufMessages.Header.Builder _header = ProtobufMessages.Header.newBuilder();
         // need to automate this version numbering somehow
         _header.setVersion( ProtobufMessages.Version.newBuilder()
@@ -197,10 +226,7 @@ public class PersisterHelper {
         byte[] buff = payload.toByteArray();
         sign( _header, buff );
         _header.setPayload( ByteString.copyFrom( buff ) );
-
-//        LoggerFactory.getLogger(PersisterHelper.class).trace("=============================================================================================================");
-//        LoggerFactory.getLogger(PersisterHelper.class).trace(payload);
-        context.stream.write( _header.build().toByteArray() );
+        return _header.build();
     }
     
     private static void writeStrategiesIndex(MarshallerWriteContext context,
@@ -236,7 +262,7 @@ public class PersisterHelper {
         }
     }
     
-    private static ProtobufMessages.Header loadStrategiesCheckSignature(MarshallerReaderContext context, ProtobufMessages.Header _header) throws ClassNotFoundException, IOException {
+    public static ProtobufMessages.Header loadStrategiesCheckSignature(MarshallerReaderContext context, ProtobufMessages.Header _header) throws ClassNotFoundException, IOException {
         loadStrategiesIndex( context, _header );
 
         byte[] sessionbuff = _header.getPayload().toByteArray();
@@ -256,6 +282,23 @@ public class PersisterHelper {
         return loadStrategiesCheckSignature(context, _header);
     }
     
+    /**
+     * Reads the next chunk of a streamed session, without loading its strategies yet.
+     * Each chunk is read in a byte array, as the whole session used to be, to avoid the protobuf message size limit.
+     *
+     * @return the chunk header, or null at the end of the session
+     */
+    public static ProtobufMessages.Header readDelimitedFromStream( MarshallerReaderContext context, ExtensionRegistry registry ) throws IOException {
+        int firstByte = context.stream.read();
+        if ( firstByte == -1 ) {
+            throw new EOFException( "Unexpected end of streamed session" );
+        }
+        byte[] buff = new byte[CodedInputStream.readRawVarint32( firstByte, context.stream )];
+        context.stream.readFully( buff );
+        ProtobufMessages.Header _header = ProtobufMessages.Header.parseFrom( buff, registry );
+        return _header.hasPayload() ? _header : null;
+    }
+    
     /* Method that preloads the source stream into a byte array to bypass the message size limitations in Protobuf unmarshalling.
        (Protobuf does not enforce a message size limit when unmarshalling from a byte array)
     */
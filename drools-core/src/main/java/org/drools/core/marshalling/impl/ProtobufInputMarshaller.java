@@ -160,6 +160,52 @@ public class ProtobufInputMarshaller {
                             context );
     }
 
+    /**
+     * Stream the data of a session written by ProtobufOutputMarshaller.writeStreamedSession into an existing session
+     */
+    public static ReteooStatefulSession readStreamedSession(ReteooStatefulSession session,
+                                                            MarshallerReaderContext context) throws IOException,
+                                                                                            ClassNotFoundException {
+        ExtensionRegistry registry = PersisterHelper.buildRegistry( context, processMarshaller );
+
+        ProtobufMessages.KnowledgeSession _session = loadAndParseStreamedSession( context, registry );
+
+        DefaultAgenda agenda = resetSession( session,
+                                             context,
+                                             _session );
+
+        return readSession( _session,
+                            session,
+                            agenda,
+                            context,
+                            registry );
+    }
+
+    /**
+     * Create a new session into which to read the data written by ProtobufOutputMarshaller.writeStreamedSession
+     */
+    public static ReteooStatefulSession readStreamedSession(MarshallerReaderContext context,
+                                                            int id,
+                                                            Environment environment,
+                                                            SessionConfiguration config) throws IOException,
+                                                                                        ClassNotFoundException {
+        ExtensionRegistry registry = PersisterHelper.buildRegistry( context, processMarshaller );
+
+        ProtobufMessages.KnowledgeSession _session = loadAndParseStreamedSession( context, registry );
+
+        ReteooStatefulSession session = createAndInitializeSession( context,
+                                                                    id,
+                                                                    environment,
+                                                                    config,
+                                                                    _session );
+
+        return readSession( _session,
+                            session,
+                            (DefaultAgenda) session.getAgenda(),
+                            context,
+                            registry );
+    }
+
     private static DefaultAgenda resetSession(ReteooStatefulSession session,
                                               MarshallerReaderContext context,
                                               ProtobufMessages.KnowledgeSession _session) {
@@ -217,11 +263,39 @@ public class ProtobufInputMarshaller {
         return ProtobufMessages.KnowledgeSession.parseFrom( _header.getPayload(), registry );
     }
 
+    private static ProtobufMessages.KnowledgeSession loadAndParseStreamedSession(MarshallerReaderContext context,
+                                                                                 ExtensionRegistry registry) throws IOException,
+                                                                                                            ClassNotFoundException {
+        ProtobufMessages.Header _header = PersisterHelper.readDelimitedFromStream( context, registry );
+        if ( _header == null ) {
+            throw new IllegalStateException( "Empty streamed session" );
+        }
+        PersisterHelper.loadStrategiesCheckSignature( context, _header );
+
+        return ProtobufMessages.KnowledgeSession.parseFrom( _header.getPayload(), registry );
+    }
+
     public static ReteooStatefulSession readSession(ProtobufMessages.KnowledgeSession _session,
                                                     ReteooStatefulSession session,
                                                     DefaultAgenda agenda,
                                                     MarshallerReaderContext context) throws IOException,
                                                                                     ClassNotFoundException {
+        return readSession( _session,
+                            session,
+                            agenda,
+                            context,
+                            null );
+    }
+
+    /**
+     * @param registry when not null, the fact handles are not part of _session but follow it in the stream
+     */
+    private static ReteooStatefulSession readSession(ProtobufMessages.KnowledgeSession _session,
+                                                     ReteooStatefulSession session,
+                                                     DefaultAgenda agenda,
+                                                     MarshallerReaderContext context,
+                                                     ExtensionRegistry registry) throws IOException,
+                                                                                ClassNotFoundException {
         GlobalResolver globalResolver = (GlobalResolver) context.env.get( EnvironmentName.GLOBALS );
         if ( globalResolver != null ) {
             session.setGlobalResolver( globalResolver );
@@ -251,16 +325,23 @@ public class ProtobufInputMarshaller {
                                _session.getRuleData(),
                                pctxs );
 
-        for ( ProtobufMessages.EntryPoint _ep : _session.getRuleData().getEntryPointList() ) {
-            SessionEntryPoint wmep = context.wm.getEntryPoints().get( _ep.getEntryPointId() );
-            readFactHandles( context,
-                             _ep,
-                             ((NamedEntryPoint) wmep).getObjectStore(),
-                             pctxs );
-            readTruthMaintenanceSystem( context,
-                                        wmep,
-                                        _ep,
-                                        pctxs );
+        if ( registry == null ) {
+            for ( ProtobufMessages.EntryPoint _ep : _session.getRuleData().getEntryPointList() ) {
+                SessionEntryPoint wmep = context.wm.getEntryPoints().get( _ep.getEntryPointId() );
+                readFactHandles( context,
+                                 _ep,
+                                 ((NamedEntryPoint) wmep).getObjectStore(),
+                                 pctxs );
+                readTruthMaintenanceSystem( context,
+                                            wmep,
+                                            _ep,
+                                            pctxs );
+            }
+        } else {
+            readStreamedFactHandles( context,
+                                     _session.getRuleData(),
+                                     registry,
+                                     pctxs );
         }
 
         cleanReaderContexts( pctxs );
@@ -466,6 +547,46 @@ public class ProtobufInputMarshaller {
 
     }
 
+    /**
+     * Reads the fact handle batches following the session in a streamed session, one batch at a time. Each batch
+     * comes with its own strategy contexts, the ones of the session are restored before reading the truth
+     * maintenance system of each entry point, which is part of the session.
+     */
+    private static void readStreamedFactHandles(MarshallerReaderContext context,
+                                                RuleData _ruleData,
+                                                ExtensionRegistry registry,
+                                                List<PropagationContextImpl> pctxs) throws IOException,
+                                                                                   ClassNotFoundException {
+        Map<ObjectMarshallingStrategy, ObjectMarshallingStrategy.Context> sessionContexts = new HashMap<ObjectMarshallingStrategy, ObjectMarshallingStrategy.Context>( context.strategyContexts );
+
+        ProtobufMessages.Header _chunk = PersisterHelper.readDelimitedFromStream( context, registry );
+        ProtobufMessages.EntryPoint _batch = _chunk != null ? ProtobufMessages.EntryPoint.parseFrom( _chunk.getPayload(), registry ) : null;
+        for ( ProtobufMessages.EntryPoint _ep : _ruleData.getEntryPointList() ) {
+            SessionEntryPoint wmep = context.wm.getEntryPoints().get( _ep.getEntryPointId() );
+            // batches are written in the same entry point order as the session
+            while ( _batch != null && _batch.getEntryPointId().equals( _ep.getEntryPointId() ) ) {
+                PersisterHelper.loadStrategiesCheckSignature( context, _chunk );
+                readFactHandles( context,
+                                 _batch,
+                                 ((NamedEntryPoint) wmep).getObjectStore(),
+                                 pctxs );
+
+                _chunk = PersisterHelper.readDelimitedFromStream( context, registry );
+                _batch = _chunk != null ? ProtobufMessages.EntryPoint.parseFrom( _chunk.getPayload(), registry ) : null;
+            }
+
+            context.strategyContexts.putAll( sessionContexts );
+            readTruthMaintenanceSystem( context,
+                                        wmep,
+                                        _ep,
+                                        pctxs );
+        }
+
+        if ( _batch != null ) {
+            throw new IllegalStateException( "Fact handles of unknown entry point " + _batch.getEntryPointId() + " while deserializing session." );
+        }
+    }
+
     private static void assertHandleIntoOTN(MarshallerReaderContext context,
                                             InternalWorkingMemory wm,
                                             InternalFactHandle handle,
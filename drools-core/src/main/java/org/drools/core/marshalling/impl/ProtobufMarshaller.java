@@ -19,11 +19,15 @@ package org.drools.core.marshalling.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.SessionConfiguration;
+import org.drools.core.common.AbstractWorkingMemory;
 import org.drools.core.common.InternalRuleBase;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.Scheduler.ActivationTimerInputMarshaller;
@@ -111,7 +115,12 @@ public class ProtobufMarshaller
         int id = ((ReteooRuleBase) ((KnowledgeBaseImpl) this.kbase).ruleBase).nextWorkingMemoryCounter();
         RuleBaseConfiguration conf = ((ReteooRuleBase) ((KnowledgeBaseImpl) this.kbase).ruleBase).getConfiguration();
 
-        ReteooStatefulSession session = ProtobufInputMarshaller.readSession( context,
+        ReteooStatefulSession session = isStreaming() ?
+                                        ProtobufInputMarshaller.readStreamedSession( context,
+                                                                                     id,
+                                                                                     environment,
+                                                                                     (SessionConfiguration) config ) :
+                                        ProtobufInputMarshaller.readSession( context,
                                                                              id,
                                                                              environment,
                                                                              (SessionConfiguration) config );
@@ -135,8 +144,14 @@ public class ProtobufMarshaller
                                                                        marshallingConfig.isMarshallWorkItems(),
                                                                        ksession.getEnvironment() );
 
-        ProtobufInputMarshaller.readSession( (ReteooStatefulSession) ((StatefulKnowledgeSessionImpl) ksession).session,
-                                             context );
+        ReteooStatefulSession session = (ReteooStatefulSession) ((StatefulKnowledgeSessionImpl) ksession).session;
+        if ( isStreaming() ) {
+            ProtobufInputMarshaller.readStreamedSession( session,
+                                                         context );
+        } else {
+            ProtobufInputMarshaller.readSession( session,
+                                                 context );
+        }
         context.close();
 
     }
@@ -152,6 +167,8 @@ public class ProtobufMarshaller
     public void marshall(final OutputStream stream,
                          final KieSession ksession,
                          final long clockTime) throws IOException {
+        // the staged facts are only in their entry points once propagated
+        ((AbstractWorkingMemory) ((StatefulKnowledgeSessionImpl) ksession).session).flushStagedInserts();
         MarshallerWriteContext context = new MarshallerWriteContext( stream,
                                                                      (InternalRuleBase) ((InternalKnowledgeBase) kbase).getRuleBase(),
                                                                      (InternalWorkingMemory) ((StatefulKnowledgeSessionImpl) ksession).session,
@@ -161,10 +178,46 @@ public class ProtobufMarshaller
                                                                      this.marshallingConfig.isMarshallWorkItems(),
                                                                      ksession.getEnvironment() );
         context.clockTime = clockTime;
-        ProtobufOutputMarshaller.writeSession( context );
+        if ( isStreaming() ) {
+            ProtobufOutputMarshaller.writeStreamedSession( context,
+                                                           ((MarshallingConfigurationImpl) this.marshallingConfig).getStreamingBatchSize() );
+        } else {
+            ProtobufOutputMarshaller.writeSession( context );
+        }
         context.close();
     }
 
+    /**
+     * Writes the session to a channel, preferably with streaming enabled in the MarshallingConfigurationImpl,
+     * so the session is written as it is serialized. As with streams, the channel is closed once done.
+     */
+    public void marshall(final WritableByteChannel channel,
+                         final KieSession ksession) throws IOException {
+        marshall( Channels.newOutputStream( channel ),
+                  ksession );
+    }
+
+    public StatefulKnowledgeSession unmarshall(final ReadableByteChannel channel,
+                                               KieSessionConfiguration config,
+                                               Environment environment) throws IOException,
+                                                                       ClassNotFoundException {
+        return unmarshall( Channels.newInputStream( channel ),
+                           config,
+                           environment );
+    }
+
+    public void unmarshall(final ReadableByteChannel channel,
+                           final KieSession ksession) throws IOException,
+                                                     ClassNotFoundException {
+        unmarshall( Channels.newInputStream( channel ),
+                    ksession );
+    }
+
+    private boolean isStreaming() {
+        return this.marshallingConfig instanceof MarshallingConfigurationImpl &&
+               ((MarshallingConfigurationImpl) this.marshallingConfig).isStreaming();
+    }
+
     public MarshallingConfiguration getMarshallingConfiguration() {
         return marshallingConfig;
     }
@@ -102,13 +102,50 @@ public class ProtobufOutputMarshaller {
 
     public static void writeSession(MarshallerWriteContext context) throws IOException {
 
-        ProtobufMessages.KnowledgeSession _session = serializeSession( context );
+        ProtobufMessages.KnowledgeSession _session = serializeSession( context,
+                                                                       true );
         
         PersisterHelper.writeToStreamWithHeader( context,
                                                  _session );              
     }
 
-    private static ProtobufMessages.KnowledgeSession serializeSession(MarshallerWriteContext context) throws IOException {
+    /**
+     * Writes the session as a sequence of chunks, so the whole session message never has to be built in memory.
+     * The first chunk is the session without its fact handles, followed by the fact handles of each entry point,
+     * batchSize at a time, and by an empty chunk marking the end. Each fact handle batch gets its own strategy
+     * contexts, so the memory used by the marshalled objects is released after each batch.
+     */
+    public static void writeStreamedSession(MarshallerWriteContext context,
+                                            int batchSize) throws IOException {
+        ProtobufMessages.KnowledgeSession _session = serializeSession( context,
+                                                                       false );
+        PersisterHelper.writeDelimitedToStreamWithHeader( context,
+                                                          _session );
+        _session = null;
+
+        ObjectMarshallingStrategyStore objectMarshallingStrategyStore = context.objectMarshallingStrategyStore;
+        for ( SessionEntryPoint wmep : ((ReteooWorkingMemory) context.wm).getEntryPoints().values() ) {
+            InternalFactHandle[] handles = orderFacts( ((NamedEntryPoint) wmep).getObjectStore() );
+            for ( int start = 0; start < handles.length; start += batchSize ) {
+                context.resetStrategyContexts();
+                ProtobufMessages.EntryPoint.Builder _epb = ProtobufMessages.EntryPoint.newBuilder();
+                _epb.setEntryPointId( wmep.getEntryPointId() );
+                int end = Math.min( start + batchSize, handles.length );
+                for ( int i = start; i < end; i++ ) {
+                    _epb.addHandle( writeFactHandle( context,
+                                                     objectMarshallingStrategyStore,
+                                                     handles[i] ) );
+                }
+                PersisterHelper.writeDelimitedToStreamWithHeader( context,
+                                                                  _epb.build() );
+            }
+        }
+
+        PersisterHelper.writeStreamEnd( context );
+    }
+
+    private static ProtobufMessages.KnowledgeSession serializeSession(MarshallerWriteContext context,
+                                                                      boolean writeHandles) throws IOException {
         ReteooWorkingMemory wm = (ReteooWorkingMemory) context.wm;
         wm.getAgenda().unstageActivations();
 
@@ -136,9 +173,11 @@ public class ProtobufOutputMarshaller {
         for ( SessionEntryPoint wmep : wm.getEntryPoints().values() ) {
             org.drools.core.marshalling.impl.ProtobufMessages.EntryPoint.Builder _epb = ProtobufMessages.EntryPoint.newBuilder();
             _epb.setEntryPointId( wmep.getEntryPointId() );
-            writeFactHandles( context,
-                              _epb,
-                              ((NamedEntryPoint) wmep).getObjectStore() );
+            if ( writeHandles ) {
+                writeFactHandles( context,
+                                  _epb,
+                                  ((NamedEntryPoint) wmep).getObjectStore() );
+            }
 
             writeTruthMaintenanceSystem( context,
                                          wmep,
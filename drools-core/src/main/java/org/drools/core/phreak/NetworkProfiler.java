@@ -0,0 +1,187 @@
+package org.drools.core.phreak;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.common.LeftTupleSets;
+import org.drools.core.common.NetworkNode;
+import org.drools.core.common.RightTupleSets;
+import org.drools.core.reteoo.PathMemory;
+import org.drools.core.reteoo.TerminalNode;
+
+/**
+ * Collects the tuples processed by, and the time spent in, each node evaluated by the RuleNetworkEvaluator.
+ *
+ * The work done by a node is accounted for in the node stats, and in the stats of the rule being evaluated when the
+ * node was processed, so the work of a node shared by several rules goes to the rules that caused its evaluation.
+ *
+ * A profiler only exists for sessions created with drools.networkProfiling enabled, the evaluator does no extra work
+ * when it is absent. Rule paths can be evaluated concurrently, so all counters are atomic.
+ */
+public class NetworkProfiler {
+
+    private static final String UNKNOWN_RULE = "<unknown>";
+
+    private final ConcurrentMap<Integer, EvaluationStats> nodeStats = new ConcurrentHashMap<Integer, EvaluationStats>();
+    private final ConcurrentMap<String, EvaluationStats>  ruleStats = new ConcurrentHashMap<String, EvaluationStats>();
+
+    /**
+     * Records the tuples about to be processed by the node, and returns the start time to be given to nodeFinished.
+     * rightTuples is null for nodes without a right input.
+     */
+    public long nodeStarted(NetworkNode node,
+                            PathMemory pmem,
+                            RuleExecutor executor,
+                            LeftTupleSets srcTuples,
+                            RightTupleSets rightTuples) {
+        EvaluationStats nstats = getNodeStats( node );
+        EvaluationStats rstats = getRuleStats( pmem, executor );
+        nstats.addTuples( srcTuples, rightTuples );
+        rstats.addTuples( srcTuples, rightTuples );
+        return System.nanoTime();
+    }
+
+    public void nodeFinished(NetworkNode node,
+                             PathMemory pmem,
+                             RuleExecutor executor,
+                             long start,
+                             LeftTupleSets trgTuples) {
+        long time = System.nanoTime() - start;
+        int propagated = trgTuples != null ? trgTuples.insertSize() + trgTuples.updateSize() + trgTuples.deleteSize() : 0;
+        getNodeStats( node ).addEvaluation( time, propagated );
+        getRuleStats( pmem, executor ).addEvaluation( time, propagated );
+    }
+
+    private EvaluationStats getNodeStats(NetworkNode node) {
+        EvaluationStats stats = nodeStats.get( node.getId() );
+        if ( stats == null ) {
+            stats = new EvaluationStats();
+            EvaluationStats existing = nodeStats.putIfAbsent( node.getId(), stats );
+            if ( existing != null ) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    private EvaluationStats getRuleStats(PathMemory pmem,
+                                         RuleExecutor executor) {
+        // the executor path is the rule being evaluated, pmem may belong to a subnetwork or a query
+        NetworkNode tn = executor != null ? executor.getPathMemory().getNetworkNode() : pmem.getNetworkNode();
+        String ruleName = tn instanceof TerminalNode ? ((TerminalNode) tn).getRule().getName() : UNKNOWN_RULE;
+        EvaluationStats stats = ruleStats.get( ruleName );
+        if ( stats == null ) {
+            stats = new EvaluationStats();
+            EvaluationStats existing = ruleStats.putIfAbsent( ruleName, stats );
+            if ( existing != null ) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the stats of each evaluated node, by node id
+     */
+    public Map<Integer, EvaluationStats> getNodeStats() {
+        return nodeStats;
+    }
+
+    /**
+     * @return the stats of each evaluated rule, by rule name
+     */
+    public Map<String, EvaluationStats> getRuleStats() {
+        return ruleStats;
+    }
+
+    public EvaluationStats getRuleStats(String ruleName) {
+        return ruleStats.get( ruleName );
+    }
+
+    public void reset() {
+        nodeStats.clear();
+        ruleStats.clear();
+    }
+
+    public static class EvaluationStats {
+        private final AtomicLong evaluations  = new AtomicLong();
+        private final AtomicLong leftInserts  = new AtomicLong();
+        private final AtomicLong leftUpdates  = new AtomicLong();
+        private final AtomicLong leftDeletes  = new AtomicLong();
+        private final AtomicLong rightInserts = new AtomicLong();
+        private final AtomicLong rightUpdates = new AtomicLong();
+        private final AtomicLong rightDeletes = new AtomicLong();
+        private final AtomicLong propagated   = new AtomicLong();
+        private final AtomicLong time         = new AtomicLong();
+
+        private void addTuples(LeftTupleSets srcTuples,
+                               RightTupleSets rightTuples) {
+            leftInserts.addAndGet( srcTuples.insertSize() );
+            leftUpdates.addAndGet( srcTuples.updateSize() );
+            leftDeletes.addAndGet( srcTuples.deleteSize() );
+            if ( rightTuples != null ) {
+                rightInserts.addAndGet( rightTuples.insertSize() );
+                rightUpdates.addAndGet( rightTuples.updateSize() );
+                rightDeletes.addAndGet( rightTuples.deleteSize() );
+            }
+        }
+
+        private void addEvaluation(long nanos,
+                                   int propagatedTuples) {
+            evaluations.incrementAndGet();
+            time.addAndGet( nanos );
+            propagated.addAndGet( propagatedTuples );
+        }
+
+        /**
+         * @return the number of times the node, or the nodes of the rule, have been evaluated
+         */
+        public long getEvaluations() {
+            return evaluations.get();
+        }
+
+        public long getLeftInserts() {
+            return leftInserts.get();
+        }
+
+        public long getLeftUpdates() {
+            return leftUpdates.get();
+        }
+
+        public long getLeftDeletes() {
+            return leftDeletes.get();
+        }
+
+        public long getRightInserts() {
+            return rightInserts.get();
+        }
+
+        public long getRightUpdates() {
+            return rightUpdates.get();
+        }
+
+        public long getRightDeletes() {
+            return rightDeletes.get();
+        }
+
+        /**
+         * @return the number of tuples inserted, updated or deleted in the child nodes
+         */
+        public long getPropagated() {
+            return propagated.get();
+        }
+
+        public long getTimeNanos() {
+            return time.get();
+        }
+
+        public String toString() {
+            return "evaluations=" + evaluations.get() +
+                   " left=" + leftInserts.get() + "/" + leftUpdates.get() + "/" + leftDeletes.get() +
+                   " right=" + rightInserts.get() + "/" + rightUpdates.get() + "/" + rightDeletes.get() +
+                   " propagated=" + propagated.get() + " time=" + (time.get() / 1000000) + "ms";
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.drools.core.phreak;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.drools.core.RuntimeDroolsException;
+import org.drools.core.common.InternalAgendaGroup;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.Memory;
+import org.drools.core.concurrent.ExecutorProviderImpl;
+import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
+import org.drools.core.reteoo.BetaMemory;
+import org.drools.core.reteoo.NodeTypeEnums;
+import org.drools.core.reteoo.PathMemory;
+import org.drools.core.reteoo.SegmentMemory;
+import org.drools.core.reteoo.TerminalNode;
+import org.drools.core.rule.Rule;
+import org.drools.core.spi.Activation;
+import org.kie.api.runtime.rule.Match;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates the networks of the dirty rules of an agenda group concurrently, prior to firing.
+ *
+ * Rules are grouped by the root SegmentMemory of their path. As segments are shared as a prefix tree, rules in
+ * different groups share no segment, and therefore no node memory, so each group can be evaluated on its own thread.
+ * Rules within a group are evaluated serially, in activation order.
+ *
+ * Work that touches state shared across groups is not done on the evaluation threads: rule linking and unlinking is
+ * recorded per thread, and activation cancellations and event activation counts are recorded per RuleExecutor.
+ * Both are replayed on the calling thread, in group order, once all groups have been evaluated. Agenda ordering is
+ * then identical from one run to the next, regardless of how the evaluation threads were scheduled.
+ *
+ * Rules with lock-on-active, query element nodes, timer nodes or subnetworks are left for the normal lazy evaluation
+ * on the firing thread, as their evaluation reaches beyond their own segments.
+ */
+public class ParallelRuleEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelRuleEvaluator.class);
+
+    private static final ThreadLocal<List<PathMemory>> deferredLinks = new ThreadLocal<List<PathMemory>>();
+
+    private static final Comparator<RuleAgendaItem> activationNumberComparator = new Comparator<RuleAgendaItem>() {
+        public int compare(RuleAgendaItem a1, RuleAgendaItem a2) {
+            long n1 = a1.getActivationNumber();
+            long n2 = a2.getActivationNumber();
+            return n1 < n2 ? -1 : (n1 == n2 ? 0 : 1);
+        }
+    };
+
+    private final int maxThreads;
+
+    public ParallelRuleEvaluator(int maxThreads) {
+        this.maxThreads = maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Called by PathMemory when a rule is linked or unlinked. When the current thread is evaluating a group of rules,
+     * the PathMemory is recorded, so the agenda can be notified later on the firing thread, and true is returned.
+     */
+    public static boolean deferLink(PathMemory pmem) {
+        List<PathMemory> links = deferredLinks.get();
+        if (links == null) {
+            return false;
+        }
+        links.add(pmem);
+        return true;
+    }
+
+    public void evaluate(InternalAgendaGroup group,
+                         InternalWorkingMemory wm) {
+        List<List<RuleAgendaItem>> ruleGroups = groupBySegmentTree(group.getActivations());
+        if (ruleGroups.size() < 2) {
+            // nothing to gain, leave it for the lazy evaluation
+            return;
+        }
+
+        int threads = Math.min(maxThreads, ruleGroups.size());
+        List<List<List<RuleAgendaItem>>> batches = new ArrayList<List<List<RuleAgendaItem>>>(threads);
+        for (int i = 0; i < threads; i++) {
+            batches.add(new ArrayList<List<RuleAgendaItem>>());
+        }
+        for (int i = 0; i < ruleGroups.size(); i++) {
+            batches.get(i % threads).add(ruleGroups.get(i));
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Parallel evaluation of {} rule groups on {} threads", ruleGroups.size(), threads);
+        }
+
+        CompletionService<List<PathMemory>> completionService = new ExecutorProviderImpl().getCompletionService();
+        List<Future<List<PathMemory>>> futures = new ArrayList<Future<List<PathMemory>>>(threads);
+        for (List<List<RuleAgendaItem>> batch : batches) {
+            futures.add(completionService.submit(new EvaluateBatch(batch, wm)));
+        }
+
+        // futures are read in submission order, so the replay does not depend on thread scheduling
+        List<List<PathMemory>> links = new ArrayList<List<PathMemory>>(threads);
+        RuntimeDroolsException error = null;
+        for (Future<List<PathMemory>> future : futures) {
+            try {
+                links.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = new RuntimeDroolsException("Interrupted while evaluating the network in parallel", e);
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = new RuntimeDroolsException("Unable to evaluate the network in parallel", e.getCause());
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+
+        for (List<PathMemory> pmems : links) {
+            for (PathMemory pmem : pmems) {
+                pmem.doLinkRule(wm);
+            }
+        }
+        for (List<List<RuleAgendaItem>> batch : batches) {
+            for (List<RuleAgendaItem> items : batch) {
+                for (RuleAgendaItem item : items) {
+                    item.getRuleExecutor().replayDeferred(wm);
+                }
+            }
+        }
+    }
+
+    private List<List<RuleAgendaItem>> groupBySegmentTree(Match[] matches) {
+        List<RuleAgendaItem> candidates = new ArrayList<RuleAgendaItem>(matches.length);
+        for (Match match : matches) {
+            Activation activation = (Activation) match;
+            if (activation.isRuleAgendaItem() && isParallelizable((RuleAgendaItem) activation)) {
+                candidates.add((RuleAgendaItem) activation);
+            }
+        }
+        Collections.sort(candidates, activationNumberComparator);
+
+        List<List<RuleAgendaItem>> ruleGroups = new ArrayList<List<RuleAgendaItem>>();
+        Map<SegmentMemory, List<RuleAgendaItem>> groupsByRoot = new IdentityHashMap<SegmentMemory, List<RuleAgendaItem>>();
+        for (RuleAgendaItem item : candidates) {
+            SegmentMemory root = item.getRuleExecutor().getPathMemory().getSegmentMemories()[0];
+            List<RuleAgendaItem> items = groupsByRoot.get(root);
+            if (items == null) {
+                items = new ArrayList<RuleAgendaItem>();
+                groupsByRoot.put(root, items);
+                ruleGroups.add(items);
+            }
+            items.add(item);
+        }
+        return ruleGroups;
+    }
+
+    private boolean isParallelizable(RuleAgendaItem item) {
+        RuleExecutor executor = item.getRuleExecutor();
+        if (!executor.isDirty() || executor.isDeclarativeAgendaEnabled()) {
+            return false;
+        }
+
+        PathMemory pmem = executor.getPathMemory();
+        TerminalNode rtn = (TerminalNode) pmem.getNetworkNode();
+        Rule rule = rtn.getRule();
+        if (rtn.getType() != NodeTypeEnums.RuleTerminalNode || rule.isLockOnActive()) {
+            return false;
+        }
+
+        SegmentMemory[] smems = pmem.getSegmentMemories();
+        for (SegmentMemory smem : smems) {
+            if (smem == null) {
+                return false;
+            }
+            for (Memory mem = smem.getNodeMemories().getFirst(); mem != null; mem = mem.getNext()) {
+                switch (mem.getNodeType()) {
+                    case NodeTypeEnums.QueryElementNode:
+                    case NodeTypeEnums.TimerConditionNode:
+                    case NodeTypeEnums.RightInputAdaterNode:
+                        return false;
+                    case NodeTypeEnums.AccumulateNode:
+                        if (((AccumulateMemory) mem).getBetaMemory().getRiaRuleMemory() != null) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        if (mem instanceof BetaMemory && ((BetaMemory) mem).getRiaRuleMemory() != null) {
+                            return false;
+                        }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static class EvaluateBatch implements Callable<List<PathMemory>> {
+        private final List<List<RuleAgendaItem>> ruleGroups;
+        private final InternalWorkingMemory      wm;
+
+        private EvaluateBatch(List<List<RuleAgendaItem>> ruleGroups,
+                              InternalWorkingMemory wm) {
+            this.ruleGroups = ruleGroups;
+            this.wm = wm;
+        }
+
+        public List<PathMemory> call() {
+            List<PathMemory> links = new ArrayList<PathMemory>();
+            deferredLinks.set(links);
+            try {
+                for (List<RuleAgendaItem> items : ruleGroups) {
+                    for (RuleAgendaItem item : items) {
+                        item.getRuleExecutor().evaluateNetworkDeferred(wm);
+                    }
+                }
+            } finally {
+                deferredLinks.remove();
+            }
+            return links;
+        }
+    }
+}
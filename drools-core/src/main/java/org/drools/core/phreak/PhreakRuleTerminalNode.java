@@ -73,7 +73,11 @@ public class PhreakRuleTerminalNode {
             }
 
             tupleList.add(leftTuple);
-            leftTuple.increaseActivationCountForEvents(); // increased here, decreased in Agenda's cancelActivation and fireActivation
+            if ( executor.isDeferred() ) {
+                executor.deferInsert(leftTuple); // event handles are shared with other rules, so counted on the firing thread
+            } else {
+                leftTuple.increaseActivationCountForEvents(); // increased here, decreased in Agenda's cancelActivation and fireActivation
+            }
             if( !rtnNode.isFireDirect() && declarativeAgendaEnabled ) {
                 PropagationContext pctx = leftTuple.getPropagationContext();
 
@@ -145,9 +149,15 @@ public class PhreakRuleTerminalNode {
                 // Expiration propagations should not be removed from the list, as they still need to fire
                 tupleList.remove(leftTuple);
             }
-            rtnNode.retractLeftTuple(leftTuple, leftTuple.getPropagationContext(), wm);
-            leftTuple.clearStaged();
-            leftTuple.setObject(null);
+            if ( executor.isDeferred() && leftTuple.getObject() != null ) {
+                // cancelling an existing activation touches the agenda, so it is done on the firing thread
+                executor.deferDelete(leftTuple);
+                leftTuple.clearStaged();
+            } else {
+                rtnNode.retractLeftTuple(leftTuple, leftTuple.getPropagationContext(), wm);
+                leftTuple.clearStaged();
+                leftTuple.setObject(null);
+            }
             leftTuple = next;
         }
     }
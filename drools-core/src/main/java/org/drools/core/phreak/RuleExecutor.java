@@ -1,5 +1,8 @@
 package org.drools.core.phreak;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.drools.core.common.AgendaItem;
 import org.drools.core.common.InternalAgenda;
 import org.drools.core.common.InternalAgendaGroup;
@@ -9,6 +12,7 @@ import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.PathMemory;
 import org.drools.core.reteoo.RuleTerminalNode;
+import org.drools.core.reteoo.TerminalNode;
 import org.drools.core.rule.Rule;
 import org.drools.core.spi.AgendaFilter;
 import org.drools.core.spi.PropagationContext;
@@ -35,6 +39,12 @@ public class RuleExecutor {
 
     private boolean declarativeAgendaEnabled;
 
+    private LinkedList<StackEntry> deferredOuterStack;
+
+    private List<LeftTuple> deferredInserts;
+
+    private List<LeftTuple> deferredDeletes;
+
     public RuleExecutor(final PathMemory rmem,
                         RuleAgendaItem ruleAgendaItem,
                         boolean declarativeAgendaEnabled) {
@@ -48,7 +58,14 @@ public class RuleExecutor {
                                final AgendaFilter filter,
                                int fireCount,
                                int fireLimit) {
-        LinkedList<StackEntry> outerStack = new LinkedList<StackEntry>();
+        LinkedList<StackEntry> outerStack;
+        if ( deferredOuterStack != null ) {
+            // entries left by a parallel evaluation, still to be processed serially
+            outerStack = deferredOuterStack;
+            deferredOuterStack = null;
+        } else {
+            outerStack = new LinkedList<StackEntry>();
+        }
 
         this.networkEvaluator.evaluateNetwork(rmem, outerStack, this, wm);
         setDirty(false);
@@ -110,7 +127,7 @@ public class RuleExecutor {
                 if ( haltRuleFiring( nextRule, fireCount, fireLimit, localFireCount, agenda, salience ) ) {
                     break; // another rule has high priority and is on the agenda, so evaluate it first
                 }
-                if ( isDirty() ) {
+                if ( isDirty() && !wm.isSequential() ) {
                     ruleAgendaItem.dequeue();
                     setDirty( false );
                     this.networkEvaluator.evaluateNetwork( rmem, outerStack, this, wm);
@@ -126,13 +143,64 @@ public class RuleExecutor {
             }
         }
 
-        if ( !dirty && tupleList.isEmpty() ) {
+        if ( tupleList.isEmpty() && ( !dirty || wm.isSequential() ) ) {
+            // in sequential mode the consequences cannot change the working memory, so each rule is evaluated only once
             ruleAgendaItem.remove();
         }
 
         return localFireCount;
     }
 
+    /**
+     * Evaluates the network for this rule without firing it, so that it can run on another thread concurrently with
+     * rules which share no segment with this one. Agenda work found at the terminal node is recorded, and must be
+     * applied afterwards on the firing thread, using replayDeferred.
+     */
+    public void evaluateNetworkDeferred(InternalWorkingMemory wm) {
+        LinkedList<StackEntry> outerStack = new LinkedList<StackEntry>();
+        deferredInserts = new ArrayList<LeftTuple>();
+        deferredDeletes = new ArrayList<LeftTuple>();
+
+        this.networkEvaluator.evaluateNetwork(rmem, outerStack, this, wm);
+        setDirty(false);
+
+        if ( !outerStack.isEmpty() ) {
+            deferredOuterStack = outerStack;
+        }
+    }
+
+    public void replayDeferred(InternalWorkingMemory wm) {
+        if ( deferredInserts == null ) {
+            return;
+        }
+        for ( LeftTuple leftTuple : deferredInserts ) {
+            leftTuple.increaseActivationCountForEvents();
+        }
+        for ( LeftTuple leftTuple : deferredDeletes ) {
+            TerminalNode rtn = (TerminalNode) leftTuple.getSink();
+            rtn.retractLeftTuple(leftTuple, leftTuple.getPropagationContext(), wm);
+            leftTuple.setObject(null);
+        }
+        deferredInserts = null;
+        deferredDeletes = null;
+    }
+
+    public boolean isDeferred() {
+        return deferredInserts != null;
+    }
+
+    public void deferInsert(LeftTuple leftTuple) {
+        deferredInserts.add(leftTuple);
+    }
+
+    public void deferDelete(LeftTuple leftTuple) {
+        deferredDeletes.add(leftTuple);
+    }
+
+    public PathMemory getPathMemory() {
+        return rmem;
+    }
+
     public RuleAgendaItem getRuleAgendaItem() {
         return ruleAgendaItem;
     }
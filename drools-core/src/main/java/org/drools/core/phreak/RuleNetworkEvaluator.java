@@ -244,6 +244,7 @@ public class RuleNetworkEvaluator {
                           RuleExecutor executor) {
         LeftTupleSets srcTuples;
         SegmentMemory smem = smems[smemIndex];
+        NetworkProfiler profiler = wm.getNetworkProfiler();
         while (true) {
             srcTuples = trgTuples; // previous target, is now the source
             if (log.isTraceEnabled()) {
@@ -253,6 +254,7 @@ public class RuleNetworkEvaluator {
 
             if (NodeTypeEnums.isTerminalNode(node)) {
                 TerminalNode rtn = ( TerminalNode ) node;
+                long start = profiler != null ? profiler.nodeStarted(node, rmem, executor, srcTuples, null) : 0;
                 if (node.getType() == NodeTypeEnums.QueryTerminalNode) {
                     pQtNode.doNode((QueryTerminalNode) rtn,
                                    wm,
@@ -264,6 +266,9 @@ public class RuleNetworkEvaluator {
                                    srcTuples,
                                    executor);
                 }
+                if (profiler != null) {
+                    profiler.nodeFinished(node, rmem, executor, start, null);
+                }
                 return;
             } else if (NodeTypeEnums.RightInputAdaterNode == node.getType()) {
                 doRiaNode2(wm, srcTuples, (RightInputAdapterNode) node, stack);
@@ -301,6 +306,7 @@ public class RuleNetworkEvaluator {
                     return; // RiaNode exists and has placed StackEntry on the Stack
                 }
             } else {
+                long start = profiler != null ? profiler.nodeStarted(node, rmem, executor, srcTuples, null) : 0;
                 switch (node.getType()) {
                     case NodeTypeEnums.EvalConditionNode: {
                         if ( stagedLeftTuples != null ) {
@@ -330,6 +336,9 @@ public class RuleNetworkEvaluator {
                     case NodeTypeEnums.QueryElementNode: {
                         boolean exitInnerEval =  evalQueryNode(liaNode, rmem, node, nodeMem, smems, smemIndex, trgTuples, wm, stack, visitedRules, srcTuples, sink);
                         if ( exitInnerEval ) {
+                            if (profiler != null) {
+                                profiler.nodeFinished(node, rmem, executor, start, trgTuples);
+                            }
                             return; // Queries exists and has placed StackEntry on the Stack
                         }
                         break;
@@ -357,6 +366,9 @@ public class RuleNetworkEvaluator {
                         break;
                     }
                 }
+                if (profiler != null) {
+                    profiler.nodeFinished(node, rmem, executor, start, trgTuples);
+                }
             }
 
             if (node != smem.getTipNode()) {
@@ -515,6 +527,8 @@ public class RuleNetworkEvaluator {
             }
         }
 
+        NetworkProfiler profiler = wm.getNetworkProfiler();
+        long start = profiler != null ? profiler.nodeStarted(node, rmem, executor, srcTuples, bm.getStagedRightTuples()) : 0;
         if ( stagedLeftTuples != null ) {
             synchronized ( stagedLeftTuples ) {
                 switchOnDoBetaNode(node, trgTuples, wm, srcTuples, stagedLeftTuples, sink, bm, am);
@@ -522,6 +536,9 @@ public class RuleNetworkEvaluator {
         } else {
             switchOnDoBetaNode(node, trgTuples, wm, srcTuples, stagedLeftTuples, sink, bm, am);
         }
+        if (profiler != null) {
+            profiler.nodeFinished(node, rmem, executor, start, trgTuples);
+        }
 
 
         return false;
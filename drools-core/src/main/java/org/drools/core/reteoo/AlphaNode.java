@@ -118,6 +118,9 @@ public class AlphaNode extends ObjectSource
 
     public void attach(BuildContext context) {
         this.source.addObjectSink( this );
+        if ( context != null && context.getRuleBase().getConfiguration().isPreJitting() && this.constraint instanceof MvelConstraint ) {
+            ((MvelConstraint) this.constraint).preJit( context.getRuleBase() );
+        }
         if (context == null || context.getRuleBase().getConfiguration().isPhreakEnabled() ) {
             return;
         }
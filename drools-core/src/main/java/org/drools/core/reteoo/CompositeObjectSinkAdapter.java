@@ -27,6 +27,7 @@ import org.drools.core.util.LinkedList;
 import org.drools.core.util.LinkedListNode;
 import org.drools.core.util.ObjectHashMap;
 import org.drools.core.util.ObjectHashMap.ObjectEntry;
+import org.drools.core.util.index.IndexUtil;
 import org.drools.core.rule.IndexableConstraint;
 import org.drools.core.spi.AlphaNodeFieldConstraint;
 import org.drools.core.spi.FieldValue;
@@ -41,6 +42,8 @@ import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.drools.core.util.BitMaskUtil.intersect;
+
 public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
 
     //    /** You can override this property via a system property (eg -Ddrools.hashThreshold=4) */
@@ -58,6 +61,8 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
 
     ObjectHashMap             hashedSinkMap;
 
+    LinkedList<RangeIndex>    rangeIndexes;
+
     private int               alphaNodeHashingThreshold;
 
     public CompositeObjectSinkAdapter() {
@@ -78,6 +83,7 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         hashableSinks = (ObjectSinkNodeList) in.readObject();
         hashedFieldIndexes = (LinkedList) in.readObject();
         hashedSinkMap = (ObjectHashMap) in.readObject();
+        rangeIndexes = (LinkedList) in.readObject();
         alphaNodeHashingThreshold = in.readInt();
     }
 
@@ -87,6 +93,7 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         out.writeObject( hashableSinks );
         out.writeObject( hashedFieldIndexes );
         out.writeObject( hashedSinkMap );
+        out.writeObject( rangeIndexes );
         out.writeInt( alphaNodeHashingThreshold );
     }
 
@@ -102,6 +109,10 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         return this.hashedSinkMap;
     }
 
+    public LinkedList<RangeIndex> getRangeIndexes() {
+        return this.rangeIndexes;
+    }
+
     public void addObjectSink(final ObjectSink sink) {
         if ( sink.getType() ==  NodeTypeEnums.AlphaNode ) {
             final AlphaNode alphaNode = (AlphaNode) sink;
@@ -138,6 +149,12 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
                     }
                     return;
                 }
+
+                if ( isRangeIndexable( indexableConstraint ) ) {
+                    addToRangeIndex( alphaNode,
+                                     indexableConstraint );
+                    return;
+                }
             }
         }
 
@@ -186,6 +203,12 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
 
                     return;
                 }
+
+                if ( isRangeIndexable( indexableConstraint ) ) {
+                    removeFromRangeIndex( alphaNode,
+                                          indexableConstraint );
+                    return;
+                }
             }
         }
 
@@ -340,6 +363,111 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         return null;
     }
 
+    /**
+     * Literal comparisons, like "amount > 100" or "amount <= 500", on a numeric field read by a plain class field
+     * reader. Once there are enough of them on the same field they are range indexed, so a value only reaches the
+     * alphas it satisfies.
+     */
+    private static boolean isRangeIndexable(final IndexableConstraint indexableConstraint) {
+        if ( !indexableConstraint.getConstraintType().isComparison() || indexableConstraint.getField() == null ||
+             indexableConstraint.getField().isNull() ||
+             // our current implementation does not support indexing of deeply nested properties
+             indexableConstraint.getFieldExtractor() instanceof MVELObjectClassFieldReader ) {
+            return false;
+        }
+        final Object value = indexableConstraint.getField().getValue();
+        final ValueType valueType = indexableConstraint.getFieldExtractor().getValueType();
+        if ( valueType.isIntegerNumber() ) {
+            return RangeIndex.isIntegral( value );
+        }
+        return valueType.isFloatNumber() &&
+               ( RangeIndex.isIntegral( value ) ||
+                 ( ( value instanceof Double || value instanceof Float ) && !Double.isNaN( ((Number) value).doubleValue() ) ) );
+    }
+
+    private void addToRangeIndex(final AlphaNode alphaNode,
+                                 final IndexableConstraint indexableConstraint) {
+        final InternalReadAccessor readAccessor = indexableConstraint.getFieldExtractor();
+        RangeIndex rangeIndex = findRangeIndex( readAccessor.getIndex() );
+        if ( rangeIndex == null ) {
+            if ( this.rangeIndexes == null ) {
+                this.rangeIndexes = new LinkedList<RangeIndex>();
+            }
+            rangeIndex = new RangeIndex( readAccessor.getIndex(),
+                                         readAccessor );
+            this.rangeIndexes.add( rangeIndex );
+        }
+        rangeIndex.add( alphaNode,
+                        indexableConstraint.getConstraintType(),
+                        indexableConstraint.getField() );
+
+        if ( rangeIndex.isActive() ) {
+            return;
+        }
+
+        if ( rangeIndex.size() >= this.alphaNodeHashingThreshold && this.alphaNodeHashingThreshold != 0 ) {
+            // until now the alphas on this field were evaluated one by one with the others
+            for ( AlphaNode node : rangeIndex.getAlphaNodes() ) {
+                if ( node != alphaNode ) {
+                    this.otherSinks.remove( node );
+                }
+            }
+            if ( this.otherSinks != null && this.otherSinks.isEmpty() ) {
+                this.otherSinks = null;
+            }
+            rangeIndex.setActive( true );
+        } else {
+            if ( this.otherSinks == null ) {
+                this.otherSinks = new ObjectSinkNodeList();
+            }
+            this.otherSinks.add( alphaNode );
+        }
+    }
+
+    private void removeFromRangeIndex(final AlphaNode alphaNode,
+                                      final IndexableConstraint indexableConstraint) {
+        final RangeIndex rangeIndex = findRangeIndex( indexableConstraint.getFieldExtractor().getIndex() );
+        rangeIndex.remove( alphaNode );
+
+        if ( rangeIndex.isActive() ) {
+            if ( rangeIndex.size() <= this.alphaNodeHashingThreshold - 1 ) {
+                // too few left, evaluate them one by one again
+                if ( this.otherSinks == null ) {
+                    this.otherSinks = new ObjectSinkNodeList();
+                }
+                for ( AlphaNode node : rangeIndex.getAlphaNodes() ) {
+                    this.otherSinks.add( node );
+                }
+                rangeIndex.setActive( false );
+            }
+        } else {
+            this.otherSinks.remove( alphaNode );
+        }
+
+        if ( this.otherSinks != null && this.otherSinks.isEmpty() ) {
+            this.otherSinks = null;
+        }
+
+        if ( rangeIndex.size() == 0 ) {
+            this.rangeIndexes.remove( rangeIndex );
+            if ( this.rangeIndexes.isEmpty() ) {
+                this.rangeIndexes = null;
+            }
+        }
+    }
+
+    private RangeIndex findRangeIndex(final int index) {
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex node = this.rangeIndexes.getFirst(); node != null; node = node.getNext() ) {
+                if ( node.getIndex() == index ) {
+                    return node;
+                }
+            }
+        }
+
+        return null;
+    }
+
     public void propagateAssertObject(final InternalFactHandle factHandle,
                                       final PropagationContext context,
                                       final InternalWorkingMemory workingMemory) {
@@ -367,6 +495,14 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
             }
         }
 
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex rangeIndex = this.rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( rangeIndex.isActive() ) {
+                    rangeIndex.propagateAssertObject( factHandle, context, workingMemory );
+                }
+            }
+        }
+
         // propagate unhashed
         if ( this.hashableSinks != null ) {
             for ( ObjectSinkNode sink = this.hashableSinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
@@ -416,6 +552,14 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
             }
         }
 
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex rangeIndex = this.rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( rangeIndex.isActive() ) {
+                    rangeIndex.propagateModifyObject( factHandle, modifyPreviousTuples, context, workingMemory );
+                }
+            }
+        }
+
         // propagate unhashed
         if ( this.hashableSinks != null ) {
             for ( ObjectSinkNode sink = this.hashableSinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
@@ -465,6 +609,17 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
             }
         }
 
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex rangeIndex = this.rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( rangeIndex.isActive() ) {
+                    for ( AlphaNode sink : rangeIndex.getAlphaNodes() ) {
+                        // only alpha nodes are range indexed
+                        sink.getSinkPropagator().byPassModifyToBetaNode( factHandle, modifyPreviousTuples, context, workingMemory );
+                    }
+                }
+            }
+        }
+
         // propagate unhashed
         if ( this.hashableSinks != null ) {
             for ( ObjectSinkNode sink = this.hashableSinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
@@ -537,6 +692,18 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
                 }
             }
         }
+
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex rangeIndex = this.rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( rangeIndex.isActive() ) {
+                    for ( AlphaNode sink : rangeIndex.getAlphaNodes() ) {
+                        if ( candidate.equals( sink ) ) {
+                            return sink;
+                        }
+                    }
+                }
+            }
+        }
         return null;
     }
 
@@ -562,6 +729,16 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
             }
         }
 
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex rangeIndex = this.rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( rangeIndex.isActive() ) {
+                    for ( AlphaNode sink : rangeIndex.getAlphaNodes() ) {
+                        sinks[at++] = sink;
+                    }
+                }
+            }
+        }
+
         if ( this.hashableSinks != null ) {
             for ( ObjectSinkNode sink = this.hashableSinks.getFirst(); sink != null; sink = sink.getNextObjectSinkNode() ) {
                 sinks[at++] = sink;
@@ -595,7 +772,19 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
     }     
 
     public int size() {
-        return (this.otherSinks != null ? this.otherSinks.size() : 0) + (this.hashableSinks != null ? this.hashableSinks.size() : 0) + (this.hashedSinkMap != null ? this.hashedSinkMap.size() : 0);
+        return (this.otherSinks != null ? this.otherSinks.size() : 0) + (this.hashableSinks != null ? this.hashableSinks.size() : 0) + (this.hashedSinkMap != null ? this.hashedSinkMap.size() : 0) + getRangeIndexedSize();
+    }
+
+    private int getRangeIndexedSize() {
+        int size = 0;
+        if ( this.rangeIndexes != null ) {
+            for ( RangeIndex rangeIndex = this.rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext() ) {
+                if ( rangeIndex.isActive() ) {
+                    size += rangeIndex.size();
+                }
+            }
+        }
+        return size;
     }
 
     public static class HashKey
@@ -966,4 +1155,300 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
             this.previous = previous;
         }
     }
+
+    /**
+     * Indexes the literal comparisons on a field: the alphas with a lower bound (&gt; and &gt;=) are kept in ascending
+     * order of the bound and those with an upper bound (&lt; and &lt;=) in descending order, the inclusive ones first
+     * for the same bound. So the alphas satisfied by a value are always at the start of each array, and the
+     * propagation stops at the first one that is not.
+     */
+    public static class RangeIndex
+        implements
+        LinkedListNode<RangeIndex>,
+        Externalizable {
+        private static final long         serialVersionUID = 510l;
+
+        private static final RangeBound[] EMPTY            = new RangeBound[0];
+
+        private int                       index;
+        private InternalReadAccessor      fieldExtractor;
+        private boolean                   integral;
+
+        private RangeBound[]              lowerBounds      = EMPTY;
+        private RangeBound[]              upperBounds      = EMPTY;
+
+        private boolean                   active;
+
+        private RangeIndex                previous;
+        private RangeIndex                next;
+
+        public RangeIndex() {
+        }
+
+        public RangeIndex(final int index,
+                          final InternalReadAccessor fieldExtractor) {
+            this.index = index;
+            this.fieldExtractor = fieldExtractor;
+            this.integral = fieldExtractor.getValueType().isIntegerNumber();
+        }
+
+        public void readExternal(ObjectInput in) throws IOException,
+                                                ClassNotFoundException {
+            index = in.readInt();
+            fieldExtractor = (InternalReadAccessor) in.readObject();
+            integral = in.readBoolean();
+            active = in.readBoolean();
+            lowerBounds = readBounds( in );
+            upperBounds = readBounds( in );
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeInt( index );
+            out.writeObject( fieldExtractor );
+            out.writeBoolean( integral );
+            out.writeBoolean( active );
+            writeBounds( out, lowerBounds );
+            writeBounds( out, upperBounds );
+        }
+
+        private static RangeBound[] readBounds(ObjectInput in) throws IOException,
+                                                               ClassNotFoundException {
+            RangeBound[] bounds = new RangeBound[in.readInt()];
+            for ( int i = 0; i < bounds.length; i++ ) {
+                bounds[i] = new RangeBound( (AlphaNode) in.readObject(),
+                                            in.readLong(),
+                                            in.readDouble(),
+                                            in.readBoolean() );
+            }
+            return bounds;
+        }
+
+        private static void writeBounds(ObjectOutput out,
+                                        RangeBound[] bounds) throws IOException {
+            out.writeInt( bounds.length );
+            for ( RangeBound bound : bounds ) {
+                out.writeObject( bound.alphaNode );
+                out.writeLong( bound.lvalue );
+                out.writeDouble( bound.dvalue );
+                out.writeBoolean( bound.inclusive );
+            }
+        }
+
+        static boolean isIntegral(final Object value) {
+            return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public InternalReadAccessor getFieldExtractor() {
+            return this.fieldExtractor;
+        }
+
+        public boolean isActive() {
+            return this.active;
+        }
+
+        public void setActive(final boolean active) {
+            this.active = active;
+        }
+
+        public int size() {
+            return this.lowerBounds.length + this.upperBounds.length;
+        }
+
+        /**
+         * @return the indexed alphas, the lower bounded ones first
+         */
+        public AlphaNode[] getAlphaNodes() {
+            AlphaNode[] alphaNodes = new AlphaNode[size()];
+            for ( int i = 0; i < this.lowerBounds.length; i++ ) {
+                alphaNodes[i] = this.lowerBounds[i].alphaNode;
+            }
+            for ( int i = 0; i < this.upperBounds.length; i++ ) {
+                alphaNodes[this.lowerBounds.length + i] = this.upperBounds[i].alphaNode;
+            }
+            return alphaNodes;
+        }
+
+        public void add(final AlphaNode alphaNode,
+                        final IndexUtil.ConstraintType constraintType,
+                        final FieldValue field) {
+            final RangeBound bound = new RangeBound( alphaNode,
+                                                     this.integral ? field.getLongValue() : 0,
+                                                     this.integral ? 0 : field.getDoubleValue(),
+                                                     constraintType == IndexUtil.ConstraintType.GREATER_OR_EQUAL ||
+                                                     constraintType == IndexUtil.ConstraintType.LESS_OR_EQUAL );
+            // "x > 100" bounds the value of x from below
+            if ( constraintType.isAscending() ) {
+                this.lowerBounds = insert( this.lowerBounds, bound, true );
+            } else {
+                this.upperBounds = insert( this.upperBounds, bound, false );
+            }
+        }
+
+        public void remove(final AlphaNode alphaNode) {
+            this.lowerBounds = remove( this.lowerBounds, alphaNode );
+            this.upperBounds = remove( this.upperBounds, alphaNode );
+        }
+
+        private RangeBound[] insert(final RangeBound[] bounds,
+                                    final RangeBound bound,
+                                    final boolean lower) {
+            // after the ones with the same bound, so the order is the same as the one of the additions
+            int low = 0;
+            int high = bounds.length;
+            while ( low < high ) {
+                int mid = (low + high) >>> 1;
+                if ( precedes( bound, bounds[mid], lower ) ) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            RangeBound[] result = new RangeBound[bounds.length + 1];
+            System.arraycopy( bounds, 0, result, 0, low );
+            result[low] = bound;
+            System.arraycopy( bounds, low, result, low + 1, bounds.length - low );
+            return result;
+        }
+
+        private static RangeBound[] remove(final RangeBound[] bounds,
+                                           final AlphaNode alphaNode) {
+            for ( int i = 0; i < bounds.length; i++ ) {
+                if ( bounds[i].alphaNode == alphaNode ) {
+                    RangeBound[] result = new RangeBound[bounds.length - 1];
+                    System.arraycopy( bounds, 0, result, 0, i );
+                    System.arraycopy( bounds, i + 1, result, i, bounds.length - i - 1 );
+                    return result;
+                }
+            }
+            return bounds;
+        }
+
+        private boolean precedes(final RangeBound bound,
+                                 final RangeBound other,
+                                 final boolean lower) {
+            int cmp = this.integral ? (bound.lvalue < other.lvalue ? -1 : (bound.lvalue == other.lvalue ? 0 : 1)) : Double.compare( bound.dvalue, other.dvalue );
+            if ( !lower ) {
+                cmp = -cmp;
+            }
+            return cmp < 0 || (cmp == 0 && bound.inclusive && !other.inclusive);
+        }
+
+        private boolean isSatisfied(final RangeBound bound,
+                                    final boolean lower,
+                                    final long lvalue,
+                                    final double dvalue) {
+            if ( this.integral ) {
+                return lower ? bound.lvalue < lvalue || (bound.inclusive && bound.lvalue == lvalue) :
+                               bound.lvalue > lvalue || (bound.inclusive && bound.lvalue == lvalue);
+            }
+            return lower ? bound.dvalue < dvalue || (bound.inclusive && bound.dvalue == dvalue) :
+                           bound.dvalue > dvalue || (bound.inclusive && bound.dvalue == dvalue);
+        }
+
+        private int countSatisfied(final RangeBound[] bounds,
+                                   final boolean lower,
+                                   final long lvalue,
+                                   final double dvalue) {
+            int count = 0;
+            while ( count < bounds.length && isSatisfied( bounds[count], lower, lvalue, dvalue ) ) {
+                count++;
+            }
+            return count;
+        }
+
+        public void propagateAssertObject(final InternalFactHandle factHandle,
+                                          final PropagationContext context,
+                                          final InternalWorkingMemory workingMemory) {
+            final Object object = factHandle.getObject();
+            if ( this.fieldExtractor.isNullValue( workingMemory, object ) ) {
+                // no comparison is true against null
+                return;
+            }
+            final long lvalue = this.integral ? this.fieldExtractor.getLongValue( workingMemory, object ) : 0;
+            final double dvalue = this.integral ? 0 : this.fieldExtractor.getDoubleValue( workingMemory, object );
+
+            // go straight to the AlphaNodes' propagators, as we know they are true and no need to retest
+            for ( int i = 0, length = countSatisfied( this.lowerBounds, true, lvalue, dvalue ); i < length; i++ ) {
+                this.lowerBounds[i].alphaNode.getSinkPropagator().propagateAssertObject( factHandle, context, workingMemory );
+            }
+            for ( int i = 0, length = countSatisfied( this.upperBounds, false, lvalue, dvalue ); i < length; i++ ) {
+                this.upperBounds[i].alphaNode.getSinkPropagator().propagateAssertObject( factHandle, context, workingMemory );
+            }
+        }
+
+        public void propagateModifyObject(final InternalFactHandle factHandle,
+                                          final ModifyPreviousTuples modifyPreviousTuples,
+                                          final PropagationContext context,
+                                          final InternalWorkingMemory workingMemory) {
+            final Object object = factHandle.getObject();
+            int lowerSatisfied = 0;
+            int upperSatisfied = 0;
+            if ( !this.fieldExtractor.isNullValue( workingMemory, object ) ) {
+                final long lvalue = this.integral ? this.fieldExtractor.getLongValue( workingMemory, object ) : 0;
+                final double dvalue = this.integral ? 0 : this.fieldExtractor.getDoubleValue( workingMemory, object );
+                lowerSatisfied = countSatisfied( this.lowerBounds, true, lvalue, dvalue );
+                upperSatisfied = countSatisfied( this.upperBounds, false, lvalue, dvalue );
+            }
+
+            // the same as AlphaNode.modifyObject, the alphas not listening to the modified properties are bypassed
+            for ( int i = 0; i < this.lowerBounds.length; i++ ) {
+                modifyObject( this.lowerBounds[i].alphaNode, i < lowerSatisfied, factHandle, modifyPreviousTuples, context, workingMemory );
+            }
+            for ( int i = 0; i < this.upperBounds.length; i++ ) {
+                modifyObject( this.upperBounds[i].alphaNode, i < upperSatisfied, factHandle, modifyPreviousTuples, context, workingMemory );
+            }
+        }
+
+        private static void modifyObject(final AlphaNode alphaNode,
+                                         final boolean satisfied,
+                                         final InternalFactHandle factHandle,
+                                         final ModifyPreviousTuples modifyPreviousTuples,
+                                         final PropagationContext context,
+                                         final InternalWorkingMemory workingMemory) {
+            if ( intersect( context.getModificationMask(), alphaNode.getInferredMask() ) ) {
+                if ( satisfied ) {
+                    alphaNode.getSinkPropagator().propagateModifyObject( factHandle, modifyPreviousTuples, context, workingMemory );
+                }
+            } else {
+                alphaNode.getSinkPropagator().byPassModifyToBetaNode( factHandle, modifyPreviousTuples, context, workingMemory );
+            }
+        }
+
+        public RangeIndex getNext() {
+            return this.next;
+        }
+
+        public RangeIndex getPrevious() {
+            return this.previous;
+        }
+
+        public void setNext(final RangeIndex next) {
+            this.next = next;
+        }
+
+        public void setPrevious(final RangeIndex previous) {
+            this.previous = previous;
+        }
+    }
+
+    private static class RangeBound {
+        private final AlphaNode alphaNode;
+        private final long      lvalue;
+        private final double    dvalue;
+        private final boolean   inclusive;
+
+        private RangeBound(final AlphaNode alphaNode,
+                           final long lvalue,
+                           final double dvalue,
+                           final boolean inclusive) {
+            this.alphaNode = alphaNode;
+            this.lvalue = lvalue;
+            this.dvalue = dvalue;
+            this.inclusive = inclusive;
+        }
+    }
 }
@@ -46,6 +46,7 @@ import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.RuleBaseEventListener;
 import org.drools.core.event.WorkingMemoryEventListener;
 import org.drools.core.event.WorkingMemoryEventSupport;
+import org.drools.core.phreak.NetworkProfiler;
 import org.drools.core.rule.EntryPoint;
 import org.drools.core.rule.Rule;
 import org.drools.core.runtime.impl.ExecutionResultImpl;
@@ -209,6 +210,10 @@ public class DisposedReteooWorkingMemory implements ReteooWorkingMemoryInterface
         throw new IllegalStateException( ERRORMSG );
     }
 
+    public NetworkProfiler getNetworkProfiler() {
+        throw new IllegalStateException( ERRORMSG );
+    }
+
     public void startBatchExecution( ExecutionResultImpl results ) {
         throw new IllegalStateException( ERRORMSG );
     }
@@ -337,6 +342,10 @@ public class DisposedReteooWorkingMemory implements ReteooWorkingMemoryInterface
         throw new IllegalStateException( ERRORMSG );
     }
 
+    public QueryResults getQueryResults( String query, int maxRows, String[] identifiers, Object[] arguments ) {
+        throw new IllegalStateException( ERRORMSG );
+    }
+
     public void setAsyncExceptionHandler( AsyncExceptionHandler handler ) {
         throw new IllegalStateException( ERRORMSG );
     }
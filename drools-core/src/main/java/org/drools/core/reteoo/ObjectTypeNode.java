@@ -257,10 +257,20 @@ public class ObjectTypeNode extends ObjectSource
         return this.objectType.isAssignableFrom( objectType );
     }
 
+    /**
+     * Sets the network that replaces the sink propagator for assertions, a null network
+     * restores the regular propagation.
+     */
     public void setCompiledNetwork(CompiledNetwork compiledNetwork) {
         this.compiledNetwork = compiledNetwork;
 
-        this.compiledNetwork.setObjectTypeNode( this );
+        if ( this.compiledNetwork != null ) {
+            this.compiledNetwork.setObjectTypeNode( this );
+        }
+    }
+
+    public CompiledNetwork getCompiledNetwork() {
+        return this.compiledNetwork;
     }
 
     /**
@@ -763,6 +773,7 @@ public class ObjectTypeNode extends ObjectSource
     public static class ObjectTypeNodeMemory implements Memory {
         public ObjectHashSet memory = new ObjectHashSet();
         private ObjectTypeNode otn;
+        private WindowEventBuffer windowEventBuffer;
 
         ObjectTypeNodeMemory(ObjectTypeNode otn) {
             this.otn = otn;
@@ -776,6 +787,16 @@ public class ObjectTypeNode extends ObjectSource
             return memory;
         }
 
+        /**
+         * Returns the buffer of events shared by the sliding time windows below this node
+         */
+        public synchronized WindowEventBuffer getWindowEventBuffer() {
+            if ( windowEventBuffer == null ) {
+                windowEventBuffer = new WindowEventBuffer();
+            }
+            return windowEventBuffer;
+        }
+
         public SegmentMemory getSegmentMemory() {
             throw new UnsupportedOperationException();
         }
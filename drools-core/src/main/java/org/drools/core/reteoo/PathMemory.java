@@ -7,6 +7,7 @@ import org.drools.core.common.InternalRuleFlowGroup;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.Memory;
 import org.drools.core.common.NetworkNode;
+import org.drools.core.phreak.ParallelRuleEvaluator;
 import org.drools.core.phreak.RuleAgendaItem;
 import org.drools.core.util.AbstractBaseLinkedListNode;
 import org.slf4j.Logger;
@@ -80,6 +81,10 @@ public class PathMemory extends AbstractBaseLinkedListNode<Memory>
         if (log.isTraceEnabled()) {
             log.trace("    LinkRule name={}", rtn.getRule().getName());
         }
+        if (ParallelRuleEvaluator.deferLink(this)) {
+            // evaluating in parallel, the agenda is notified by the firing thread
+            return;
+        }
         if (agendaItem == null) {
             int salience = rtn.getRule().getSalience().getValue(null,
                                                                 rtn.getRule(),
@@ -95,6 +100,10 @@ public class PathMemory extends AbstractBaseLinkedListNode<Memory>
         if (log.isTraceEnabled()) {
             log.trace("    UnlinkRule name={}", rtn.getRule().getName());
         }
+        if (ParallelRuleEvaluator.deferLink(this)) {
+            // evaluating in parallel, the agenda is notified by the firing thread
+            return;
+        }
         if (agendaItem == null) {
             int salience = rtn.getRule().getSalience().getValue(null,
                                                                 rtn.getRule(),
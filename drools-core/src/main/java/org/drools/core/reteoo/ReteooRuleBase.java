@@ -22,10 +22,14 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.drools.core.FactException;
@@ -35,6 +39,7 @@ import org.drools.core.SessionConfiguration;
 import org.drools.core.StatefulSession;
 import org.drools.core.StatelessSession;
 import org.drools.core.common.AbstractRuleBase;
+import org.drools.core.common.BaseNode;
 import org.drools.core.common.DefaultFactHandle;
 import org.drools.core.common.DroolsObjectInput;
 import org.drools.core.common.DroolsObjectInputStream;
@@ -48,6 +53,8 @@ import org.drools.core.impl.KnowledgeBaseImpl;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.management.DroolsManagementAgent;
 import org.drools.core.reteoo.ReteooWorkingMemory.WorkingMemoryReteAssertAction;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompilerFactory;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompilerService;
 import org.drools.core.rule.EntryPoint;
 import org.drools.core.rule.InvalidPatternException;
 import org.drools.core.rule.Package;
@@ -62,6 +69,8 @@ import org.kie.internal.marshalling.MarshallerFactory;
 import org.kie.api.marshalling.ObjectMarshallingStrategy;
 import org.kie.api.runtime.Environment;
 import org.kie.api.runtime.KieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Implementation of <code>RuleBase</code>.
@@ -76,6 +85,8 @@ public class ReteooRuleBase extends AbstractRuleBase {
      */
     private static final long serialVersionUID = 510l;
 
+    private static final Logger logger = LoggerFactory.getLogger( ReteooRuleBase.class );
+
     /** The root Rete-OO for this <code>RuleBase</code>. */
     private transient Rete    rete;
 
@@ -84,6 +95,9 @@ public class ReteooRuleBase extends AbstractRuleBase {
     public Set<EntryPointNode> addedEntryNodeCache;
     public Set<EntryPointNode> removedEntryNodeCache;
 
+    /** The OTNs whose alpha network changed since the rulebase was locked, when it is compiled */
+    private transient Map<Integer, ObjectTypeNode> modifiedObjectTypeNodes;
+
     // ------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------
@@ -226,6 +240,16 @@ public class ReteooRuleBase extends AbstractRuleBase {
         if( !wasDrools ) {
             droolsStream.close();
         }
+
+        if ( getConfiguration().isCompiledAlphaNetwork() ) {
+            // the compiled networks are not serialized, they are generated again
+            for ( EntryPointNode ep : this.rete.getEntryPointNodes().values() ) {
+                for ( ObjectTypeNode otn : ep.getObjectTypeNodes().values() ) {
+                    addModifiedObjectTypeNode( otn );
+                }
+            }
+            compileAlphaNetworks();
+        }
     }
 
     // ------------------------------------------------------------
@@ -433,6 +457,9 @@ public class ReteooRuleBase extends AbstractRuleBase {
     protected void addRule(final Rule rule) throws InvalidPatternException {
         // This adds the rule. ReteBuilder has a reference to the WorkingMemories and will propagate any existing facts.
         this.reteooBuilder.addRule( rule );
+        if ( getConfiguration().isCompiledAlphaNetwork() ) {
+            collectObjectTypeNodes( rule );
+        }
     }
 
     protected void addEntryPoint(final String id) throws InvalidPatternException {
@@ -446,9 +473,79 @@ public class ReteooRuleBase extends AbstractRuleBase {
     }
 
     protected void removeRule(final Rule rule) {
+        if ( getConfiguration().isCompiledAlphaNetwork() ) {
+            // the nodes of the rule must be collected before they are detached
+            collectObjectTypeNodes( rule );
+        }
         this.reteooBuilder.removeRule( rule );
     }
 
+    private void collectObjectTypeNodes(final Rule rule) {
+        BaseNode[] terminals = this.reteooBuilder.getTerminalNodes( rule );
+        if ( terminals == null ) {
+            return;
+        }
+        NodeSet nodeSet = new NodeSet();
+        for ( BaseNode terminal : terminals ) {
+            terminal.collectAncestors( nodeSet );
+        }
+        for ( BaseNode node : nodeSet ) {
+            if ( node.getType() == NodeTypeEnums.ObjectTypeNode ) {
+                addModifiedObjectTypeNode( (ObjectTypeNode) node );
+            }
+        }
+    }
+
+    private void addModifiedObjectTypeNode(final ObjectTypeNode otn) {
+        if ( this.modifiedObjectTypeNodes == null ) {
+            this.modifiedObjectTypeNodes = new LinkedHashMap<Integer, ObjectTypeNode>();
+        }
+        this.modifiedObjectTypeNodes.put( otn.getId(),
+                                          otn );
+    }
+
+    @Override
+    protected void networkUpdated() {
+        if ( this.modifiedObjectTypeNodes != null ) {
+            compileAlphaNetworks();
+        }
+    }
+
+    /**
+     * Compiles again the alpha network of the OTNs affected by the rules added or removed since the rulebase
+     * was locked. OTNs that are no longer in use, or whose network cannot be compiled, go back to the regular
+     * sink propagation.
+     */
+    private void compileAlphaNetworks() {
+        Map<Integer, ObjectTypeNode> otns = this.modifiedObjectTypeNodes;
+        this.modifiedObjectTypeNodes = null;
+        if ( otns == null ) {
+            return;
+        }
+
+        AlphaNetworkCompilerService compiler;
+        try {
+            compiler = AlphaNetworkCompilerFactory.getAlphaNetworkCompilerService();
+        } catch ( IllegalArgumentException e ) {
+            compiler = null;
+        }
+        if ( compiler == null ) {
+            logger.warn( "drools.compiledAlphaNetwork is enabled, but no AlphaNetworkCompilerService is available, is drools-compiler on the classpath?" );
+            return;
+        }
+
+        List<ObjectTypeNode> inUse = new ArrayList<ObjectTypeNode>( otns.size() );
+        for ( ObjectTypeNode otn : otns.values() ) {
+            if ( otn.isInUse() ) {
+                inUse.add( otn );
+            } else {
+                otn.setCompiledNetwork( null );
+            }
+        }
+        compiler.compile( this,
+                          inUse );
+    }
+
     public int getNodeCount() {
         // may start in 0
         return this.reteooBuilder.getIdGenerator().getLastId() + 1;
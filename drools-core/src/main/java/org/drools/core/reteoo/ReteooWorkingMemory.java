@@ -20,10 +20,14 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.drools.core.FactHandle;
 import org.drools.core.QueryResults;
@@ -31,6 +35,7 @@ import org.drools.core.SessionConfiguration;
 import org.drools.core.base.DroolsQuery;
 import org.drools.core.base.InternalViewChangedEventListener;
 import org.drools.core.base.NonCloningQueryViewListener;
+import org.drools.core.base.ProjectingQueryViewListener;
 import org.drools.core.base.QueryRowWithSubruleIndex;
 import org.drools.core.base.StandardQueryViewChangedEventListener;
 import org.drools.core.common.*;
@@ -64,6 +69,7 @@ import org.drools.core.spi.FactHandleFactory;
 import org.drools.core.spi.PropagationContext;
 import org.kie.api.runtime.Environment;
 import org.kie.api.runtime.ObjectFilter;
+import org.kie.api.runtime.conf.QueryListenerOption;
 import org.kie.api.runtime.rule.LiveQuery;
 import org.kie.api.runtime.rule.ViewChangedEventListener;
 
@@ -150,8 +156,26 @@ public class ReteooWorkingMemory extends AbstractWorkingMemory implements Reteoo
                                 null );
     }
 
+    public QueryResults getQueryResults(final String queryName,
+                                        final Object[] arguments) {
+        return getQueryResults( queryName,
+                                -1,
+                                null,
+                                arguments );
+    }
+
+    /**
+     * Returns the results of the given query, limited to maxRows rows and to the given
+     * identifiers. The rows beyond the limit and the handles the other identifiers are
+     * bound to are not collected at all.
+     *
+     * @param maxRows the maximum number of rows, or -1 for all of them
+     * @param identifiers the identifiers the rows give access to, or null for all of them
+     */
     @SuppressWarnings("unchecked")
     public QueryResults getQueryResults(final String queryName,
+                                        final int maxRows,
+                                        final String[] identifiers,
                                         final Object[] arguments) {
 
         try {
@@ -162,9 +186,18 @@ public class ReteooWorkingMemory extends AbstractWorkingMemory implements Reteoo
             this.ruleBase.executeQueuedActions();
             executeQueuedActions();
 
+            InternalViewChangedEventListener collector;
+            if ( maxRows < 0 && identifiers == null ) {
+                collector = getQueryListenerInstance();
+            } else {
+                collector = new ProjectingQueryViewListener( maxRows,
+                                                             identifiers,
+                                                             this.config.getQueryListenerOption() == QueryListenerOption.STANDARD );
+            }
+
             DroolsQuery queryObject = new DroolsQuery( queryName,
                                                        arguments,
-                                                       getQueryListenerInstance(),
+                                                       collector,
                                                        false ,
                                                        null,
                                                        null,
@@ -196,11 +229,21 @@ public class ReteooWorkingMemory extends AbstractWorkingMemory implements Reteoo
             executeQueuedActions();
             
             this.handleFactory.destroyFactHandle( handle );
-            
+
+            Declaration[] parameters = ( queryObject.getQuery() != null ) ? queryObject.getQuery().getParameters()  : new Declaration[0];
+            if ( identifiers != null ) {
+                Declaration[] queryParameters = ( tnodes != null && tnodes.length > 0 ) ? ((QueryTerminalNode) tnodes[0]).getQuery().getParameters() : parameters;
+                parameters = project( queryName,
+                                      identifiers,
+                                      decls,
+                                      queryParameters,
+                                      parameters );
+            }
+
             return new QueryResults( (List<QueryRowWithSubruleIndex>) queryObject.getQueryResultCollector().getResults(),
                                      decls.toArray( new Map[decls.size()] ),
                                      this,
-                                     ( queryObject.getQuery() != null ) ? queryObject.getQuery().getParameters()  : new Declaration[0] );
+                                     parameters );
         } finally {
             this.lock.unlock();
             this.ruleBase.readUnlock();
@@ -208,6 +251,50 @@ public class ReteooWorkingMemory extends AbstractWorkingMemory implements Reteoo
         }
     }
 
+    /**
+     * Restricts the declarations and the parameters of the query results to the projected
+     * identifiers, returning the projected parameters
+     */
+    private static Declaration[] project(String queryName,
+                                         String[] identifiers,
+                                         List<Map<String, Declaration>> decls,
+                                         Declaration[] queryParameters,
+                                         Declaration[] parameters) {
+        Set<String> projected = new HashSet<String>( Arrays.asList( identifiers ) );
+        for ( String identifier : identifiers ) {
+            boolean found = false;
+            for ( Declaration parameter : queryParameters ) {
+                found |= parameter.getIdentifier().equals( identifier );
+            }
+            for ( Map<String, Declaration> map : decls ) {
+                found |= map.containsKey( identifier );
+            }
+            if ( !found ) {
+                throw new IllegalArgumentException( "Query '" + queryName + "' has no identifier '" + identifier + "'" );
+            }
+        }
+
+        for ( int i = 0; i < decls.size(); i++ ) {
+            Map<String, Declaration> projection = new LinkedHashMap<String, Declaration>();
+            for ( Map.Entry<String, Declaration> entry : decls.get( i ).entrySet() ) {
+                if ( projected.contains( entry.getKey() ) ) {
+                    projection.put( entry.getKey(),
+                                    entry.getValue() );
+                }
+            }
+            decls.set( i,
+                       projection );
+        }
+
+        List<Declaration> projectedParameters = new ArrayList<Declaration>();
+        for ( Declaration parameter : parameters ) {
+            if ( projected.contains( parameter.getIdentifier() ) ) {
+                projectedParameters.add( parameter );
+            }
+        }
+        return projectedParameters.toArray( new Declaration[projectedParameters.size()] );
+    }
+
     private InternalViewChangedEventListener getQueryListenerInstance() {
         switch ( this.config.getQueryListenerOption() ) {
             case STANDARD :
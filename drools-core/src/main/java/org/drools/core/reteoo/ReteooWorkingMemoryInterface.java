@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Queue;
 
+import org.drools.core.QueryResults;
 import org.drools.core.common.EndOperationListener;
 import org.drools.core.common.EventSupport;
 import org.drools.core.common.InternalWorkingMemoryActions;
@@ -43,6 +44,8 @@ public interface ReteooWorkingMemoryInterface extends InternalWorkingMemoryActio
 
     LiveQuery openLiveQuery( String query, Object[] arguments, ViewChangedEventListener listener );
 
+    QueryResults getQueryResults( String query, int maxRows, String[] identifiers, Object[] arguments );
+
     void setEndOperationListener( EndOperationListener listener );
 
     long getLastIdleTimestamp();
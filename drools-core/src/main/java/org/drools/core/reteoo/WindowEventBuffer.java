@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.core.common.EventFactHandle;
+
+/**
+ * A time ordered ring buffer of the events of an ObjectTypeNode, shared by
+ * the sliding time windows of all the WindowNodes below it, so that each
+ * event is stored once instead of once per window.
+ *
+ * Each window walks the buffer with its own Cursor, which is always before
+ * the events it still has to expire, and the events before all the cursors
+ * are released. Events are only appended, so one inserted out of order, or
+ * already behind the cursor of the window asserting it, is not added and the
+ * window has to keep track of it itself.
+ *
+ * The buffer is not thread safe, callers synchronize on it.
+ */
+public class WindowEventBuffer {
+
+    private EventFactHandle[] elements;
+
+    private int               mask;
+
+    // sequence of the first retained event
+    private long              head;
+
+    // sequence following the last event
+    private long              tail;
+
+    private List<Cursor>      cursors;
+
+    public WindowEventBuffer() {
+        this( 16 );
+    }
+
+    public WindowEventBuffer(int initialCapacity) {
+        int capacity = 1;
+        while ( capacity < initialCapacity ) {
+            capacity <<= 1;
+        }
+        this.elements = new EventFactHandle[capacity];
+        this.mask = capacity - 1;
+        this.cursors = new ArrayList<Cursor>();
+    }
+
+    /**
+     * Creates a cursor positioned after the last event of the buffer
+     */
+    public Cursor newCursor() {
+        Cursor cursor = new Cursor( tail );
+        cursors.add( cursor );
+        return cursor;
+    }
+
+    public void removeCursor(Cursor cursor) {
+        cursors.remove( cursor );
+        trim();
+    }
+
+    /**
+     * Adds the event to the buffer, unless it is already there.
+     *
+     * @return true if the event is in the buffer at or after the given cursor,
+     *         false if it is behind it or it is older than the last event of the buffer
+     */
+    public boolean add(EventFactHandle handle,
+                       Cursor cursor) {
+        long sequence = indexOf( handle );
+        if ( sequence >= 0 ) {
+            return sequence >= cursor.position;
+        }
+        if ( head != tail && handle.getStartTimestamp() < get( tail - 1 ).getStartTimestamp() ) {
+            return false;
+        }
+        if ( tail - head == elements.length ) {
+            grow();
+        }
+        elements[(int) (tail & mask)] = handle;
+        tail++;
+        return true;
+    }
+
+    /**
+     * Returns the event at the cursor, or null if the cursor is after the last event
+     */
+    public EventFactHandle peek(Cursor cursor) {
+        return cursor.position < tail ? get( cursor.position ) : null;
+    }
+
+    /**
+     * Moves the cursor past the event it is on
+     */
+    public void advance(Cursor cursor) {
+        if ( cursor.position < tail ) {
+            cursor.position++;
+        }
+    }
+
+    /**
+     * Releases the events that are behind all the cursors
+     */
+    public void trim() {
+        long min = tail;
+        for ( int i = 0, length = cursors.size(); i < length; i++ ) {
+            min = Math.min( min, cursors.get( i ).position );
+        }
+        for ( ; head < min; head++ ) {
+            elements[(int) (head & mask)] = null;
+        }
+    }
+
+    public int size() {
+        return (int) (tail - head);
+    }
+
+    private EventFactHandle get(long sequence) {
+        return elements[(int) (sequence & mask)];
+    }
+
+    private long indexOf(EventFactHandle handle) {
+        // the events are ordered by their start timestamp, so find the first one with the same timestamp
+        long timestamp = handle.getStartTimestamp();
+        long low = head;
+        long high = tail;
+        while ( low < high ) {
+            long mid = (low + high) >>> 1;
+            if ( get( mid ).getStartTimestamp() < timestamp ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for ( long i = low; i < tail && get( i ).getStartTimestamp() == timestamp; i++ ) {
+            if ( get( i ) == handle ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        EventFactHandle[] newElements = new EventFactHandle[elements.length << 1];
+        int newMask = newElements.length - 1;
+        for ( long i = head; i < tail; i++ ) {
+            newElements[(int) (i & newMask)] = get( i );
+        }
+        this.elements = newElements;
+        this.mask = newMask;
+    }
+
+    public static class Cursor {
+        private long position;
+
+        Cursor(long position) {
+            this.position = position;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+    }
+}
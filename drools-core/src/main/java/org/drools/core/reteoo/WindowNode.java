@@ -32,11 +32,15 @@ import org.drools.core.common.MemoryFactory;
 import org.drools.core.common.PropagationContextImpl;
 import org.drools.core.util.Iterator;
 import org.drools.core.util.ObjectHashMap;
+import org.drools.core.reteoo.ObjectTypeNode.ObjectTypeNodeMemory;
 import org.drools.core.reteoo.builder.BuildContext;
+import org.drools.core.rule.Accumulate;
 import org.drools.core.rule.Behavior;
 import org.drools.core.rule.BehaviorManager;
 import org.drools.core.rule.ContextEntry;
 import org.drools.core.rule.EntryPoint;
+import org.drools.core.rule.HoppingTimeWindow;
+import org.drools.core.rule.HoppingTimeWindow.Pane;
 import org.drools.core.spi.AlphaNodeFieldConstraint;
 import org.drools.core.spi.PropagationContext;
 
@@ -50,6 +54,8 @@ import org.drools.core.spi.PropagationContext;
  * threads propagating events and expiring events working on this node at the
  * same time. It requires it to be thread safe.
  *
+ * A hopping window feeding an accumulate that merges partial results
+ * propagates its panes instead of its events, see {@link HoppingTimeWindow}.
  */
 public class WindowNode extends ObjectSource
                                             implements ObjectSinkNode,
@@ -60,6 +66,8 @@ public class WindowNode extends ObjectSource
     private List<AlphaNodeFieldConstraint> constraints;
     private BehaviorManager                behavior;
     private EntryPoint                     entryPoint;
+    // the accumulate the panes are propagated to, if any
+    private Accumulate                     paneAccumulate;
 
     private ObjectSinkNode                 previousRightTupleSinkNode;
     private ObjectSinkNode                 nextRightTupleSinkNode;
@@ -90,7 +98,7 @@ public class WindowNode extends ObjectSource
         this.constraints = new ArrayList<AlphaNodeFieldConstraint>(constraints);
         this.behavior = new BehaviorManager(behaviors);
         this.entryPoint = context.getCurrentEntryPoint();
-
+        this.paneAccumulate = context.getPaneAccumulate();
     }
 
     @SuppressWarnings("unchecked")
@@ -100,6 +108,7 @@ public class WindowNode extends ObjectSource
         constraints = (List<AlphaNodeFieldConstraint>) in.readObject();
         behavior = (BehaviorManager) in.readObject();
         entryPoint = (EntryPoint) in.readObject();
+        paneAccumulate = (Accumulate) in.readObject();
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
@@ -107,6 +116,7 @@ public class WindowNode extends ObjectSource
         out.writeObject(constraints);
         out.writeObject(behavior);
         out.writeObject(entryPoint);
+        out.writeObject(paneAccumulate);
     }
     
     public short getType() {
@@ -163,6 +173,10 @@ public class WindowNode extends ObjectSource
                     return;
                 }
             }
+            if (this.paneAccumulate != null) {
+                assertIntoPane(factHandle, context, memory, workingMemory);
+                return;
+            }
             // process the behavior
             if (!behavior.assertFact(memory, factHandle, workingMemory)) {
                 return;
@@ -180,10 +194,50 @@ public class WindowNode extends ObjectSource
         }
     }
 
+    /**
+     * Accumulates the event into its pane, and propagates the pane again
+     */
+    private void assertIntoPane(final InternalFactHandle factHandle,
+                                final PropagationContext context,
+                                final WindowMemory memory,
+                                final InternalWorkingMemory workingMemory) {
+        HoppingTimeWindow window = (HoppingTimeWindow) this.behavior.getBehaviors()[0];
+        Pane pane = window.accumulateFact(memory,
+                ((Object[]) memory.behaviorContext)[0],
+                this.paneAccumulate,
+                factHandle,
+                workingMemory);
+        if (pane == null) {
+            return;
+        }
+        EventFactHandle handle = pane.getHandle();
+        WindowTupleList list = (WindowTupleList) memory.events.get(handle);
+        if (list != null) {
+            // the accumulate merges the other panes again, without the former partial results
+            for (WindowTuple tuple = list.getFirstWindowTuple(); tuple != null; ) {
+                WindowTuple next = tuple.getWindowNext();
+                tuple.getRightTupleSink().retractRightTuple(tuple,
+                        context,
+                        workingMemory);
+                tuple = next;
+            }
+        }
+        list = new WindowTupleList(handle, this);
+        context.setActiveWindowTupleList(list);
+
+        memory.events.put(handle, list);
+        this.sink.propagateAssertObject(handle, context, workingMemory);
+        context.setActiveWindowTupleList(null);
+    }
+
     public void modifyObject(final InternalFactHandle factHandle,
             final ModifyPreviousTuples modifyPreviousTuples,
             final PropagationContext context,
             final InternalWorkingMemory workingMemory) {
+        if (this.paneAccumulate != null) {
+            // the events are only accumulated into the panes as they enter the window
+            return;
+        }
         final WindowMemory memory = (WindowMemory) workingMemory.getNodeMemory(this);
 
         // must guarantee single thread from now on
@@ -270,6 +324,9 @@ public class WindowNode extends ObjectSource
             ModifyPreviousTuples modifyPreviousTuples,
             PropagationContext context,
             InternalWorkingMemory workingMemory) {
+        if (this.paneAccumulate != null) {
+            return;
+        }
         final WindowMemory memory = (WindowMemory) workingMemory.getNodeMemory(this);
 
         // must guarantee single thread from now on
@@ -318,10 +375,33 @@ public class WindowNode extends ObjectSource
             memory.context[index++] = alpha.createContextEntry();
         }
         memory.behaviorContext = this.behavior.createBehaviorContext();
+        if ( this.paneAccumulate != null ) {
+            memory.accumulateContext = this.paneAccumulate.createWorkingMemoryContext();
+        }
         memory.gate = new ReentrantLock();
+        if ( config.isSharedWindowBuffers() && this.source instanceof ObjectTypeNode ) {
+            memory.eventBuffer = ((ObjectTypeNodeMemory) wm.getNodeMemory( (ObjectTypeNode) this.source )).getWindowEventBuffer();
+        }
         return memory;
     }
 
+    protected void doRemove(final RuleRemovalContext context,
+                            final ReteooBuilder builder,
+                            final InternalWorkingMemory[] workingMemories) {
+        if ( !isInUse() ) {
+            // releases the cursors of the sliding windows on the shared event buffer
+            for ( InternalWorkingMemory workingMemory : workingMemories ) {
+                WindowMemory memory = (WindowMemory) workingMemory.getNodeMemory( this );
+                if ( memory.eventBuffer != null ) {
+                    this.behavior.releaseBehaviorContext( memory );
+                }
+            }
+        }
+        super.doRemove( context,
+                        builder,
+                        workingMemories );
+    }
+
     public String toString() {
         return "[WindowNode(" + this.id + ") constraints=" + this.constraints + "]";
     }
@@ -346,7 +426,8 @@ public class WindowNode extends ObjectSource
 
         final WindowNode other = (WindowNode) object;
 
-        return this.source.equals(other.source) && this.constraints.equals(other.constraints) && behavior.equals(other.behavior);
+        return this.source.equals(other.source) && this.constraints.equals(other.constraints) && behavior.equals(other.behavior)
+               && (this.paneAccumulate == null ? other.paneAccumulate == null : this.paneAccumulate.equals(other.paneAccumulate));
     }
 
     /**
@@ -394,6 +475,8 @@ public class WindowNode extends ObjectSource
         public ObjectHashMap           events           = new ObjectHashMap();
         public ContextEntry[]          context;
         public Object                  behaviorContext;
+        public WindowEventBuffer       eventBuffer;
+        public Object[]                accumulateContext;
 
         public transient ReentrantLock gate;
 
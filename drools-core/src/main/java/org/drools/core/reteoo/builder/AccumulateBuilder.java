@@ -27,9 +27,13 @@ import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.QueryRiaFixerNode;
 import org.drools.core.reteoo.RightInputAdapterNode;
 import org.drools.core.rule.Accumulate;
+import org.drools.core.rule.EntryPoint;
 import org.drools.core.rule.GroupElement;
+import org.drools.core.rule.HoppingTimeWindow;
+import org.drools.core.rule.Pattern;
 import org.drools.core.rule.RuleConditionElement;
 import org.drools.core.spi.AlphaNodeFieldConstraint;
+import org.drools.core.spi.Constraint;
 
 public class AccumulateBuilder
     implements
@@ -62,11 +66,21 @@ public class AccumulateBuilder
         // save tuple source and current pattern offset for later if needed
         LeftTupleSource tupleSource = context.getTupleSource();
         final int currentPatternIndex = context.getCurrentPatternOffset();
-        
+
+        // a hopping window propagates the partial results of its panes instead of its events,
+        // only when asked to as the retracted or modified events are then not reflected
+        if ( context.getRuleBase().getConfiguration().isWindowPanes() && source instanceof Pattern &&
+             isPaneWindow( context,
+                           (Pattern) source ) && accumulate.isMergeable() ) {
+            accumulate.setWindowPanes( true );
+            context.setPaneAccumulate( accumulate );
+        }
+
         // builds the source pattern
         builder.build( context,
                        utils,
                        source );                 
+        context.setPaneAccumulate( null );
         
         // if object source is null, then we need to adapt tuple source into a subnetwork
         if ( context.getObjectSource() == null ) {
@@ -118,6 +132,26 @@ public class AccumulateBuilder
         context.popRuleComponent();
     }
 
+    /**
+     * Returns true if the pattern is an inline hopping window whose constraints
+     * only read the event
+     */
+    private boolean isPaneWindow(final BuildContext context,
+                                 final Pattern pattern) {
+        if ( pattern.getBehaviors().size() != 1 || !(pattern.getBehaviors().get( 0 ) instanceof HoppingTimeWindow) ) {
+            return false;
+        }
+        if ( (pattern.getSource() != null && !(pattern.getSource() instanceof EntryPoint)) || context.getRuleBase().getConfiguration().isRemoveIdentities() ) {
+            return false;
+        }
+        for ( Object object : pattern.getConstraints() ) {
+            if ( object instanceof Constraint && ((Constraint) object).getType() != Constraint.ConstraintType.ALPHA ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @inheritDoc
      */
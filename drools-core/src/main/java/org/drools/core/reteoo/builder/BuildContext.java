@@ -25,6 +25,7 @@ import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.ReteooBuilder;
 import org.drools.core.reteoo.ReteooComponentFactory;
+import org.drools.core.rule.Accumulate;
 import org.drools.core.rule.EntryPoint;
 import org.drools.core.rule.GroupElement;
 import org.drools.core.rule.Pattern;
@@ -96,6 +97,8 @@ public class BuildContext {
     private boolean                          emptyForAllBetaConstraints;
     private ReteooComponentFactory           componentFactory;
     private boolean                          attachPQN;
+    // the accumulate the window being built propagates its panes to
+    private Accumulate                       paneAccumulate;
 
     public BuildContext(final InternalRuleBase rulebase,
                         final ReteooBuilder.IdGenerator idGenerator) {
@@ -509,6 +512,14 @@ public class BuildContext {
         this.attachPQN = attachPQN;
     }
 
+    public Accumulate getPaneAccumulate() {
+        return paneAccumulate;
+    }
+
+    public void setPaneAccumulate(final Accumulate paneAccumulate) {
+        this.paneAccumulate = paneAccumulate;
+    }
+
     public ReteooComponentFactory getComponentFactory() {
         return componentFactory;
     }
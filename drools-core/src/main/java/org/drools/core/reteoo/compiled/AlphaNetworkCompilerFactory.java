@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo.compiled;
+
+import org.kie.internal.utils.ServiceRegistryImpl;
+
+public class AlphaNetworkCompilerFactory {
+
+    private static AlphaNetworkCompilerService provider;
+
+    public static synchronized void setAlphaNetworkCompilerService(AlphaNetworkCompilerService provider) {
+        AlphaNetworkCompilerFactory.provider = provider;
+    }
+
+    public static synchronized AlphaNetworkCompilerService getAlphaNetworkCompilerService() {
+        if ( provider == null ) {
+            loadProvider();
+        }
+        return provider;
+    }
+
+    private static void loadProvider() {
+        ServiceRegistryImpl.getInstance().addDefault( AlphaNetworkCompilerService.class, "org.drools.compiler.reteoo.compiled.AlphaNetworkCompilerServiceImpl" );
+        setAlphaNetworkCompilerService( ServiceRegistryImpl.getInstance().get( AlphaNetworkCompilerService.class ) );
+    }
+
+}
@@ -18,6 +18,7 @@ package org.drools.core.reteoo.compiled;
 
 import org.drools.core.base.ClassFieldReader;
 import org.drools.core.util.Iterator;
+import org.drools.core.util.LinkedList;
 import org.drools.core.util.ObjectHashMap;
 import org.drools.core.reteoo.*;
 import org.drools.core.rule.constraint.MvelConstraint;
@@ -82,6 +83,7 @@ public class ObjectTypeNodeParser {
 
             traverseSinkLisk(composite.getHashableSinks(), handler);
             traverseSinkLisk(composite.getOthers(), handler);
+            traverseRangeIndexedAlphaNodes(composite.getRangeIndexes(), handler);
             traverseHashedAlphaNodes(composite.getHashedSinkMap(), handler);
         }
     }
@@ -117,6 +119,22 @@ public class ObjectTypeNodeParser {
         }
     }
 
+    /**
+     * The range indexed alphas are reported as non-hashed ones, each one testing its own constraint. The inactive
+     * indexes are skipped, as their alphas are still in the other sinks.
+     */
+    private void traverseRangeIndexedAlphaNodes(LinkedList<CompositeObjectSinkAdapter.RangeIndex> rangeIndexes, NetworkHandler handler) {
+        if (rangeIndexes != null) {
+            for (CompositeObjectSinkAdapter.RangeIndex rangeIndex = rangeIndexes.getFirst(); rangeIndex != null; rangeIndex = rangeIndex.getNext()) {
+                if (rangeIndex.isActive()) {
+                    for (AlphaNode alphaNode : rangeIndex.getAlphaNodes()) {
+                        traverseSink(alphaNode, handler);
+                    }
+                }
+            }
+        }
+    }
+
     private void traverseHashedAlphaNodes(ObjectHashMap hashedAlphaNodes, NetworkHandler handler) {
         if (hashedAlphaNodes != null && hashedAlphaNodes.size() > 0) {
             AlphaNode firstAlpha = getFirstAlphaNode(hashedAlphaNodes);
@@ -28,6 +28,7 @@ import java.util.Map;
 
 import org.drools.core.RuntimeDroolsException;
 import org.drools.core.WorkingMemory;
+import org.drools.core.base.accumulators.JavaAccumulatorFunctionExecutor;
 import org.drools.core.common.InternalFactHandle;
 import org.drools.core.reteoo.RuleTerminalNode;
 import org.drools.core.spi.Accumulator;
@@ -49,6 +50,8 @@ public class Accumulate extends ConditionalElement
     private Declaration[]        requiredDeclarations;
     private Declaration[]        innerDeclarationCache;
     private boolean              multiFunction;
+    // true if the source is a hopping window propagating its panes instead of its events
+    private boolean              windowPanes;
 
     private List<Accumulate>     cloned           = Collections.<Accumulate> emptyList();
 
@@ -92,6 +95,7 @@ public class Accumulate extends ConditionalElement
             this.accumulators[i] = (Accumulator) in.readObject();
         }
         this.multiFunction = in.readBoolean();
+        this.windowPanes = in.readBoolean();
         source = (RuleConditionElement) in.readObject();
         requiredDeclarations = (Declaration[]) in.readObject();
         this.cloned = (List<Accumulate>) in.readObject();
@@ -107,6 +111,7 @@ public class Accumulate extends ConditionalElement
             }
         }
         out.writeBoolean( multiFunction );
+        out.writeBoolean( windowPanes );
         out.writeObject( this.source );
         out.writeObject( this.requiredDeclarations );
         out.writeObject( this.cloned );
@@ -168,6 +173,11 @@ public class Accumulate extends ConditionalElement
                            final Tuple leftTuple,
                            final InternalFactHandle handle,
                            final WorkingMemory workingMemory) {
+        if ( this.windowPanes ) {
+            merge( context,
+                   handle );
+            return;
+        }
         try {
             for ( int i = 0; i < this.accumulators.length; i++ ) {
                 this.accumulators[i].accumulate( workingMemoryContext[i],
@@ -183,6 +193,60 @@ public class Accumulate extends ConditionalElement
         }
     }
 
+    private void merge(final Object[] context,
+                       final InternalFactHandle handle) {
+        Serializable[] partials = ((HoppingTimeWindow.Pane) handle.getObject()).getPartials();
+        for ( int i = 0; i < this.accumulators.length; i++ ) {
+            ((JavaAccumulatorFunctionExecutor) this.accumulators[i]).merge( context[i],
+                                                                            partials[i] );
+        }
+    }
+
+    /**
+     * Returns true if every function of this accumulate can merge partial results,
+     * accumulated without the left tuple
+     */
+    public boolean isMergeable() {
+        if ( this.requiredDeclarations.length > 0 ) {
+            return false;
+        }
+        for ( Accumulator acc : this.accumulators ) {
+            if ( !(acc instanceof JavaAccumulatorFunctionExecutor) || !((JavaAccumulatorFunctionExecutor) acc).isMergeable() ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Serializable[] createPartialContexts() {
+        Serializable[] partials = new Serializable[this.accumulators.length];
+        for ( int i = 0; i < partials.length; i++ ) {
+            partials[i] = ((JavaAccumulatorFunctionExecutor) this.accumulators[i]).createPartialContext();
+        }
+        return partials;
+    }
+
+    /**
+     * Accumulates the given fact handle into the partial results of a pane
+     */
+    public void accumulatePartials(final Object[] workingMemoryContext,
+                                   final Serializable[] partials,
+                                   final InternalFactHandle handle,
+                                   final WorkingMemory workingMemory) {
+        try {
+            for ( int i = 0; i < this.accumulators.length; i++ ) {
+                ((JavaAccumulatorFunctionExecutor) this.accumulators[i]).accumulatePartial( workingMemoryContext[i],
+                                                                                            partials[i],
+                                                                                            handle,
+                                                                                            this.requiredDeclarations,
+                                                                                            getInnerDeclarationCache(),
+                                                                                            workingMemory );
+            }
+        } catch ( final Exception e ) {
+            throw new RuntimeDroolsException( e );
+        }
+    }
+
     /**
      * Executes the reverse (action) code for the given fact handle
      *
@@ -246,6 +310,11 @@ public class Accumulate extends ConditionalElement
      * @return
      */
     public boolean supportsReverse() {
+        if ( this.windowPanes ) {
+            // the partial result of a pane changes while it is in the window, so
+            // the other panes are merged again instead
+            return false;
+        }
         boolean supports = true;
         for( Accumulator acc : this.accumulators ) {
             if( ! acc.supportsReverse() ) {
@@ -262,6 +331,7 @@ public class Accumulate extends ConditionalElement
                                            this.requiredDeclarations,
                                            this.accumulators,
                                            this.multiFunction );
+        clone.windowPanes = this.windowPanes;
 
         if ( this.cloned == Collections.EMPTY_LIST ) {
             this.cloned = new ArrayList<Accumulate>( 1 );
@@ -320,6 +390,18 @@ public class Accumulate extends ConditionalElement
     public void setMultiFunction( boolean multiFunction ) {
         this.multiFunction = multiFunction;
     }
+
+    /**
+     * @return true if the source propagates the panes of a hopping window, whose
+     * partial results are merged, instead of its events
+     */
+    public boolean isWindowPanes() {
+        return windowPanes;
+    }
+
+    public void setWindowPanes( boolean windowPanes ) {
+        this.windowPanes = windowPanes;
+    }
     
     public void replaceDeclaration(Declaration declaration,
                                    Declaration resolved) {
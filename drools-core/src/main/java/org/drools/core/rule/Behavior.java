@@ -30,7 +30,9 @@ public interface Behavior extends RuleComponent, Cloneable {
     
     public enum BehaviorType {
         TIME_WINDOW( "time" ),
-        LENGTH_WINDOW( "length" );
+        LENGTH_WINDOW( "length" ),
+        TUMBLING_WINDOW( "tumbling" ),
+        HOPPING_WINDOW( "hopping" );
         
         private final String id;
         
@@ -116,6 +116,20 @@ public class BehaviorManager
         }
     }
 
+    /**
+     * Releases the resources the behaviors' context hold outside of the window memory,
+     * as the cursors on a shared event buffer
+     * @param memory
+     */
+    public void releaseBehaviorContext(final WindowMemory memory) {
+        for ( int i = 0; i < behaviors.length; i++ ) {
+            if ( behaviors[i] instanceof SlidingTimeWindow ) {
+                ((SlidingTimeWindow) behaviors[i]).releaseContext( memory,
+                                                                   ((Object[]) memory.behaviorContext)[i] );
+            }
+        }
+    }
+
     /**
      * @return the behaviors
      */
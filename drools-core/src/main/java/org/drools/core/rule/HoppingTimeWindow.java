@@ -0,0 +1,346 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.rule;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.spi.FactHandleFactory;
+import org.drools.core.reteoo.WindowNode.WindowMemory;
+import org.drools.core.rule.SlidingTimeWindow.BehaviorJobContext;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.impl.PointInTimeTrigger;
+
+/**
+ * A hopping time window: windows of the given size starting every hop, aligned
+ * on the clock, so that the current window is the one ending at the next
+ * multiple of the hop. A tumbling window is a hopping window whose hop is
+ * equal to its size.
+ *
+ * The events are grouped in panes, one for each hop, and all the events of a
+ * pane leave the window together when the window no longer covers the pane, so
+ * a single job is scheduled for each pane instead of one for each event.
+ *
+ * When the WindowPanesOption is enabled and the window feeds an accumulate
+ * whose functions all merge partial results, each pane keeps the partial
+ * results of its events instead of the events themselves, and the pane is
+ * propagated in their place. The events are only accumulated as they enter
+ * the window: retracting or modifying an event afterwards does not change the
+ * partial results of its pane.
+ */
+public class HoppingTimeWindow
+    implements
+    Externalizable,
+    Behavior {
+
+    private long size;
+    private long hop;
+
+    public HoppingTimeWindow() {
+        this( 0,
+              0 );
+    }
+
+    /**
+     * @param size the size of each window
+     * @param hop the time between the start of two consecutive windows
+     */
+    public HoppingTimeWindow(final long size,
+                             final long hop) {
+        super();
+        this.size = size;
+        this.hop = hop;
+    }
+
+    /**
+     * Creates a tumbling window, whose windows do not overlap
+     */
+    public static HoppingTimeWindow tumbling(final long size) {
+        return new HoppingTimeWindow( size,
+                                      size );
+    }
+
+    public void readExternal(final ObjectInput in) throws IOException,
+                                                  ClassNotFoundException {
+        this.size = in.readLong();
+        this.hop = in.readLong();
+    }
+
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeLong( this.size );
+        out.writeLong( this.hop );
+    }
+
+    public BehaviorType getType() {
+        return this.size == this.hop ? BehaviorType.TUMBLING_WINDOW : BehaviorType.HOPPING_WINDOW;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHop() {
+        return hop;
+    }
+
+    public Object createContext() {
+        return new HoppingTimeWindowContext();
+    }
+
+    /**
+     * Returns the time at which an event leaves the window: the first multiple
+     * of the hop at which the window starts after the event
+     */
+    public long getExpirationTime(final long timestamp) {
+        long start = timestamp + this.size - this.hop;
+        return (floorDiv( start,
+                          this.hop ) + 1) * this.hop;
+    }
+
+    private static long floorDiv(final long a,
+                                 final long b) {
+        long div = a / b;
+        return (a % b != 0 && (a < 0) != (b < 0)) ? div - 1 : div;
+    }
+
+    public boolean assertFact(final WindowMemory memory,
+                              final Object context,
+                              final InternalFactHandle fact,
+                              final InternalWorkingMemory workingMemory) {
+        final HoppingTimeWindowContext panes = (HoppingTimeWindowContext) context;
+        final EventFactHandle handle = (EventFactHandle) fact;
+        long expirationTime = getExpirationTime( handle.getStartTimestamp() );
+        if ( expirationTime <= workingMemory.getTimerService().getCurrentTime() ) {
+            // the event is older than the current window
+            return false;
+        }
+        synchronized ( panes ) {
+            List<EventFactHandle> pane = panes.panes.get( expirationTime );
+            if ( pane == null ) {
+                pane = new ArrayList<EventFactHandle>();
+                panes.panes.put( expirationTime,
+                                 pane );
+                scheduleExpiration( expirationTime,
+                                    memory,
+                                    panes,
+                                    workingMemory );
+            }
+            pane.add( handle );
+        }
+        return true;
+    }
+
+    /**
+     * Accumulates an event into the partial results of its pane, creating the
+     * pane if needed. Returns the pane, or null if the event is older than the
+     * current window.
+     */
+    public Pane accumulateFact(final WindowMemory memory,
+                               final Object context,
+                               final Accumulate accumulate,
+                               final InternalFactHandle fact,
+                               final InternalWorkingMemory workingMemory) {
+        final HoppingTimeWindowContext panes = (HoppingTimeWindowContext) context;
+        final EventFactHandle handle = (EventFactHandle) fact;
+        long expirationTime = getExpirationTime( handle.getStartTimestamp() );
+        if ( expirationTime <= workingMemory.getTimerService().getCurrentTime() ) {
+            return null;
+        }
+        synchronized ( panes ) {
+            Pane pane = panes.partials.get( expirationTime );
+            if ( pane == null ) {
+                pane = new Pane( accumulate.createPartialContexts() );
+                FactHandleFactory factory = workingMemory.getFactHandleFactory();
+                pane.handle = new EventFactHandle( factory.getAtomicId().incrementAndGet(),
+                                                   pane,
+                                                   factory.getAtomicRecency().incrementAndGet(),
+                                                   expirationTime - this.hop,
+                                                   0,
+                                                   handle.getEntryPoint() );
+                panes.partials.put( expirationTime,
+                                    pane );
+                scheduleExpiration( expirationTime,
+                                    memory,
+                                    panes,
+                                    workingMemory );
+            }
+            accumulate.accumulatePartials( memory.accumulateContext,
+                                           pane.partials,
+                                           handle,
+                                           workingMemory );
+            return pane;
+        }
+    }
+
+    public void retractFact(final WindowMemory memory,
+                            final Object context,
+                            final InternalFactHandle fact,
+                            final InternalWorkingMemory workingMemory) {
+        final HoppingTimeWindowContext panes = (HoppingTimeWindowContext) context;
+        final EventFactHandle handle = (EventFactHandle) fact;
+        synchronized ( panes ) {
+            // the pane is no longer there if it is the one being expired
+            List<EventFactHandle> pane = panes.panes.get( getExpirationTime( handle.getStartTimestamp() ) );
+            if ( pane != null ) {
+                pane.remove( handle );
+            }
+        }
+    }
+
+    public void expireFacts(final WindowMemory memory,
+                            final Object context,
+                            final InternalWorkingMemory workingMemory) {
+        final HoppingTimeWindowContext panes = (HoppingTimeWindowContext) context;
+        long currentTime = workingMemory.getTimerService().getCurrentTime();
+        synchronized ( panes ) {
+            while ( !panes.panes.isEmpty() && panes.panes.firstKey() <= currentTime ) {
+                Map.Entry<Long, List<EventFactHandle>> entry = panes.panes.pollFirstEntry();
+                for ( EventFactHandle handle : entry.getValue() ) {
+                    if ( handle.isValid() ) {
+                        SlidingTimeWindow.expireHandle( memory,
+                                                        handle,
+                                                        workingMemory );
+                    }
+                }
+            }
+            while ( !panes.partials.isEmpty() && panes.partials.firstKey() <= currentTime ) {
+                EventFactHandle handle = panes.partials.pollFirstEntry().getValue().handle;
+                SlidingTimeWindow.expireHandle( memory,
+                                                handle,
+                                                workingMemory );
+                memory.events.remove( handle );
+            }
+        }
+    }
+
+    private void scheduleExpiration(final long expirationTime,
+                                    final WindowMemory memory,
+                                    final HoppingTimeWindowContext panes,
+                                    final InternalWorkingMemory workingMemory) {
+        TimerService clock = workingMemory.getTimerService();
+        JobContext jobctx = new BehaviorJobContext( workingMemory,
+                                                    this,
+                                                    memory,
+                                                    panes );
+        JobHandle handle = clock.scheduleJob( SlidingTimeWindow.job,
+                                              jobctx,
+                                              new PointInTimeTrigger( expirationTime,
+                                                                      null,
+                                                                      null ) );
+        jobctx.setJobHandle( handle );
+    }
+
+    public long getExpirationOffset() {
+        return this.size;
+    }
+
+    public String toString() {
+        return "HoppingTimeWindow( size=" + size + " hop=" + hop + " )";
+    }
+
+    public static class HoppingTimeWindowContext
+        implements
+        Externalizable {
+
+        // the events of each pane, by the time at which they leave the window
+        public TreeMap<Long, List<EventFactHandle>> panes;
+
+        // or their partial results, when the panes are propagated instead of the events
+        public TreeMap<Long, Pane>                  partials;
+
+        public HoppingTimeWindowContext() {
+            this.panes = new TreeMap<Long, List<EventFactHandle>>();
+            this.partials = new TreeMap<Long, Pane>();
+        }
+
+        @SuppressWarnings("unchecked")
+        public void readExternal(ObjectInput in) throws IOException,
+                                                ClassNotFoundException {
+            this.panes = (TreeMap<Long, List<EventFactHandle>>) in.readObject();
+            this.partials = (TreeMap<Long, Pane>) in.readObject();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject( this.panes );
+            out.writeObject( this.partials );
+        }
+
+        /**
+         * Returns the first event, or the handle, of the next pane to expire
+         */
+        public EventFactHandle peek() {
+            if ( !partials.isEmpty() ) {
+                return partials.firstEntry().getValue().handle;
+            }
+            for ( List<EventFactHandle> pane : panes.values() ) {
+                if ( !pane.isEmpty() ) {
+                    return pane.get( 0 );
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The partial accumulate results of the events of a pane, one for each
+     * function, and the handle the pane is propagated with
+     */
+    public static class Pane
+        implements
+        Externalizable {
+
+        private Serializable[]            partials;
+
+        private transient EventFactHandle handle;
+
+        public Pane() {
+        }
+
+        public Pane(final Serializable[] partials) {
+            this.partials = partials;
+        }
+
+        public void readExternal(ObjectInput in) throws IOException,
+                                                ClassNotFoundException {
+            this.partials = (Serializable[]) in.readObject();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject( this.partials );
+        }
+
+        public Serializable[] getPartials() {
+            return partials;
+        }
+
+        public EventFactHandle getHandle() {
+            return handle;
+        }
+    }
+}
@@ -55,6 +55,7 @@ public class MVELDialectRuntimeData
     private Map<String, Object>              imports;
     private HashSet<String>                  packageImports;
     private ParserConfiguration              parserConfiguration;
+    private transient ThreadLocal<ParserConfiguration> threadParserConfiguration = new ThreadLocal<ParserConfiguration>();
 
     private boolean                          dirty;
 
@@ -285,6 +286,32 @@ public class MVELDialectRuntimeData
     }
 
     public ParserConfiguration getParserConfiguration() {
+        ParserConfiguration conf = this.threadParserConfiguration.get();
+        return conf != null ? conf : getSharedParserConfiguration();
+    }
+
+    /**
+     * Gives the current thread its own copy of the parser configuration, until releaseThreadParserConfiguration()
+     * is called. MVEL records the imports it resolves in the configuration, so the threads building the rules of
+     * a package in parallel cannot share it.
+     */
+    public void useThreadParserConfiguration() {
+        // resolves the imports
+        getSharedParserConfiguration();
+        ParserConfiguration conf = new ParserConfiguration();
+        synchronized ( this ) {
+            conf.setImports( this.imports );
+            conf.setPackageImports( new HashSet<String>( this.packageImports ) );
+        }
+        conf.setClassLoader( this.rootClassLoader );
+        this.threadParserConfiguration.set( conf );
+    }
+
+    public void releaseThreadParserConfiguration() {
+        this.threadParserConfiguration.remove();
+    }
+
+    private synchronized ParserConfiguration getSharedParserConfiguration() {
         if ( parserConfiguration == null ) {
             ClassLoader classLoader = rootClassLoader;
 
@@ -356,12 +383,12 @@ public class MVELDialectRuntimeData
         }
     }
 
-    public void addCompileable(MVELCompileable compilable) {
+    public synchronized void addCompileable(MVELCompileable compilable) {
         this.mvelReaders.add( compilable );
     }
 
-    public void addCompileable(Wireable wireable,
-                               MVELCompileable compilable) {
+    public synchronized void addCompileable(Wireable wireable,
+                                            MVELCompileable compilable) {
         invokerLookups.put( wireable,
                             compilable );
     }
@@ -266,12 +266,12 @@ public class Package
         return this.imports;
     }
 
-    public void addTypeDeclaration( final TypeDeclaration typeDecl ) {
+    public synchronized void addTypeDeclaration( final TypeDeclaration typeDecl ) {
         this.typeDeclarations.put( typeDecl.getTypeName(),
                                    typeDecl );
     }
 
-    public void removeTypeDeclaration( final String type ) {
+    public synchronized void removeTypeDeclaration( final String type ) {
         this.typeDeclarations.remove( type );
     }
 
@@ -279,7 +279,7 @@ public class Package
         return this.typeDeclarations;
     }
 
-    public TypeDeclaration getTypeDeclaration( Class<?> clazz ) {
+    public synchronized TypeDeclaration getTypeDeclaration( Class<?> clazz ) {
         if (clazz == null) {
             return null;
         }
@@ -296,7 +296,7 @@ public class Package
         return typeDeclaration;
     }
 
-    public TypeDeclaration getTypeDeclaration( String type ) {
+    public synchronized TypeDeclaration getTypeDeclaration( String type ) {
         return this.typeDeclarations.get( type );
     }
 
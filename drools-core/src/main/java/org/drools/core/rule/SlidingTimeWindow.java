@@ -38,6 +38,7 @@ import org.drools.core.marshalling.impl.ProtobufMessages.Timers.Timer;
 import org.drools.core.marshalling.impl.TimersInputMarshaller;
 import org.drools.core.marshalling.impl.TimersOutputMarshaller;
 import org.drools.core.reteoo.RightTuple;
+import org.drools.core.reteoo.WindowEventBuffer;
 import org.drools.core.reteoo.WindowNode;
 import org.drools.core.reteoo.WindowNode.WindowMemory;
 import org.drools.core.reteoo.WindowTuple;
@@ -122,6 +123,13 @@ public class SlidingTimeWindow
                               final InternalWorkingMemory workingMemory) {
         final SlidingTimeWindowContext queue = (SlidingTimeWindowContext) context;
         final EventFactHandle handle = (EventFactHandle) fact;
+        if ( memory.eventBuffer != null ) {
+            assertSharedFact( memory,
+                              queue,
+                              handle,
+                              workingMemory );
+            return true;
+        }
         synchronized (queue.queue) {
             queue.queue.add( handle );
             if ( queue.queue.peek() == handle ) {
@@ -147,6 +155,16 @@ public class SlidingTimeWindow
                             final InternalWorkingMemory workingMemory) {
         final SlidingTimeWindowContext queue = (SlidingTimeWindowContext) context;
         final EventFactHandle handle = (EventFactHandle) fact;
+        if ( memory.eventBuffer != null ) {
+            // the shared buffer keeps the handle until all the cursors are past it,
+            // it is skipped on expiration as it is no longer in the window memory
+            synchronized (memory.eventBuffer) {
+                if ( queue.expiringHandle != handle ) {
+                    queue.queue.remove( handle );
+                }
+            }
+            return;
+        }
         // it may be a call back to expire the tuple that is already being expired
         synchronized (queue.queue) {
             if ( queue.expiringHandle != handle ) {
@@ -172,6 +190,13 @@ public class SlidingTimeWindow
         TimerService clock = workingMemory.getTimerService();
         long currentTime = clock.getCurrentTime();
         SlidingTimeWindowContext queue = (SlidingTimeWindowContext) context;
+        if ( memory.eventBuffer != null ) {
+            expireSharedFacts( memory,
+                               queue,
+                               currentTime,
+                               workingMemory );
+            return;
+        }
         EventFactHandle handle = queue.queue.peek();
         synchronized (queue.queue) {
             while ( handle != null && isExpired( currentTime,
@@ -180,22 +205,9 @@ public class SlidingTimeWindow
                 queue.queue.remove();
                 if( handle.isValid()) {
                     // if not expired yet, expire it
-                    final PropagationContext pctx = new PropagationContextImpl( workingMemory.getNextPropagationIdCounter(),
-                                                                                              PropagationContext.EXPIRATION,
-                                                                                              null,
-                                                                                              null,
-                                                                                              handle );
-                    WindowTupleList list = (WindowTupleList) memory.events.get( handle );
-                    for( WindowTuple tuple = list.getFirstWindowTuple(); tuple != null;  ) {
-                        WindowTuple next = tuple.getWindowNext();
-                        tuple.setPropagationContext( pctx );
-                        tuple.getRightTupleSink().retractRightTuple( tuple,
-                                                                     pctx,
-                                                                     workingMemory );
-                        pctx.evaluateActionQueue( workingMemory );
-                        //tuple.unlinkFromRightParent();
-                        tuple = next;
-                    }
+                    expireHandle( memory,
+                                  handle,
+                                  workingMemory );
                 }
                 queue.expiringHandle = null;
                 handle = queue.queue.peek();
@@ -210,6 +222,142 @@ public class SlidingTimeWindow
                               queue );
     }
 
+    static void expireHandle(final WindowMemory memory,
+                             final EventFactHandle handle,
+                             final InternalWorkingMemory workingMemory) {
+        final PropagationContext pctx = new PropagationContextImpl( workingMemory.getNextPropagationIdCounter(),
+                                                                    PropagationContext.EXPIRATION,
+                                                                    null,
+                                                                    null,
+                                                                    handle );
+        WindowTupleList list = (WindowTupleList) memory.events.get( handle );
+        for( WindowTuple tuple = list.getFirstWindowTuple(); tuple != null;  ) {
+            WindowTuple next = tuple.getWindowNext();
+            tuple.setPropagationContext( pctx );
+            tuple.getRightTupleSink().retractRightTuple( tuple,
+                                                         pctx,
+                                                         workingMemory );
+            pctx.evaluateActionQueue( workingMemory );
+            //tuple.unlinkFromRightParent();
+            tuple = next;
+        }
+    }
+
+    private void assertSharedFact(final WindowMemory memory,
+                                  final SlidingTimeWindowContext queue,
+                                  final EventFactHandle handle,
+                                  final InternalWorkingMemory workingMemory) {
+        WindowEventBuffer buffer = memory.eventBuffer;
+        synchronized (buffer) {
+            if ( queue.cursor == null ) {
+                queue.buffer = buffer;
+                queue.cursor = buffer.newCursor();
+            }
+            if ( !buffer.add( handle,
+                              queue.cursor ) ) {
+                // out of order, or already behind the cursor, so this window keeps track of it
+                queue.queue.add( handle );
+            }
+            scheduleSharedExpiration( handle,
+                                      memory,
+                                      queue,
+                                      workingMemory );
+        }
+    }
+
+    private void expireSharedFacts(final WindowMemory memory,
+                                   final SlidingTimeWindowContext queue,
+                                   final long currentTime,
+                                   final InternalWorkingMemory workingMemory) {
+        WindowEventBuffer buffer = memory.eventBuffer;
+        synchronized (buffer) {
+            if ( queue.cursor == null ) {
+                return;
+            }
+            // all the events expired by now are expired in this pass, the next job
+            // is only scheduled for the first event that is still in the window
+            queue.nextExpiration = -1;
+            EventFactHandle handle = peekShared( memory,
+                                                 queue );
+            while ( handle != null && isExpired( currentTime,
+                                                 handle ) ) {
+                if ( handle == buffer.peek( queue.cursor ) ) {
+                    buffer.advance( queue.cursor );
+                } else {
+                    queue.queue.remove();
+                }
+                if ( handle.isValid() && memory.events.get( handle ) != null ) {
+                    queue.expiringHandle = handle;
+                    expireHandle( memory,
+                                  handle,
+                                  workingMemory );
+                    queue.expiringHandle = null;
+                }
+                handle = peekShared( memory,
+                                     queue );
+            }
+
+            if ( handle != null ) {
+                buffer.trim();
+                scheduleSharedExpiration( handle,
+                                          memory,
+                                          queue,
+                                          workingMemory );
+            } else {
+                // nothing left to expire, the cursor is released so that it doesn't hold the events
+                // the other windows add until the next event of this one, which creates it again
+                buffer.removeCursor( queue.cursor );
+                queue.cursor = null;
+                queue.buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Moves the cursor past the events of the shared buffer that are not, or no longer, in this
+     * window and returns the next event to expire
+     */
+    private EventFactHandle peekShared(final WindowMemory memory,
+                                       final SlidingTimeWindowContext queue) {
+        EventFactHandle handle = queue.buffer.peek( queue.cursor );
+        while ( handle != null && (!handle.isValid() || memory.events.get( handle ) == null) ) {
+            queue.buffer.advance( queue.cursor );
+            handle = queue.buffer.peek( queue.cursor );
+        }
+        return queue.peek();
+    }
+
+    private void scheduleSharedExpiration(final EventFactHandle handle,
+                                          final WindowMemory memory,
+                                          final SlidingTimeWindowContext queue,
+                                          final InternalWorkingMemory workingMemory) {
+        // a single job is kept for each window, unless the handle expires before it
+        long nextTimestamp = handle.getStartTimestamp() + this.size;
+        if ( queue.nextExpiration < 0 || nextTimestamp < queue.nextExpiration ) {
+            queue.nextExpiration = nextTimestamp;
+            updateNextExpiration( handle,
+                                  workingMemory,
+                                  memory,
+                                  this,
+                                  queue );
+        }
+    }
+
+    /**
+     * Removes the cursor of the window from the shared buffer
+     */
+    public void releaseContext(final WindowMemory memory,
+                               final Object context) {
+        SlidingTimeWindowContext queue = (SlidingTimeWindowContext) context;
+        synchronized (memory.eventBuffer) {
+            if ( queue.cursor != null ) {
+                memory.eventBuffer.removeCursor( queue.cursor );
+                queue.cursor = null;
+                queue.buffer = null;
+            }
+        }
+    }
+
     private boolean isExpired(final long currentTime,
                               final EventFactHandle handle) {
         return handle.getStartTimestamp() + this.size <= currentTime;
@@ -259,6 +407,11 @@ public class SlidingTimeWindow
         public PriorityQueue<EventFactHandle> queue;
         public EventFactHandle                expiringHandle;
 
+        // only used when the window shares the event buffer of its ObjectTypeNode
+        public WindowEventBuffer              buffer;
+        public WindowEventBuffer.Cursor       cursor;
+        public long                           nextExpiration = -1;
+
         public SlidingTimeWindowContext() {
             this.queue = new PriorityQueue<EventFactHandle>( 16 ); // arbitrary size... can we improve it?
         }
@@ -283,6 +436,19 @@ public class SlidingTimeWindow
             this.queue = queue;
         }
 
+        /**
+         * Returns the next event to expire from the window, either from its queue
+         * or from the shared buffer
+         */
+        public EventFactHandle peek() {
+            EventFactHandle handle = cursor != null ? buffer.peek( cursor ) : null;
+            EventFactHandle queued = queue.peek();
+            if ( queued != null && (handle == null || queued.compareTo( handle ) < 0) ) {
+                return queued;
+            }
+            return handle;
+        }
+
         public EventFactHandle getExpiringHandle() {
             return expiringHandle;
         }
@@ -293,6 +459,16 @@ public class SlidingTimeWindow
 
     }
     
+    /**
+     * Returns the next event to expire of the context of a time window
+     */
+    static EventFactHandle peekExpiring(Object behaviorContext) {
+        if ( behaviorContext instanceof HoppingTimeWindow.HoppingTimeWindowContext ) {
+            return ((HoppingTimeWindow.HoppingTimeWindowContext) behaviorContext).peek();
+        }
+        return ((SlidingTimeWindowContext) behaviorContext).peek();
+    }
+
     public static class BehaviorJobContextTimerOutputMarshaller implements TimersOutputMarshaller {
         public void write(JobContext jobCtx,
                           MarshallerWriteContext outputCtx) throws IOException {   
@@ -300,10 +476,8 @@ public class SlidingTimeWindow
             // BehaviorJob, no state            
             BehaviorJobContext bjobCtx = ( BehaviorJobContext ) jobCtx;
             
-            // write out SlidingTimeWindowContext
-            SlidingTimeWindowContext slCtx = ( SlidingTimeWindowContext ) bjobCtx.behaviorContext;
-  
-            EventFactHandle handle = slCtx.getQueue().peek();
+            // write out the next event to expire
+            EventFactHandle handle = peekExpiring( bjobCtx.behaviorContext );
             outputCtx.writeInt( handle.getId() );
             
 //            BetaNode node = (BetaNode) handle.getRightTupleSink();
@@ -323,10 +497,8 @@ public class SlidingTimeWindow
                                MarshallerWriteContext outputCtx) {
             // BehaviorJob, no state            
             BehaviorJobContext bjobCtx = ( BehaviorJobContext ) jobCtx;
-            // write out SlidingTimeWindowContext
-            SlidingTimeWindowContext slCtx = ( SlidingTimeWindowContext ) bjobCtx.behaviorContext;
-  
-            EventFactHandle handle = slCtx.getQueue().peek();
+            // write out the next event to expire
+            EventFactHandle handle = peekExpiring( bjobCtx.behaviorContext );
             
             return ProtobufMessages.Timers.Timer.newBuilder()
                     .setType( ProtobufMessages.Timers.TimerType.BEHAVIOR )
@@ -458,8 +630,8 @@ public class SlidingTimeWindow
             
             int i = inCtx.readInt();
             
-            this.behavior = (SlidingTimeWindow) windowNode.getBehaviors()[i];
-            this.context =  ( SlidingTimeWindowContext ) behaviorContext[i];           
+            this.behavior = windowNode.getBehaviors()[i];
+            this.context = behaviorContext[i];
         }
         
         public BehaviorExpireWMAction(MarshallerReaderContext context,
@@ -473,8 +645,8 @@ public class SlidingTimeWindow
             
             int i = 0; //  <==== this needs fixing
             
-            this.behavior = (SlidingTimeWindow) windowNode.getBehaviors()[i];
-            this.context =  ( SlidingTimeWindowContext ) behaviorContext[i];           
+            this.behavior = windowNode.getBehaviors()[i];
+            this.context = behaviorContext[i];
         }
 
         public void execute(InternalWorkingMemory workingMemory) {
@@ -490,18 +662,14 @@ public class SlidingTimeWindow
         public void write(MarshallerWriteContext outputCtx) throws IOException {
             outputCtx.writeShort( WorkingMemoryAction.WorkingMemoryBehahviourRetract );
 
-            // write out SlidingTimeWindowContext
-            SlidingTimeWindowContext slCtx = ( SlidingTimeWindowContext ) context;
-
-            EventFactHandle handle = slCtx.getQueue().peek();
+            // write out the next event to expire
+            EventFactHandle handle = peekExpiring( context );
             outputCtx.writeInt( handle.getId() );
         }
             
         public ProtobufMessages.ActionQueue.Action serialize(MarshallerWriteContext outputCtx) {
-            SlidingTimeWindowContext slCtx = ( SlidingTimeWindowContext ) context;
-            
             ProtobufMessages.ActionQueue.BehaviorExpire _be = ProtobufMessages.ActionQueue.BehaviorExpire.newBuilder()
-                    .setNodeId( slCtx.getQueue().peek().getId() )
+                    .setNodeId( peekExpiring( context ).getId() )
                     .build();
             
             return ProtobufMessages.ActionQueue.Action.newBuilder()
@@ -1,5 +1,6 @@
 package org.drools.core.rule.constraint;
 
+import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.base.ClassFieldReader;
 import org.drools.core.base.DroolsQuery;
 import org.drools.core.base.extractors.ArrayElementReader;
@@ -52,12 +53,12 @@ import static org.drools.core.util.StringUtils.skipBlanks;
 
 public class MvelConstraint extends MutableTypeConstraint implements IndexableConstraint, AcceptsReadAccessor {
     protected static final boolean TEST_JITTING = false;
-    protected static final int JIT_THRESOLD = 20; // Integer.MAX_VALUE;
 
     private static final Logger logger = LoggerFactory.getLogger(MvelConstraint.class);
 
     protected final transient AtomicInteger invocationCounter = new AtomicInteger(1);
     protected transient boolean jitted = false;
+    private transient int jittingThreshold;
 
     private String packageName;
     protected String expression;
@@ -199,32 +200,70 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
     protected boolean evaluate(Object object, InternalWorkingMemory workingMemory, LeftTuple leftTuple) {
         if (!jitted) {
             if (conditionEvaluator == null) {
+                jittingThreshold = getJittingThreshold(workingMemory);
                 createMvelConditionEvaluator(workingMemory);
                 if (TEST_JITTING && !isDynamic) { // Only for test purposes
                     boolean mvelValue = forceJitEvaluator(object, workingMemory, leftTuple);
                 }
             }
 
-            if (!isDynamic && invocationCounter.getAndIncrement() == JIT_THRESOLD) {
+            if (!isDynamic && jittingThreshold > 0 && invocationCounter.getAndIncrement() == jittingThreshold) {
                 jitEvaluator(object, workingMemory, leftTuple);
             }
         }
         return conditionEvaluator.evaluate(object, workingMemory, leftTuple);
     }
 
+    private static int getJittingThreshold(InternalWorkingMemory workingMemory) {
+        int threshold = workingMemory != null && workingMemory.getRuleBase() != null ?
+                        ((InternalRuleBase) workingMemory.getRuleBase()).getConfiguration().getJittingThreshold() :
+                        RuleBaseConfiguration.DEFAULT_JITTING_THRESHOLD;
+        // the invocation counter starts from 1, while 0 is used when jitting is disabled
+        return threshold < 0 ? 0 : Math.max(threshold, 1);
+    }
+
     protected void createMvelConditionEvaluator(InternalWorkingMemory workingMemory) {
         if (compilationUnit != null) {
-            MVELDialectRuntimeData data = getMVELDialectRuntimeData(workingMemory);
-            ExecutableStatement statement = (ExecutableStatement)compilationUnit.getCompiledExpression(data);
-            ParserConfiguration configuration = statement instanceof CompiledExpression ?
-                    ((CompiledExpression)statement).getParserConfiguration() :
-                    data.getParserConfiguration();
-            conditionEvaluator = new MvelConditionEvaluator(compilationUnit, configuration, statement, declarations, getAccessedClass());
+            createMvelConditionEvaluator(getMVELDialectRuntimeData(workingMemory));
         } else {
             conditionEvaluator = new MvelConditionEvaluator(getParserConfiguration(workingMemory), expression, declarations, getAccessedClass());
         }
     }
 
+    private void createMvelConditionEvaluator(MVELDialectRuntimeData data) {
+        ExecutableStatement statement = (ExecutableStatement)compilationUnit.getCompiledExpression(data);
+        ParserConfiguration configuration = statement instanceof CompiledExpression ?
+                ((CompiledExpression)statement).getParserConfiguration() :
+                data.getParserConfiguration();
+        conditionEvaluator = new MvelConditionEvaluator(compilationUnit, configuration, statement, declarations, getAccessedClass());
+    }
+
+    /**
+     * Compiles this constraint to bytecode while the rule base is being built, so it never gets interpreted.
+     * Only constraints not using any declaration can be jitted ahead of their first evaluation, since the
+     * bytecode generated for the others depends on the LeftTuple they are evaluated against.
+     * If the constraint can't be analyzed without evaluating it, it is left to the normal jitting.
+     */
+    public void preJit(InternalRuleBase ruleBase) {
+        if (jitted || isDynamic || compilationUnit == null || declarations.length > 0) {
+            return;
+        }
+        if ( MemoryUtil.permGenStats.isUsageThresholdExceeded(ruleBase.getConfiguration().getPermGenThreshold()) ) {
+            return;
+        }
+
+        try {
+            createMvelConditionEvaluator(getMVELDialectRuntimeData(ruleBase));
+            analyzedCondition = ((MvelConditionEvaluator) conditionEvaluator).getAnalyzedCondition();
+            conditionEvaluator = ASMConditionEvaluatorJitter.jitEvaluator(expression, analyzedCondition, declarations, ruleBase.getRootClassLoader(), null);
+            jitted = true;
+        } catch (Throwable t) {
+            logger.debug("Unable to jit before evaluation: " + expression, t);
+            analyzedCondition = null;
+            conditionEvaluator = null;
+        }
+    }
+
     protected boolean forceJitEvaluator(Object object, InternalWorkingMemory workingMemory, LeftTuple leftTuple) {
         boolean mvelValue;
         try {
@@ -561,7 +600,11 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
     }
 
     protected MVELDialectRuntimeData getMVELDialectRuntimeData(InternalWorkingMemory workingMemory) {
-        return ((MVELDialectRuntimeData)workingMemory.getRuleBase().getPackage(packageName).getDialectRuntimeRegistry().getDialectData( "mvel" ));
+        return getMVELDialectRuntimeData((InternalRuleBase) workingMemory.getRuleBase());
+    }
+
+    private MVELDialectRuntimeData getMVELDialectRuntimeData(InternalRuleBase ruleBase) {
+        return ((MVELDialectRuntimeData)ruleBase.getPackage(packageName).getDialectRuntimeRegistry().getDialectData( "mvel" ));
     }
 
     // MvelArrayContextEntry
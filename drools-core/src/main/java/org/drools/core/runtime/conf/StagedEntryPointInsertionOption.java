@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.conf;
+
+import org.kie.api.runtime.conf.SingleValueKieSessionOption;
+
+/**
+ * An Enum for StagedEntryPointInsertion option: when enabled, the inserts done from outside
+ * the rules are staged in the entry point and propagated the next time the engine evaluates its queued actions.
+ *
+ * drools.stagedEntryPointInsertion = &lt;true|false&gt;
+ *
+ * DEFAULT = false
+ */
+public enum StagedEntryPointInsertionOption implements SingleValueKieSessionOption {
+
+    YES(true),
+    NO(false);
+
+    /**
+     * The property name for the staged entry point insertion option
+     */
+    public static final String PROPERTY_NAME = "drools.stagedEntryPointInsertion";
+
+    private boolean value;
+
+    StagedEntryPointInsertionOption( final boolean value ) {
+        this.value = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isStagedEntryPointInsertion() {
+        return this.value;
+    }
+
+}
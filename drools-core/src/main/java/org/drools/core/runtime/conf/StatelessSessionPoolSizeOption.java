@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.conf;
+
+import org.kie.api.runtime.conf.SingleValueKieSessionOption;
+
+/**
+ * A class for the stateless session pool size option: the number of working memories
+ * a stateless session keeps for reuse between executions, 0 to create a new one for
+ * every execution.
+ *
+ * drools.statelessSessionPoolSize = &lt;0..n&gt;
+ *
+ * DEFAULT = 0
+ */
+public class StatelessSessionPoolSizeOption implements SingleValueKieSessionOption {
+
+    private static final long serialVersionUID = 510l;
+
+    /**
+     * The property name for the stateless session pool size option
+     */
+    public static final String PROPERTY_NAME = "drools.statelessSessionPoolSize";
+
+    /**
+     * The default value for this option
+     */
+    public static final int DEFAULT_VALUE = 0;
+
+    private final int poolSize;
+
+    private StatelessSessionPoolSizeOption( int poolSize ) {
+        this.poolSize = poolSize;
+    }
+
+    public static StatelessSessionPoolSizeOption get( int poolSize ) {
+        return new StatelessSessionPoolSizeOption( poolSize );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 + poolSize;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if ( this == obj ) return true;
+        if ( obj == null ) return false;
+        if ( getClass() != obj.getClass() ) return false;
+        return poolSize == ((StatelessSessionPoolSizeOption) obj).poolSize;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.conf;
+
+import org.kie.api.runtime.conf.SingleValueKieSessionOption;
+
+/**
+ * An Enum for TimerBatchFiring option: when enabled, the pseudo clock runs all the jobs
+ * due within an advance of the clock as one batch and fires the rules once at its end.
+ *
+ * drools.timerBatchFiring = &lt;true|false&gt;
+ *
+ * DEFAULT = false
+ */
+public enum TimerBatchFiringOption implements SingleValueKieSessionOption {
+
+    YES(true),
+    NO(false);
+
+    /**
+     * The property name for the timer batch firing option
+     */
+    public static final String PROPERTY_NAME = "drools.timerBatchFiring";
+
+    private boolean value;
+
+    TimerBatchFiringOption( final boolean value ) {
+        this.value = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getPropertyName() {
+        return PROPERTY_NAME;
+    }
+
+    public boolean isTimerBatchFiring() {
+        return this.value;
+    }
+
+}
@@ -0,0 +1,636 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.drools.core.RuntimeDroolsException;
+import org.drools.core.base.ClassFieldAccessorCache;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.command.runtime.BatchExecutionCommandImpl;
+import org.drools.core.command.runtime.GetGlobalCommand;
+import org.drools.core.command.runtime.SetGlobalCommand;
+import org.drools.core.command.runtime.rule.DeleteCommand;
+import org.drools.core.command.runtime.rule.FireAllRulesCommand;
+import org.drools.core.command.runtime.rule.GetObjectCommand;
+import org.drools.core.command.runtime.rule.GetObjectsCommand;
+import org.drools.core.command.runtime.rule.InsertElementsCommand;
+import org.drools.core.command.runtime.rule.InsertObjectCommand;
+import org.drools.core.command.runtime.rule.QueryCommand;
+import org.drools.core.common.AbstractRuleBase;
+import org.drools.core.impl.KnowledgeBaseImpl;
+import org.drools.core.reteoo.EntryPointNode;
+import org.drools.core.reteoo.ReteooRuleBase;
+import org.drools.core.rule.TypeDeclaration;
+import org.drools.core.runtime.impl.ExecutionResultImpl;
+import org.drools.core.runtime.rule.impl.FlatQueryResults;
+import org.drools.core.spi.ObjectType;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.runtime.rule.QueryResults;
+import org.kie.api.runtime.rule.QueryResultsRow;
+
+/**
+ * Marshalls the batch execution commands and their ExecutionResults, as the XStream
+ * marshallers of the BatchExecutionHelper do, but with a schema for each type instead of
+ * reflection: the commands and results have a fixed one, named after their XStream alias,
+ * and the facts one made of their properties, read and written through the accessors
+ * generated for the KieBase. It supports a compact binary encoding and a JSON one, both
+ * streamed without building any intermediate tree.
+ *
+ * The commands supported are insert, insert-elements, set-global, get-global,
+ * fire-all-rules, query, get-objects, get-object and retract, without agenda or object
+ * filters. The query results are decoded as FlatQueryResults.
+ *
+ * Only the fact types known to the KieBase, the classes of its ObjectTypeNodes and its
+ * declared types, and the ones explicitly allowed when the codec is created can be decoded:
+ * the class named in the input is never loaded otherwise.
+ *
+ * A codec is thread safe and meant to be shared by all the requests on a KieBase, as the
+ * schemas of the fact types are built once and cached.
+ */
+public class BatchExecutionCodec {
+
+    private static final Map<String, TypeCodec< ? >>   COMMAND_CODECS_BY_NAME  = new HashMap<String, TypeCodec< ? >>();
+
+    private static final Map<Class< ? >, TypeCodec< ? >> COMMAND_CODECS_BY_CLASS = new HashMap<Class< ? >, TypeCodec< ? >>();
+
+    private static final TypeCodec<ExecutionResultImpl> EXECUTION_RESULTS_CODEC;
+
+    private static final TypeCodec<QueryResults>        QUERY_RESULTS_CODEC;
+
+    private final ClassFieldAccessorCache               accessorCache;
+
+    private final ReteooRuleBase                        ruleBase;
+
+    private final ConcurrentMap<String, TypeCodec< ? >> factCodecs              = new ConcurrentHashMap<String, TypeCodec< ? >>();
+
+    // the fact types that can be decoded, by class name
+    private final ConcurrentMap<String, Class< ? >>     factTypes               = new ConcurrentHashMap<String, Class< ? >>();
+
+    public BatchExecutionCodec(KieBase kbase) {
+        this( kbase,
+              Collections.<Class< ? >> emptyList() );
+    }
+
+    /**
+     * @param factTypes the types that can be decoded besides the fact types of the KieBase
+     */
+    public BatchExecutionCodec(KieBase kbase,
+                               Collection<Class< ? >> factTypes) {
+        this( (ReteooRuleBase) ((KnowledgeBaseImpl) kbase).ruleBase,
+              ((AbstractRuleBase) ((KnowledgeBaseImpl) kbase).ruleBase).getClassFieldAccessorCache(),
+              factTypes );
+    }
+
+    /**
+     * @param factTypes the only fact types that can be decoded
+     */
+    public BatchExecutionCodec(ClassFieldAccessorCache accessorCache,
+                               Collection<Class< ? >> factTypes) {
+        this( null,
+              accessorCache,
+              factTypes );
+    }
+
+    private BatchExecutionCodec(ReteooRuleBase ruleBase,
+                                ClassFieldAccessorCache accessorCache,
+                                Collection<Class< ? >> factTypes) {
+        this.ruleBase = ruleBase;
+        this.accessorCache = accessorCache;
+        for ( Class< ? > factType : factTypes ) {
+            this.factTypes.put( factType.getName(),
+                                factType );
+        }
+    }
+
+    public void writeBinary(Object value,
+                            OutputStream out) throws IOException {
+        BatchExecutionWriter writer = new BinaryBatchExecutionWriter( new BufferedOutputStream( out ) );
+        writeValue( writer,
+                    value );
+        writer.flush();
+    }
+
+    /**
+     * Reads a value written by writeBinary. The stream is buffered, so it may be read
+     * beyond the end of the value.
+     */
+    public Object readBinary(InputStream in) throws IOException {
+        return new BinaryBatchExecutionReader( new BufferedInputStream( in ),
+                                               this ).readValue();
+    }
+
+    public byte[] toBinary(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeBinary( value,
+                         out );
+        } catch ( IOException e ) {
+            throw new RuntimeDroolsException( "Unable to encode " + value,
+                                              e );
+        }
+        return out.toByteArray();
+    }
+
+    public Object fromBinary(byte[] bytes) {
+        try {
+            return new BinaryBatchExecutionReader( new ByteArrayInputStream( bytes ),
+                                                   this ).readValue();
+        } catch ( IOException e ) {
+            throw new RuntimeDroolsException( "Unable to decode binary batch execution",
+                                              e );
+        }
+    }
+
+    public void writeJSon(Object value,
+                          Writer out) throws IOException {
+        BatchExecutionWriter writer = new JSonBatchExecutionWriter( out );
+        writeValue( writer,
+                    value );
+        writer.flush();
+    }
+
+    public Object readJSon(Reader in) throws IOException {
+        return new JSonBatchExecutionReader( in,
+                                             this ).readValue();
+    }
+
+    public String toJSon(Object value) {
+        StringWriter out = new StringWriter();
+        try {
+            writeJSon( value,
+                       out );
+        } catch ( IOException e ) {
+            throw new RuntimeDroolsException( "Unable to encode " + value,
+                                              e );
+        }
+        return out.toString();
+    }
+
+    public Object fromJSon(String json) {
+        try {
+            return readJSon( new StringReader( json ) );
+        } catch ( IOException e ) {
+            throw new RuntimeDroolsException( "Unable to decode JSON batch execution",
+                                              e );
+        }
+    }
+
+    private void writeValue(BatchExecutionWriter out,
+                            Object value) throws IOException {
+        if ( value == null ) {
+            out.writeNull();
+        } else if ( value instanceof String ) {
+            out.writeString( (String) value );
+        } else if ( value instanceof Boolean ) {
+            out.writeBoolean( (Boolean) value );
+        } else if ( value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Float ||
+                    value instanceof Short || value instanceof Byte || value instanceof BigDecimal || value instanceof BigInteger ) {
+            out.writeNumber( (Number) value );
+        } else if ( value instanceof Character ) {
+            out.writeChar( (Character) value );
+        } else if ( value instanceof Date ) {
+            out.writeDate( (Date) value );
+        } else if ( value instanceof Enum ) {
+            Enum< ? > constant = (Enum< ? >) value;
+            // the class of a constant with a body is an anonymous subclass of its enum
+            out.writeEnum( constant.getDeclaringClass().getName(),
+                           constant.name() );
+        } else if ( value instanceof FactHandle ) {
+            out.writeFactHandle( ((FactHandle) value).toExternalForm() );
+        } else if ( value instanceof Collection ) {
+            Collection< ? > collection = (Collection< ? >) value;
+            out.startList( collection.size() );
+            for ( Object element : collection ) {
+                writeValue( out,
+                            element );
+            }
+            out.endList();
+        } else if ( value instanceof Object[] ) {
+            Object[] array = (Object[]) value;
+            out.startList( array.length );
+            for ( Object element : array ) {
+                writeValue( out,
+                            element );
+            }
+            out.endList();
+        } else if ( value instanceof Map ) {
+            Map< ? , ? > map = (Map< ? , ? >) value;
+            out.startMap( map.size() );
+            for ( Map.Entry< ? , ? > entry : map.entrySet() ) {
+                out.writeKey( String.valueOf( entry.getKey() ) );
+                writeValue( out,
+                            entry.getValue() );
+            }
+            out.endMap();
+        } else {
+            writeObject( out,
+                         (TypeCodec<Object>) getTypeCodec( value ),
+                         value );
+        }
+    }
+
+    private void writeObject(BatchExecutionWriter out,
+                             TypeCodec<Object> codec,
+                             Object value) throws IOException {
+        String[] fieldNames = codec.getFieldNames();
+        Object[] values = codec.getValues( value );
+        out.startObject( codec );
+        for ( int i = 0; i < fieldNames.length; i++ ) {
+            if ( out.startField( fieldNames[i],
+                                 values[i] ) ) {
+                writeValue( out,
+                            values[i] );
+            }
+        }
+        out.endObject();
+    }
+
+    private TypeCodec< ? > getTypeCodec(Object value) {
+        TypeCodec< ? > codec = COMMAND_CODECS_BY_CLASS.get( value.getClass() );
+        if ( codec != null ) {
+            return codec;
+        } else if ( value instanceof ExecutionResultImpl ) {
+            return EXECUTION_RESULTS_CODEC;
+        } else if ( value instanceof QueryResults ) {
+            return QUERY_RESULTS_CODEC;
+        }
+        return getFactTypeCodec( value.getClass() );
+    }
+
+    /**
+     * Returns the codec of the type of the given name, a command or result alias or the
+     * name of a fact class
+     */
+    TypeCodec< ? > getTypeCodec(String name) {
+        TypeCodec< ? > codec = COMMAND_CODECS_BY_NAME.get( name );
+        if ( codec != null ) {
+            return codec;
+        }
+        return getFactTypeCodec( getFactType( name ) );
+    }
+
+    private Class< ? > getFactType(String name) {
+        Class< ? > cls = factTypes.get( name );
+        if ( cls == null ) {
+            // the KieBase may have been given new packages since the last lookup
+            cls = findKnownFactType( name );
+            if ( cls == null ) {
+                throw new RuntimeDroolsException( "Unable to decode the type " + name + ", it is neither a fact type of the KieBase nor an allowed one" );
+            }
+            factTypes.putIfAbsent( name,
+                                   cls );
+        }
+        return cls;
+    }
+
+    /**
+     * Returns the constant of the given name of an enum class, that must be one of the fact
+     * types that can be decoded or an enum class of the KieBase
+     */
+    Enum< ? > getEnumConstant(String typeName,
+                              String name) {
+        Class< ? > cls = factTypes.get( typeName );
+        if ( cls == null && ruleBase != null ) {
+            try {
+                // not initialized, unless it is indeed an enum
+                cls = Class.forName( typeName,
+                                     false,
+                                     ruleBase.getRootClassLoader() );
+            } catch ( ClassNotFoundException e ) {
+                cls = null;
+            }
+        }
+        if ( cls == null || !cls.isEnum() ) {
+            throw new RuntimeDroolsException( "Unable to decode the enum type " + typeName + ", it is neither an enum of the KieBase nor an allowed one" );
+        }
+        try {
+            return Enum.valueOf( (Class) cls,
+                                 name );
+        } catch ( IllegalArgumentException e ) {
+            throw new RuntimeDroolsException( "Unable to decode the enum constant " + typeName + "." + name,
+                                              e );
+        }
+    }
+
+    private Class< ? > findKnownFactType(String name) {
+        if ( ruleBase == null ) {
+            return null;
+        }
+        for ( EntryPointNode entryPointNode : ruleBase.getRete().getEntryPointNodes().values() ) {
+            for ( ObjectType objectType : entryPointNode.getObjectTypeNodes().keySet() ) {
+                if ( objectType instanceof ClassObjectType ) {
+                    Class< ? > cls = ((ClassObjectType) objectType).getClassType();
+                    if ( cls != null && cls.getName().equals( name ) ) {
+                        return cls;
+                    }
+                }
+            }
+        }
+        for ( TypeDeclaration typeDeclaration : ruleBase.getTypeDeclarations() ) {
+            if ( name.equals( typeDeclaration.getTypeClassName() ) && typeDeclaration.getTypeClass() != null ) {
+                return typeDeclaration.getTypeClass();
+            }
+        }
+        return null;
+    }
+
+    private TypeCodec< ? > getFactTypeCodec(Class< ? > cls) {
+        TypeCodec< ? > codec = factCodecs.get( cls.getName() );
+        if ( codec == null ) {
+            codec = FactTypeCodec.newFactTypeCodec( cls,
+                                                    accessorCache );
+            TypeCodec< ? > existing = factCodecs.putIfAbsent( cls.getName(),
+                                                              codec );
+            if ( existing != null ) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    private static void register(TypeCodec< ? > codec) {
+        COMMAND_CODECS_BY_NAME.put( codec.getName(),
+                                    codec );
+        COMMAND_CODECS_BY_CLASS.put( codec.getType(),
+                                     codec );
+    }
+
+    static {
+        register( new TypeCodec<BatchExecutionCommandImpl>( "batch-execution",
+                                                            BatchExecutionCommandImpl.class,
+                                                            "lookup",
+                                                            "commands" ) {
+            public Object[] getValues(BatchExecutionCommandImpl command) {
+                return new Object[]{command.getLookup(), command.getCommands()};
+            }
+
+            public BatchExecutionCommandImpl newInstance(Object[] values) {
+                return new BatchExecutionCommandImpl( (List) values[1],
+                                                      (String) values[0] );
+            }
+        } );
+
+        register( new TypeCodec<InsertObjectCommand>( "insert",
+                                                      InsertObjectCommand.class,
+                                                      "object",
+                                                      "out-identifier",
+                                                      "return-object",
+                                                      "entry-point" ) {
+            public Object[] getValues(InsertObjectCommand command) {
+                return new Object[]{command.getObject(), command.getOutIdentifier(), command.isReturnObject(), command.getEntryPoint()};
+            }
+
+            public InsertObjectCommand newInstance(Object[] values) {
+                InsertObjectCommand command = new InsertObjectCommand( values[0] );
+                command.setOutIdentifier( (String) values[1] );
+                if ( values[2] != null ) {
+                    command.setReturnObject( (Boolean) values[2] );
+                }
+                if ( values[3] != null ) {
+                    command.setEntryPoint( (String) values[3] );
+                }
+                return command;
+            }
+        } );
+
+        register( new TypeCodec<InsertElementsCommand>( "insert-elements",
+                                                        InsertElementsCommand.class,
+                                                        "objects",
+                                                        "out-identifier",
+                                                        "return-object",
+                                                        "entry-point" ) {
+            public Object[] getValues(InsertElementsCommand command) {
+                return new Object[]{command.getObjects(), command.getOutIdentifier(), command.isReturnObject(), command.getEntryPoint()};
+            }
+
+            public InsertElementsCommand newInstance(Object[] values) {
+                InsertElementsCommand command = new InsertElementsCommand();
+                if ( values[0] != null ) {
+                    command.setObjects( (List<Object>) values[0] );
+                }
+                command.setOutIdentifier( (String) values[1] );
+                if ( values[2] != null ) {
+                    command.setReturnObject( (Boolean) values[2] );
+                }
+                if ( values[3] != null ) {
+                    command.setEntryPoint( (String) values[3] );
+                }
+                return command;
+            }
+        } );
+
+        register( new TypeCodec<SetGlobalCommand>( "set-global",
+                                                   SetGlobalCommand.class,
+                                                   "identifier",
+                                                   "object",
+                                                   "out-identifier" ) {
+            public Object[] getValues(SetGlobalCommand command) {
+                return new Object[]{command.getIdentifier(), command.getObject(), command.getOutIdentifier()};
+            }
+
+            public SetGlobalCommand newInstance(Object[] values) {
+                SetGlobalCommand command = new SetGlobalCommand( (String) values[0],
+                                                                 values[1] );
+                command.setOutIdentifier( (String) values[2] );
+                return command;
+            }
+        } );
+
+        register( new TypeCodec<GetGlobalCommand>( "get-global",
+                                                   GetGlobalCommand.class,
+                                                   "identifier",
+                                                   "out-identifier" ) {
+            public Object[] getValues(GetGlobalCommand command) {
+                return new Object[]{command.getIdentifier(), command.getOutIdentifier()};
+            }
+
+            public GetGlobalCommand newInstance(Object[] values) {
+                GetGlobalCommand command = new GetGlobalCommand( (String) values[0] );
+                command.setOutIdentifier( (String) values[1] );
+                return command;
+            }
+        } );
+
+        register( new TypeCodec<FireAllRulesCommand>( "fire-all-rules",
+                                                      FireAllRulesCommand.class,
+                                                      "max",
+                                                      "out-identifier" ) {
+            public Object[] getValues(FireAllRulesCommand command) {
+                if ( command.getAgendaFilter() != null ) {
+                    throw new IllegalArgumentException( "Unable to encode the agenda filter of " + command );
+                }
+                return new Object[]{command.getMax(), command.getOutIdentifier()};
+            }
+
+            public FireAllRulesCommand newInstance(Object[] values) {
+                return new FireAllRulesCommand( (String) values[1],
+                                                values[0] != null ? ((Number) values[0]).intValue() : -1,
+                                                null );
+            }
+        } );
+
+        register( new TypeCodec<QueryCommand>( "query",
+                                               QueryCommand.class,
+                                               "name",
+                                               "arguments",
+                                               "out-identifier",
+                                               "max-rows",
+                                               "identifiers" ) {
+            public Object[] getValues(QueryCommand command) {
+                return new Object[]{command.getName(), command.getArguments(), command.getOutIdentifier(),
+                        command.getMaxRows() >= 0 ? command.getMaxRows() : null, command.getIdentifiers()};
+            }
+
+            public QueryCommand newInstance(Object[] values) {
+                QueryCommand command = new QueryCommand( (String) values[2],
+                                                         (String) values[0] );
+                if ( values[1] != null ) {
+                    command.setArguments( (List<Object>) values[1] );
+                }
+                if ( values[3] != null ) {
+                    command.setMaxRows( ((Number) values[3]).intValue() );
+                }
+                command.setIdentifiers( (List<String>) values[4] );
+                return command;
+            }
+        } );
+
+        register( new TypeCodec<GetObjectsCommand>( "get-objects",
+                                                    GetObjectsCommand.class,
+                                                    "out-identifier" ) {
+            public Object[] getValues(GetObjectsCommand command) {
+                if ( command.getFilter() != null ) {
+                    throw new IllegalArgumentException( "Unable to encode the object filter of " + command );
+                }
+                return new Object[]{command.getOutIdentifier()};
+            }
+
+            public GetObjectsCommand newInstance(Object[] values) {
+                return new GetObjectsCommand( null,
+                                              (String) values[0] );
+            }
+        } );
+
+        register( new TypeCodec<GetObjectCommand>( "get-object",
+                                                   GetObjectCommand.class,
+                                                   "fact-handle",
+                                                   "out-identifier" ) {
+            public Object[] getValues(GetObjectCommand command) {
+                return new Object[]{command.getFactHandle(), command.getOutIdentifier()};
+            }
+
+            public GetObjectCommand newInstance(Object[] values) {
+                return new GetObjectCommand( (FactHandle) values[0],
+                                             (String) values[1] );
+            }
+        } );
+
+        register( new TypeCodec<DeleteCommand>( "retract",
+                                                DeleteCommand.class,
+                                                "fact-handle" ) {
+            public Object[] getValues(DeleteCommand command) {
+                return new Object[]{command.getFactHandle()};
+            }
+
+            public DeleteCommand newInstance(Object[] values) {
+                return new DeleteCommand( (FactHandle) values[0] );
+            }
+        } );
+
+        EXECUTION_RESULTS_CODEC = new TypeCodec<ExecutionResultImpl>( "execution-results",
+                                                                      ExecutionResultImpl.class,
+                                                                      "results",
+                                                                      "fact-handles" ) {
+            public Object[] getValues(ExecutionResultImpl results) {
+                return new Object[]{results.getResults(), results.getFactHandles()};
+            }
+
+            public ExecutionResultImpl newInstance(Object[] values) {
+                ExecutionResultImpl results = new ExecutionResultImpl();
+                if ( values[0] != null ) {
+                    results.setResults( new HashMap<String, Object>( (Map<String, Object>) values[0] ) );
+                }
+                if ( values[1] != null ) {
+                    results.setFactHandles( new HashMap<String, Object>( (Map<String, Object>) values[1] ) );
+                }
+                return results;
+            }
+        };
+        register( EXECUTION_RESULTS_CODEC );
+
+        QUERY_RESULTS_CODEC = new TypeCodec<QueryResults>( "query-results",
+                                                           QueryResults.class,
+                                                           "identifiers",
+                                                           "results",
+                                                           "fact-handles" ) {
+            public Object[] getValues(QueryResults results) {
+                // any QueryResults, flattened row by row
+                String[] identifiers = results.getIdentifiers();
+                List<List<Object>> rows = new ArrayList<List<Object>>( results.size() );
+                List<List<FactHandle>> factHandles = new ArrayList<List<FactHandle>>( results.size() );
+                for ( QueryResultsRow result : results ) {
+                    List<Object> row = new ArrayList<Object>( identifiers.length );
+                    List<FactHandle> rowHandles = new ArrayList<FactHandle>( identifiers.length );
+                    for ( String identifier : identifiers ) {
+                        row.add( result.get( identifier ) );
+                        rowHandles.add( result.getFactHandle( identifier ) );
+                    }
+                    rows.add( row );
+                    factHandles.add( rowHandles );
+                }
+                return new Object[]{identifiers, rows, factHandles};
+            }
+
+            public QueryResults newInstance(Object[] values) {
+                List<String> identifiers = (List<String>) values[0];
+                Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+                for ( int i = 0; i < identifiers.size(); i++ ) {
+                    indexes.put( identifiers.get( i ),
+                                 i );
+                }
+                return new FlatQueryResults( indexes,
+                                             (ArrayList) values[1],
+                                             (ArrayList) values[2] );
+            }
+        };
+        register( QUERY_RESULTS_CODEC );
+    }
+}
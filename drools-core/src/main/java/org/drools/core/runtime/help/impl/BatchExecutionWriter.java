@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * The streaming writer of an encoding of the BatchExecutionCodec. The codec walks the
+ * values to encode and calls the writer for each of them, so that nothing but the
+ * encoded bytes or chars is ever built in memory.
+ */
+interface BatchExecutionWriter {
+
+    void writeNull() throws IOException;
+
+    void writeString(String value) throws IOException;
+
+    void writeBoolean(boolean value) throws IOException;
+
+    /**
+     * Writes an Integer, Long, Double, Float, Short, Byte, BigDecimal or BigInteger
+     */
+    void writeNumber(Number value) throws IOException;
+
+    void writeChar(char value) throws IOException;
+
+    void writeDate(Date value) throws IOException;
+
+    /**
+     * Writes an enum constant, given the name of its enum class and its own name
+     */
+    void writeEnum(String type,
+                   String name) throws IOException;
+
+    void writeFactHandle(String externalForm) throws IOException;
+
+    void startList(int size) throws IOException;
+
+    void endList() throws IOException;
+
+    void startMap(int size) throws IOException;
+
+    void writeKey(String key) throws IOException;
+
+    void endMap() throws IOException;
+
+    void startObject(TypeCodec< ? > codec) throws IOException;
+
+    /**
+     * Starts a field of the object being written, returning false if the encoding skips
+     * it, in which case its value must not be written
+     */
+    boolean startField(String name,
+                       Object value) throws IOException;
+
+    void endObject() throws IOException;
+
+    void flush() throws IOException;
+}
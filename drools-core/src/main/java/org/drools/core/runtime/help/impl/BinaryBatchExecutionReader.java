@@ -0,0 +1,207 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import static org.drools.core.runtime.help.impl.BinaryBatchExecutionWriter.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.common.DefaultFactHandle;
+
+/**
+ * Reads the binary encoding written by BinaryBatchExecutionWriter. The fields of a type
+ * are matched by name the first time it is read, so that the writer and the reader do
+ * not need the same version of a fact class.
+ */
+class BinaryBatchExecutionReader {
+
+    /**
+     * The sizes read from the stream are not trusted for allocation: lists, maps and strings
+     * start with at most this capacity and grow as their content is actually read.
+     */
+    private static final int           MAX_INITIAL_CAPACITY = 1024;
+
+    /**
+     * A class file cannot declare more fields than this.
+     */
+    private static final int           MAX_FIELDS = 65535;
+
+    private final DataInputStream      in;
+
+    private final BatchExecutionCodec  codec;
+
+    private final List<TypeCodec< ? >> types    = new ArrayList<TypeCodec< ? >>();
+
+    private final List<int[]>          mappings = new ArrayList<int[]>();
+
+    BinaryBatchExecutionReader(InputStream in,
+                               BatchExecutionCodec codec) throws IOException {
+        this.in = new DataInputStream( in );
+        this.codec = codec;
+        if ( this.in.readUnsignedByte() != MAGIC ) {
+            throw new StreamCorruptedException( "Not a binary batch execution stream" );
+        }
+        int version = this.in.readUnsignedByte();
+        if ( version != VERSION ) {
+            throw new StreamCorruptedException( "Unsupported binary batch execution version " + version );
+        }
+    }
+
+    public Object readValue() throws IOException {
+        byte tag = in.readByte();
+        switch ( tag ) {
+            case NULL :
+                return null;
+            case STRING :
+                return readUTF();
+            case TRUE :
+                return Boolean.TRUE;
+            case FALSE :
+                return Boolean.FALSE;
+            case INT :
+                return in.readInt();
+            case LONG :
+                return in.readLong();
+            case DOUBLE :
+                return in.readDouble();
+            case FLOAT :
+                return in.readFloat();
+            case SHORT :
+                return in.readShort();
+            case BYTE :
+                return in.readByte();
+            case CHAR :
+                return in.readChar();
+            case BIG_DECIMAL :
+                return new BigDecimal( readUTF() );
+            case BIG_INTEGER :
+                return new BigInteger( readUTF() );
+            case DATE :
+                return new Date( in.readLong() );
+            case FACT_HANDLE :
+                return new DefaultFactHandle( readUTF() );
+            case ENUM : {
+                String type = readUTF();
+                return codec.getEnumConstant( type,
+                                              readUTF() );
+            }
+            case LIST : {
+                int size = readSize();
+                List<Object> list = new ArrayList<Object>( Math.min( size, MAX_INITIAL_CAPACITY ) );
+                for ( int i = 0; i < size; i++ ) {
+                    list.add( readValue() );
+                }
+                return list;
+            }
+            case MAP : {
+                int size = readSize();
+                Map<String, Object> map = new LinkedHashMap<String, Object>( Math.min( size, MAX_INITIAL_CAPACITY ) );
+                for ( int i = 0; i < size; i++ ) {
+                    String key = readUTF();
+                    map.put( key,
+                             readValue() );
+                }
+                return map;
+            }
+            case NEW_TYPE : {
+                TypeCodec< ? > type = codec.getTypeCodec( readUTF() );
+                int fields = readSize();
+                if ( fields > MAX_FIELDS ) {
+                    throw new StreamCorruptedException( "Too many fields " + fields );
+                }
+                int[] mapping = new int[fields];
+                for ( int i = 0; i < mapping.length; i++ ) {
+                    mapping[i] = type.indexOf( readUTF() );
+                }
+                types.add( type );
+                mappings.add( mapping );
+                return readObject( type,
+                                   mapping );
+            }
+            case TYPE : {
+                int index = readSize();
+                if ( index >= types.size() ) {
+                    throw new StreamCorruptedException( "Unknown type index " + index );
+                }
+                return readObject( types.get( index ),
+                                   mappings.get( index ) );
+            }
+            default :
+                throw new StreamCorruptedException( "Unknown tag " + tag );
+        }
+    }
+
+    private Object readObject(TypeCodec< ? > type,
+                              int[] mapping) throws IOException {
+        Object[] values = new Object[type.getFieldNames().length];
+        for ( int i = 0; i < mapping.length; i++ ) {
+            Object value = readValue();
+            // a field this version of the type does not have is skipped
+            if ( mapping[i] >= 0 ) {
+                values[mapping[i]] = value;
+            }
+        }
+        return type.newInstance( values );
+    }
+
+    private String readUTF() throws IOException {
+        int size = readSize();
+        if ( size <= MAX_INITIAL_CAPACITY ) {
+            byte[] bytes = new byte[size];
+            in.readFully( bytes );
+            return new String( bytes,
+                               "UTF-8" );
+        }
+        // a corrupted size fails on the end of the stream before it is all allocated
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( MAX_INITIAL_CAPACITY );
+        byte[] buffer = new byte[MAX_INITIAL_CAPACITY];
+        while ( size > 0 ) {
+            int length = Math.min( size, buffer.length );
+            in.readFully( buffer, 0, length );
+            bytes.write( buffer, 0, length );
+            size -= length;
+        }
+        return bytes.toString( "UTF-8" );
+    }
+
+    private int readSize() throws IOException {
+        int size = 0;
+        for ( int shift = 0; shift < 32; shift += 7 ) {
+            int b = in.readUnsignedByte();
+            if ( shift == 28 && b > 0x07 ) {
+                // the size would not fit in a positive int
+                throw new StreamCorruptedException( "Malformed size" );
+            }
+            size |= (b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 ) {
+                return size;
+            }
+        }
+        throw new StreamCorruptedException( "Malformed size" );
+    }
+}
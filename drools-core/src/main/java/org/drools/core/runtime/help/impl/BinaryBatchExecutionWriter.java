@@ -0,0 +1,203 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Writes the compact binary encoding: each value is a tag byte followed by its content.
+ * The name and the field names of a type are written only the first time an instance
+ * of it is, its next instances refer to it by index and are just the list of their
+ * field values.
+ */
+class BinaryBatchExecutionWriter
+    implements
+    BatchExecutionWriter {
+
+    static final int                      MAGIC       = 0xD8;
+    static final int                      VERSION     = 1;
+
+    static final byte                     NULL        = 0;
+    static final byte                     STRING      = 1;
+    static final byte                     TRUE        = 2;
+    static final byte                     FALSE       = 3;
+    static final byte                     INT         = 4;
+    static final byte                     LONG        = 5;
+    static final byte                     DOUBLE      = 6;
+    static final byte                     FLOAT       = 7;
+    static final byte                     SHORT       = 8;
+    static final byte                     BYTE        = 9;
+    static final byte                     CHAR        = 10;
+    static final byte                     BIG_DECIMAL = 11;
+    static final byte                     BIG_INTEGER = 12;
+    static final byte                     DATE        = 13;
+    static final byte                     FACT_HANDLE = 14;
+    static final byte                     LIST        = 15;
+    static final byte                     MAP         = 16;
+    static final byte                     NEW_TYPE    = 17;
+    static final byte                     TYPE        = 18;
+    static final byte                     ENUM        = 19;
+
+    private final DataOutputStream        out;
+
+    private final Map<TypeCodec< ? >, Integer> types = new IdentityHashMap<TypeCodec< ? >, Integer>();
+
+    BinaryBatchExecutionWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream( out );
+        this.out.writeByte( MAGIC );
+        this.out.writeByte( VERSION );
+    }
+
+    public void writeNull() throws IOException {
+        out.writeByte( NULL );
+    }
+
+    public void writeString(String value) throws IOException {
+        out.writeByte( STRING );
+        writeUTF( value );
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeByte( value ? TRUE : FALSE );
+    }
+
+    public void writeNumber(Number value) throws IOException {
+        if ( value instanceof Integer ) {
+            out.writeByte( INT );
+            out.writeInt( value.intValue() );
+        } else if ( value instanceof Long ) {
+            out.writeByte( LONG );
+            out.writeLong( value.longValue() );
+        } else if ( value instanceof Double ) {
+            out.writeByte( DOUBLE );
+            out.writeDouble( value.doubleValue() );
+        } else if ( value instanceof Float ) {
+            out.writeByte( FLOAT );
+            out.writeFloat( value.floatValue() );
+        } else if ( value instanceof Short ) {
+            out.writeByte( SHORT );
+            out.writeShort( value.shortValue() );
+        } else if ( value instanceof Byte ) {
+            out.writeByte( BYTE );
+            out.writeByte( value.byteValue() );
+        } else if ( value instanceof BigDecimal ) {
+            out.writeByte( BIG_DECIMAL );
+            writeUTF( value.toString() );
+        } else if ( value instanceof BigInteger ) {
+            out.writeByte( BIG_INTEGER );
+            writeUTF( value.toString() );
+        } else {
+            throw new IllegalArgumentException( "Unable to encode number " + value + " of type " + value.getClass().getName() );
+        }
+    }
+
+    public void writeChar(char value) throws IOException {
+        out.writeByte( CHAR );
+        out.writeChar( value );
+    }
+
+    public void writeDate(Date value) throws IOException {
+        out.writeByte( DATE );
+        out.writeLong( value.getTime() );
+    }
+
+    public void writeEnum(String type,
+                          String name) throws IOException {
+        out.writeByte( ENUM );
+        writeUTF( type );
+        writeUTF( name );
+    }
+
+    public void writeFactHandle(String externalForm) throws IOException {
+        out.writeByte( FACT_HANDLE );
+        writeUTF( externalForm );
+    }
+
+    public void startList(int size) throws IOException {
+        out.writeByte( LIST );
+        writeSize( size );
+    }
+
+    public void endList() {
+    }
+
+    public void startMap(int size) throws IOException {
+        out.writeByte( MAP );
+        writeSize( size );
+    }
+
+    public void writeKey(String key) throws IOException {
+        writeUTF( key );
+    }
+
+    public void endMap() {
+    }
+
+    public void startObject(TypeCodec< ? > codec) throws IOException {
+        Integer index = types.get( codec );
+        if ( index != null ) {
+            out.writeByte( TYPE );
+            writeSize( index );
+        } else {
+            types.put( codec,
+                       types.size() );
+            out.writeByte( NEW_TYPE );
+            writeUTF( codec.getName() );
+            String[] fieldNames = codec.getFieldNames();
+            writeSize( fieldNames.length );
+            for ( String fieldName : fieldNames ) {
+                writeUTF( fieldName );
+            }
+        }
+    }
+
+    public boolean startField(String name,
+                              Object value) {
+        // all the fields are written, in the order of the type
+        return true;
+    }
+
+    public void endObject() {
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeUTF(String value) throws IOException {
+        // DataOutput.writeUTF is limited to 64K
+        byte[] bytes = value.getBytes( "UTF-8" );
+        writeSize( bytes.length );
+        out.write( bytes );
+    }
+
+    private void writeSize(int size) throws IOException {
+        // variable length, sizes and indexes are mostly small
+        while ( (size & ~0x7F) != 0 ) {
+            out.writeByte( (size & 0x7F) | 0x80 );
+            size >>>= 7;
+        }
+        out.writeByte( size );
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.RuntimeDroolsException;
+import org.drools.core.base.AccessorKey;
+import org.drools.core.base.BaseClassFieldReader;
+import org.drools.core.base.BaseClassFieldWriter;
+import org.drools.core.base.ClassFieldAccessorCache;
+import org.drools.core.util.asm.ClassFieldInspector;
+
+/**
+ * The codec of a fact type, encoding the properties having both a getter and a setter.
+ * A type having a getter-only property, or a non-transient field that is not one of these
+ * properties, is rejected as its state could not be restored.
+ * The properties are read and written through the accessors generated for the type by
+ * the ClassFieldAccessorCache of the KieBase, the ones the rules use, instead of reflection.
+ */
+public class FactTypeCodec<T> extends TypeCodec<T> {
+
+    private final Constructor<T>         constructor;
+
+    private final BaseClassFieldReader[] readers;
+
+    private final BaseClassFieldWriter[] writers;
+
+    private final Class< ? >[]           fieldTypes;
+
+    private FactTypeCodec(Class<T> type,
+                          String[] fieldNames,
+                          BaseClassFieldReader[] readers,
+                          BaseClassFieldWriter[] writers) {
+        super( type.getName(),
+               type,
+               fieldNames );
+        try {
+            this.constructor = type.getConstructor();
+        } catch ( NoSuchMethodException e ) {
+            throw new IllegalArgumentException( "Unable to encode " + type.getName() + ": it has no public no-arg constructor" );
+        }
+        this.readers = readers;
+        this.writers = writers;
+        this.fieldTypes = new Class< ? >[writers.length];
+        for ( int i = 0; i < writers.length; i++ ) {
+            this.fieldTypes[i] = box( writers[i].getFieldType() );
+        }
+    }
+
+    public static <T> FactTypeCodec<T> newFactTypeCodec(Class<T> type,
+                                                        ClassFieldAccessorCache accessorCache) {
+        if ( type.isInterface() || Modifier.isAbstract( type.getModifiers() ) ) {
+            throw new IllegalArgumentException( "Unable to encode " + type.getName() + ": it cannot be instantiated" );
+        }
+        // the cache entries by class loader are not thread safe
+        synchronized ( accessorCache ) {
+            ClassFieldAccessorCache.CacheEntry cacheEntry = accessorCache.getCacheEntry( type );
+            ClassFieldInspector inspector = cacheEntry.getInspectors().get( type );
+            if ( inspector == null ) {
+                try {
+                    inspector = new ClassFieldInspector( type );
+                } catch ( Exception e ) {
+                    throw new RuntimeDroolsException( "Unable to inspect " + type.getName(), e );
+                }
+                cacheEntry.getInspectors().put( type, inspector );
+            }
+
+            Map<String, Method> setters = inspector.getSetterMethods();
+            List<String> names = new ArrayList<String>();
+            for ( String name : inspector.getGetterMethods().keySet() ) {
+                if ( inspector.isNonGetter( name ) || "class".equals( name ) ) {
+                    continue;
+                }
+                if ( !setters.containsKey( name ) ) {
+                    throw new IllegalArgumentException( "Unable to encode " + type.getName() + ": its property " + name + " has no setter" );
+                }
+                names.add( name );
+            }
+            checkFields( type,
+                         names );
+            // a stable order, the binary encoding writes the values in this order
+            Collections.sort( names );
+
+            String[] fieldNames = names.toArray( new String[names.size()] );
+            BaseClassFieldReader[] readers = new BaseClassFieldReader[fieldNames.length];
+            BaseClassFieldWriter[] writers = new BaseClassFieldWriter[fieldNames.length];
+            for ( int i = 0; i < fieldNames.length; i++ ) {
+                AccessorKey key = new AccessorKey( type.getName(),
+                                                   fieldNames[i],
+                                                   AccessorKey.AccessorType.FieldAccessor );
+                readers[i] = cacheEntry.getReadAccessor( key, type );
+                writers[i] = cacheEntry.getWriteAccessor( key, type );
+            }
+            return new FactTypeCodec<T>( type,
+                                         fieldNames,
+                                         readers,
+                                         writers );
+        }
+    }
+
+    /**
+     * Checks that the state of the given type is only made of the encoded properties, a
+     * field with no getter and setter of the same name would be lost on decoding
+     */
+    private static void checkFields(Class< ? > type,
+                                    Collection<String> names) {
+        for ( Class< ? > cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass() ) {
+            for ( Field field : cls.getDeclaredFields() ) {
+                int modifiers = field.getModifiers();
+                if ( !Modifier.isStatic( modifiers ) && !Modifier.isTransient( modifiers ) && !field.isSynthetic() && !names.contains( field.getName() ) ) {
+                    throw new IllegalArgumentException( "Unable to encode " + type.getName() + ": its field " + cls.getName() + "." + field.getName() +
+                                                        " is neither transient nor a property with a getter and a setter" );
+                }
+            }
+        }
+    }
+
+    public Object[] getValues(T object) {
+        Object[] values = new Object[readers.length];
+        for ( int i = 0; i < readers.length; i++ ) {
+            values[i] = readers[i].getValue( object );
+        }
+        return values;
+    }
+
+    public T newInstance(Object[] values) {
+        T object;
+        try {
+            object = constructor.newInstance();
+        } catch ( Exception e ) {
+            throw new RuntimeDroolsException( "Unable to instantiate " + getName(), e );
+        }
+        for ( int i = 0; i < writers.length; i++ ) {
+            if ( values[i] != null ) {
+                writers[i].setValue( object,
+                                     coerce( values[i],
+                                             fieldTypes[i] ) );
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Converts a decoded value to the type of the field it is written to: the JSON encoding
+     * does not know the exact type of numbers, enums or chars, and sets are encoded as lists
+     */
+    static Object coerce(Object value,
+                         Class< ? > type) {
+        if ( type.isInstance( value ) ) {
+            return value;
+        }
+        if ( value instanceof Number ) {
+            Number n = (Number) value;
+            if ( type == Integer.class ) {
+                return n.intValue();
+            } else if ( type == Long.class ) {
+                return n.longValue();
+            } else if ( type == Double.class ) {
+                return n.doubleValue();
+            } else if ( type == Float.class ) {
+                return n.floatValue();
+            } else if ( type == Short.class ) {
+                return n.shortValue();
+            } else if ( type == Byte.class ) {
+                return n.byteValue();
+            } else if ( type == BigDecimal.class ) {
+                return new BigDecimal( n.toString() );
+            } else if ( type == BigInteger.class ) {
+                return new BigInteger( n.toString() );
+            } else if ( type == Date.class ) {
+                return new Date( n.longValue() );
+            }
+        } else if ( value instanceof String ) {
+            String s = (String) value;
+            if ( type.isEnum() ) {
+                return Enum.valueOf( (Class) type, s );
+            } else if ( type == Character.class && s.length() == 1 ) {
+                return s.charAt( 0 );
+            } else if ( type == BigDecimal.class ) {
+                return new BigDecimal( s );
+            } else if ( type == BigInteger.class ) {
+                return new BigInteger( s );
+            }
+        } else if ( value instanceof Collection && type.isAssignableFrom( LinkedHashSet.class ) ) {
+            return new LinkedHashSet<Object>( (Collection) value );
+        }
+        throw new IllegalArgumentException( "Unable to convert " + value + " to " + type.getName() );
+    }
+
+    private static Class< ? > box(Class< ? > type) {
+        if ( !type.isPrimitive() ) {
+            return type;
+        } else if ( type == int.class ) {
+            return Integer.class;
+        } else if ( type == long.class ) {
+            return Long.class;
+        } else if ( type == double.class ) {
+            return Double.class;
+        } else if ( type == float.class ) {
+            return Float.class;
+        } else if ( type == boolean.class ) {
+            return Boolean.class;
+        } else if ( type == short.class ) {
+            return Short.class;
+        } else if ( type == byte.class ) {
+            return Byte.class;
+        } else {
+            return Character.class;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import static org.drools.core.runtime.help.impl.JSonBatchExecutionWriter.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drools.core.common.DefaultFactHandle;
+
+/**
+ * Reads the JSON encoding written by JSonBatchExecutionWriter, one token at a time. The
+ * numbers are read as Integer, Long or BigInteger when they have no fraction or exponent,
+ * and as Double otherwise: the fields of the facts convert them to their own type. The
+ * Long, Float, Short and Byte values written wrapped are read back with their own type,
+ * whatever their magnitude, and the enum constants as the constants of their enum class.
+ */
+class JSonBatchExecutionReader {
+
+    private final Reader              in;
+
+    private final BatchExecutionCodec codec;
+
+    private final char[]              buffer = new char[8192];
+
+    private int                       position;
+
+    private int                       limit;
+
+    private final StringBuilder       sb     = new StringBuilder();
+
+    JSonBatchExecutionReader(Reader in,
+                             BatchExecutionCodec codec) {
+        this.in = in;
+        this.codec = codec;
+    }
+
+    public Object readValue() throws IOException {
+        char c = peek();
+        switch ( c ) {
+            case '"' :
+                return readString();
+            case '{' :
+                return readObject();
+            case '[' :
+                return readList();
+            case 't' :
+                readLiteral( "true" );
+                return Boolean.TRUE;
+            case 'f' :
+                readLiteral( "false" );
+                return Boolean.FALSE;
+            case 'n' :
+                readLiteral( "null" );
+                return null;
+            default :
+                return readNumber();
+        }
+    }
+
+    private Object readObject() throws IOException {
+        expect( '{' );
+        String name = readString();
+        expect( ':' );
+        Object value;
+        if ( MAP.equals( name ) ) {
+            value = readMap();
+        } else if ( FACT_HANDLE.equals( name ) ) {
+            value = new DefaultFactHandle( readString() );
+        } else if ( CHAR.equals( name ) ) {
+            value = readString().charAt( 0 );
+        } else if ( DATE.equals( name ) ) {
+            value = new Date( ((Number) readNumber()).longValue() );
+        } else if ( BIG_DECIMAL.equals( name ) ) {
+            value = new BigDecimal( readString() );
+        } else if ( BIG_INTEGER.equals( name ) ) {
+            value = new BigInteger( readString() );
+        } else if ( DOUBLE.equals( name ) ) {
+            value = Double.valueOf( readString() );
+        } else if ( LONG.equals( name ) ) {
+            value = peek() == '"' ? Long.valueOf( readString() ) : ((Number) readNumber()).longValue();
+        } else if ( FLOAT.equals( name ) ) {
+            value = peek() == '"' ? Float.valueOf( readString() ) : ((Number) readNumber()).floatValue();
+        } else if ( SHORT.equals( name ) ) {
+            value = ((Number) readNumber()).shortValue();
+        } else if ( BYTE.equals( name ) ) {
+            value = ((Number) readNumber()).byteValue();
+        } else if ( ENUM.equals( name ) ) {
+            String constant = readString();
+            int dot = constant.lastIndexOf( '.' );
+            if ( dot < 0 ) {
+                throw new StreamCorruptedException( "Invalid enum constant " + constant );
+            }
+            value = codec.getEnumConstant( constant.substring( 0, dot ),
+                                           constant.substring( dot + 1 ) );
+        } else {
+            value = readFields( codec.getTypeCodec( name ) );
+        }
+        expect( '}' );
+        return value;
+    }
+
+    private Object readFields(TypeCodec< ? > type) throws IOException {
+        Object[] values = new Object[type.getFieldNames().length];
+        expect( '{' );
+        if ( peek() != '}' ) {
+            do {
+                String name = readString();
+                expect( ':' );
+                Object value = readValue();
+                int index = type.indexOf( name );
+                // a field this version of the type does not have is skipped
+                if ( index >= 0 ) {
+                    values[index] = value;
+                }
+            } while ( next( ',', '}' ) );
+        } else {
+            position++;
+        }
+        return type.newInstance( values );
+    }
+
+    private Map<String, Object> readMap() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        expect( '{' );
+        if ( peek() != '}' ) {
+            do {
+                String key = readString();
+                expect( ':' );
+                map.put( key,
+                         readValue() );
+            } while ( next( ',', '}' ) );
+        } else {
+            position++;
+        }
+        return map;
+    }
+
+    private List<Object> readList() throws IOException {
+        List<Object> list = new ArrayList<Object>();
+        expect( '[' );
+        if ( peek() != ']' ) {
+            do {
+                list.add( readValue() );
+            } while ( next( ',', ']' ) );
+        } else {
+            position++;
+        }
+        return list;
+    }
+
+    private String readString() throws IOException {
+        expect( '"' );
+        sb.setLength( 0 );
+        while ( true ) {
+            if ( position == limit && !fill() ) {
+                throw new EOFException( "Unterminated JSON string" );
+            }
+            // copy the chars not needing an unescape at once
+            int start = position;
+            while ( position < limit && buffer[position] != '"' && buffer[position] != '\\' ) {
+                position++;
+            }
+            sb.append( buffer, start, position - start );
+            if ( position == limit ) {
+                continue;
+            }
+            char c = buffer[position++];
+            if ( c == '"' ) {
+                return sb.toString();
+            }
+            c = read();
+            switch ( c ) {
+                case 'n' :
+                    sb.append( '\n' );
+                    break;
+                case 'r' :
+                    sb.append( '\r' );
+                    break;
+                case 't' :
+                    sb.append( '\t' );
+                    break;
+                case 'b' :
+                    sb.append( '\b' );
+                    break;
+                case 'f' :
+                    sb.append( '\f' );
+                    break;
+                case 'u' :
+                    char[] hex = new char[]{read(), read(), read(), read()};
+                    try {
+                        sb.append( (char) Integer.parseInt( new String( hex ), 16 ) );
+                    } catch ( NumberFormatException e ) {
+                        throw new StreamCorruptedException( "Malformed JSON unicode escape \\u" + new String( hex ) );
+                    }
+                    break;
+                default :
+                    // " \ and /
+                    sb.append( c );
+            }
+        }
+    }
+
+    private Object readNumber() throws IOException {
+        peek();
+        sb.setLength( 0 );
+        boolean decimal = false;
+        while ( position < limit || fill() ) {
+            char c = buffer[position];
+            if ( c == '.' || c == 'e' || c == 'E' ) {
+                decimal = true;
+            } else if ( !(c >= '0' && c <= '9') && c != '-' && c != '+' ) {
+                break;
+            }
+            sb.append( c );
+            position++;
+        }
+        String s = sb.toString();
+        try {
+            if ( decimal ) {
+                return Double.valueOf( s );
+            }
+            long l = Long.parseLong( s );
+            if ( l == (int) l ) {
+                return (int) l;
+            }
+            return l;
+        } catch ( NumberFormatException e ) {
+            if ( !decimal && s.length() > 0 ) {
+                try {
+                    return new BigInteger( s );
+                } catch ( NumberFormatException e2 ) {
+                    // reported below
+                }
+            }
+            throw new StreamCorruptedException( "Malformed JSON number '" + s + "'" );
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for ( int i = 0; i < literal.length(); i++ ) {
+            if ( read() != literal.charAt( i ) ) {
+                throw new StreamCorruptedException( "Malformed JSON, expected " + literal );
+            }
+        }
+    }
+
+    /**
+     * Reads the next non blank char, which must be one of the given ones, returning
+     * true if it is the first one
+     */
+    private boolean next(char c1,
+                         char c2) throws IOException {
+        char c = peek();
+        position++;
+        if ( c == c1 ) {
+            return true;
+        } else if ( c == c2 ) {
+            return false;
+        }
+        throw new StreamCorruptedException( "Malformed JSON, expected '" + c1 + "' or '" + c2 + "' but found '" + c + "'" );
+    }
+
+    private void expect(char expected) throws IOException {
+        char c = peek();
+        if ( c != expected ) {
+            throw new StreamCorruptedException( "Malformed JSON, expected '" + expected + "' but found '" + c + "'" );
+        }
+        position++;
+    }
+
+    /**
+     * Skips the blanks and returns the next char, without consuming it
+     */
+    private char peek() throws IOException {
+        while ( true ) {
+            if ( position == limit && !fill() ) {
+                throw new EOFException( "Unexpected end of JSON" );
+            }
+            char c = buffer[position];
+            if ( c != ' ' && c != '\n' && c != '\r' && c != '\t' ) {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    private char read() throws IOException {
+        if ( position == limit && !fill() ) {
+            throw new EOFException( "Unexpected end of JSON" );
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read( buffer );
+        if ( n <= 0 ) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
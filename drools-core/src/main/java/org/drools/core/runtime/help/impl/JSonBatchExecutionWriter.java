@@ -0,0 +1,255 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+
+/**
+ * Writes the JSON encoding. An object is a single member object named after its type,
+ * as with the XStream JSON marshaller: {"insert":{"object":{"org.acme.Person":{...}}}},
+ * its null fields being omitted. The values JSON has no type for are wrapped the same
+ * way: {"fact-handle":"0:1:..."}, {"char":"c"}, {"date":1234}, {"big-decimal":"1.5"},
+ * {"big-integer":"1"}, {"enum":"org.acme.Color.RED"} and {"map":{...}}. The Long, Float,
+ * Short and Byte values are wrapped too, {"long":1}, {"float":1.5}, {"short":1} and
+ * {"byte":1}, as the numbers are otherwise read back as Integer or Double.
+ */
+class JSonBatchExecutionWriter
+    implements
+    BatchExecutionWriter {
+
+    static final String  MAP         = "map";
+    static final String  FACT_HANDLE = "fact-handle";
+    static final String  CHAR        = "char";
+    static final String  DATE        = "date";
+    static final String  BIG_DECIMAL = "big-decimal";
+    static final String  BIG_INTEGER = "big-integer";
+    static final String  DOUBLE      = "double";
+    static final String  LONG        = "long";
+    static final String  FLOAT       = "float";
+    static final String  SHORT       = "short";
+    static final String  BYTE        = "byte";
+    static final String  ENUM        = "enum";
+
+    private final Writer out;
+
+    // whether a separator must be written before the next value or key
+    private boolean      comma;
+
+    JSonBatchExecutionWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeNull() throws IOException {
+        separate();
+        out.write( "null" );
+        comma = true;
+    }
+
+    public void writeString(String value) throws IOException {
+        separate();
+        quote( value );
+        comma = true;
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        separate();
+        out.write( value ? "true" : "false" );
+        comma = true;
+    }
+
+    public void writeNumber(Number value) throws IOException {
+        if ( value instanceof BigDecimal ) {
+            wrap( BIG_DECIMAL,
+                  value.toString() );
+        } else if ( value instanceof BigInteger ) {
+            wrap( BIG_INTEGER,
+                  value.toString() );
+        } else if ( value instanceof Long ) {
+            wrapNumber( LONG,
+                        value );
+        } else if ( value instanceof Short ) {
+            wrapNumber( SHORT,
+                        value );
+        } else if ( value instanceof Byte ) {
+            wrapNumber( BYTE,
+                        value );
+        } else if ( value instanceof Float ) {
+            if ( Float.isNaN( value.floatValue() ) || Float.isInfinite( value.floatValue() ) ) {
+                // not valid JSON numbers
+                wrap( FLOAT,
+                      value.toString() );
+            } else {
+                wrapNumber( FLOAT,
+                            value );
+            }
+        } else if ( value instanceof Double && (Double.isNaN( value.doubleValue() ) || Double.isInfinite( value.doubleValue() )) ) {
+            // not valid JSON numbers
+            wrap( DOUBLE,
+                  value.toString() );
+        } else {
+            separate();
+            out.write( value.toString() );
+            comma = true;
+        }
+    }
+
+    public void writeChar(char value) throws IOException {
+        wrap( CHAR,
+              String.valueOf( value ) );
+    }
+
+    public void writeDate(Date value) throws IOException {
+        startWrapper( DATE );
+        out.write( Long.toString( value.getTime() ) );
+        out.write( '}' );
+        comma = true;
+    }
+
+    public void writeEnum(String type,
+                          String name) throws IOException {
+        wrap( ENUM,
+              type + '.' + name );
+    }
+
+    public void writeFactHandle(String externalForm) throws IOException {
+        wrap( FACT_HANDLE,
+              externalForm );
+    }
+
+    public void startList(int size) throws IOException {
+        separate();
+        out.write( '[' );
+        comma = false;
+    }
+
+    public void endList() throws IOException {
+        out.write( ']' );
+        comma = true;
+    }
+
+    public void startMap(int size) throws IOException {
+        startWrapper( MAP );
+        out.write( '{' );
+        comma = false;
+    }
+
+    public void writeKey(String key) throws IOException {
+        separate();
+        quote( key );
+        out.write( ':' );
+        comma = false;
+    }
+
+    public void endMap() throws IOException {
+        out.write( "}}" );
+        comma = true;
+    }
+
+    public void startObject(TypeCodec< ? > codec) throws IOException {
+        startWrapper( codec.getName() );
+        out.write( '{' );
+        comma = false;
+    }
+
+    public boolean startField(String name,
+                              Object value) throws IOException {
+        if ( value == null ) {
+            return false;
+        }
+        writeKey( name );
+        return true;
+    }
+
+    public void endObject() throws IOException {
+        out.write( "}}" );
+        comma = true;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void wrap(String name,
+                      String value) throws IOException {
+        startWrapper( name );
+        quote( value );
+        out.write( '}' );
+        comma = true;
+    }
+
+    private void wrapNumber(String name,
+                            Number value) throws IOException {
+        startWrapper( name );
+        out.write( value.toString() );
+        out.write( '}' );
+        comma = true;
+    }
+
+    private void startWrapper(String name) throws IOException {
+        separate();
+        out.write( '{' );
+        quote( name );
+        out.write( ':' );
+    }
+
+    private void separate() throws IOException {
+        if ( comma ) {
+            out.write( ',' );
+        }
+    }
+
+    private void quote(String s) throws IOException {
+        out.write( '"' );
+        int start = 0;
+        int length = s.length();
+        for ( int i = 0; i < length; i++ ) {
+            char c = s.charAt( i );
+            if ( c == '"' || c == '\\' || c < 0x20 ) {
+                // write the chars not needing an escape at once
+                out.write( s, start, i - start );
+                start = i + 1;
+                switch ( c ) {
+                    case '"' :
+                        out.write( "\\\"" );
+                        break;
+                    case '\\' :
+                        out.write( "\\\\" );
+                        break;
+                    case '\n' :
+                        out.write( "\\n" );
+                        break;
+                    case '\r' :
+                        out.write( "\\r" );
+                        break;
+                    case '\t' :
+                        out.write( "\\t" );
+                        break;
+                    default :
+                        String hex = Integer.toHexString( c );
+                        out.write( "\\u0000", 0, 6 - hex.length() );
+                        out.write( hex );
+                }
+            }
+        }
+        out.write( s, start, length - start );
+        out.write( '"' );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.help.impl;
+
+/**
+ * The schema of a type encoded by the BatchExecutionCodec: its name and the ordered
+ * list of its fields. An instance is encoded as the values of its fields, and created
+ * back from them, whatever the encoding.
+ */
+public abstract class TypeCodec<T> {
+
+    private final String   name;
+
+    private final Class<T> type;
+
+    private final String[] fieldNames;
+
+    protected TypeCodec(String name,
+                        Class<T> type,
+                        String... fieldNames) {
+        this.name = name;
+        this.type = type;
+        this.fieldNames = fieldNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    public int indexOf(String fieldName) {
+        for ( int i = 0; i < fieldNames.length; i++ ) {
+            if ( fieldNames[i].equals( fieldName ) ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the values of the fields of the given object, in the order of the field names
+     */
+    public abstract Object[] getValues(T object);
+
+    /**
+     * Creates an instance from the values of its fields, a missing field being null
+     */
+    public abstract T newInstance(Object[] values);
+
+    public String toString() {
+        return "TypeCodec[" + name + "]";
+    }
+}
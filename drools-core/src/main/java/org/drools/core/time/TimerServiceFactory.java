@@ -26,7 +26,9 @@ public class TimerServiceFactory {
             case REALTIME_CLOCK:
                 return config.newTimerService();
             case PSEUDO_CLOCK:
-                return new PseudoClockScheduler();
+                PseudoClockScheduler scheduler = new PseudoClockScheduler();
+                scheduler.setBatchFiring( config.isTimerBatchFiring() );
+                return scheduler;
         }
         return null;
     }
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.time.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.time.AcceptsTimerJobFactoryManager;
+import org.drools.core.time.InternalSchedulerService;
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.Trigger;
+import org.kie.api.time.SessionClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Scheduler implementation based on a hashed timing wheel, using
+ * the system clock as the clock.
+ *
+ * Jobs are hashed by their fire time into a fixed number of buckets, each
+ * covering one tick. Scheduling and cancelling a job only enqueue its handle
+ * on a lock free queue, while a single worker thread moves the handles into
+ * their buckets and, on each tick, executes in one batch all the jobs that
+ * are due. Both operations are O(1) and no future is allocated per job, at
+ * the price of firing jobs with the granularity of a tick.
+ *
+ * It can be used instead of the JDKTimerService by setting the
+ * drools.timerService property to
+ * org.drools.core.time.impl.HashedWheelTimerService
+ */
+public class HashedWheelTimerService
+    implements
+    TimerService,
+    SessionClock,
+    InternalSchedulerService,
+    AcceptsTimerJobFactoryManager {
+
+    protected static transient Logger   logger            = LoggerFactory.getLogger( HashedWheelTimerService.class );
+
+    private static final int            WORKER_INIT       = 0;
+    private static final int            WORKER_STARTED    = 1;
+    private static final int            WORKER_SHUTDOWN   = 2;
+
+    private AtomicLong                  idCounter         = new AtomicLong();
+
+    protected TimerJobFactoryManager    jobFactoryManager = DefaultTimerJobFactoryManager.instance;
+
+    private final long                  tickDuration;
+
+    private final WheelBucket[]         wheel;
+
+    private final int                   mask;
+
+    private final Queue<WheelJobHandle> pendingHandles    = new ConcurrentLinkedQueue<WheelJobHandle>();
+
+    private final Queue<WheelJobHandle> cancelledHandles  = new ConcurrentLinkedQueue<WheelJobHandle>();
+
+    private final AtomicInteger         workerState       = new AtomicInteger( WORKER_INIT );
+
+    private final Thread                workerThread;
+
+    private volatile long               startTime;
+
+    public HashedWheelTimerService() {
+        this( 10, 512 );
+    }
+
+    /**
+     * @param tickDuration the duration of a tick in milliseconds
+     * @param ticksPerWheel the number of buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelTimerService(long tickDuration,
+                                   int ticksPerWheel) {
+        if ( tickDuration <= 0 ) {
+            throw new IllegalArgumentException( "tickDuration must be greater than 0: " + tickDuration );
+        }
+        if ( ticksPerWheel <= 0 || ticksPerWheel > 1 << 30 ) {
+            throw new IllegalArgumentException( "ticksPerWheel must be between 1 and 2^30: " + ticksPerWheel );
+        }
+        int size = 1;
+        while ( size < ticksPerWheel ) {
+            size <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.mask = size - 1;
+        this.wheel = new WheelBucket[size];
+        for ( int i = 0; i < size; i++ ) {
+            this.wheel[i] = new WheelBucket();
+        }
+        this.workerThread = new Thread( new Worker(),
+                                        "drools-hashed-wheel-timer" );
+        this.workerThread.setDaemon( true );
+    }
+
+    public void setTimerJobFactoryManager(TimerJobFactoryManager timerJobFactoryManager) {
+        this.jobFactoryManager = timerJobFactoryManager;
+    }
+
+    public void setCounter(long counter) {
+        idCounter = new AtomicLong( counter );
+    }
+
+    public TimerJobFactoryManager getTimerJobFactoryManager() {
+        return this.jobFactoryManager;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+
+    public void shutdown() {
+        // as for the JDKTimerService the pending jobs are dropped,
+        // this is an irreversible operation called on session dispose.
+        if ( workerState.getAndSet( WORKER_SHUTDOWN ) == WORKER_STARTED && Thread.currentThread() != workerThread ) {
+            workerThread.interrupt();
+        }
+    }
+
+    public JobHandle scheduleJob(Job job,
+                                 JobContext ctx,
+                                 Trigger trigger) {
+        Date date = trigger.hasNextFireTime();
+        if ( date != null ) {
+            WheelJobHandle jobHandle = new WheelJobHandle( idCounter.getAndIncrement() );
+
+            TimerJobInstance jobInstance = jobFactoryManager.createTimerJobInstance( job,
+                                                                                     ctx,
+                                                                                     trigger,
+                                                                                     jobHandle,
+                                                                                     this );
+            jobHandle.setTimerJobInstance( jobInstance );
+            internalSchedule( jobInstance );
+
+            return jobHandle;
+        } else {
+            return null;
+        }
+    }
+
+    public void internalSchedule(TimerJobInstance timerJobInstance) {
+        WheelJobHandle jobHandle = (WheelJobHandle) timerJobInstance.getJobHandle();
+        jobHandle.deadline = timerJobInstance.getTrigger().hasNextFireTime().getTime();
+
+        start();
+        pendingHandles.add( jobHandle );
+        jobFactoryManager.addTimerJobInstance( timerJobInstance );
+    }
+
+    public boolean removeJob(JobHandle jobHandle) {
+        jobHandle.setCancel( true );
+        jobFactoryManager.removeTimerJobInstance( ((WheelJobHandle) jobHandle).getTimerJobInstance() );
+        // the handle is unlinked from its bucket by the worker on the next tick
+        cancelledHandles.add( (WheelJobHandle) jobHandle );
+        return true;
+    }
+
+    public long getTimeToNextJob() {
+        return 0;
+    }
+
+    public Collection<TimerJobInstance> getTimerJobInstances(int id) {
+        return jobFactoryManager.getTimerJobInstances();
+    }
+
+    private void start() {
+        if ( workerState.get() == WORKER_INIT && workerState.compareAndSet( WORKER_INIT, WORKER_STARTED ) ) {
+            startTime = System.currentTimeMillis();
+            workerThread.start();
+        }
+    }
+
+    private class Worker
+        implements
+        Runnable {
+
+        private long                       tick;
+
+        private final List<WheelJobHandle> expired = new ArrayList<WheelJobHandle>();
+
+        public void run() {
+            while ( workerState.get() == WORKER_STARTED ) {
+                long now = waitForNextTick();
+                if ( now < 0 ) {
+                    break;
+                }
+                removeCancelledHandles();
+                transferPendingHandles();
+                wheel[(int) (tick & mask)].expire( expired );
+                executeExpiredJobs();
+                tick++;
+            }
+        }
+
+        private long waitForNextTick() {
+            long deadline = startTime + tickDuration * (tick + 1);
+            for (;;) {
+                long now = System.currentTimeMillis();
+                if ( now >= deadline ) {
+                    return now;
+                }
+                try {
+                    Thread.sleep( deadline - now );
+                } catch ( InterruptedException e ) {
+                    if ( workerState.get() == WORKER_SHUTDOWN ) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelledHandles() {
+            for ( WheelJobHandle handle = cancelledHandles.poll(); handle != null; handle = cancelledHandles.poll() ) {
+                if ( handle.bucket != null ) {
+                    handle.bucket.remove( handle );
+                }
+            }
+        }
+
+        private void transferPendingHandles() {
+            for ( WheelJobHandle handle = pendingHandles.poll(); handle != null; handle = pendingHandles.poll() ) {
+                if ( handle.isCancel() ) {
+                    continue;
+                }
+                long calculated = Math.max( 0, handle.deadline - startTime ) / tickDuration;
+                handle.remainingRounds = (calculated - tick) / wheel.length;
+                // jobs already due go in the current bucket
+                long ticks = Math.max( calculated, tick );
+                wheel[(int) (ticks & mask)].add( handle );
+            }
+        }
+
+        private void executeExpiredJobs() {
+            for ( int i = 0, length = expired.size(); i < length; i++ ) {
+                WheelJobHandle handle = expired.get( i );
+                if ( handle.isCancel() ) {
+                    continue;
+                }
+                try {
+                    // a job with another fire time reschedules itself on the pending queue
+                    ((Callable<Void>) handle.getTimerJobInstance()).call();
+                } catch ( Exception e ) {
+                    logger.warn( "Unable to execute timer job!", e );
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    /**
+     * A doubly linked list of the handles hashed in the same bucket,
+     * only accessed by the worker thread.
+     */
+    private static class WheelBucket {
+
+        private WheelJobHandle head;
+
+        private WheelJobHandle tail;
+
+        public void add(WheelJobHandle handle) {
+            handle.bucket = this;
+            if ( head == null ) {
+                head = tail = handle;
+            } else {
+                tail.next = handle;
+                handle.prev = tail;
+                tail = handle;
+            }
+        }
+
+        public void remove(WheelJobHandle handle) {
+            WheelJobHandle next = handle.next;
+            if ( handle.prev != null ) {
+                handle.prev.next = next;
+            }
+            if ( next != null ) {
+                next.prev = handle.prev;
+            }
+            if ( handle == head ) {
+                head = next;
+            }
+            if ( handle == tail ) {
+                tail = handle.prev;
+            }
+            handle.prev = null;
+            handle.next = null;
+            handle.bucket = null;
+        }
+
+        public void expire(List<WheelJobHandle> expired) {
+            WheelJobHandle handle = head;
+            while ( handle != null ) {
+                WheelJobHandle next = handle.next;
+                if ( handle.remainingRounds <= 0 ) {
+                    remove( handle );
+                    expired.add( handle );
+                } else {
+                    handle.remainingRounds--;
+                }
+                handle = next;
+            }
+        }
+    }
+
+    public static class WheelJobHandle extends DefaultJobHandle
+        implements
+        JobHandle {
+
+        private static final long          serialVersionUID = 510l;
+
+        private transient volatile long    deadline;
+
+        private transient long             remainingRounds;
+
+        private transient WheelBucket      bucket;
+
+        private transient WheelJobHandle   prev;
+
+        private transient WheelJobHandle   next;
+
+        public WheelJobHandle(long id) {
+            super( id );
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+}
@@ -62,6 +62,10 @@ public class PseudoClockScheduler
 
     private AtomicLong                      idCounter         = new AtomicLong();
 
+    private boolean                         batchFiring;
+    private transient boolean               firingBatch;
+    private transient boolean               fireAllRulesDeferred;
+
     public PseudoClockScheduler() {
         this( null );
     }
@@ -180,6 +184,34 @@ public class PseudoClockScheduler
         this.session = session;
     }
 
+    public boolean isBatchFiring() {
+        return batchFiring;
+    }
+
+    /**
+     * When batch firing is on, all the jobs due within an advance of the clock are
+     * executed while holding the session lock, the actions they queue, as the event
+     * expirations, are executed together at the end of the advance and the rules
+     * are fired once.
+     *
+     * @see org.drools.core.SessionConfiguration#setTimerBatchFiring(boolean)
+     */
+    public void setBatchFiring(boolean batchFiring) {
+        this.batchFiring = batchFiring;
+    }
+
+    /**
+     * Called by the jobs that fire the rules after their execution, returns true
+     * if the firing has been deferred to the end of the current batch
+     */
+    public boolean deferFireAllRules() {
+        if ( firingBatch ) {
+            fireAllRulesDeferred = true;
+            return true;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -187,17 +219,48 @@ public class PseudoClockScheduler
         // nothing to do
     }
 
-    @SuppressWarnings("unchecked")
     private synchronized long runCallBacksAndIncreaseTimer( long increase ) {
         long endTime = this.timer.get() + increase;
-        TimerJobInstance item = (TimerJobInstance) queue.peek();
-        long fireTime;
-        while ( item != null && ((item.getTrigger().hasNextFireTime() != null && ( ( fireTime = item.getTrigger().hasNextFireTime().getTime()) <= endTime ) ) )  ) {
-            // remove the head
-            synchronized( queue ) {
-                queue.remove(item);
+        InternalWorkingMemory session = this.session;
+        if ( batchFiring && session != null ) {
+            runBatchedCallBacks( session,
+                                 endTime );
+        } else {
+            runCallBacks( endTime );
+        }
+        this.timer.set( endTime );
+        return this.timer.get(); 
+    }
+
+    private void runBatchedCallBacks( InternalWorkingMemory session, long endTime ) {
+        boolean fireAllRules;
+        session.getLock().lock();
+        try {
+            firingBatch = true;
+            try {
+                runCallBacks( endTime );
+            } finally {
+                firingBatch = false;
             }
+            fireAllRules = fireAllRulesDeferred;
+            fireAllRulesDeferred = false;
+
+            // the expirations queued by the jobs are all executed at the end time
+            this.timer.set( endTime );
+            session.executeQueuedActions();
+        } finally {
+            session.getLock().unlock();
+        }
+
+        if ( fireAllRules ) {
+            session.fireAllRules();
+        }
+    }
 
+    @SuppressWarnings("unchecked")
+    private void runCallBacks( long endTime ) {
+        TimerJobInstance item;
+        while ( (item = pollDueJob( endTime )) != null ) {
             if ( item.getJobHandle().isCancel() ) {
                 // do not call it, do not reschedule it
                 continue;
@@ -205,19 +268,25 @@ public class PseudoClockScheduler
             
             try {
                 // set the clock back to the trigger's fire time
-                this.timer.getAndSet( fireTime );
+                this.timer.getAndSet( item.getTrigger().hasNextFireTime().getTime() );
                 // execute the call
                 ((Callable<Void>) item).call();
             } catch ( Exception e ) {
                 logger.error( "Exception running callbacks: ", e );
             }
-            // get next head
-            synchronized( queue ) {
-                item = (TimerJobInstance) queue.peek();
+        }
+    }
+
+    private TimerJobInstance pollDueJob( long endTime ) {
+        synchronized( queue ) {
+            TimerJobInstance item = (TimerJobInstance) queue.peek();
+            Date fireTime = item != null ? item.getTrigger().hasNextFireTime() : null;
+            if ( fireTime != null && fireTime.getTime() <= endTime ) {
+                // remove the head
+                return (TimerJobInstance) queue.poll();
             }
+            return null;
         }
-        this.timer.set( endTime );
-        return this.timer.get(); 
     }
 
     public long getTimeToNextJob() {
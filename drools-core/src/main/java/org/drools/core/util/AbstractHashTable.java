@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 
+import org.drools.core.base.ValueType;
 import org.drools.core.util.index.LeftTupleIndexHashTable;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.rule.Declaration;
@@ -508,6 +509,148 @@ public abstract class AbstractHashTable
         }
     }
 
+    /**
+     * Single index on an int, long or double field, when both the indexed field and the joined declaration
+     * have that same primitive type. Values are read and compared as primitives, so neither the hashing nor the
+     * bucket matching box the field values, nor go through the IndexEvaluator.
+     * Doubles are compared on their bits, which gives the same results as Double.equals.
+     */
+    public static class PrimitiveSingleIndex
+        implements
+        Index {
+
+        private static final long    serialVersionUID = 510l;
+
+        private static final int     INT_KEY          = 0;
+        private static final int     LONG_KEY         = 1;
+        private static final int     DOUBLE_KEY       = 2;
+
+        private InternalReadAccessor extractor;
+        private Declaration          declaration;
+        private IndexEvaluator       evaluator;
+
+        private int                  keyType;
+
+        private int                  startResult;
+
+        public PrimitiveSingleIndex() {
+
+        }
+
+        public PrimitiveSingleIndex(final FieldIndex[] indexes,
+                                    final int startResult) {
+            this.startResult = startResult;
+
+            this.extractor = indexes[0].extractor;
+            this.declaration = indexes[0].declaration;
+            this.evaluator = indexes[0].evaluator;
+            this.keyType = keyTypeOf( this.extractor.getValueType() );
+        }
+
+        /**
+         * Returns true when the given index can be served by a PrimitiveSingleIndex
+         */
+        public static boolean isPrimitiveIndex(final FieldIndex index) {
+            if ( index.extractor == null || index.declaration == null || index.declaration.getExtractor() == null ) {
+                return false;
+            }
+            ValueType valueType = index.extractor.getValueType();
+            return keyTypeOf( valueType ) >= 0 && valueType == index.declaration.getValueType();
+        }
+
+        private static int keyTypeOf(final ValueType valueType) {
+            if ( valueType == ValueType.PINTEGER_TYPE ) {
+                return INT_KEY;
+            }
+            if ( valueType == ValueType.PLONG_TYPE ) {
+                return LONG_KEY;
+            }
+            if ( valueType == ValueType.PDOUBLE_TYPE ) {
+                return DOUBLE_KEY;
+            }
+            return -1;
+        }
+
+        public void readExternal(ObjectInput in) throws IOException,
+                                                ClassNotFoundException {
+            extractor = (InternalReadAccessor) in.readObject();
+            declaration = (Declaration) in.readObject();
+            evaluator = (IndexEvaluator) in.readObject();
+            keyType = in.readInt();
+            startResult = in.readInt();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject( extractor );
+            out.writeObject( declaration );
+            out.writeObject( evaluator );
+            out.writeInt( keyType );
+            out.writeInt( startResult );
+        }
+
+        public FieldIndex getFieldIndex(int index) {
+            if ( index > 0 ) {
+                throw new IllegalArgumentException( "IndexUtil position " + index + " does not exist" );
+            }
+            return new FieldIndex( extractor,
+                                   declaration,
+                                   evaluator );
+        }
+
+        private long keyOf(final InternalReadAccessor reader,
+                           final Object object) {
+            switch ( this.keyType ) {
+                case INT_KEY :
+                    return reader.getIntValue( null,
+                                               object );
+                case LONG_KEY :
+                    return reader.getLongValue( null,
+                                                object );
+                default :
+                    return Double.doubleToLongBits( reader.getDoubleValue( null,
+                                                                           object ) );
+            }
+        }
+
+        private long keyOf(final LeftTuple tuple) {
+            return keyOf( this.declaration.getExtractor(),
+                          tuple.get( this.declaration ).getObject() );
+        }
+
+        private int hashCodeOf(final long key) {
+            int hashCode = this.startResult;
+            hashCode = LeftTupleIndexHashTable.PRIME * hashCode + (int) (key ^ (key >>> 32));
+            return rehash( hashCode );
+        }
+
+        public int hashCodeOf(final Object object) {
+            return hashCodeOf( keyOf( this.extractor,
+                                      object ) );
+        }
+
+        public int hashCodeOf(final LeftTuple tuple) {
+            return hashCodeOf( keyOf( tuple ) );
+        }
+
+        public boolean equal(final Object right,
+                             final LeftTuple tuple) {
+            return keyOf( this.extractor,
+                          right ) == keyOf( tuple );
+        }
+
+        public boolean equal(final Object object1,
+                             final Object object2) {
+            return keyOf( this.extractor,
+                          object1 ) == keyOf( this.extractor,
+                                              object2 );
+        }
+
+        public boolean equal(final LeftTuple tuple1,
+                             final LeftTuple tuple2) {
+            return keyOf( tuple1 ) == keyOf( tuple2 );
+        }
+    }
+
     public static class DoubleCompositeIndex
         implements
         Index {
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util.index;
+
+import org.drools.core.reteoo.LeftTuple;
+import org.drools.core.reteoo.LeftTupleMemory;
+import org.drools.core.reteoo.RightTuple;
+import org.drools.core.util.Entry;
+import org.drools.core.util.FastIterator;
+import org.drools.core.util.Iterator;
+
+/**
+ * The left memory of the beta nodes when Phreak runs in sequential mode. The rules are
+ * evaluated once, after all the facts were inserted, so the right inputs are always
+ * processed before the left ones and there is never a left tuple to join against.
+ */
+public class EmptyLeftTupleMemory
+    implements
+    LeftTupleMemory {
+
+    public static final EmptyLeftTupleMemory INSTANCE = new EmptyLeftTupleMemory();
+
+    private static final Entry[]             EMPTY    = new Entry[0];
+
+    private static final Iterator            ITERATOR = new Iterator() {
+                                                          public Object next() {
+                                                              return null;
+                                                          }
+                                                      };
+
+    private EmptyLeftTupleMemory() {
+    }
+
+    public Iterator iterator() {
+        return ITERATOR;
+    }
+
+    public LeftTuple getFirst(RightTuple rightTuple) {
+        return null;
+    }
+
+    public void removeAdd(LeftTuple tuple) {
+    }
+
+    public void add(LeftTuple tuple) {
+    }
+
+    public void remove(LeftTuple leftTuple) {
+    }
+
+    public boolean contains(LeftTuple leftTuple) {
+        return false;
+    }
+
+    public boolean isIndexed() {
+        return false;
+    }
+
+    public int size() {
+        return 0;
+    }
+
+    public Entry[] toArray() {
+        return EMPTY;
+    }
+
+    public FastIterator fastIterator() {
+        return FastIterator.EMPTY;
+    }
+
+    public FastIterator fullFastIterator() {
+        return FastIterator.EMPTY;
+    }
+
+    public FastIterator fullFastIterator(LeftTuple leftTuple) {
+        return FastIterator.EMPTY;
+    }
+
+    public String toString() {
+        return "[]";
+    }
+}
@@ -244,7 +244,7 @@ public class IndexUtil {
         public static BetaMemory createBetaMemory(RuleBaseConfiguration config, short nodeType, BetaNodeFieldConstraint... constraints) {
             int keyDepth = config.getCompositeKeyDepth();
             if (config.getCompositeKeyDepth() < 1) {
-                return new BetaMemory( config.isSequential() ? null : new LeftTupleList(),
+                return new BetaMemory( config.isSequential() ? createSequentialLeftMemory(config) : new LeftTupleList(),
                                        new RightTupleList(),
                                        createContext(constraints),
                                        nodeType );
@@ -279,9 +279,17 @@ public class IndexUtil {
             return new RightTupleList();
         }
 
+        /**
+         * Rete never accesses the left memory in sequential mode, while Phreak still
+         * iterates it on right inserts and so needs one that is always empty
+         */
+        public static LeftTupleMemory createSequentialLeftMemory(RuleBaseConfiguration config) {
+            return config.isPhreakEnabled() ? EmptyLeftTupleMemory.INSTANCE : null;
+        }
+
         private static LeftTupleMemory createLeftMemory(RuleBaseConfiguration config, IndexSpec indexSpec) {
             if (config.isSequential()) {
-                return null;
+                return createSequentialLeftMemory(config);
             }
             if ( !config.isIndexLeftBetaMemory() || !indexSpec.constraintType.isIndexable() ) {
                 return new LeftTupleList();
@@ -73,7 +73,10 @@ public class RightTupleIndexHashTable extends AbstractHashTable
             case 0 :
                 throw new IllegalArgumentException( "FieldIndexHashTable cannot use an index[] of length  0" );
             case 1 :
-                this.index = new SingleIndex( index,
+                this.index = PrimitiveSingleIndex.isPrimitiveIndex( index[0] ) ?
+                             new PrimitiveSingleIndex( index,
+                                                       this.startResult ) :
+                             new SingleIndex( index,
                                               this.startResult );
                 break;
             case 2 :
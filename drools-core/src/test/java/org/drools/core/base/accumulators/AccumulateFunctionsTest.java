@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+
+import org.drools.core.util.DroolsStreamUtils;
+import org.junit.Test;
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+public class AccumulateFunctionsTest {
+
+    @Test
+    public void testMaxMinReverse() throws Exception {
+        AccumulateFunction max = new MaxAccumulateFunction();
+        AccumulateFunction min = new MinAccumulateFunction();
+        assertTrue( max.supportsReverse() );
+        assertTrue( min.supportsReverse() );
+
+        Serializable maxCtx = init( max, 5, 1, 9, 9, 3 );
+        Serializable minCtx = init( min, 5, 1, 9, 9, 3 );
+        assertEquals( 9.0, max.getResult( maxCtx ) );
+        assertEquals( 1.0, min.getResult( minCtx ) );
+
+        // one of the two 9s goes, the max stays
+        max.reverse( maxCtx, 9 );
+        assertEquals( 9.0, max.getResult( maxCtx ) );
+        max.reverse( maxCtx, 9 );
+        assertEquals( 5.0, max.getResult( maxCtx ) );
+
+        min.reverse( minCtx, 1 );
+        assertEquals( 3.0, min.getResult( minCtx ) );
+
+        for ( int value : new int[] { 5, 3, 1 } ) {
+            max.reverse( maxCtx, value );
+        }
+        assertEquals( -Double.MAX_VALUE, max.getResult( maxCtx ) );
+    }
+
+    @Test
+    public void testPercentile() throws Exception {
+        AccumulateFunction median = new MedianAccumulateFunction();
+        Serializable ctx = init( median, 7, 1, 3, 5 );
+        assertEquals( 4.0, median.getResult( ctx ) );
+        median.accumulate( ctx, 100 );
+        assertEquals( 5.0, median.getResult( ctx ) );
+        median.reverse( ctx, 1 );
+        assertEquals( 6.0, median.getResult( ctx ) );
+
+        AccumulateFunction p90 = new PercentileAccumulateFunction( 0.9 );
+        ctx = init( p90, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100, 110 );
+        assertEquals( 100.0, p90.getResult( ctx ) );
+
+        // the percentile is part of the function
+        p90 = (AccumulateFunction) DroolsStreamUtils.streamIn( DroolsStreamUtils.streamOut( p90 ) );
+        assertEquals( 0.9, ((PercentileAccumulateFunction) p90).getPercentile(), 0 );
+    }
+
+    @Test
+    public void testVariance() throws Exception {
+        AccumulateFunction variance = new VarianceAccumulateFunction();
+        AccumulateFunction stddev = new StandardDeviationAccumulateFunction();
+        Serializable ctx = init( variance, 2, 4, 4, 4, 5, 5, 7, 9 );
+        assertEquals( 32.0 / 7, (Double) variance.getResult( ctx ), 1e-9 );
+        assertEquals( Math.sqrt( 32.0 / 7 ), (Double) stddev.getResult( ctx ), 1e-9 );
+
+        variance.reverse( ctx, 9 );
+        variance.reverse( ctx, 2 );
+        Serializable expected = init( variance, 4, 4, 4, 5, 5, 7 );
+        assertEquals( (Double) variance.getResult( expected ), (Double) variance.getResult( ctx ), 1e-9 );
+    }
+
+    @Test
+    public void testCountDistinct() throws Exception {
+        AccumulateFunction countDistinct = new CountDistinctAccumulateFunction();
+        Serializable ctx = countDistinct.createContext();
+        countDistinct.init( ctx );
+        for ( String value : new String[] { "a", "b", "a", "c" } ) {
+            countDistinct.accumulate( ctx, value );
+        }
+        assertEquals( 3L, countDistinct.getResult( ctx ) );
+        countDistinct.reverse( ctx, "a" );
+        assertEquals( 3L, countDistinct.getResult( ctx ) );
+        countDistinct.reverse( ctx, "a" );
+        assertEquals( 2L, countDistinct.getResult( ctx ) );
+    }
+
+    private Serializable init(AccumulateFunction function,
+                              int... values) throws Exception {
+        Serializable ctx = function.createContext();
+        function.init( ctx );
+        for ( int value : values ) {
+            function.accumulate( ctx, value );
+        }
+        return ctx;
+    }
+}
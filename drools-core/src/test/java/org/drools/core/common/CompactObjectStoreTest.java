@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.common;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.RuleBaseConfiguration.AssertBehaviour;
+import org.drools.core.reteoo.ReteooFactHandleFactory;
+import org.drools.core.test.model.Cheese;
+import org.junit.Test;
+
+public class CompactObjectStoreTest {
+
+    @Test
+    public void testIdentity() {
+        RuleBaseConfiguration conf = new RuleBaseConfiguration();
+        conf.setAssertBehaviour( AssertBehaviour.IDENTITY );
+        CompactObjectStore store = new CompactObjectStore( conf, new ReentrantLock() );
+        ReteooFactHandleFactory factory = new ReteooFactHandleFactory();
+
+        List<InternalFactHandle> handles = new ArrayList<InternalFactHandle>();
+        for ( int i = 0; i < 1000; i++ ) {
+            Cheese cheese = new Cheese( "stilton", i % 10 );
+            InternalFactHandle handle = factory.newFactHandle( cheese, null, null, null );
+            store.addHandle( handle, cheese );
+            handles.add( handle );
+        }
+        assertEquals( 1000, store.size() );
+
+        for ( InternalFactHandle handle : handles ) {
+            assertSame( handle, store.getHandleForObject( handle.getObject() ) );
+            assertSame( handle, store.getHandleForObjectIdentity( handle.getObject() ) );
+            assertSame( handle.getObject(), store.getObjectForHandle( handle ) );
+        }
+        assertNull( store.getHandleForObject( new Cheese( "stilton", 1 ) ) );
+
+        // remove every other handle, the remaining ones must still be reachable
+        for ( int i = 0; i < handles.size(); i += 2 ) {
+            store.removeHandle( handles.get( i ) );
+        }
+        assertEquals( 500, store.size() );
+        for ( int i = 0; i < handles.size(); i++ ) {
+            InternalFactHandle handle = handles.get( i );
+            if ( i % 2 == 0 ) {
+                assertNull( store.getHandleForObject( handle.getObject() ) );
+            } else {
+                assertSame( handle, store.getHandleForObject( handle.getObject() ) );
+            }
+        }
+
+        Set<Object> iterated = new HashSet<Object>();
+        for ( Iterator it = store.iterateFactHandles(); it.hasNext(); ) {
+            iterated.add( it.next() );
+        }
+        assertEquals( 500, iterated.size() );
+        for ( Object handle : iterated ) {
+            assertTrue( handles.indexOf( handle ) % 2 == 1 );
+            store.removeHandle( (InternalFactHandle) handle );
+        }
+        assertTrue( store.isEmpty() );
+    }
+
+    @Test
+    public void testEquality() {
+        RuleBaseConfiguration conf = new RuleBaseConfiguration();
+        conf.setAssertBehaviour( AssertBehaviour.EQUALITY );
+        CompactObjectStore store = new CompactObjectStore( conf, new ReentrantLock() );
+        ReteooFactHandleFactory factory = new ReteooFactHandleFactory();
+
+        Cheese stilton = new Cheese( "stilton", 10 );
+        InternalFactHandle handle = factory.newFactHandle( stilton, null, null, null );
+        store.addHandle( handle, stilton );
+
+        Cheese brie = new Cheese( "brie", 10 );
+        InternalFactHandle handle2 = factory.newFactHandle( brie, null, null, null );
+        store.addHandle( handle2, brie );
+
+        assertSame( handle, store.getHandleForObject( new Cheese( "stilton", 10 ) ) );
+        assertNull( store.getHandleForObjectIdentity( new Cheese( "stilton", 10 ) ) );
+        assertSame( handle, store.getHandleForObjectIdentity( stilton ) );
+
+        Cheese cheddar = new Cheese( "cheddar", 5 );
+        store.updateHandle( handle, cheddar );
+        assertNull( store.getHandleForObject( stilton ) );
+        assertSame( handle, store.getHandleForObject( new Cheese( "cheddar", 5 ) ) );
+        assertSame( handle, store.getHandleForObjectIdentity( cheddar ) );
+        assertEquals( 2, store.size() );
+
+        int count = 0;
+        for ( Iterator it = store.iterateObjects( new org.kie.api.runtime.ObjectFilter() {
+            public boolean accept(Object object) {
+                return ((Cheese) object).getPrice() == 5;
+            }
+        } ); it.hasNext(); ) {
+            assertSame( cheddar, it.next() );
+            count++;
+        }
+        assertEquals( 1, count );
+
+        store.clear();
+        assertTrue( store.isEmpty() );
+        assertNull( store.getHandleForObjectIdentity( brie ) );
+    }
+}
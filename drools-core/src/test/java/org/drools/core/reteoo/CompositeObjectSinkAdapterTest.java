@@ -36,6 +36,7 @@ import org.drools.core.rule.PredicateConstraint;
 import org.drools.core.rule.constraint.MvelConstraint;
 import org.drools.core.spi.InternalReadAccessor;
 import org.drools.core.spi.PropagationContext;
+import org.drools.core.util.index.IndexUtil;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -47,9 +48,11 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class CompositeObjectSinkAdapterTest {
@@ -278,6 +281,105 @@ public class CompositeObjectSinkAdapterTest {
 
     }
 
+    @Test
+    public void testRangeIndexedAlphas() {
+        final CompositeObjectSinkAdapter ad = new CompositeObjectSinkAdapter();
+        InternalReadAccessor extractor = store.getReader( Cheese.class,
+                                                          "price",
+                                                          this.getClass().getClassLoader() );
+
+        final MockObjectSink gt10 = new MockObjectSink();
+        final AlphaNode al1 = newRangeAlpha( "price > 10", IndexUtil.ConstraintType.GREATER_THAN, 10, extractor, gt10 );
+        final MockObjectSink ge20 = new MockObjectSink();
+        final AlphaNode al2 = newRangeAlpha( "price >= 20", IndexUtil.ConstraintType.GREATER_OR_EQUAL, 20, extractor, ge20 );
+        final MockObjectSink lt15 = new MockObjectSink();
+        final AlphaNode al3 = newRangeAlpha( "price < 15", IndexUtil.ConstraintType.LESS_THAN, 15, extractor, lt15 );
+        final MockObjectSink le20 = new MockObjectSink();
+        final AlphaNode al4 = newRangeAlpha( "price <= 20", IndexUtil.ConstraintType.LESS_OR_EQUAL, 20, extractor, le20 );
+
+        ad.addObjectSink( al1 );
+        ad.addObjectSink( al2 );
+
+        // below the threshold they are evaluated one by one
+        assertEquals( 2,
+                      ad.otherSinks.size() );
+        assertFalse( ad.rangeIndexes.getFirst().isActive() );
+
+        ad.addObjectSink( al3 );
+        ad.addObjectSink( al4 );
+
+        assertNull( ad.otherSinks );
+        assertTrue( ad.rangeIndexes.getFirst().isActive() );
+        assertEquals( 4,
+                      ad.getSinks().length );
+        assertSame( al2,
+                    ad.getMatchingNode( al2 ) );
+
+        ad.propagateAssertObject( newCheeseHandle( 20 ),
+                                  null,
+                                  null );
+        assertEquals( 1,
+                      gt10.getAsserted().size() );
+        assertEquals( 1,
+                      ge20.getAsserted().size() );
+        assertEquals( 0,
+                      lt15.getAsserted().size() );
+        assertEquals( 1,
+                      le20.getAsserted().size() );
+
+        ad.propagateAssertObject( newCheeseHandle( 10 ),
+                                  null,
+                                  null );
+        assertEquals( 1,
+                      gt10.getAsserted().size() );
+        assertEquals( 1,
+                      ge20.getAsserted().size() );
+        assertEquals( 1,
+                      lt15.getAsserted().size() );
+        assertEquals( 2,
+                      le20.getAsserted().size() );
+
+        //now remove two, check the indexing is undone
+        ad.removeObjectSink( al2 );
+        assertNull( ad.otherSinks );
+        ad.removeObjectSink( al4 );
+        assertEquals( 2,
+                      ad.otherSinks.size() );
+        assertFalse( ad.rangeIndexes.getFirst().isActive() );
+
+        ad.removeObjectSink( al1 );
+        ad.removeObjectSink( al3 );
+        assertNull( ad.otherSinks );
+        assertNull( ad.rangeIndexes );
+    }
+
+    private AlphaNode newRangeAlpha(String expression,
+                                    IndexUtil.ConstraintType constraintType,
+                                    long value,
+                                    InternalReadAccessor extractor,
+                                    MockObjectSink sink) {
+        final MvelConstraint constraint = new MvelConstraint( null,
+                                                              expression,
+                                                              null,
+                                                              constraintType,
+                                                              new LongFieldImpl( value ),
+                                                              extractor );
+        final AlphaNode alphaNode = new AlphaNode( buildContext.getNextId(),
+                                                   constraint,
+                                                   new MockObjectSource( buildContext.getNextId() ),
+                                                   buildContext );
+        alphaNode.addObjectSink( sink );
+        return alphaNode;
+    }
+
+    private InternalFactHandle newCheeseHandle(int price) {
+        return new ReteooFactHandleFactory().newFactHandle( new Cheese( "brie",
+                                                                        price ),
+                                                            null,
+                                                            null,
+                                                            new DisconnectedWorkingMemoryEntryPoint( "DEFAULT" ) );
+    }
+
     @Test
     public void testTripleAlphaCharacterConstraint() {
         final CompositeObjectSinkAdapter ad = new CompositeObjectSinkAdapter();
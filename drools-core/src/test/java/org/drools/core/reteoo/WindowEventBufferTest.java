@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo;
+
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.reteoo.WindowEventBuffer.Cursor;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WindowEventBufferTest {
+
+    private EventFactHandle newHandle(int id,
+                                      long timestamp) {
+        return new EventFactHandle( id, "event" + id, id, timestamp, 0, null );
+    }
+
+    @Test
+    public void testCursorsShareTheEvents() {
+        WindowEventBuffer buffer = new WindowEventBuffer( 2 );
+        Cursor c1 = buffer.newCursor();
+        Cursor c2 = buffer.newCursor();
+
+        EventFactHandle[] handles = new EventFactHandle[10];
+        for ( int i = 0; i < handles.length; i++ ) {
+            handles[i] = newHandle( i, i * 10 );
+            assertTrue( buffer.add( handles[i], c1 ) );
+            // already added by the first window
+            assertTrue( buffer.add( handles[i], c2 ) );
+        }
+        assertEquals( 10, buffer.size() );
+
+        for ( int i = 0; i < 4; i++ ) {
+            assertSame( handles[i], buffer.peek( c1 ) );
+            buffer.advance( c1 );
+        }
+        // the second cursor still needs all the events
+        buffer.trim();
+        assertEquals( 10, buffer.size() );
+
+        buffer.advance( c2 );
+        buffer.advance( c2 );
+        buffer.trim();
+        assertEquals( 8, buffer.size() );
+        assertSame( handles[2], buffer.peek( c2 ) );
+
+        buffer.removeCursor( c2 );
+        assertEquals( 6, buffer.size() );
+        assertSame( handles[4], buffer.peek( c1 ) );
+    }
+
+    @Test
+    public void testLateEventsAreNotAdded() {
+        WindowEventBuffer buffer = new WindowEventBuffer();
+        Cursor c1 = buffer.newCursor();
+        Cursor c2 = buffer.newCursor();
+
+        EventFactHandle h1 = newHandle( 1, 100 );
+        EventFactHandle h2 = newHandle( 2, 200 );
+        assertTrue( buffer.add( h1, c1 ) );
+        assertTrue( buffer.add( h2, c1 ) );
+
+        // out of order
+        assertFalse( buffer.add( newHandle( 3, 150 ), c1 ) );
+        // same timestamp as the last event is still in order
+        assertTrue( buffer.add( newHandle( 4, 200 ), c1 ) );
+
+        // behind the cursor of the second window
+        buffer.advance( c2 );
+        assertFalse( buffer.add( h1, c2 ) );
+        assertTrue( buffer.add( h2, c2 ) );
+
+        assertEquals( 3, buffer.size() );
+    }
+}
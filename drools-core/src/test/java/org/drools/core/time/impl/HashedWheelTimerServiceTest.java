@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.time.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.Trigger;
+import org.drools.core.time.impl.JDKTimerServiceTest.DelayedTrigger;
+import org.drools.core.time.impl.JDKTimerServiceTest.HelloWorldJob;
+import org.drools.core.time.impl.JDKTimerServiceTest.HelloWorldJobContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerServiceTest {
+
+    @Test
+    public void testSingleExecutionJob() throws Exception {
+        TimerService timeService = new HashedWheelTimerService();
+        Trigger trigger = new DelayedTrigger( 100 );
+        HelloWorldJobContext ctx = new HelloWorldJobContext( "hello world", timeService );
+        timeService.scheduleJob( new HelloWorldJob(), ctx, trigger );
+        Thread.sleep( 500 );
+        timeService.shutdown();
+        assertEquals( 1, ctx.getList().size() );
+    }
+
+    @Test
+    public void testRepeatedExecutionJob() throws Exception {
+        TimerService timeService = new HashedWheelTimerService();
+        Trigger trigger = new DelayedTrigger( new long[] { 100, 100, 100 } );
+        HelloWorldJobContext ctx = new HelloWorldJobContext( "hello world", timeService );
+        timeService.scheduleJob( new HelloWorldJob(), ctx, trigger );
+        Thread.sleep( 500 );
+        timeService.shutdown();
+        assertEquals( 3, ctx.getList().size() );
+    }
+
+    @Test
+    public void testRepeatedExecutionJobWithRemove() throws Exception {
+        TimerService timeService = new HashedWheelTimerService();
+        Trigger trigger = new DelayedTrigger( new long[] { 100, 100, 100, 100, 100, 100, 100, 100 } );
+        HelloWorldJobContext ctx = new HelloWorldJobContext( "hello world", timeService );
+        ctx.setLimit( 3 );
+        ctx.setJobHandle( timeService.scheduleJob( new HelloWorldJob(), ctx, trigger ) );
+        Thread.sleep( 1000 );
+        timeService.shutdown();
+        assertEquals( 5, ctx.getList().size() );
+    }
+
+    @Test
+    public void testRemoveJobBeforeExecution() throws Exception {
+        TimerService timeService = new HashedWheelTimerService();
+        HelloWorldJobContext ctx = new HelloWorldJobContext( "hello world", timeService );
+        JobHandle handle = timeService.scheduleJob( new HelloWorldJob(), ctx, new DelayedTrigger( 200 ) );
+        Thread.sleep( 50 );
+        assertTrue( timeService.removeJob( handle ) );
+        Thread.sleep( 400 );
+        timeService.shutdown();
+        assertEquals( 0, ctx.getList().size() );
+    }
+
+    @Test
+    public void testJobsBeyondOneRotation() throws Exception {
+        // a wheel of 4 buckets of 10ms rotates several times before the jobs are due
+        TimerService timeService = new HashedWheelTimerService( 10, 4 );
+        CountingJobContext ctx = new CountingJobContext();
+        for ( int i = 0; i < 100; i++ ) {
+            timeService.scheduleJob( new CountingJob(), ctx, new DelayedTrigger( 200 ) );
+        }
+        Thread.sleep( 150 );
+        assertEquals( 0, ctx.counter.get() );
+        Thread.sleep( 350 );
+        timeService.shutdown();
+        assertEquals( 100, ctx.counter.get() );
+    }
+
+    public static class CountingJob implements Job {
+        public void execute(JobContext ctx) {
+            ((CountingJobContext) ctx).counter.incrementAndGet();
+        }
+    }
+
+    public static class CountingJobContext implements JobContext {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private JobHandle jobHandle;
+
+        public JobHandle getJobHandle() {
+            return this.jobHandle;
+        }
+
+        public void setJobHandle(JobHandle jobHandle) {
+            this.jobHandle = jobHandle;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.drools.core.common.DefaultFactHandle;
 import org.drools.core.common.InternalFactHandle;
 import org.drools.core.test.model.Cheese;
 import org.drools.core.util.AbstractHashTable.FieldIndex;
+import org.drools.core.util.AbstractHashTable.PrimitiveSingleIndex;
 import org.drools.core.util.index.RightTupleIndexHashTable;
 import org.drools.core.util.index.RightTupleList;
 import org.drools.core.reteoo.LeftTupleImpl;
@@ -41,6 +42,7 @@ import java.util.List;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class RightTupleIndexHashTableTest {
 
@@ -626,4 +628,63 @@ public class RightTupleIndexHashTableTest {
                                                  true ), stiltonHandle, null ) );
     }
 
+    @Test
+    public void testPrimitiveIndex() throws Exception {
+        final InternalReadAccessor extractor = store.getReader( Cheese.class,
+                                                                "price",
+                                                                getClass().getClassLoader() );
+
+        final Pattern pattern = new Pattern( 0,
+                                             new ClassObjectType( Cheese.class ) );
+
+        final Declaration declaration = new Declaration( "priceOfCheese",
+                                                         extractor,
+                                                         pattern );
+
+        final FieldIndex fieldIndex = new FieldIndex( extractor,
+                                                      declaration,
+                                                      MvelConstraint.INDEX_EVALUATOR );
+
+        final RightTupleIndexHashTable map = new RightTupleIndexHashTable( new FieldIndex[]{fieldIndex} );
+        assertTrue( map.getIndex() instanceof PrimitiveSingleIndex );
+
+        final RightTuple stiltonRightTuple = new RightTuple( new DefaultFactHandle( 1,
+                                                                                    new Cheese( "stilton",
+                                                                                                35 ) ),
+                                                             null );
+        map.add( stiltonRightTuple );
+        final RightTuple cheddarRightTuple = new RightTuple( new DefaultFactHandle( 2,
+                                                                                    new Cheese( "cheddar",
+                                                                                                35 ) ),
+                                                             null );
+        map.add( cheddarRightTuple );
+        map.add( new RightTuple( new DefaultFactHandle( 3,
+                                                        new Cheese( "brie",
+                                                                    10 ) ),
+                                 null ) );
+
+        assertEquals( 3,
+                      map.size() );
+        assertEquals( 2,
+                      tablePopulationSize( map ) );
+
+        final InternalFactHandle handle = new DefaultFactHandle( 4,
+                                                                 new Cheese( "gouda",
+                                                                             35 ) );
+        final RightTupleList list = map.get( new LeftTupleImpl( handle,
+                                                            null,
+                                                            true ), handle );
+        assertSame( stiltonRightTuple,
+                    list.first );
+        assertSame( cheddarRightTuple,
+                    list.first.getNext() );
+
+        final InternalFactHandle missingHandle = new DefaultFactHandle( 5,
+                                                                        new Cheese( "gouda",
+                                                                                    20 ) );
+        assertNull( map.get( new LeftTupleImpl( missingHandle,
+                                                null,
+                                                true ), missingHandle ) );
+    }
+
 }
@@ -20,6 +20,10 @@ public class SessionMarshallingHelper {
     private KieSession      			  ksession;
     private Marshaller                    marshaller;
     private Environment                   env;
+    private SnapshotDelta.Signature       baseSignature;
+    private int                           lastDeltaSize;
+    private byte[]                        preparedSnapshot;
+    private byte[]                        preparedData;
 
     /**
      * Exist Info, so load session from here
@@ -58,7 +62,42 @@ public class SessionMarshallingHelper {
         
     }
 
+    /**
+     * @return the data to store for the session: its snapshot, or the delta against the base snapshot if there is one
+     */
     public byte[] getSnapshot() {
+        if ( this.preparedData != null ) {
+            return this.preparedData;
+        }
+        byte[] data = this.preparedSnapshot != null ? this.preparedSnapshot : marshallSnapshot();
+        if ( this.baseSignature != null ) {
+            data = SnapshotDelta.diff( this.baseSignature, data );
+            this.lastDeltaSize = data.length;
+        }
+        if ( this.preparedSnapshot != null ) {
+            this.preparedData = data;
+        }
+        return data;
+    }
+
+    /**
+     * Marshalls the session once for the current transaction: until clearPreparedSnapshot() is called, the
+     * snapshot and the data returned by getSnapshot() are the ones of the session as it is now.
+     */
+    public byte[] prepareSnapshot() {
+        if ( this.preparedSnapshot == null ) {
+            this.preparedSnapshot = marshallSnapshot();
+            this.preparedData = null;
+        }
+        return this.preparedSnapshot;
+    }
+
+    public void clearPreparedSnapshot() {
+        this.preparedSnapshot = null;
+        this.preparedData = null;
+    }
+
+    private byte[] marshallSnapshot() {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
             marshaller.marshall( baos,
@@ -71,6 +110,41 @@ public class SessionMarshallingHelper {
         return baos.toByteArray();
     }
 
+    /**
+     * Sets the snapshot the deltas are computed against, or null to go back to full snapshots
+     */
+    public void setBaseSnapshot(byte[] base) {
+        this.baseSignature = base != null ? new SnapshotDelta.Signature( base, SnapshotDelta.DEFAULT_BLOCK_SIZE ) : null;
+        this.lastDeltaSize = 0;
+        this.preparedData = null;
+    }
+
+    public boolean hasBaseSnapshot() {
+        return this.baseSignature != null;
+    }
+
+    public int getBaseSnapshotSize() {
+        return this.baseSignature != null ? this.baseSignature.getBaseLength() : 0;
+    }
+
+    /**
+     * @return the size of the last delta computed, to decide when the base snapshot should be compacted
+     */
+    public int getLastDeltaSize() {
+        return this.lastDeltaSize;
+    }
+
+    /**
+     * Loads a session persisted as a delta against the given base snapshot, which becomes the base of the next deltas
+     */
+    public KieSession loadSnapshot(byte[] delta,
+                                   byte[] base,
+                                   KieSession ksession) {
+        byte[] bytes = SnapshotDelta.patch( base, delta );
+        setBaseSnapshot( base );
+        return loadSnapshot( bytes, ksession );
+    }
+
     public KieSession loadSnapshot(byte[] bytes,
                                    KieSession ksession) {
         this.ksession = ksession;
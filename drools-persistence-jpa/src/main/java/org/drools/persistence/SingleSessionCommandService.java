@@ -35,6 +35,7 @@ import org.drools.core.common.InternalKnowledgeRuntime;
 import org.drools.core.impl.KnowledgeBaseImpl;
 import org.drools.core.marshalling.impl.MarshallingConfigurationImpl;
 import org.drools.persistence.info.SessionInfo;
+import org.drools.persistence.info.SessionSnapshotInfo;
 import org.drools.persistence.jpa.JpaPersistenceContextManager;
 import org.drools.persistence.jpa.processinstance.JPAWorkItemManager;
 import org.drools.persistence.jta.JtaTransactionManager;
@@ -56,6 +57,21 @@ public class SingleSessionCommandService
     implements
     org.drools.core.command.SingleSessionCommandService {
 
+    /**
+     * Environment entry, Boolean or String, enabling delta snapshots: each command then only writes the difference
+     * between the session and a base snapshot, stored in a SessionSnapshotInfo with the same id, instead of the
+     * whole session. The persistence units of the sessions using it must list SessionSnapshotInfo.
+     */
+    public static final String         DELTA_SNAPSHOTS                 = "drools.persistence.deltaSnapshots";
+
+    /**
+     * Environment entry, Integer or String, number of commands after which the base snapshot is rewritten.
+     * The base is also rewritten as soon as a delta grows beyond a quarter of its size.
+     */
+    public static final String         DELTA_SNAPSHOTS_COMPACTION      = "drools.persistence.deltaSnapshots.compactionInterval";
+
+    private static final int           DEFAULT_COMPACTION_INTERVAL     = 100;
+
     Logger                             logger           = LoggerFactory.getLogger( getClass() );
 
     private SessionInfo                sessionInfo;
@@ -71,6 +87,11 @@ public class SingleSessionCommandService
 
     private volatile boolean           doRollback;
 
+    private boolean                    deltaSnapshots;
+    private SessionSnapshotInfo        baseSnapshot;
+    private int                        compactionInterval;
+    private int                        commandsSinceCompaction;
+
     private static Map<Object, Object> synchronizations = Collections.synchronizedMap( new IdentityHashMap<Object, Object>() );
 
     public static Map<Object, Object>  txManagerClasses = Collections.synchronizedMap( new IdentityHashMap<Object, Object>() );
@@ -112,6 +133,8 @@ public class SingleSessionCommandService
         checkEnvironment( this.env );
 
         initTransactionManager( this.env );
+
+        initDeltaSnapshots( this.env );
         
         initNewKnowledgeSession(kbase, conf);
 
@@ -185,6 +208,8 @@ public class SingleSessionCommandService
 
         initTransactionManager( this.env );
 
+        initDeltaSnapshots( this.env );
+
         // Open the entity manager before the transaction begins. 
         PersistenceContext persistenceContext = jpm.getApplicationScopedPersistenceContext();
 
@@ -253,9 +278,24 @@ public class SingleSessionCommandService
         ((SessionConfiguration) conf).getTimerJobFactoryManager().setCommandService(this);
 
         // if this.ksession is null, it'll create a new one, else it'll use the existing one
-        this.ksession = (StatefulKnowledgeSession)
-    		this.marshallingHelper.loadSnapshot( this.sessionInfo.getData(),
-                                                 this.ksession );
+        // the base snapshot is only looked up for the sessions persisted as deltas
+        this.commandsSinceCompaction = 0;
+        if ( SnapshotDelta.isDelta( this.sessionInfo.getData() ) ) {
+            this.baseSnapshot = getSnapshotPersistenceContext( persistenceContext ).findSessionSnapshotInfo( sessionId );
+            if ( this.baseSnapshot == null ) {
+                throw new RuntimeException( "Could not find the base snapshot of session " + sessionId );
+            }
+            this.ksession = (StatefulKnowledgeSession)
+                this.marshallingHelper.loadSnapshot( this.sessionInfo.getData(),
+                                                     this.baseSnapshot.getData(),
+                                                     this.ksession );
+        } else {
+            this.baseSnapshot = null;
+            this.marshallingHelper.setBaseSnapshot( null );
+            this.ksession = (StatefulKnowledgeSession)
+                this.marshallingHelper.loadSnapshot( this.sessionInfo.getData(),
+                                                     this.ksession );
+        }
 
         // update the session id to be the same as the session info id
         ((InternalKnowledgeRuntime) ksession).setId( this.sessionInfo.getId() );
@@ -274,6 +314,61 @@ public class SingleSessionCommandService
         this.commandService = new DefaultCommandService(kContext);
     }
 
+    protected void initDeltaSnapshots(Environment env) {
+        Object enabled = env.get( DELTA_SNAPSHOTS );
+        this.deltaSnapshots = enabled instanceof Boolean ? (Boolean) enabled : enabled != null && Boolean.parseBoolean( enabled.toString() );
+        Object interval = env.get( DELTA_SNAPSHOTS_COMPACTION );
+        this.compactionInterval = interval instanceof Integer ? (Integer) interval :
+                                  interval != null ? Integer.parseInt( interval.toString() ) : DEFAULT_COMPACTION_INTERVAL;
+    }
+
+    /**
+     * Called before each commit: in delta mode, rewrites the base snapshot when there is none yet, when the deltas
+     * got too big compared to it or after compactionInterval commands. Out of delta mode, drops any existing base
+     * so the session goes back to full snapshots. Either way the SessionInfo is updated from the same marshalled
+     * session, which is only marshalled once.
+     */
+    private void updateBaseSnapshot(PersistenceContext persistenceContext) {
+        if ( !this.deltaSnapshots ) {
+            if ( this.baseSnapshot != null ) {
+                this.marshallingHelper.prepareSnapshot();
+                getSnapshotPersistenceContext( persistenceContext ).remove( this.baseSnapshot );
+                this.baseSnapshot = null;
+                this.marshallingHelper.setBaseSnapshot( null );
+                this.sessionInfo.update();
+            }
+            return;
+        }
+
+        this.commandsSinceCompaction++;
+        if ( this.baseSnapshot != null &&
+             this.commandsSinceCompaction < this.compactionInterval &&
+             this.marshallingHelper.getLastDeltaSize() <= this.marshallingHelper.getBaseSnapshotSize() / 4 ) {
+            return;
+        }
+
+        byte[] snapshot = this.marshallingHelper.prepareSnapshot();
+        if ( this.baseSnapshot == null ) {
+            this.baseSnapshot = new SessionSnapshotInfo( this.sessionInfo.getId(),
+                                                         snapshot );
+            getSnapshotPersistenceContext( persistenceContext ).persist( this.baseSnapshot );
+        } else {
+            this.baseSnapshot.setData( snapshot );
+        }
+        this.marshallingHelper.setBaseSnapshot( snapshot );
+        // the stored delta is against the previous base, it must be rewritten even if the session did not change
+        this.sessionInfo.update();
+        this.commandsSinceCompaction = 0;
+    }
+
+    private SnapshotPersistenceContext getSnapshotPersistenceContext(PersistenceContext persistenceContext) {
+        if ( !(persistenceContext instanceof SnapshotPersistenceContext) ) {
+            throw new IllegalStateException( "Delta snapshots require a " + SnapshotPersistenceContext.class.getName() +
+                                             ", but the persistence context is a " + persistenceContext.getClass().getName() );
+        }
+        return (SnapshotPersistenceContext) persistenceContext;
+    }
+
     public void initTransactionManager(Environment env) {
         Object tm = env.get( EnvironmentName.TRANSACTION_MANAGER );
         if ( env.get( EnvironmentName.PERSISTENCE_CONTEXT_MANAGER ) != null &&
@@ -376,6 +471,8 @@ public class SingleSessionCommandService
                 result = commandService.execute( (GenericCommand<T>) command );
             }
 
+            updateBaseSnapshot( persistenceContext );
+
             txm.commit( transactionOwner );
 
             return result;
@@ -431,6 +528,9 @@ public class SingleSessionCommandService
                     this.marshallingHelper.getConf(),
                     persistenceContext );
 
+            if ( this.baseSnapshot != null ) {
+                getSnapshotPersistenceContext( persistenceContext ).remove( this.baseSnapshot );
+            }
             persistenceContext.remove(this.sessionInfo);
 
             txm.commit( transactionOwner );
@@ -475,6 +575,10 @@ public class SingleSessionCommandService
             // always cleanup thread local whatever the result
             Object removedSynchronization = SingleSessionCommandService.synchronizations.remove( this.service );
 
+            if ( this.service.marshallingHelper != null ) {
+                this.service.marshallingHelper.clearPreparedSnapshot();
+            }
+
             this.service.jpm.clearPersistenceContext();
             
             this.service.jpm.endCommandScopedEntityManager();
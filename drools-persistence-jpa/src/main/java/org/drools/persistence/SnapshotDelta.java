@@ -0,0 +1,289 @@
+package org.drools.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Encodes a session snapshot as the difference with a base snapshot, in the same way rsync does: the base is split
+ * in fixed size blocks, identified by a rolling checksum and an MD5 digest, and the new snapshot is encoded as a
+ * sequence of copies of base blocks and of literal bytes.
+ *
+ * Marshalling a session that only changed a little gives a snapshot that is mostly made of the same byte sequences
+ * as the previous one, even when they moved, so the delta is small compared to the snapshot.
+ */
+public class SnapshotDelta {
+
+    public static final int     DEFAULT_BLOCK_SIZE = 2048;
+
+    /**
+     * "DSNP", starts every delta: a marshalled session starts with the serialization stream magic 0xACED instead
+     */
+    private static final int    MAGIC              = 0x44534E50;
+
+    private static final byte   COPY               = 1;
+    private static final byte   LITERAL            = 2;
+
+    private SnapshotDelta() {
+    }
+
+    /**
+     * The checksums of the blocks of a base snapshot, enough to compute a delta without keeping the base around.
+     */
+    public static class Signature {
+        private final int    blockSize;
+        private final int    baseLength;
+        private final int[]  weakHashes;
+        private final byte[] digests;
+        private final int[]  heads;
+        private final int[]  next;
+
+        public Signature(byte[] base,
+                         int blockSize) {
+            this.blockSize = blockSize;
+            this.baseLength = base.length;
+
+            int blocks = base.length / blockSize;
+            this.weakHashes = new int[blocks];
+            this.digests = new byte[blocks * 16];
+            this.next = new int[blocks];
+
+            int capacity = 16;
+            while ( capacity < blocks * 2 ) {
+                capacity <<= 1;
+            }
+            this.heads = new int[capacity];
+            Arrays.fill( this.heads, -1 );
+
+            MessageDigest md5 = newDigest();
+            for ( int i = 0; i < blocks; i++ ) {
+                int weak = weakHash( base, i * blockSize, blockSize );
+                this.weakHashes[i] = weak;
+                md5.update( base, i * blockSize, blockSize );
+                System.arraycopy( md5.digest(), 0, this.digests, i * 16, 16 );
+
+                int bucket = bucket( weak );
+                this.next[i] = this.heads[bucket];
+                this.heads[bucket] = i;
+            }
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public int getBaseLength() {
+            return baseLength;
+        }
+
+        private int bucket(int weak) {
+            return (weak ^ (weak >>> 16)) & (heads.length - 1);
+        }
+
+        /**
+         * @return the index of the base block equal to the block of data starting at offset, or -1
+         */
+        private int find(int weak,
+                         byte[] data,
+                         int offset,
+                         MessageDigest md5) {
+            byte[] digest = null;
+            for ( int block = heads[bucket( weak )]; block >= 0; block = next[block] ) {
+                if ( weakHashes[block] != weak ) {
+                    continue;
+                }
+                if ( digest == null ) {
+                    md5.update( data, offset, blockSize );
+                    digest = md5.digest();
+                }
+                if ( equalDigest( digest, block ) ) {
+                    return block;
+                }
+            }
+            return -1;
+        }
+
+        private boolean equalDigest(byte[] digest,
+                                    int block) {
+            int offset = block * 16;
+            for ( int i = 0; i < 16; i++ ) {
+                if ( digests[offset + i] != digest[i] ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return whether the data is a delta rather than a full snapshot
+     */
+    public static boolean isDelta(byte[] data) {
+        return data != null && data.length >= 4 &&
+               ((data[0] & 0xff) << 24 | (data[1] & 0xff) << 16 | (data[2] & 0xff) << 8 | (data[3] & 0xff)) == MAGIC;
+    }
+
+    /**
+     * Computes the delta turning the base described by the signature into the given snapshot.
+     */
+    public static byte[] diff(Signature signature,
+                              byte[] snapshot) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( baos );
+        try {
+            int blockSize = signature.getBlockSize();
+            out.writeInt( MAGIC );
+            out.writeInt( blockSize );
+            out.writeInt( signature.getBaseLength() );
+            out.writeInt( snapshot.length );
+
+            MessageDigest md5 = newDigest();
+            int length = snapshot.length;
+            int literalStart = 0;
+            int copyStart = -1;
+            int copyCount = 0;
+
+            int a = 0;
+            int b = 0;
+            if ( length >= blockSize ) {
+                int weak = weakHash( snapshot, 0, blockSize );
+                a = weak & 0xffff;
+                b = weak >>> 16;
+            }
+
+            int i = 0;
+            while ( i + blockSize <= length ) {
+                int block = signature.find( (b << 16) | a, snapshot, i, md5 );
+                if ( block >= 0 ) {
+                    if ( literalStart < i ) {
+                        writeCopy( out, copyStart, copyCount );
+                        copyCount = 0;
+                        writeLiteral( out, snapshot, literalStart, i );
+                    }
+                    if ( copyCount > 0 && copyStart + copyCount == block ) {
+                        copyCount++;
+                    } else {
+                        writeCopy( out, copyStart, copyCount );
+                        copyStart = block;
+                        copyCount = 1;
+                    }
+                    i += blockSize;
+                    literalStart = i;
+                    if ( i + blockSize <= length ) {
+                        int weak = weakHash( snapshot, i, blockSize );
+                        a = weak & 0xffff;
+                        b = weak >>> 16;
+                    }
+                } else {
+                    if ( i + blockSize < length ) {
+                        // roll the checksum one byte forward
+                        int out1 = snapshot[i] & 0xff;
+                        int in1 = snapshot[i + blockSize] & 0xff;
+                        a = (a - out1 + in1) & 0xffff;
+                        b = (b - blockSize * out1 + a) & 0xffff;
+                    }
+                    i++;
+                }
+            }
+
+            writeCopy( out, copyStart, copyCount );
+            if ( literalStart < length ) {
+                writeLiteral( out, snapshot, literalStart, length );
+            }
+            out.flush();
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to compute snapshot delta",
+                                        e );
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Rebuilds the snapshot from the base it was diffed against and the delta.
+     */
+    public static byte[] patch(byte[] base,
+                               byte[] delta) {
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( delta ) );
+        try {
+            if ( in.readInt() != MAGIC ) {
+                throw new IllegalStateException( "Not a snapshot delta" );
+            }
+            int blockSize = in.readInt();
+            int baseLength = in.readInt();
+            if ( baseLength != base.length ) {
+                throw new IllegalStateException( "Snapshot delta was computed against a base of " + baseLength +
+                                                 " bytes, but the base snapshot has " + base.length + " bytes" );
+            }
+            byte[] snapshot = new byte[in.readInt()];
+            int pos = 0;
+            while ( pos < snapshot.length ) {
+                byte op = in.readByte();
+                if ( op == COPY ) {
+                    int block = in.readInt();
+                    int length = in.readInt() * blockSize;
+                    System.arraycopy( base, block * blockSize, snapshot, pos, length );
+                    pos += length;
+                } else if ( op == LITERAL ) {
+                    int length = in.readInt();
+                    in.readFully( snapshot, pos, length );
+                    pos += length;
+                } else {
+                    throw new IllegalStateException( "Corrupted snapshot delta, unknown operation " + op );
+                }
+            }
+            return snapshot;
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to apply snapshot delta",
+                                        e );
+        }
+    }
+
+    private static void writeCopy(DataOutputStream out,
+                                  int block,
+                                  int count) throws IOException {
+        if ( count > 0 ) {
+            out.writeByte( COPY );
+            out.writeInt( block );
+            out.writeInt( count );
+        }
+    }
+
+    private static void writeLiteral(DataOutputStream out,
+                                     byte[] data,
+                                     int start,
+                                     int end) throws IOException {
+        out.writeByte( LITERAL );
+        out.writeInt( end - start );
+        out.write( data, start, end - start );
+    }
+
+    /**
+     * The rsync rolling checksum, a in the low 16 bits and b in the high 16 bits.
+     */
+    private static int weakHash(byte[] data,
+                                int offset,
+                                int length) {
+        int a = 0;
+        int b = 0;
+        for ( int i = 0; i < length; i++ ) {
+            int x = data[offset + i] & 0xff;
+            a += x;
+            b += (length - i) * x;
+        }
+        return ((b & 0xffff) << 16) | (a & 0xffff);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance( "MD5" );
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new RuntimeException( "MD5 is not available",
+                                        e );
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.drools.persistence;
+
+import org.drools.persistence.info.SessionSnapshotInfo;
+
+/**
+ * A PersistenceContext that can also store the base snapshots of the sessions persisted with delta snapshots
+ */
+public interface SnapshotPersistenceContext extends PersistenceContext {
+
+    void persist(SessionSnapshotInfo snapshotInfo);
+
+    SessionSnapshotInfo findSessionSnapshotInfo(Integer sessionId);
+
+    void remove(SessionSnapshotInfo snapshotInfo);
+
+}
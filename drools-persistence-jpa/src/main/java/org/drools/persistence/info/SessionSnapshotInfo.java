@@ -0,0 +1,52 @@
+package org.drools.persistence.info;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Version;
+
+/**
+ * The base snapshot of a session persisted with delta snapshots, the SessionInfo with the same id then only holds
+ * the difference between its current state and this snapshot. It is kept in its own table, so the SessionInfo
+ * mapping is the same with or without delta snapshots, and its row is only written when the session is compacted.
+ */
+@Entity
+public class SessionSnapshotInfo {
+
+    @Id
+    private Integer            sessionId;
+
+    @Version
+    @Column(name = "OPTLOCK")
+    private int                version;
+
+    @Lob
+    @Column(length=2147483647)
+    private byte[]             snapshotByteArray;
+
+    public SessionSnapshotInfo() {
+    }
+
+    public SessionSnapshotInfo(Integer sessionId,
+                               byte[] data) {
+        this.sessionId = sessionId;
+        this.snapshotByteArray = data;
+    }
+
+    public Integer getSessionId() {
+        return this.sessionId;
+    }
+
+    public int getVersion() {
+        return this.version;
+    }
+
+    public void setData(byte[] data) {
+        this.snapshotByteArray = data;
+    }
+
+    public byte[] getData() {
+        return this.snapshotByteArray;
+    }
+}
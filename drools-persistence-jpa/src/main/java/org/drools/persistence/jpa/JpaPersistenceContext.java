@@ -2,11 +2,12 @@ package org.drools.persistence.jpa;
 
 import javax.persistence.EntityManager;
 
-import org.drools.persistence.PersistenceContext;
+import org.drools.persistence.SnapshotPersistenceContext;
 import org.drools.persistence.info.SessionInfo;
+import org.drools.persistence.info.SessionSnapshotInfo;
 import org.drools.persistence.info.WorkItemInfo;
 
-public class JpaPersistenceContext implements PersistenceContext {
+public class JpaPersistenceContext implements SnapshotPersistenceContext {
 	
     private EntityManager em;
     private boolean isJTA;
@@ -33,6 +34,18 @@ public class JpaPersistenceContext implements PersistenceContext {
         em.remove( sessionInfo );
     }
 
+    public void persist(SessionSnapshotInfo snapshotInfo) {
+        this.em.persist( snapshotInfo );
+    }
+
+    public SessionSnapshotInfo findSessionSnapshotInfo(Integer sessionId) {
+        return this.em.find( SessionSnapshotInfo.class, sessionId );
+    }
+
+    public void remove(SessionSnapshotInfo snapshotInfo) {
+        em.remove( snapshotInfo );
+    }
+
     public boolean isOpen() {
         return this.em.isOpen();
     }
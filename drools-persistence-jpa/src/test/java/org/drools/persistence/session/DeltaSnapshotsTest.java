@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.persistence.session;
+
+import static org.drools.persistence.util.PersistenceUtil.DROOLS_PERSISTENCE_UNIT_NAME;
+import static org.drools.persistence.util.PersistenceUtil.createEnvironment;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+
+import javax.naming.InitialContext;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.UserTransaction;
+
+import org.drools.core.command.impl.GenericCommand;
+import org.drools.core.command.impl.KnowledgeCommandContext;
+import org.drools.persistence.SingleSessionCommandService;
+import org.drools.persistence.SnapshotDelta;
+import org.drools.persistence.info.SessionInfo;
+import org.drools.persistence.info.SessionSnapshotInfo;
+import org.drools.persistence.util.PersistenceUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.command.Context;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.persistence.jpa.JPAKnowledgeService;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+public class DeltaSnapshotsTest {
+
+    private HashMap<String, Object> context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = PersistenceUtil.setupWithPoolingDataSource( DROOLS_PERSISTENCE_UNIT_NAME );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        PersistenceUtil.tearDown( context );
+    }
+
+    @Test
+    public void testReloadFromBaseAndDelta() {
+        KnowledgeBase kbase = createKnowledgeBase();
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, createDeltaEnvironment( 3 ) );
+        int id = ksession.getId();
+
+        // the first command writes the base snapshot
+        ksession.execute( new InsertStringsCommand( 0, 5000 ) );
+        SessionSnapshotInfo base = findSessionSnapshotInfo( id );
+        assertNotNull( base );
+        int version = base.getVersion();
+        assertTrue( SnapshotDelta.isDelta( findSessionInfo( id ).getData() ) );
+
+        ksession.insert( "fact 5000" );
+        ksession.insert( "fact 5001" );
+
+        // the base is left as it is, only the small delta is written
+        assertEquals( version, findSessionSnapshotInfo( id ).getVersion() );
+        byte[] delta = findSessionInfo( id ).getData();
+        assertTrue( SnapshotDelta.isDelta( delta ) );
+        assertTrue( delta.length < base.getData().length / 4 );
+
+        ksession = JPAKnowledgeService.loadStatefulKnowledgeSession( id, kbase, null, createDeltaEnvironment( 3 ) );
+        assertEquals( 5002, ksession.getFactCount() );
+    }
+
+    @Test
+    public void testCompaction() {
+        KnowledgeBase kbase = createKnowledgeBase();
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, createDeltaEnvironment( 2 ) );
+        int id = ksession.getId();
+
+        ksession.execute( new InsertStringsCommand( 0, 5000 ) );
+        int version = findSessionSnapshotInfo( id ).getVersion();
+
+        ksession.insert( "fact 5000" );
+        assertEquals( version, findSessionSnapshotInfo( id ).getVersion() );
+
+        // the second command after the previous compaction rewrites the base, the delta then only copies its
+        // blocks and holds its unaligned tail
+        ksession.insert( "fact 5001" );
+        assertEquals( version + 1, findSessionSnapshotInfo( id ).getVersion() );
+        assertTrue( findSessionInfo( id ).getData().length < SnapshotDelta.DEFAULT_BLOCK_SIZE + 100 );
+
+        ksession = JPAKnowledgeService.loadStatefulKnowledgeSession( id, kbase, null, createDeltaEnvironment( 2 ) );
+        assertEquals( 5002, ksession.getFactCount() );
+    }
+
+    @Test
+    public void testDisableDeltaSnapshots() {
+        KnowledgeBase kbase = createKnowledgeBase();
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, createDeltaEnvironment( 100 ) );
+        int id = ksession.getId();
+
+        ksession.execute( new InsertStringsCommand( 0, 100 ) );
+        assertNotNull( findSessionSnapshotInfo( id ) );
+
+        // out of delta mode, the next command drops the base and writes the whole session again
+        ksession = JPAKnowledgeService.loadStatefulKnowledgeSession( id, kbase, null, createEnvironment( context ) );
+        ksession.insert( "fact 100" );
+        assertNull( findSessionSnapshotInfo( id ) );
+        assertFalse( SnapshotDelta.isDelta( findSessionInfo( id ).getData() ) );
+
+        ksession = JPAKnowledgeService.loadStatefulKnowledgeSession( id, kbase, null, createEnvironment( context ) );
+        assertEquals( 101, ksession.getFactCount() );
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        KnowledgeBase kbase = createKnowledgeBase();
+        // every command compacts the session
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, createDeltaEnvironment( 1 ) );
+        int id = ksession.getId();
+
+        ksession.execute( new InsertStringsCommand( 0, 100 ) );
+        int version = findSessionSnapshotInfo( id ).getVersion();
+
+        UserTransaction ut = (UserTransaction) new InitialContext().lookup( "java:comp/UserTransaction" );
+        ut.begin();
+        ksession.insert( "fact 100" );
+        ut.rollback();
+
+        // the session is reloaded from the base and delta that were committed
+        assertEquals( version, findSessionSnapshotInfo( id ).getVersion() );
+        ksession.insert( "fact 101" );
+        assertEquals( version + 1, findSessionSnapshotInfo( id ).getVersion() );
+        assertEquals( 101, ksession.getFactCount() );
+
+        ksession = JPAKnowledgeService.loadStatefulKnowledgeSession( id, kbase, null, createDeltaEnvironment( 1 ) );
+        assertEquals( 101, ksession.getFactCount() );
+    }
+
+    private KnowledgeBase createKnowledgeBase() {
+        String str = "";
+        str += "package org.kie.test\n";
+        str += "rule rule1\n";
+        str += "when\n";
+        str += " $s: String( this == \"none\" )\n";
+        str += "then\n";
+        str += "end\n";
+
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( str.getBytes() ),
+                      ResourceType.DRL );
+        if ( kbuilder.hasErrors() ) {
+            fail( kbuilder.getErrors().toString() );
+        }
+
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+        return kbase;
+    }
+
+    private Environment createDeltaEnvironment(int compactionInterval) {
+        Environment env = createEnvironment( context );
+        env.set( SingleSessionCommandService.DELTA_SNAPSHOTS, true );
+        env.set( SingleSessionCommandService.DELTA_SNAPSHOTS_COMPACTION, compactionInterval );
+        return env;
+    }
+
+    private SessionInfo findSessionInfo(int id) {
+        EntityManager em = ((EntityManagerFactory) context.get( EnvironmentName.ENTITY_MANAGER_FACTORY )).createEntityManager();
+        try {
+            return em.find( SessionInfo.class, id );
+        } finally {
+            em.close();
+        }
+    }
+
+    private SessionSnapshotInfo findSessionSnapshotInfo(int id) {
+        EntityManager em = ((EntityManagerFactory) context.get( EnvironmentName.ENTITY_MANAGER_FACTORY )).createEntityManager();
+        try {
+            return em.find( SessionSnapshotInfo.class, id );
+        } finally {
+            em.close();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    public static class InsertStringsCommand implements GenericCommand<Object> {
+
+        private int from;
+        private int to;
+
+        public InsertStringsCommand(int from,
+                                    int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public Void execute(Context context) {
+            KieSession ksession = ((KnowledgeCommandContext) context).getKieSession();
+            for ( int i = from; i < to; i++ ) {
+                ksession.insert( "fact " + i );
+            }
+            return null;
+        }
+
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.persistence.session;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.drools.persistence.SnapshotDelta;
+import org.junit.Test;
+
+public class SnapshotDeltaTest {
+
+    private static final int BLOCK_SIZE = 64;
+
+    @Test
+    public void testUnchangedSnapshot() {
+        byte[] base = randomBytes( 10000, 1 );
+        byte[] delta = SnapshotDelta.diff( new SnapshotDelta.Signature( base, BLOCK_SIZE ), base );
+
+        assertArrayEquals( base, SnapshotDelta.patch( base, delta ) );
+        assertTrue( SnapshotDelta.isDelta( delta ) );
+        // a marshalled session starts with the serialization stream magic
+        assertFalse( SnapshotDelta.isDelta( new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5} ) );
+        // all blocks are copied in one operation, only the unaligned tail is a literal
+        assertTrue( delta.length < 100 );
+    }
+
+    @Test
+    public void testShiftedSnapshot() {
+        byte[] base = randomBytes( 10000, 2 );
+
+        // insert some bytes in the middle and change one at the end, the following blocks are no longer aligned
+        byte[] snapshot = new byte[base.length + 10];
+        System.arraycopy( base, 0, snapshot, 0, 5000 );
+        System.arraycopy( randomBytes( 10, 3 ), 0, snapshot, 5000, 10 );
+        System.arraycopy( base, 5000, snapshot, 5010, base.length - 5000 );
+        snapshot[9000]++;
+
+        byte[] delta = SnapshotDelta.diff( new SnapshotDelta.Signature( base, BLOCK_SIZE ), snapshot );
+
+        assertArrayEquals( snapshot, SnapshotDelta.patch( base, delta ) );
+        assertTrue( delta.length < 500 );
+    }
+
+    @Test
+    public void testUnrelatedSnapshots() {
+        byte[] base = randomBytes( 1000, 4 );
+        byte[] snapshot = randomBytes( 3000, 5 );
+        byte[] delta = SnapshotDelta.diff( new SnapshotDelta.Signature( base, BLOCK_SIZE ), snapshot );
+        assertArrayEquals( snapshot, SnapshotDelta.patch( base, delta ) );
+
+        byte[] empty = new byte[0];
+        delta = SnapshotDelta.diff( new SnapshotDelta.Signature( base, BLOCK_SIZE ), empty );
+        assertArrayEquals( empty, SnapshotDelta.patch( base, delta ) );
+    }
+
+    @Test
+    public void testWrongBase() {
+        byte[] base = randomBytes( 1000, 6 );
+        byte[] delta = SnapshotDelta.diff( new SnapshotDelta.Signature( base, BLOCK_SIZE ), base );
+        try {
+            SnapshotDelta.patch( randomBytes( 999, 6 ), delta );
+            fail( "The delta must not be applied to another base" );
+        } catch ( IllegalStateException e ) {
+            // expected
+        }
+    }
+
+    private static byte[] randomBytes(int length,
+                                      long seed) {
+        byte[] bytes = new byte[length];
+        new Random( seed ).nextBytes( bytes );
+        return bytes;
+    }
+}
@@ -91,6 +91,10 @@ import org.drools.builder.conf.KnowledgeBuilderOptionsConfiguration;
  * <li>drools.accumulate.function.sum = org.drools.core.base.accumulators.SumAccumulateFunction</li>
  * <li>drools.accumulate.function.collectSet = org.drools.core.base.accumulators.CollectSetAccumulateFunction</li>
  * <li>drools.accumulate.function.collectList = org.drools.core.base.accumulators.CollectListAccumulateFunction</li>
+ * <li>drools.accumulate.function.countDistinct = org.drools.core.base.accumulators.CountDistinctAccumulateFunction</li>
+ * <li>drools.accumulate.function.median = org.drools.core.base.accumulators.MedianAccumulateFunction</li>
+ * <li>drools.accumulate.function.variance = org.drools.core.base.accumulators.VarianceAccumulateFunction</li>
+ * <li>drools.accumulate.function.stddev = org.drools.core.base.accumulators.StandardDeviationAccumulateFunction</li>
  * </ul>
  * </p>
  */